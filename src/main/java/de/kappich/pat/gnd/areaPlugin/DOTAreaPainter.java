@@ -29,16 +29,18 @@ import de.kappich.pat.gnd.colorManagement.ColorManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTProperty;
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
 import de.kappich.pat.gnd.displayObjectToolkit.DynamicDOTItem;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
+import de.kappich.pat.gnd.displayObjectToolkit.PaintBatch;
 import de.kappich.pat.gnd.displayObjectToolkit.PrimitiveFormPropertyPair;
+import de.kappich.pat.gnd.displayObjectToolkit.StyleCache;
 import de.kappich.pat.gnd.gnd.MapPane;
-import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
+import de.kappich.pat.gnd.pluginInterfaces.BatchDisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType.DisplayObjectTypeItem;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.awt.Polygon;
 import java.awt.Rectangle;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 import javax.swing.JPanel;
@@ -51,65 +53,99 @@ import javax.swing.JPanel;
  *
  */
 @SuppressWarnings("serial")
-public class DOTAreaPainter extends JPanel implements DisplayObjectPainter {
+public class DOTAreaPainter extends JPanel implements BatchDisplayObjectPainter {
 	
 	public void paintDisplayObject(MapPane mapPane, Graphics2D g2D, 
 			DisplayObject displayObject, boolean selected) {
 		final DOTArea dotArea = (DOTArea) displayObject.getDOTCollection().getDisplayObjectType(
 				mapPane.getMapScale().intValue());
 		if ( dotArea != null ) {
-			final Color color;
-			if ( dotArea.isPropertyStatic( null, DOTProperty.FARBE)) {
-				color = ColorManager.getInstance().getColor((String) dotArea.getValueOfStaticProperty( null, DOTProperty.FARBE));
-			} else {
-				final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.FARBE);
-				if ( primitiveFormPropertyPair == null) {
-					return;
-				}
-				final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
-				if ( displayObjectTypeItem == null) {
-					return;
-				}
-				final Object propertyValue = displayObjectTypeItem.getPropertyValue();
-				if ( propertyValue != null) {
-					color = ColorManager.getInstance().getColor((String) propertyValue);
-				} else if ( displayObjectTypeItem == DynamicDOTItem.NO_DATA_ITEM) {
-					color = ColorManager.getInstance().getColor( "keine");
-				} else if ( displayObjectTypeItem == DynamicDOTItem.NO_SOURCE_ITEM) {
-					color = ColorManager.getInstance().getColor( "keine");
-				} else {
-					color = ColorManager.getInstance().getColor( "keine");
-				}
-				// Die letzten drei Fälle werden noch gleichbehandelt, aber bei einer kommenden
-				// Erweiterung muss hier unterschieden werden.
+			final Color color = determineColor( dotArea, displayObject);
+			if ( color == null) {
+				return;
 			}
-			
-			if ( !selected ) {
-				g2D.setColor( color);
-				g2D.setStroke( new BasicStroke( 1.f));
-			} else {
-				g2D.setColor(color.darker());
-				g2D.setStroke( new BasicStroke( 3.f));
+			paintArea( g2D, displayObject, color, mapPane.getSimplificationTolerance(), selected);
+		}
+    }
+	
+	/*
+	 * Zeichnet die Fläche mit der bereits bestimmten Farbe. Farben und Stricharten kommen aus dem
+	 * StyleCache, die Pfade aus dem GeometryStore, so dass beim Zeichnen nichts angelegt wird.
+	 */
+	void paintArea( Graphics2D g2D, DisplayObject displayObject, Color color, double tolerance, boolean selected) {
+		if ( !selected ) {
+			g2D.setColor( color);
+			g2D.setStroke( StyleCache.THIN_STROKE);
+		} else {
+			g2D.setColor( StyleCache.getDarker( color));
+			g2D.setStroke( StyleCache.SELECTION_STROKE);
+		}
+		final GeometryStore geometryStore = displayObject.getGeometryStore();
+		final int geometryIndex = displayObject.getGeometryIndex();
+		for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+			if ( geometryStore.getPartType( part) == GeometryStore.POLYGON) {
+				g2D.fill( geometryStore.getSharedPath( part, tolerance));
 			}
-			for ( Object o : displayObject.getCoordinates( 0)) {
-				Polygon polygon = (Polygon) o;
-				g2D.fill( polygon);
+		}
+	}
+	
+	public boolean addToBatch( MapPane mapPane, PaintBatch batch, DisplayObject displayObject, boolean selected) {
+		final DOTArea dotArea = (DOTArea) displayObject.getDOTCollection().getDisplayObjectType(
+				mapPane.getMapScale().intValue());
+		if ( dotArea == null ) {
+			return true;
+		}
+		final Color color = determineColor( dotArea, displayObject);
+		if ( color == null) {
+			return false;
+		}
+		final Color fillColor = selected ? StyleCache.getDarker( color) : color;
+		if ( fillColor.getAlpha() != 0) {	// Unsichtbare Flächen werden nicht gesammelt.
+			final GeometryStore geometryStore = displayObject.getGeometryStore();
+			final int geometryIndex = displayObject.getGeometryIndex();
+			final double tolerance = mapPane.getSimplificationTolerance();
+			for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+				if ( geometryStore.getPartType( part) == GeometryStore.POLYGON) {
+					batch.fill( fillColor, selected, geometryStore, part, tolerance);
+				}
 			}
-			displayObject.setDefaultType( 0);
 		}
-    }
+		return true;
+	}
+	
+	/*
+	 * Bestimmt die Farbe der Fläche oder gibt null zurück, wenn sie nicht bestimmt werden kann.
+	 */
+	private Color determineColor( final DOTArea dotArea, final DisplayObject displayObject) {
+		if ( dotArea.isPropertyStatic( null, DOTProperty.FARBE)) {
+			return ColorManager.getInstance().getColor((String) dotArea.getValueOfStaticProperty( null, DOTProperty.FARBE));
+		}
+		final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.FARBE);
+		final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
+		if ( displayObjectTypeItem == null) {
+			return null;
+		}
+		final Object propertyValue = displayObjectTypeItem.getPropertyValue();
+		// Die letzten drei Fälle werden noch gleichbehandelt, aber bei einer kommenden
+		// Erweiterung muss hier unterschieden werden.
+		if ( propertyValue != null) {
+			return ColorManager.getInstance().getColor((String) propertyValue);
+		} else if ( displayObjectTypeItem == DynamicDOTItem.NO_DATA_ITEM) {
+			return ColorManager.getInstance().getColor( "keine");
+		} else if ( displayObjectTypeItem == DynamicDOTItem.NO_SOURCE_ITEM) {
+			return ColorManager.getInstance().getColor( "keine");
+		} else {
+			return ColorManager.getInstance().getColor( "keine");
+		}
+	}
 
 	public Rectangle getBoundingRectangle(DisplayObject displayObject, int type) {
-		Rectangle rect = null;
-		for ( Object o : displayObject.getCoordinates(type)) {
-			Polygon polygon = (Polygon) o;
-			if ( rect == null) {
-				rect = polygon.getBounds();
-			} else {
-				rect.add( polygon.getBounds());
-			}
+		// Die Koordinaten hängen bei Flächen nicht vom Typ ab.
+		final Rectangle2D bounds = displayObject.getGeometryStore().getBounds2D( displayObject.getGeometryIndex());
+		if ( bounds == null) {
+			return null;
 		}
-		return rect;
+		return bounds.getBounds();
     }
 
 	public List<Object> getCoordinates(List<Object> coordinates, int type) {
@@ -29,15 +29,21 @@ import de.kappich.pat.gnd.gnd.PreferencesHandler;
 import de.kappich.pat.gnd.viewManagement.ViewManager;
 
 import java.awt.*;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.prefs.BackingStoreException;
 import java.util.prefs.Preferences;
 
 /**
  * Die Farbenverwaltung verwaltet die verfügbaren Farben.
+ * <p>
+ * Die Painter fragen die Farben beim Zeichnen von beliebigen Threads aus ab. Deshalb sind die Tabellen
+ * nebenläufig lesbar, und {@link #getColor(String)} wandelt jede Schreibweise eines Namens nur beim ersten
+ * Mal in Kleinbuchstaben um; danach findet es sie in einer Tabelle der Schreibweisen. Eine Farbe behält ihre Instanz, solange sich ihr Wert nicht ändert, so dass
+ * von ihr abgeleitete Varianten im {@link de.kappich.pat.gnd.displayObjectToolkit.StyleCache} gültig
+ * bleiben.
  * 
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -60,6 +66,7 @@ public class ColorManager {
 	public static void refreshInstance() {
 		_instance._colorMap.clear();
 		_instance._colorNameMap.clear();
+		_instance._spellingMap.clear();
 		_instance._basicColorNames.clear();
 		_instance.addBasicColors();
 		_instance.initializeFromPreferences();
@@ -75,8 +82,11 @@ public class ColorManager {
 	 */
 	public void addColor( String name, Color color, boolean storeInPreferences) {
 		final String lowerCasedName = name.toLowerCase();
-		_colorMap.put( lowerCasedName, color);
-		_colorNameMap.put( color, lowerCasedName);
+		final Color oldColor = _colorMap.get( lowerCasedName);
+		final Color stableColor = color.equals( oldColor) ? oldColor : color;
+		_colorMap.put( lowerCasedName, stableColor);
+		_colorNameMap.put( stableColor, lowerCasedName);
+		_spellingMap.clear();
 		if ( storeInPreferences) {
 			putPreference( getPreferenceStartPath(), name, color);
 		}
@@ -96,7 +106,10 @@ public class ColorManager {
 			return false;
 		}
 		final Color removedColor = _colorMap.remove( lowerCaseName);
-		_colorNameMap.remove( removedColor);
+		if ( removedColor != null) {
+			_colorNameMap.remove( removedColor);
+		}
+		_spellingMap.clear();
 		deletePreference( getPreferenceStartPath(), name);
 		return true;
 	}
@@ -109,8 +122,19 @@ public class ColorManager {
 	 * @return die gesuchte Farbe oder <code>null</code>, wenn sie nicht existiert
 	 */
 	public Color getColor( String name) {
-		final String lowerCase = name.toLowerCase();
-		return _colorMap.get( lowerCase);
+		Color color = _colorMap.get( name);
+		if ( color != null) {
+			return color;
+		}
+		color = _spellingMap.get( name);
+		if ( color != null) {
+			return color;
+		}
+		color = _colorMap.get( name.toLowerCase());
+		if ( color != null) {
+			_spellingMap.put( name, color);
+		}
+		return color;
 	}
 	
 	/**
@@ -120,6 +144,9 @@ public class ColorManager {
 	 * @return der Name der farbe oder <code>null</code>, wenn die Farbe nicht existiert
 	 */
 	public String getColorName( Color color) {
+		if ( color == null) {
+			return null;
+		}
 		return _colorNameMap.get( color);
 	}
 	
@@ -243,8 +270,10 @@ public class ColorManager {
 		}
 	}
 	
-	private final Map<String, Color> _colorMap  = new HashMap<String, Color>();
-	private final Map<Color, String> _colorNameMap = new HashMap<Color, String>();
+	private final Map<String, Color> _colorMap  = new ConcurrentHashMap<String, Color>();
+	private final Map<Color, String> _colorNameMap = new ConcurrentHashMap<Color, String>();
+	/** Die Farben zu den Schreibweisen, die nicht kleingeschrieben sind; sie wird bei jeder Änderung geleert. */
+	private final Map<String, Color> _spellingMap = new ConcurrentHashMap<String, Color>();
 	private final Set<String> _basicColorNames = new HashSet<String>();
 	
 	private static final String COLOR_RED = "COLOR_RED";
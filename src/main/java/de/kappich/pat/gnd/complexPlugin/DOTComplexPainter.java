@@ -29,20 +29,18 @@ import de.kappich.pat.gnd.colorManagement.ColorManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTProperty;
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
 import de.kappich.pat.gnd.displayObjectToolkit.DynamicDOTItem;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
 import de.kappich.pat.gnd.displayObjectToolkit.PrimitiveFormPropertyPair;
-import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+import de.kappich.pat.gnd.displayObjectToolkit.StyleCache;
 import de.kappich.pat.gnd.gnd.MapPane;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType.DisplayObjectTypeItem;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
-import java.awt.Polygon;
 import java.awt.Rectangle;
-import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.List;
 
 import javax.swing.JPanel;
@@ -91,57 +89,54 @@ public class DOTComplexPainter extends JPanel implements DisplayObjectPainter {
 			
 			if ( !selected ) {
 				g2D.setColor( color);
-				g2D.setStroke( new BasicStroke( 1.f));
+				g2D.setStroke( StyleCache.THIN_STROKE);
 			} else {
-				g2D.setColor(color.darker());
-				g2D.setStroke( new BasicStroke( 3.f));
+				g2D.setColor( StyleCache.getDarker( color));
+				g2D.setStroke( StyleCache.SELECTION_STROKE);
 			}
-			for ( Object o : displayObject.getCoordinates( 0)) {
-				if ( o instanceof PointWithAngle) {
-					PointWithAngle pointWithAngle = (PointWithAngle) o;
-					final Point2D point = pointWithAngle.getPoint();
-					final Double  pointX = point.getX();
-					final Double  pointY = point.getY();
-					g2D.drawOval( pointX.intValue()-1, pointY.intValue()-1, 2, 2);
-				} else if ( o instanceof Path2D.Double) {
-					Path2D.Double polyline = (Path2D.Double) o;
-					g2D.draw( polyline);
-				} else if ( o instanceof Polygon) {
-					Polygon polygon = (Polygon) o;
-					g2D.fill( polygon);
+			final GeometryStore geometryStore = displayObject.getGeometryStore();
+			final int geometryIndex = displayObject.getGeometryIndex();
+			final double tolerance = mapPane.getSimplificationTolerance();
+			for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+				switch ( geometryStore.getPartType( part)) {
+					case GeometryStore.POINT:
+						final int vertex = geometryStore.getFirstVertex( part);
+						g2D.drawOval( (int) geometryStore.getX( vertex)-1, (int) geometryStore.getY( vertex)-1, 2, 2);
+						break;
+					case GeometryStore.POLYLINE:
+						g2D.draw( geometryStore.getSharedPath( part, tolerance));
+						break;
+					case GeometryStore.POLYGON:
+						g2D.fill( geometryStore.getSharedPath( part, tolerance));
+						break;
 				}
 			}
-			displayObject.setDefaultType( 0);
 		}
     }
 
 	public Rectangle getBoundingRectangle(DisplayObject displayObject, int type) {
+		// Die Koordinaten hängen bei Komplexen nicht vom Typ ab.
 		Rectangle rect = null;
-		for ( Object o : displayObject.getCoordinates(type)) {
-			if ( o instanceof PointWithAngle) {
-				PointWithAngle pointWithAngle = (PointWithAngle) o;
-				final Point2D point = pointWithAngle.getPoint();
-				final Double x = point.getX();
-				final Double y = point.getY();
-				Point p = new Point( x.intValue(), y.intValue());
+		final GeometryStore geometryStore = displayObject.getGeometryStore();
+		final int geometryIndex = displayObject.getGeometryIndex();
+		for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+			if ( geometryStore.getPartType( part) == GeometryStore.POINT) {
+				final int vertex = geometryStore.getFirstVertex( part);
+				Point p = new Point( (int) geometryStore.getX( vertex), (int) geometryStore.getY( vertex));
 				if ( rect == null) {
 					rect = new Rectangle( p);
 				} else {
 					rect.add( p);
 				}
-			} else if ( o instanceof Path2D.Double) {
-				Path2D.Double polyline = (Path2D.Double) o;
-				if ( rect == null) {
-					rect = polyline.getBounds();
-				} else {
-					rect.add( polyline.getBounds());
+			} else {
+				final Rectangle2D partBounds = geometryStore.getPartBounds2D( part);
+				if ( partBounds == null) {
+					continue;
 				}
-			} else if ( o instanceof Polygon) {
-				Polygon polygon = (Polygon) o;
 				if ( rect == null) {
-					rect = polygon.getBounds();
+					rect = partBounds.getBounds();
 				} else {
-					rect.add( polygon.getBounds());
+					rect.add( partBounds.getBounds());
 				}
 			}
 		}
@@ -40,12 +40,12 @@ public final class GeoTransformation {
 	/**
 	 * UTM-Skalierungsfaktor.
 	 */
-	private static final double UTM_SCALE_FACTOR = 0.9996;
+	static final double UTM_SCALE_FACTOR = 0.9996;
 	
 	/** Ellipsoid Halbachse a. */
-	private static final double WGS84_A = 6378137.0;
+	static final double WGS84_A = 6378137.0;
 	/** Ellipsoid Halbachse b. */
-	private static final double WGS84_B = 6356752.314;
+	static final double WGS84_B = 6356752.314;
 	
 	/**
 	 * mittlerer Erdradius.
@@ -339,12 +339,15 @@ public final class GeoTransformation {
 	 * Setzt den Zentralmeridian von außen und unterbindet damit die automatische interne Berechnung.
 	 * 
 	 * @param centralMeridian der neue Zentralmeridian
+	 * @deprecated Der Zentralmeridian gilt für alle Benutzer dieser Klasse in der ganzen JVM; die GND
+	 *             benutzt stattdessen einen {@link ProjectionContext}.
 	 */
+	@Deprecated
 	public static void setCentralMeridianFromOutside( final double centralMeridian) {
 		_centralMeridian = Math.toRadians(centralMeridian);
 		_centralMeridianIsSetFromOutside = true;
 	}
-	
+
 	/**
 	 * Transformiert die UTM-Koordinaten nach WGS84.
 	 * 
@@ -403,13 +406,140 @@ public final class GeoTransformation {
 			double wgs84breite, UTMCoordinate utm) {
 		double lon = Math.toRadians(wgs84laenge);
 		double lat = Math.toRadians(wgs84breite);
+		utm.setZone( getUTMZone( wgs84laenge));
+		latLonToUTMXY(lat, lon, utm);
+	}
+	
+	/**
+	 * Gibt die UTM-Zone zu einer geographischen Länge zurück.
+	 * 
+	 * @param wgs84laenge
+	 *            geographische L&auml;nge in Dezimalgrad
+	 * @return die UTM-Zone
+	 */
+	public static int getUTMZone(double wgs84laenge) {
 		final double a = (wgs84laenge + 180.0) / 6;
 		if ( a>0.) {
-			utm.setZone( 1+ (int) a);
+			return 1+ (int) a;
 		} else {
-			utm.setZone( (int) Math.floor(a) + 1);
+			return (int) Math.floor(a) + 1;
+		}
+	}
+	
+	/**
+	 * Projeziert die ersten <code>length</code> WGS84-Koordinaten der Arrays nach UTM; jeder Punkt
+	 * wird dabei wie von {@link #wGS84ToUTM(double, double, UTMCoordinate)} in seiner eigenen Zone
+	 * projeziert. Aufeinanderfolgende Punkte derselben Zone werden gemeinsam mit
+	 * {@link #wGS84ToUTM(double[], double[], double[], double[], int, int, int)} umgerechnet.
+	 * <p>
+	 * Die Ergebnis-Arrays dürfen die Eingabe-Arrays sein; dann wird an Ort und Stelle umgerechnet.
+	 * 
+	 * @param wgs84laengen
+	 *            geographische L&auml;ngen in Dezimalgrad
+	 * @param wgs84breiten
+	 *            geographische Breiten in Dezimalgrad
+	 * @param x
+	 *            das Array für die Rechtswerte
+	 * @param y
+	 *            das Array für die Hochwerte
+	 * @param length
+	 *            die Anzahl der umzurechnenden Koordinaten
+	 */
+	public static void wGS84ToUTM(double[] wgs84laengen, double[] wgs84breiten, double[] x, double[] y, int length) {
+		if ( _centralMeridianIsSetFromOutside) {
+			wGS84ToUTM( wgs84laengen, wgs84breiten, x, y, 0, length, 0);
+			return;
+		}
+		int start = 0;
+		while ( start < length) {
+			final int zone = getUTMZone( wgs84laengen[start]);
+			int end = start + 1;
+			while ( (end < length) && (getUTMZone( wgs84laengen[end]) == zone)) {
+				end++;
+			}
+			wGS84ToUTM( wgs84laengen, wgs84breiten, x, y, start, end, zone);
+			start = end;
+		}
+	}
+	
+	/**
+	 * Projeziert die WGS84-Koordinaten mit den Indizes aus [<code>start</code>, <code>end</code>)
+	 * in der übergebenen UTM-Zone nach UTM. Ist der Zentralmeridian von außen gesetzt, so wird die
+	 * Zone ignoriert. Die Ergebnis-Arrays dürfen die Eingabe-Arrays sein.
+	 * <p>
+	 * Die Koeffizienten der Abbildung werden je Zone einmal berechnet; siehe {@link TransverseMercator}.
+	 * 
+	 * @param wgs84laengen
+	 *            geographische L&auml;ngen in Dezimalgrad
+	 * @param wgs84breiten
+	 *            geographische Breiten in Dezimalgrad
+	 * @param x
+	 *            das Array für die Rechtswerte
+	 * @param y
+	 *            das Array für die Hochwerte
+	 * @param start
+	 *            der erste Index
+	 * @param end
+	 *            der Index hinter dem letzten umzurechnenden Punkt
+	 * @param zone
+	 *            die UTM-Zone
+	 */
+	public static void wGS84ToUTM(double[] wgs84laengen, double[] wgs84breiten, double[] x, double[] y,
+			int start, int end, int zone) {
+		getUTM( zone).project( wgs84laengen, wgs84breiten, x, y, start, end);
+	}
+	
+	/**
+	 * Rechnet die UTM-Koordinaten mit den Indizes aus [<code>start</code>, <code>end</code>) der
+	 * übergebenen Zone und Halbkugel nach WGS84 um; das Gegenstück zu
+	 * {@link #wGS84ToUTM(double[], double[], double[], double[], int, int, int)}. Die Ergebnisse
+	 * sind wie bei {@link #uTMToWGS84(UTMCoordinate)} in Dezimalgrad. Die Ergebnis-Arrays dürfen die
+	 * Eingabe-Arrays sein.
+	 * 
+	 * @param x
+	 *            die Rechtswerte in Metern
+	 * @param y
+	 *            die Hochwerte in Metern
+	 * @param wgs84laengen
+	 *            das Array für die geographischen L&auml;ngen
+	 * @param wgs84breiten
+	 *            das Array für die geographischen Breiten
+	 * @param start
+	 *            der erste Index
+	 * @param end
+	 *            der Index hinter dem letzten umzurechnenden Punkt
+	 * @param zone
+	 *            die UTM-Zone
+	 * @param hemisphere
+	 *            die Halbkugel
+	 */
+	public static void uTMToWGS84(double[] x, double[] y, double[] wgs84laengen, double[] wgs84breiten,
+			int start, int end, int zone, UTMCoordinate.UTMHemisphere hemisphere) {
+		final double falseNorthing = (hemisphere == UTMCoordinate.UTMHemisphere.SUEDHALBKUGEL) ? 10000000.0 : 0.0;
+		getUTM( zone).unproject( x, y, wgs84laengen, wgs84breiten, start, end, falseNorthing);
+	}
+	
+	/*
+	 * Gibt die UTM-Abbildung der Zone zurück, oder die zum von außen gesetzten Zentralmeridian.
+	 */
+	private static TransverseMercator getUTM(int zone) {
+		if ( _centralMeridianIsSetFromOutside) {
+			return new TransverseMercator( WGS84_A, WGS84_B, UTM_SCALE_FACTOR, 500000.0, true, _centralMeridian);
+		}
+		if ( (zone >= 1) && (zone <= 60)) {
+			return UTM_ZONES[zone];
+		}
+		return new TransverseMercator( WGS84_A, WGS84_B, UTM_SCALE_FACTOR, 500000.0, true, uTMCentralMeridian( zone));
+	}
+	
+	/** Die UTM-Abbildungen der Zonen 1 bis 60. */
+	private static final TransverseMercator[] UTM_ZONES = new TransverseMercator[61];
+	
+	static {
+		for ( int zone = 1; zone <= 60; zone++) {
+			UTM_ZONES[zone] = new TransverseMercator(
+					WGS84_A, WGS84_B, UTM_SCALE_FACTOR, 500000.0, true, Math.toRadians(-183.0 + (zone * 6.0)));
 		}
-		latLonToUTMXY(lat, lon, utm);
 	}
 	
 	/**
@@ -0,0 +1,345 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.kappich.pat.gnd.
+ * 
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.coorTransform;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Ein ProjectionContext bildet geographische WGS84-Koordinaten auf ebene Koordinaten in Metern ab.
+ * <p>
+ * Ein ProjectionContext ist unveränderlich: alle Konstanten der Abbildung werden bei der Erzeugung
+ * berechnet, und es gibt keinen statischen Zustand. Er kann deshalb ohne Synchronisation von
+ * mehreren Threads gleichzeitig benutzt werden, und zwei Netzdarstellungen mit verschiedenen
+ * Projektionen beeinflussen sich nicht. Die GND erzeugt ihn einmal je Instanz mit
+ * {@link #createFromSystemProperties()} und reicht ihn an die Kartenansicht und den
+ * DisplayObjectManager weiter.
+ * <p>
+ * Folgende Projektionen gibt es:
+ * <ul>
+ * <li>UTM mit festem Zentralmeridian ({@link #createUTM(double)}), die Voreinstellung der GND,</li>
+ * <li>UTM, bei dem jeder Punkt in seiner eigenen Zone abgebildet wird ({@link #createUTMWithZones()}),</li>
+ * <li>Gauß-Krüger mit 3°-Meridianstreifen auf dem Bessel-Ellipsoid ({@link #createGaussKrueger(int)}),</li>
+ * <li>Web-Mercator (EPSG:3857, {@link #createWebMercator()}), die billigste Abbildung, etwa für Übersichtskarten.</li>
+ * </ul>
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public abstract class ProjectionContext {
+
+	/**
+	 * Bildet die Punkte mit den Indizes aus [<code>start</code>, <code>end</code>) ab. Die
+	 * Ergebnis-Arrays dürfen die Eingabe-Arrays sein; dann wird an Ort und Stelle umgerechnet.
+	 *
+	 * @param laengen die geographischen Längen in Dezimalgrad
+	 * @param breiten die geographischen Breiten in Dezimalgrad
+	 * @param x das Array für die Rechtswerte
+	 * @param y das Array für die Hochwerte
+	 * @param start der erste Index
+	 * @param end der Index hinter dem letzten Punkt
+	 */
+	public abstract void project( double[] laengen, double[] breiten, double[] x, double[] y, int start, int end);
+
+	/**
+	 * Rechnet die Punkte mit den Indizes aus [<code>start</code>, <code>end</code>) zurück in
+	 * geographische Koordinaten in Dezimalgrad. Die Ergebnis-Arrays dürfen die Eingabe-Arrays sein.
+	 *
+	 * @param x die Rechtswerte in Metern
+	 * @param y die Hochwerte in Metern
+	 * @param laengen das Array für die geographischen Längen
+	 * @param breiten das Array für die geographischen Breiten
+	 * @param start der erste Index
+	 * @param end der Index hinter dem letzten Punkt
+	 * @throws UnsupportedOperationException wenn die Projektion nicht eindeutig umkehrbar ist
+	 */
+	public abstract void unproject( double[] x, double[] y, double[] laengen, double[] breiten, int start, int end);
+
+	/**
+	 * Gibt eine Beschreibung der Projektion zurück. Zwei ProjectionContexts haben genau dann dieselbe
+	 * Beschreibung, wenn sie dieselben Ergebnisse liefern; die Beschreibung eignet sich deshalb als
+	 * Teil von Cache-Schlüsseln.
+	 *
+	 * @return die Beschreibung
+	 */
+	public abstract String getDescription();
+
+	/**
+	 * Bildet einen einzelnen Punkt ab.
+	 *
+	 * @param laenge die geographische Länge in Dezimalgrad
+	 * @param breite die geographische Breite in Dezimalgrad
+	 * @return der abgebildete Punkt
+	 */
+	public Point2D.Double project( final double laenge, final double breite) {
+		final double[] x = { laenge };
+		final double[] y = { breite };
+		project( x, y, x, y, 0, 1);
+		return new Point2D.Double( x[0], y[0]);
+	}
+
+	@Override
+	public String toString() {
+		return getDescription();
+	}
+
+	/**
+	 * Erzeugt eine UTM-Projektion auf dem WGS84-Ellipsoid mit festem Zentralmeridian.
+	 *
+	 * @param centralMeridian die Länge des Zentralmeridians in Dezimalgrad
+	 * @return der ProjectionContext
+	 */
+	public static ProjectionContext createUTM( final double centralMeridian) {
+		return new UTMProjection( centralMeridian);
+	}
+
+	/**
+	 * Erzeugt eine UTM-Projektion auf dem WGS84-Ellipsoid, die jeden Punkt in seiner eigenen Zone
+	 * abbildet. Punkte verschiedener Zonen liegen dabei nicht im selben Koordinatensystem; deshalb ist
+	 * diese Projektion nicht umkehrbar.
+	 *
+	 * @return der ProjectionContext
+	 */
+	public static ProjectionContext createUTMWithZones() {
+		return UTM_WITH_ZONES;
+	}
+
+	/**
+	 * Erzeugt eine Gauß-Krüger-Projektion mit der Kennziffer des 3°-Meridianstreifens, etwa 3 für den
+	 * Zentralmeridian 9°. Die WGS84-Koordinaten werden ohne Datumsübergang auf dem Bessel-Ellipsoid
+	 * abgebildet; das genügt für die Darstellung, die Ergebnisse weichen aber um bis zu einigen hundert
+	 * Metern von amtlichen Gauß-Krüger-Koordinaten ab.
+	 *
+	 * @param zone die Kennziffer des Meridianstreifens
+	 * @return der ProjectionContext
+	 */
+	public static ProjectionContext createGaussKrueger( final int zone) {
+		return new GaussKruegerProjection( zone);
+	}
+
+	/**
+	 * Erzeugt eine Web-Mercator-Projektion (EPSG:3857). Die Abbildung ist winkeltreu, aber nicht
+	 * längentreu: in 50° Breite ist ein Meter der Karte nur etwa 0,64 Meter in der Natur. Maßstab und
+	 * Maßstabsleiste gelten deshalb nur am Äquator genau.
+	 *
+	 * @return der ProjectionContext
+	 */
+	public static ProjectionContext createWebMercator() {
+		return WEB_MERCATOR;
+	}
+
+	/**
+	 * Erzeugt den ProjectionContext aus den System-Properties. <code>de.kappich.pat.gnd.Projektion</code>
+	 * wählt die Projektion: <code>UTM</code> (Voreinstellung), <code>UTM-Zonen</code>,
+	 * <code>Gauss-Krueger</code> oder <code>Web-Mercator</code>. Für UTM und Gauß-Krüger legt
+	 * <code>de.kappich.pat.gnd.ZentralMeridian</code> den Zentralmeridian fest (Voreinstellung 9°,
+	 * erlaubt sind Werte aus [-9, 27]); bei Gauß-Krüger wird er auf den nächsten Meridianstreifen
+	 * gerundet.
+	 *
+	 * @return der ProjectionContext
+	 */
+	public static ProjectionContext createFromSystemProperties() {
+		double centralMeridian = DEFAULT_CENTRAL_MERIDIAN;
+		final String meridianProperty = System.getProperty( "de.kappich.pat.gnd.ZentralMeridian");
+		if ( meridianProperty != null) {
+			try {
+				centralMeridian = Double.parseDouble( meridianProperty.trim());
+			}
+			catch ( NumberFormatException e) {
+				centralMeridian = DEFAULT_CENTRAL_MERIDIAN;
+			}
+			if ( (centralMeridian < -9.) || (centralMeridian > 27.)) {
+				centralMeridian = DEFAULT_CENTRAL_MERIDIAN;
+			}
+		}
+		final String projection = System.getProperty( "de.kappich.pat.gnd.Projektion", "UTM").trim();
+		if ( projection.equalsIgnoreCase( "UTM-Zonen")) {
+			return createUTMWithZones();
+		} else if ( projection.equalsIgnoreCase( "Gauss-Krueger") || projection.equalsIgnoreCase( "Gauß-Krüger")) {
+			return createGaussKrueger( (int) Math.round( centralMeridian / 3.));
+		} else if ( projection.equalsIgnoreCase( "Web-Mercator")) {
+			return createWebMercator();
+		}
+		return createUTM( centralMeridian);
+	}
+
+	/*
+	 * UTM mit festem Zentralmeridian. Hochwerte auf der Südhalbkugel erhalten keinen Zuschlag, sondern
+	 * bleiben negativ; so ist die Abbildung auf beiden Halbkugeln eindeutig umkehrbar.
+	 */
+	private static final class UTMProjection extends ProjectionContext {
+
+		UTMProjection( final double centralMeridian) {
+			_transverseMercator = new TransverseMercator( GeoTransformation.WGS84_A, GeoTransformation.WGS84_B,
+					GeoTransformation.UTM_SCALE_FACTOR, 500000.0, false, Math.toRadians( centralMeridian));
+			_description = "UTM/WGS84 Zentralmeridian=" + centralMeridian;
+		}
+
+		@Override
+		public void project( double[] laengen, double[] breiten, double[] x, double[] y, int start, int end) {
+			_transverseMercator.project( laengen, breiten, x, y, start, end);
+		}
+
+		@Override
+		public void unproject( double[] x, double[] y, double[] laengen, double[] breiten, int start, int end) {
+			_transverseMercator.unproject( x, y, laengen, breiten, start, end, 0.0);
+		}
+
+		@Override
+		public String getDescription() {
+			return _description;
+		}
+
+		private final TransverseMercator _transverseMercator;
+
+		private final String _description;
+	}
+
+	/*
+	 * UTM mit der Zone jedes einzelnen Punktes, wie GeoTransformation ohne gesetzten Zentralmeridian.
+	 */
+	private static final class UTMZoneProjection extends ProjectionContext {
+
+		UTMZoneProjection() {
+			for ( int zone = 1; zone <= 60; zone++) {
+				_zones[zone] = new TransverseMercator( GeoTransformation.WGS84_A, GeoTransformation.WGS84_B,
+						GeoTransformation.UTM_SCALE_FACTOR, 500000.0, true, Math.toRadians( -183.0 + (zone * 6.0)));
+			}
+		}
+
+		@Override
+		public void project( double[] laengen, double[] breiten, double[] x, double[] y, int start, int end) {
+			while ( start < end) {
+				final int zone = getZone( laengen[start]);
+				int runEnd = start + 1;
+				while ( (runEnd < end) && (getZone( laengen[runEnd]) == zone)) {
+					runEnd++;
+				}
+				_zones[zone].project( laengen, breiten, x, y, start, runEnd);
+				start = runEnd;
+			}
+		}
+
+		@Override
+		public void unproject( double[] x, double[] y, double[] laengen, double[] breiten, int start, int end) {
+			throw new UnsupportedOperationException( "UTM mit wechselnden Zonen ist nicht umkehrbar.");
+		}
+
+		@Override
+		public String getDescription() {
+			return "UTM/WGS84 Zentralmeridian=Zone";
+		}
+
+		/*
+		 * Die Zone wie in GeoTransformation.getUTMZone, auf [1, 60] beschränkt.
+		 */
+		private static int getZone( final double laenge) {
+			return Math.max( 1, Math.min( 60, GeoTransformation.getUTMZone( laenge)));
+		}
+
+		private final TransverseMercator[] _zones = new TransverseMercator[61];
+	}
+
+	/*
+	 * Gauß-Krüger auf dem Bessel-Ellipsoid mit 3°-Meridianstreifen.
+	 */
+	private static final class GaussKruegerProjection extends ProjectionContext {
+
+		GaussKruegerProjection( final int zone) {
+			_transverseMercator = new TransverseMercator( BESSEL_A, BESSEL_B, 1.0, zone * 1000000.0 + 500000.0, false,
+					Math.toRadians( zone * 3.0));
+			_description = "Gauss-Krueger/Bessel Kennziffer=" + zone;
+		}
+
+		@Override
+		public void project( double[] laengen, double[] breiten, double[] x, double[] y, int start, int end) {
+			_transverseMercator.project( laengen, breiten, x, y, start, end);
+		}
+
+		@Override
+		public void unproject( double[] x, double[] y, double[] laengen, double[] breiten, int start, int end) {
+			_transverseMercator.unproject( x, y, laengen, breiten, start, end, 0.0);
+		}
+
+		@Override
+		public String getDescription() {
+			return _description;
+		}
+
+		private final TransverseMercator _transverseMercator;
+
+		private final String _description;
+	}
+
+	/*
+	 * Web-Mercator auf der Kugel mit dem WGS84-Äquatorradius. Die Breite wird auf den Bereich
+	 * der Kachelsysteme beschränkt, da die Pole nicht abbildbar sind.
+	 */
+	private static final class WebMercatorProjection extends ProjectionContext {
+
+		@Override
+		public void project( double[] laengen, double[] breiten, double[] x, double[] y, int start, int end) {
+			final double radius = GeoTransformation.WGS84_A;
+			for ( int i = start; i < end; i++) {
+				final double breite = Math.max( -MAX_LATITUDE, Math.min( MAX_LATITUDE, breiten[i]));
+				final double sinPhi = Math.sin( Math.toRadians( breite));
+				x[i] = radius * Math.toRadians( laengen[i]);
+				y[i] = radius * 0.5 * Math.log( (1.0 + sinPhi) / (1.0 - sinPhi));
+			}
+		}
+
+		@Override
+		public void unproject( double[] x, double[] y, double[] laengen, double[] breiten, int start, int end) {
+			final double radius = GeoTransformation.WGS84_A;
+			for ( int i = start; i < end; i++) {
+				final double northing = y[i];
+				laengen[i] = Math.toDegrees( x[i] / radius);
+				breiten[i] = Math.toDegrees( 2.0 * Math.atan( Math.exp( northing / radius)) - Math.PI / 2.0);
+			}
+		}
+
+		@Override
+		public String getDescription() {
+			return "Web-Mercator/WGS84";
+		}
+
+		/** Die größte abgebildete Breite in Grad. */
+		private static final double MAX_LATITUDE = 85.05112878;
+	}
+
+	/** Der voreingestellte Zentralmeridian in Grad. */
+	private static final double DEFAULT_CENTRAL_MERIDIAN = 9.0;
+
+	/** Die große Halbachse des Bessel-Ellipsoids. */
+	private static final double BESSEL_A = 6377397.155;
+
+	/** Die kleine Halbachse des Bessel-Ellipsoids. */
+	private static final double BESSEL_B = 6356078.963;
+
+	private static final ProjectionContext UTM_WITH_ZONES = new UTMZoneProjection();
+
+	private static final ProjectionContext WEB_MERCATOR = new WebMercatorProjection();
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ * 
+ * This file is part of de.kappich.pat.gnd.
+ * 
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436 
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.coorTransform;
+
+/**
+ * Eine TransverseMercator-Abbildung (Gauß-Krüger-Abbildung) für ein Ellipsoid, einen Zentralmeridian,
+ * einen Maßstabsfaktor und einen Rechtswert-Zuschlag. Alle Koeffizienten werden bei der Konstruktion
+ * berechnet; ein Objekt ist unveränderlich und kann von beliebig vielen Threads gleichzeitig benutzt
+ * werden.
+ * <p>
+ * Die Formeln sind die von {@link GeoTransformation} (Hoffmann-Wellenhof, Lichtenegger und Collins,
+ * GPS: Theory and Practice). In den Schleifen werden je Punkt nur Sinus und Kosinus eines Winkels
+ * ausgewertet; Tangens und die Sinuswerte der Vielfachen des Winkels folgen aus den
+ * Additionstheoremen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class TransverseMercator {
+
+	/**
+	 * Konstruiert eine TransverseMercator-Abbildung.
+	 *
+	 * @param a die große Halbachse des Ellipsoids in Metern
+	 * @param b die kleine Halbachse des Ellipsoids in Metern
+	 * @param scaleFactor der Maßstabsfaktor auf dem Zentralmeridian
+	 * @param falseEasting der Zuschlag zum Rechtswert in Metern
+	 * @param southernFalseNorthing <code>true</code>, wenn negative Hochwerte wie bei UTM um 10000 km erhöht werden
+	 * @param centralMeridian die Länge des Zentralmeridians im Bogenmaß
+	 */
+	TransverseMercator( final double a, final double b, final double scaleFactor, final double falseEasting,
+			final boolean southernFalseNorthing, final double centralMeridian) {
+		final double n = (a - b) / (a + b);
+		final double n2 = n * n;
+		final double n3 = n2 * n;
+		final double n4 = n2 * n2;
+		final double n5 = n4 * n;
+		_alpha = ((a + b) / 2.0) * (1.0 + (n2 / 4.0) + (n4 / 64.0));
+		_beta = (-3.0 * n / 2.0) + (9.0 * n3 / 16.0) + (-3.0 * n5 / 32.0);
+		_gamma = (15.0 * n2 / 16.0) + (-15.0 * n4 / 32.0);
+		_delta = (-35.0 * n3 / 48.0) + (105.0 * n5 / 256.0);
+		_epsilon = (315.0 * n4 / 512.0);
+		_alphaF = _alpha;
+		_betaF = (3.0 * n / 2.0) + (-27.0 * n3 / 32.0) + (269.0 * n5 / 512.0);
+		_gammaF = (21.0 * n2 / 16.0) + (-55.0 * n4 / 32.0);
+		_deltaF = (151.0 * n3 / 96.0) + (-417.0 * n5 / 128.0);
+		_epsilonF = (1097.0 * n4 / 512.0);
+		_ep2 = (a * a - b * b) / (b * b);
+		_nFactor = a * a / b;
+		_scaleFactor = scaleFactor;
+		_falseEasting = falseEasting;
+		_southernFalseNorthing = southernFalseNorthing;
+		_centralMeridian = centralMeridian;
+	}
+
+	/**
+	 * Gibt die Länge des Zentralmeridians im Bogenmaß zurück.
+	 *
+	 * @return die Länge des Zentralmeridians
+	 */
+	double getCentralMeridian() {
+		return _centralMeridian;
+	}
+
+	/**
+	 * Bildet die Punkte mit den Indizes aus [<code>start</code>, <code>end</code>) ab. Die
+	 * Ergebnis-Arrays dürfen die Eingabe-Arrays sein.
+	 *
+	 * @param laengen die geographischen Längen in Dezimalgrad
+	 * @param breiten die geographischen Breiten in Dezimalgrad
+	 * @param x das Array für die Rechtswerte
+	 * @param y das Array für die Hochwerte
+	 * @param start der erste Index
+	 * @param end der Index hinter dem letzten Punkt
+	 */
+	void project( final double[] laengen, final double[] breiten, final double[] x, final double[] y,
+			final int start, final int end) {
+		final double lambda0 = _centralMeridian;
+		final double alpha = _alpha;
+		final double beta = _beta;
+		final double gamma = _gamma;
+		final double delta = _delta;
+		final double epsilon = _epsilon;
+		final double ep2 = _ep2;
+		final double nFactor = _nFactor;
+		final double scaleFactor = _scaleFactor;
+		final double falseEasting = _falseEasting;
+		final double southernFalseNorthing = _southernFalseNorthing ? 10000000.0 : 0.0;
+		for ( int i = start; i < end; i++) {
+			final double phi = Math.toRadians( breiten[i]);
+			final double deltaLambda = Math.toRadians( laengen[i]) - lambda0;
+			final double sinPhi = Math.sin( phi);
+			final double cosPhi = Math.cos( phi);
+			
+			/* Vielfache der Breite für die Meridianbogenlänge */
+			final double sin2 = 2.0 * sinPhi * cosPhi;
+			final double cos2 = cosPhi * cosPhi - sinPhi * sinPhi;
+			final double sin4 = 2.0 * sin2 * cos2;
+			final double cos4 = cos2 * cos2 - sin2 * sin2;
+			final double sin6 = sin4 * cos2 + cos4 * sin2;
+			final double sin8 = 2.0 * sin4 * cos4;
+			final double arcLength = alpha * (phi + beta * sin2 + gamma * sin4 + delta * sin6 + epsilon * sin8);
+			
+			final double c2 = cosPhi * cosPhi;
+			final double nu2 = ep2 * c2;
+			final double nF = nFactor / Math.sqrt( 1 + nu2);
+			final double t = sinPhi / cosPhi;
+			final double t2 = t * t;
+			final double t4 = t2 * t2;
+			final double t6 = t4 * t2;
+			
+			final double dL2 = deltaLambda * deltaLambda;
+			final double dL3 = deltaLambda * dL2;
+			final double dL4 = dL2 * dL2;
+			final double dL5 = dL2 * dL3;
+			final double dL6 = dL3 * dL3;
+			final double dL7 = dL2 * dL5;
+			final double dL8 = dL4 * dL4;
+			
+			final double c3 = cosPhi * c2;
+			final double c4 = c2 * c2;
+			final double c5 = c2 * c3;
+			final double c6 = c3 * c3;
+			final double c7 = c2 * c5;
+			final double c8 = c4 * c4;
+			
+			final double l3coef = 1.0 - t2 + nu2;
+			final double l4coef = 5.0 - t2 + 9 * nu2 + 4.0 * (nu2 * nu2);
+			final double l5coef = 5.0 - 18.0 * t2 + t4 + 14.0 * nu2 - 58.0 * t2 * nu2;
+			final double l6coef = 61.0 - 58.0 * t2 + t4 + 270.0 * nu2 - 330.0 * t2 * nu2;
+			final double l7coef = 61.0 - 479.0 * t2 + 179.0 * t4 - t6;
+			final double l8coef = 1385.0 - 3111.0 * t2 + 543.0 * t4 - t6;
+			
+			final double easting = nF * cosPhi * deltaLambda
+					+ (nF / 6.0 * c3 * l3coef * dL3)
+					+ (nF / 120.0 * c5 * l5coef * dL5)
+					+ (nF / 5040.0 * c7 * l7coef * dL7);
+			final double northing = arcLength
+					+ (t / 2.0 * nF * c2 * dL2)
+					+ (t / 24.0 * nF * c4 * l4coef * dL4)
+					+ (t / 720.0 * nF * c6 * l6coef * dL6)
+					+ (t / 40320.0 * nF * c8 * l8coef * dL8);
+			
+			x[i] = easting * scaleFactor + falseEasting;
+			final double scaledNorthing = northing * scaleFactor;
+			y[i] = (scaledNorthing < 0.0) ? scaledNorthing + southernFalseNorthing : scaledNorthing;
+		}
+	}
+
+	/**
+	 * Rechnet die Punkte mit den Indizes aus [<code>start</code>, <code>end</code>) zurück in
+	 * geographische Koordinaten in Dezimalgrad. Die Ergebnis-Arrays dürfen die Eingabe-Arrays sein.
+	 *
+	 * @param x die Rechtswerte in Metern
+	 * @param y die Hochwerte in Metern
+	 * @param laengen das Array für die geographischen Längen
+	 * @param breiten das Array für die geographischen Breiten
+	 * @param start der erste Index
+	 * @param end der Index hinter dem letzten Punkt
+	 * @param falseNorthing der Zuschlag zum Hochwert, bei UTM auf der Südhalbkugel 10000 km, sonst 0
+	 */
+	void unproject( final double[] x, final double[] y, final double[] laengen, final double[] breiten,
+			final int start, final int end, final double falseNorthing) {
+		final double lambda0 = _centralMeridian;
+		final double alphaF = _alphaF;
+		final double betaF = _betaF;
+		final double gammaF = _gammaF;
+		final double deltaF = _deltaF;
+		final double epsilonF = _epsilonF;
+		final double ep2 = _ep2;
+		final double nFactor = _nFactor;
+		final double scaleFactor = _scaleFactor;
+		final double falseEasting = _falseEasting;
+		for ( int i = start; i < end; i++) {
+			final double lx = (x[i] - falseEasting) / scaleFactor;
+			final double ly = (y[i] - falseNorthing) / scaleFactor;
+			
+			/* Fußpunkt-Breite mit den Vielfachen von yF aus den Additionstheoremen */
+			final double yF = ly / alphaF;
+			final double sin2 = Math.sin( 2.0 * yF);
+			final double cos2 = Math.cos( 2.0 * yF);
+			final double sin4 = 2.0 * sin2 * cos2;
+			final double cos4 = cos2 * cos2 - sin2 * sin2;
+			final double sin6 = sin4 * cos2 + cos4 * sin2;
+			final double sin8 = 2.0 * sin4 * cos4;
+			final double phif = yF + betaF * sin2 + gammaF * sin4 + deltaF * sin6 + epsilonF * sin8;
+			
+			final double cf = Math.cos( phif);
+			final double tf = Math.sin( phif) / cf;
+			final double nuf2 = ep2 * cf * cf;
+			final double nF = nFactor / Math.sqrt( 1 + nuf2);
+			final double tf2 = tf * tf;
+			final double tf4 = tf2 * tf2;
+			
+			final double nF2 = nF * nF;
+			final double nF3 = nF2 * nF;
+			final double nF4 = nF2 * nF2;
+			final double nF5 = nF4 * nF;
+			final double nF6 = nF3 * nF3;
+			final double nF7 = nF6 * nF;
+			final double nF8 = nF4 * nF4;
+			
+			final double x1frac = 1.0 / (nF * cf);
+			final double x2frac = tf / (2.0 * nF2);
+			final double x3frac = 1.0 / (6.0 * nF3 * cf);
+			final double x4frac = tf / (24.0 * nF4);
+			final double x5frac = 1.0 / (120.0 * nF5 * cf);
+			final double x6frac = tf / (720.0 * nF6);
+			final double x7frac = 1.0 / (5040.0 * nF7 * cf);
+			final double x8frac = tf / (40320.0 * nF8);
+			
+			final double nuf4 = nuf2 * nuf2;
+			final double x2poly = -1.0 - nuf2;
+			final double x3poly = -1.0 - 2 * tf2 - nuf2;
+			final double x4poly = 5.0 + 3.0 * tf2 + 6.0 * nuf2 - 6.0 * tf2 * nuf2 - 3.0 * nuf4 - 9.0 * tf2 * nuf4;
+			final double x5poly = 5.0 + 28.0 * tf2 + 24.0 * tf4 + 6.0 * nuf2 + 8.0 * tf2 * nuf2;
+			final double x6poly = -61.0 - 90.0 * tf2 - 45.0 * tf4 - 107.0 * nuf2 + 162.0 * tf2 * nuf2;
+			final double x7poly = -61.0 - 662.0 * tf2 - 1320.0 * tf4 - 720.0 * (tf4 * tf2);
+			final double x8poly = 1385.0 + 3633.0 * tf2 + 4095.0 * tf4 + 1575 * (tf4 * tf2);
+			
+			final double lx2 = lx * lx;
+			final double lx4 = lx2 * lx2;
+			final double lx6 = lx4 * lx2;
+			final double lx8 = lx4 * lx4;
+			
+			final double latitude = phif + x2frac * x2poly * lx2 + x4frac * x4poly * lx4
+					+ x6frac * x6poly * lx6 + x8frac * x8poly * lx8;
+			final double longitude = lambda0 + x1frac * lx + x3frac * x3poly * lx * lx2
+					+ x5frac * x5poly * lx * lx4 + x7frac * x7poly * lx * lx6;
+			laengen[i] = Math.toDegrees( longitude);
+			breiten[i] = Math.toDegrees( latitude);
+		}
+	}
+
+	/* Koeffizienten der Meridianbogenlänge */
+	private final double _alpha;
+	private final double _beta;
+	private final double _gamma;
+	private final double _delta;
+	private final double _epsilon;
+
+	/* Koeffizienten der Fußpunkt-Breite */
+	private final double _alphaF;
+	private final double _betaF;
+	private final double _gammaF;
+	private final double _deltaF;
+	private final double _epsilonF;
+
+	/** Das Quadrat der zweiten numerischen Exzentrizität. */
+	private final double _ep2;
+
+	/** a²/b, der Polkrümmungsradius. */
+	private final double _nFactor;
+
+	private final double _scaleFactor;
+
+	private final double _falseEasting;
+
+	private final boolean _southernFalseNorthing;
+
+	private final double _centralMeridian;
+}
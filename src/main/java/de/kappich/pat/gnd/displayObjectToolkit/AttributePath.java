@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.dav.daf.main.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ein AttributePath ist ein übersetzter Attributname wie <code>Verkehrsstärke.Wert</code>. Der Name
+ * wird einmal in die Namen seiner Stufen zerlegt; {@link #getItem(Data)} steigt dann ohne weitere
+ * Zerlegung und ohne Speicheranforderungen durch den Datensatz. Ob der Name einen der Stati für leere
+ * Daten, keine Daten, keine Quelle oder keine Rechte beschreibt (siehe
+ * {@link DynamicDefinitionComponent#attributeNameIsState(String)}), wird ebenfalls beim Übersetzen
+ * festgestellt.
+ * <p>
+ * AttributePaths werden von {@link DOTSubscriptionData#getAttributePath(String)} je Anmeldung
+ * zwischengespeichert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class AttributePath {
+
+	/**
+	 * Übersetzt den Attributnamen.
+	 *
+	 * @param attributeName der Attributname, dessen Stufen durch Punkte getrennt sind
+	 */
+	AttributePath( final String attributeName) {
+		_attributeName = attributeName;
+		_isState = DynamicDefinitionComponent.attributeNameIsState( attributeName);
+		if ( _isState) {
+			_itemNames = new String[0];
+		} else {
+			// Wie bisher trennt ein Punkt am Anfang des Rests nichts mehr ab.
+			final List<String> itemNames = new ArrayList<String>();
+			String s = attributeName;
+			int index = s.indexOf( '.');
+			while ( index > 0) {
+				itemNames.add( s.substring( 0, index));
+				s = s.substring( index + 1);
+				index = s.indexOf( '.');
+			}
+			itemNames.add( s);
+			_itemNames = itemNames.toArray( new String[itemNames.size()]);
+		}
+	}
+
+	/**
+	 * Gibt den Attributnamen zurück.
+	 *
+	 * @return der Attributname
+	 */
+	String getAttributeName() {
+		return _attributeName;
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn der Attributname einen der Stati für leere Daten, keine Daten,
+	 * keine Quelle oder keine Rechte beschreibt; ein solcher Name bezeichnet kein Attribut im Datensatz.
+	 *
+	 * @return <code>true</code>, wenn der Attributname einen Status beschreibt
+	 */
+	boolean isState() {
+		return _isState;
+	}
+
+	/**
+	 * Gibt das Attribut des Datensatzes zurück, das dieser Pfad bezeichnet.
+	 *
+	 * @param data der Datensatz
+	 * @return das Attribut
+	 */
+	Data getItem( final Data data) {
+		Data dataItem = data;
+		for ( int i = 0; i < _itemNames.length; i++) {
+			dataItem = dataItem.getItem( _itemNames[i]);
+		}
+		return dataItem;
+	}
+
+	@Override
+	public String toString() {
+		return "[AttributePath: " + _attributeName + (_isState ? ", Status" : "") + "]";
+	}
+
+	private final String _attributeName;
+
+	private final boolean _isState;
+
+	/** Die Namen der Stufen des Attributs, vom Datensatz aus gesehen. */
+	private final String[] _itemNames;
+}
@@ -25,9 +25,27 @@
  */
 package de.kappich.pat.gnd.displayObjectToolkit;
 
+import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Ein DOTSubscriptionData kapselt die für eine Anmeldung auf dynamische Daten
  * notwendige Informationen, also Attributgrupope und Aspekt.
+ * <p>
+ * Zu jeder Anmeldung werden die übersetzten Attributnamen ({@link AttributePath}) zwischengespeichert,
+ * und zwar schon beim Anlegen der DisplayObjects eines Layers je DisplayObjectType und Paar aus
+ * Grundfigur und Eigenschaft (s. {@link #compileAttributePaths(Map)}). Die DisplayObjectTypes werden
+ * dabei nur schwach referenziert; ändert sich ein DisplayObjectType, so verwirft er seine Einträge
+ * mit {@link #attributeNamesChanged(DisplayObjectType)}.
+ * Für die Verarbeitung der Online-Daten gibt {@link #getInstance(String, String)} gemeinsame Objekte
+ * zurück, damit nicht je Datensatz ein neues DOTSubscriptionData samt Attributpfaden entsteht.
  * 
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -64,6 +82,8 @@ public class DOTSubscriptionData implements Comparable<Object>{
      */
     public void setAttributeGroup(String attributeGroup) {
     	_attributeGroup = attributeGroup;
+    	_attributePaths.clear();
+    	_compiledAttributePaths.clear();
     }
 	/**
      * Gibt den Aspekt zurück.  
@@ -82,6 +102,129 @@ public class DOTSubscriptionData implements Comparable<Object>{
     	_aspect = aspect;
     }
     
+    /**
+     * Gibt das gemeinsame DOTSubscriptionData zu Attributgruppe und Aspekt zurück. Es darf nicht mit
+     * den Settern verändert werden.
+     * 
+     * @param attributeGroup die Pid der Attributgruppe
+     * @param aspect die Pid des Aspekts
+     * @return das gemeinsame DOTSubscriptionData
+     */
+    public static DOTSubscriptionData getInstance(String attributeGroup, String aspect) {
+    	ConcurrentMap<String, DOTSubscriptionData> instances = INSTANCES.get( attributeGroup);
+    	if ( instances == null) {
+    		final ConcurrentMap<String, DOTSubscriptionData> newInstances =
+    			new ConcurrentHashMap<String, DOTSubscriptionData>();
+    		instances = INSTANCES.putIfAbsent( attributeGroup, newInstances);
+    		if ( instances == null) {
+    			instances = newInstances;
+    		}
+    	}
+    	DOTSubscriptionData subscriptionData = instances.get( aspect);
+    	if ( subscriptionData == null) {
+    		final DOTSubscriptionData newSubscriptionData = new DOTSubscriptionData( attributeGroup, aspect);
+    		subscriptionData = instances.putIfAbsent( aspect, newSubscriptionData);
+    		if ( subscriptionData == null) {
+    			subscriptionData = newSubscriptionData;
+    		}
+    	}
+    	return subscriptionData;
+    }
+    
+    /**
+     * Gibt den übersetzten Attributnamen zurück. Jeder Name wird für dieses DOTSubscriptionData nur
+     * einmal übersetzt.
+     * 
+     * @param attributeName der Attributname
+     * @return der Attributpfad
+     */
+    AttributePath getAttributePath(String attributeName) {
+    	AttributePath attributePath = _attributePaths.get( attributeName);
+    	if ( attributePath == null) {
+    		attributePath = new AttributePath( attributeName);
+    		final AttributePath previous = _attributePaths.putIfAbsent( attributeName, attributePath);
+    		if ( previous != null) {
+    			attributePath = previous;
+    		}
+    	}
+    	return attributePath;
+    }
+    
+    /**
+     * Übersetzt für alle Anmeldungen der DisplayObjectTypes die Attributnamen, die die
+     * DisplayObjectTypes zu den Paaren benötigen, und legt sie in den gemeinsamen DOTSubscriptionData
+     * ab. Danach müssen bei der Verarbeitung der Online-Daten weder Attributnamen erfragt noch
+     * übersetzt werden.
+     * 
+     * @param primitiveFormPropertyPairs die Paare zu den DisplayObjectTypes
+     */
+    static void compileAttributePaths(
+    		Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> primitiveFormPropertyPairs) {
+    	for ( Map.Entry<DisplayObjectType, List<PrimitiveFormPropertyPair>> entry : primitiveFormPropertyPairs.entrySet()) {
+    		final DisplayObjectType displayObjectType = entry.getKey();
+    		for ( DOTSubscriptionData subscriptionData : displayObjectType.getSubscriptionData()) {
+    			final DOTSubscriptionData instance = getInstance( 
+    					subscriptionData.getAttributeGroup(), subscriptionData.getAspect());
+    			for ( PrimitiveFormPropertyPair pfPropertyPair : entry.getValue()) {
+    				instance.getAttributePaths( displayObjectType, pfPropertyPair);
+    			}
+    		}
+    	}
+    }
+    
+    /**
+     * Gibt die übersetzten Attributnamen zurück, die der DisplayObjectType für das Paar zu dieser
+     * Anmeldung benötigt. Namen, die einen Status beschreiben, sind nicht enthalten. Sind die Namen
+     * noch nicht mit {@link #compileAttributePaths(Map)} übersetzt worden, so geschieht das hier.
+     * 
+     * @param displayObjectType der DisplayObjectType
+     * @param pfPropertyPair das Paar aus Grundfigur und Eigenschaft
+     * @return die Attributpfade; das Feld darf nicht verändert werden
+     */
+    AttributePath[] getAttributePaths(DisplayObjectType displayObjectType, PrimitiveFormPropertyPair pfPropertyPair) {
+    	ConcurrentMap<PrimitiveFormPropertyPair, AttributePath[]> pairMap;
+    	synchronized ( _compiledAttributePaths) {
+    		pairMap = _compiledAttributePaths.get( displayObjectType);
+    		if ( pairMap == null) {
+    			pairMap = new ConcurrentHashMap<PrimitiveFormPropertyPair, AttributePath[]>();
+    			_compiledAttributePaths.put( displayObjectType, pairMap);
+    		}
+    	}
+    	AttributePath[] attributePaths = pairMap.get( pfPropertyPair);
+    	if ( attributePaths == null) {
+    		final List<String> attributeNames = displayObjectType.getAttributeNames( 
+    				pfPropertyPair.getPrimitiveFormName(), pfPropertyPair.getProperty(), this);
+    		final List<AttributePath> list = new ArrayList<AttributePath>( attributeNames.size());
+    		for ( String attributeName : attributeNames) {
+    			final AttributePath attributePath = getAttributePath( attributeName);
+    			if ( !attributePath.isState()) {
+    				list.add( attributePath);
+    			}
+    		}
+    		attributePaths = list.toArray( new AttributePath[list.size()]);
+    		// Wurden die Einträge inzwischen verworfen, so wird das Ergebnis nicht gemerkt.
+    		if ( _compiledAttributePaths.get( displayObjectType) == pairMap) {
+    			pairMap.put( pfPropertyPair, attributePaths);
+    		}
+    	}
+    	return attributePaths;
+    }
+    
+    /**
+     * Verwirft in allen gemeinsamen DOTSubscriptionData die übersetzten Attributnamen des
+     * DisplayObjectTypes. Die DisplayObjectTypes rufen diese Methode auf, wenn sie als
+     * DOTManager.DOTChangeListener ihre Definition übernommen haben.
+     * 
+     * @param displayObjectType der geänderte DisplayObjectType
+     */
+    public static void attributeNamesChanged(DisplayObjectType displayObjectType) {
+    	for ( ConcurrentMap<String, DOTSubscriptionData> instances : INSTANCES.values()) {
+    		for ( DOTSubscriptionData subscriptionData : instances.values()) {
+    			subscriptionData._compiledAttributePaths.remove( displayObjectType);
+    		}
+    	}
+    }
+    
     /**
      * Vergleicht Attributgruppe und Aspekt mit String.equals().
      * 
@@ -131,4 +274,18 @@ public class DOTSubscriptionData implements Comparable<Object>{
     
     private String _attributeGroup;
 	private String _aspect;
+	
+	/** Die übersetzten Attributnamen; sie hängen nur vom Namen ab, werden aber je Anmeldung gehalten. */
+	private final ConcurrentMap<String, AttributePath> _attributePaths = new ConcurrentHashMap<String, AttributePath>();
+	
+	/**
+	 * Die übersetzten Attributnamen je DisplayObjectType und Paar aus Grundfigur und Eigenschaft. Die
+	 * DisplayObjectTypes geschlossener Ansichten werden nicht festgehalten.
+	 */
+	private final Map<DisplayObjectType, ConcurrentMap<PrimitiveFormPropertyPair, AttributePath[]>> _compiledAttributePaths =
+		Collections.synchronizedMap( new WeakHashMap<DisplayObjectType, ConcurrentMap<PrimitiveFormPropertyPair, AttributePath[]>>());
+	
+	/** Die gemeinsamen DOTSubscriptionData nach Attributgruppe und Aspekt. */
+	private static final ConcurrentMap<String, ConcurrentMap<String, DOTSubscriptionData>> INSTANCES =
+		new ConcurrentHashMap<String, ConcurrentMap<String, DOTSubscriptionData>>();
 }
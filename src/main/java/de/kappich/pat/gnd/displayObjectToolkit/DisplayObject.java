@@ -26,6 +26,7 @@
 package de.kappich.pat.gnd.displayObjectToolkit;
 
 import de.kappich.pat.gnd.gnd.MapPane;
+import de.kappich.pat.gnd.linePlugin.DOTLine;
 import de.kappich.pat.gnd.needlePlugin.DOTNeedlePainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType;
@@ -42,12 +43,23 @@ import de.bsvrz.dav.daf.main.config.SystemObject;
 import de.bsvrz.sys.funclib.debug.Debug;
 
 import java.awt.Rectangle;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Ein DisplayObject ist ein georeferenziertes SystemObject mit allen Informationen zu seiner Darstellung.
+ * <p>
+ * Ein DisplayObject wird von mehreren Threads benutzt: der Datenverteiler liefert Datensätze mit
+ * {@link #update(ResultData[])}, die im Thread der {@link UpdateQueue} den Zustand aktualisieren, die
+ * Kartenansicht ändert den Maßstab, und die Painter lesen den Zustand in den Threads der RenderEngine,
+ * die mehrere Kacheln gleichzeitig zeichnet. Deshalb sind alle
+ * Methoden, die den veränderlichen Zustand lesen oder schreiben, auf dem DisplayObject synchronisiert;
+ * ein Painter sieht in jedem Aufruf einen konsistenten Zustand, aber nicht notwendig denselben wie
+ * beim vorigen Aufruf. Die Koordinaten im {@link GeometryStore} ändern sich nach der Konstruktion nicht
+ * mehr und können ohne Synchronisation gelesen werden.
  * 
  * @author Kappich Systemberatung
  * @version $Revision$
@@ -70,7 +82,7 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
      * @param pair das Paar
      * @return das aktuell gültige DisplayObjectTypeItem oder <code>null</code>, wenn kein solches existiert
      */
-    public DisplayObjectTypeItem getDisplayObjectTypeItem( PrimitiveFormPropertyPair pair) {
+    public synchronized DisplayObjectTypeItem getDisplayObjectTypeItem( PrimitiveFormPropertyPair pair) {
     	if ( _displayObjectTypeItems != null) {
     		return _displayObjectTypeItems.get( pair);
     	}
@@ -82,7 +94,7 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
      * @param pair das Paar
      * @return der aktuell gültige Wert oder <code>null</code>, wenn kein solcher existiert
      */
-    public Data getValue( PrimitiveFormPropertyPair pair) {
+    public synchronized Data getValue( PrimitiveFormPropertyPair pair) {
     	if ( _displayObjectTypeItems != null) {
     		return _values.get( pair);
     	}
@@ -92,15 +104,59 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
     /**
      * Gibt die Koordinaten zu dem dem übergebenen (Koordinaten-)Typ zurück. Bei Linien ist der 
      * Typ gleich dem Verschiebungswert.
+     * <p>
+     * Die Koordinaten zum Typ 0 liegen im {@link GeometryStore} des Layers; die Liste dazu wird beim
+     * ersten Aufruf erzeugt und weich referenziert aufbewahrt, so dass sie bei Speichermangel wieder
+     * freigegeben werden kann. Sie darf nicht verändert werden. Painter sollten die Koordinaten über
+     * {@link #getGeometryStore()} und {@link #getGeometryIndex()} lesen. Die Koordinaten anderer Typen berechnet der Painter
+     * im Hintergrund; sie liegen in einem beschränkten Cache des Layers. Solange sie noch nicht
+     * berechnet sind, werden die Koordinaten zum Typ 0 zurückgegeben, und das Objekt wird neu
+     * gezeichnet, sobald sie vorliegen.
      * 
      * @param type der Koordinatentyp 
      * @return die Koordinaten
      */
     public List<Object> getCoordinates( int type) {
-    	if ( !_coordinates.containsKey( type)) {
-			_coordinates.put( type, _painter.getCoordinates( _coordinates.get( 0), type));
+    	if ( type == 0) {
+    		return getDefaultCoordinates();
     	}
-    	return _coordinates.get( type);
+    	final List<Object> coordinates = _offsetGeometryCache.get( this, type);
+    	if ( coordinates == null) {
+    		return getCoordinates( 0);
+    	}
+    	return coordinates;
+    }
+
+    /*
+     * Gibt die Liste der Koordinaten zum Typ 0 zurück. Zwei Threads können sie gleichzeitig erzeugen;
+     * dann wird eine der beiden Listen aufbewahrt, was nicht stört.
+     */
+    private List<Object> getDefaultCoordinates() {
+    	final SoftReference<List<Object>> reference = _defaultCoordinates;
+    	List<Object> coordinates = (reference == null) ? null : reference.get();
+    	if ( coordinates == null) {
+    		coordinates = Collections.unmodifiableList( _geometryStore.getCoordinates( _geometryIndex));
+    		_defaultCoordinates = new SoftReference<List<Object>>( coordinates);
+    	}
+    	return coordinates;
+    }
+
+    /**
+     * Gibt den {@link GeometryStore} zurück, der die Koordinaten zum Typ 0 dieses Objekts enthält.
+     * 
+     * @return der GeometryStore
+     */
+    public GeometryStore getGeometryStore() {
+    	return _geometryStore;
+    }
+
+    /**
+     * Gibt den Index dieses Objekts im {@link GeometryStore} zurück.
+     * 
+     * @return der Objektindex
+     */
+    public int getGeometryIndex() {
+    	return _geometryIndex;
     }
 	
     /**
@@ -132,18 +188,21 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 
 	/**
 	 * Gibt die umgebende Rechteck zu diesem DisplayObject für den angebenen (Koordinaten-)Typ zurück.
+	 * Gemerkt wird nur das Rechteck des zuletzt angefragten Typs, in der Regel also des Default-Types.
 	 * 
      * @return das umgebende Rechteck
      */
-    public Rectangle getBoundingRectangle( int type) {
+    public synchronized Rectangle getBoundingRectangle( int type) {
 	    if(_painter instanceof DOTNeedlePainter){
 		    // Nadel-koordinaten nicht zwischenspeichern, da Nadeln in der Größe veränderlich sind
 		    return _painter.getBoundingRectangle( this, type);
 	    }
-    	if ( !_boundingRectangles.containsKey( type)) {
-    		_boundingRectangles.put(type, _painter.getBoundingRectangle( this, type));
+    	if ( !_hasBoundingRectangle || (_boundingRectangleType != type)) {
+    		_boundingRectangle = _painter.getBoundingRectangle( this, type);
+    		_boundingRectangleType = type;
+    		_hasBoundingRectangle = true;
     	}
-    	return _boundingRectangles.get( type);
+    	return _boundingRectangle;
     }
     
 	/**
@@ -175,9 +234,60 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
     		DOTCollection dotCollection,
     		Map< DisplayObjectType, List<PrimitiveFormPropertyPair>> primitiveFormPropertyPairs,
     		MapPane mapPane) {
+	    this( systemObject, GeometryStore.create( coordinates), 0, painter, dotCollection, primitiveFormPropertyPairs, mapPane,
+	    		SHARED_OFFSET_GEOMETRY_CACHE);
+    }
+
+	/**
+	 * Konstruiert ein DisplayObject, dessen Koordinaten zum Default-Type bereits in einem
+	 * {@link GeometryStore} liegen. Ansonsten wie der Konstruktor mit der Koordinatenliste.
+	 * 
+	 * @param systemObject ein Systemobjekt
+	 * @param geometryStore der GeometryStore mit den Koordinaten
+	 * @param geometryIndex der Index des Objekts im GeometryStore
+	 * @param painter der Painter
+	 * @param dotCollection die DOTCollcetion
+	 * @param primitiveFormPropertyPairs die Paare zu den Darstellungstypen
+	 * @param mapPane die Kartenansicht
+	 */
+    public DisplayObject(SystemObject systemObject,
+    		GeometryStore geometryStore,
+    		int geometryIndex,
+    		DisplayObjectPainter painter,
+    		DOTCollection dotCollection,
+    		Map< DisplayObjectType, List<PrimitiveFormPropertyPair>> primitiveFormPropertyPairs,
+    		MapPane mapPane) {
+	    this( systemObject, geometryStore, geometryIndex, painter, dotCollection, primitiveFormPropertyPairs, mapPane,
+	    		SHARED_OFFSET_GEOMETRY_CACHE);
+    }
+
+	/**
+	 * Konstruiert ein DisplayObject wie der öffentliche Konstruktor mit dem GeometryStore; die
+	 * Koordinaten zu den Typen ungleich 0 liegen im übergebenen Cache, den sich alle DisplayObjects
+	 * eines Layers teilen.
+	 * 
+	 * @param systemObject ein Systemobjekt
+	 * @param geometryStore der GeometryStore mit den Koordinaten
+	 * @param geometryIndex der Index des Objekts im GeometryStore
+	 * @param painter der Painter
+	 * @param dotCollection die DOTCollcetion
+	 * @param primitiveFormPropertyPairs die Paare zu den Darstellungstypen
+	 * @param mapPane die Kartenansicht
+	 * @param offsetGeometryCache der Cache für die Koordinaten zu den Typen ungleich 0
+	 */
+    DisplayObject(SystemObject systemObject,
+    		GeometryStore geometryStore,
+    		int geometryIndex,
+    		DisplayObjectPainter painter,
+    		DOTCollection dotCollection,
+    		Map< DisplayObjectType, List<PrimitiveFormPropertyPair>> primitiveFormPropertyPairs,
+    		MapPane mapPane,
+    		OffsetGeometryCache offsetGeometryCache) {
 	    super();
 	    _systemObject = systemObject;
-	    _coordinates.put(0,coordinates);
+	    _geometryStore = geometryStore;
+	    _offsetGeometryCache = offsetGeometryCache;
+	    _geometryIndex = geometryIndex;
 	    _painter = painter;
 	    _dotCollection = dotCollection;
 	    
@@ -197,42 +307,82 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 	    		currentDOTMap.put( pfPropertyPair, null);
 		    }
 	    }
+	    // Kennt die Kartenansicht ihren Maßstab schon, so kann ein statischer Abstand bestimmt werden.
+	    if ( (_mapPane != null) && (_mapPane.getMapScale().intValue() != 0)) {
+	    	_defaultType = determineDefaultType( _dotCollection.getDisplayObjectType( _mapPane.getMapScale().intValue()));
+	    }
     }
 
     /*
-     * Dies ist die Methode, die für das ClientReceiverInterface implementiert wird.
+     * Dies ist die Methode, die für das ClientReceiverInterface implementiert wird. Die Datensätze
+     * werden nur in der UpdateQueue abgelegt und in deren Thread mit applyUpdates verarbeitet. Ist die
+     * UpdateQueue abgeschaltet, so werden sie wie bisher in diesem Thread verarbeitet; kennt die
+     * Kartenansicht ihren Maßstab noch nicht, so wartet er darauf.
      */
 	public void update(ResultData[] results) {
+		if ( !UpdateQueue.ENABLED) {
+			while ( !applyUpdates( results)) {
+				try {
+					Thread.sleep( UpdateQueue.RETRY_DELAY);
+				}
+				catch ( InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			return;
+		}
+		final UpdateQueue updateQueue = UpdateQueue.getInstance();
+		final long start = System.nanoTime();
+		for ( ResultData result : results) {
+			updateQueue.offer( this, result);
+		}
+		updateQueue.delivered( start, results.length);
+    }
+
+	/**
+	 * Aktualisiert das DisplayObject mit den Datensätzen. Gibt <code>false</code> zurück, wenn die
+	 * Kartenansicht ihren Maßstab noch nicht kennt; das sollte nie passieren, denn das MapPane kennt
+	 * seinen Maßstab, bevor Anmeldungen durchgeführt werden. Die Datensätze müssen dann später erneut
+	 * übergeben werden.
+	 *
+	 * @param results die Datensätze
+	 * @return <code>false</code>, wenn die Datensätze nicht verarbeitet werden konnten
+	 */
+	synchronized boolean applyUpdates(ResultData[] results) {
 		try {
-			int mapScale = _mapPane.getMapScale().intValue();
-			// Wen die folgende Schleife überrascht: sie sollte tatsächlich NIE ausgeführt
-			// werden, denn das mapPane kennt seinen Maßstab bevor überhaupt Anmeldungen
-			// durchgeführt werden. Man könnte auch eine Exception werfen, aber zu so
-			// drastischen Mitteln besteht kein Grund. Den SubscriptionDeliveryThread
-			// zu blockieren ist natürlich nur eine Ausnahmelösung.
-			while ( mapScale == 0) {
-				_debug.warning( "Warten auf die Kartenansicht.");
-				Thread.sleep( 100);
-				mapScale = _mapPane.getMapScale().intValue();
+			final int mapScale = _mapPane.getMapScale().intValue();
+			if ( mapScale == 0) {
+				_debug.fine( "Warten auf die Kartenansicht.");
+				return false;
 			}
 			_currentDisplayObjectType = _dotCollection.getDisplayObjectType( mapScale);
 			if ( _currentDisplayObjectType == null) {
-				return;
+				return true;
 			}
 			if ( _displayObjectTypeItems == null) {
 				_displayObjectTypeItems = _resultCache.get( _currentDisplayObjectType);
 			}
+			boolean changed = false;
 			for (ResultData result : results) {
 				final DataDescription dataDescription = result.getDataDescription();
 				final AttributeGroup attributeGroup = dataDescription.getAttributeGroup();
 				final Aspect aspect = dataDescription.getAspect();
-				DOTSubscriptionData subscriptionData = new DOTSubscriptionData (attributeGroup.getPid(), aspect.getPid());
-				update( result, subscriptionData);
+				final DOTSubscriptionData subscriptionData = DOTSubscriptionData.getInstance( attributeGroup.getPid(), aspect.getPid());
+				changed |= update( result, subscriptionData);
 				updateResultCache( result, subscriptionData);
 			}
+			if ( changed) {
+				updateDefaultType();
+			}
+			// Einmal für alle Datensätze, Paare und Attribute; die Kartenansicht fasst das weiter zusammen.
+			if ( changed) {
+				_mapPane.updateDisplayObject( this);
+			}
 		} catch(Exception e) {
 			_debug.warning("DisplayObject.update(): ein Update konnte nicht durchgeführt werden.", e);
 		}
+		return true;
     }
 	
 	private DisplayObjectTypeItem getDOTItemForState( 
@@ -247,33 +397,37 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 		return dItem;
 	}
 	
-	private void update ( ResultData result, DOTSubscriptionData subscriptionData) {
+	/*
+	 * Aktualisiert die DisplayObjectTypeItems mit dem Datensatz und gibt zurück, ob sich etwas an
+	 * der Darstellung geändert haben kann.
+	 */
+	private boolean update ( ResultData result, DOTSubscriptionData subscriptionData) {
+		boolean changed = false;
 		final Data data = result.getData();
     	for ( PrimitiveFormPropertyPair pfPropertyPair : _displayObjectTypeItems.keySet()) {
     		if ( data == null) {
     			final DisplayObjectTypeItem dItem = getDOTItemForState( 
     					_currentDisplayObjectType, result, subscriptionData, pfPropertyPair);
     			_displayObjectTypeItems.put( pfPropertyPair, dItem);
-				_mapPane.updateDisplayObject( this);
+    			changed = true;
     		} else {
-	    		List<String> attributeNames = _currentDisplayObjectType.getAttributeNames( 
-	    				pfPropertyPair.getPrimitiveFormName(), 
-	    				pfPropertyPair.getProperty(), subscriptionData);
-	    		for ( String attributeName : attributeNames) {
-	    			if ( DynamicDefinitionComponent.attributeNameIsState(attributeName)) {
-	    				continue;
-	    			}
-	    			final Data subItem = getSubItem( data, attributeName);
+	    		final AttributePath[] attributePaths = subscriptionData.getAttributePaths( 
+	    				_currentDisplayObjectType, pfPropertyPair);
+	    		for ( int i = 0; i < attributePaths.length; i++) {
+	    			final AttributePath attributePath = attributePaths[i];
+	    			final String attributeName = attributePath.getAttributeName();
+	    			final Data subItem = attributePath.getItem( data);
 	    			_values.put( pfPropertyPair, subItem);
 	    			double value = subItem.asUnscaledValue().doubleValue();
 	    			DisplayObjectTypeItem dItem = _currentDisplayObjectType.isValueApplicable( 
 	    					pfPropertyPair.getPrimitiveFormName(), pfPropertyPair.getProperty(), 
 	    					subscriptionData, attributeName, value);
 	    			_displayObjectTypeItems.put( pfPropertyPair, dItem);	// auch bei null!
-	    			_mapPane.updateDisplayObject( this);
+	    			changed = true;
 	    		}
     		}
     	}
+    	return changed;
 	}
 	
 	private void updateResultCache( ResultData result, DOTSubscriptionData subscriptionData) {
@@ -285,14 +439,12 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 	    					subscriptionData, pfPropertyPair); 
 					_resultCache.get( displayObjectType).put( pfPropertyPair, dItem);
 	    		} else {
-		    		List<String> attributeNames = displayObjectType.getAttributeNames( 
-		    				pfPropertyPair.getPrimitiveFormName(),
-		    				pfPropertyPair.getProperty(), subscriptionData);
-		    		for ( String attributeName : attributeNames) {
-		    			if ( DynamicDefinitionComponent.attributeNameIsState(attributeName)) {
-		    				continue;
-		    			}
-		    			final Data subItem = getSubItem( data, attributeName);
+		    		final AttributePath[] attributePaths = subscriptionData.getAttributePaths( 
+		    				displayObjectType, pfPropertyPair);
+		    		for ( int i = 0; i < attributePaths.length; i++) {
+		    			final AttributePath attributePath = attributePaths[i];
+		    			final String attributeName = attributePath.getAttributeName();
+		    			final Data subItem = attributePath.getItem( data);
 		    			_values.put( pfPropertyPair, subItem);
 						double value = subItem.asUnscaledValue().doubleValue();
 		    			DisplayObjectTypeItem dItem = displayObjectType.isValueApplicable( 
@@ -305,36 +457,71 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 		}
 	}
 	
-	private static Data getSubItem( final Data data, final String attributeName) {
-		Data dataItem = data;
-		String s = attributeName;
-		int index = s.indexOf( '.');
-		while ( index > 0) {
-			String itemName = s.substring(0, index);
-			dataItem = dataItem.getItem( itemName);
-			s = s.substring( index+1);
-			index = s.indexOf( '.');
-		}
-		return dataItem.getItem(s);
-	}
-	
 	/**
-	 * Setzt den Default-Type.
+	 * Setzt den Default-Type. Die Kartenansicht wird nicht benachrichtigt; der Default-Type wird
+	 * ohnehin von {@link #updateDefaultType()} aus dem DisplayObjectType bestimmt.
 	 * 
 	 * @param defaultType der Default-(Koordinaten-)Typ
 	 */
     public void setDefaultType(int defaultType) {
     	_defaultType = defaultType;
     }
+    
+    /**
+     * Bestimmt den Default-Type aus dem aktuellen DisplayObjectType neu: bei Linien ist es der Abstand,
+     * sonst 0. Das geschieht beim Konstruieren, bei neuen Daten, bei Maßstabsänderungen und bei
+     * Änderungen des DisplayObjectTypes, aber nie beim Zeichnen. Wer <code>true</code> erhält, muss den
+     * räumlichen Index der Kartenansicht aktualisieren, denn das umgebende Rechteck hat sich geändert.
+     * 
+     * @return <code>true</code>, wenn sich der Default-Type geändert hat
+     */
+    public synchronized boolean updateDefaultType() {
+    	final int defaultType = determineDefaultType( _currentDisplayObjectType);
+    	if ( defaultType == _defaultType) {
+    		return false;
+    	}
+    	_defaultType = defaultType;
+    	return true;
+    }
+    
+    /*
+     * Gibt den Default-Type zum DisplayObjectType zurück. Kann der dynamische Abstand noch nicht
+     * bestimmt werden, so bleibt der bisherige Default-Type; so verhielten sich auch die Painter.
+     */
+    private int determineDefaultType( DisplayObjectType displayObjectType) {
+    	if ( !(displayObjectType instanceof DOTLine)) {
+    		return 0;
+    	}
+    	final Object distance;
+    	if ( Boolean.TRUE.equals( displayObjectType.isPropertyStatic( null, DOTProperty.ABSTAND))) {
+    		distance = displayObjectType.getValueOfStaticProperty( null, DOTProperty.ABSTAND);
+    	} else {
+    		final DisplayObjectTypeItem dItem = (_displayObjectTypeItems == null) ? null : _displayObjectTypeItems.get( DISTANCE_PAIR);
+    		distance = (dItem == null) ? null : dItem.getPropertyValue();
+    	}
+    	return (distance instanceof Integer) ? (Integer) distance : _defaultType;
+    }
+
+	/**
+	 * Gibt den Default-Type zurück.
+	 * 
+	 * @return der Default-(Koordinaten-)Typ
+	 */
+    public int getDefaultType() {
+    	return _defaultType;
+    }
 
     /*
      * Das ist die Methode, die für den MapPane.MapScaleListener implementiert werden muss.
      */
-	public void mapScaleChanged(double scale) {
+	public synchronized void mapScaleChanged(double scale) {
 		final DisplayObjectType displayObjectType = _dotCollection.getDisplayObjectType( _mapPane.getMapScale().intValue());
 		if ( displayObjectType != _currentDisplayObjectType) {
 			_currentDisplayObjectType = displayObjectType;
 			_displayObjectTypeItems = _resultCache.get( _currentDisplayObjectType);
+			if ( updateDefaultType()) {
+				_mapPane.updateDisplayObject( this);
+			}
 		}
     }
 	
@@ -345,8 +532,9 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 	 */
 	@Override
     public String toString() {
+		final int numberOfParts = _geometryStore.getEndPart( _geometryIndex) - _geometryStore.getFirstPart( _geometryIndex);
 		String s = "[DisplayObject: [" + _systemObject.toString() + "][Number of Coordinates:" + 
-			_coordinates.size() + "]" + _dotCollection.toString() + "]";
+			numberOfParts + "]" + _dotCollection.toString() + "]";
 		return s;
 	}
 
@@ -356,7 +544,15 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 
 	private final SystemObject _systemObject;
 	
-	private final Map<Integer, List<Object> > _coordinates = new HashMap<Integer, List<Object> >();
+	private final GeometryStore _geometryStore;
+	
+	private final int _geometryIndex;
+	
+	/** Der Cache für die vom Painter berechneten Koordinaten zu den Typen ungleich 0. */
+	private final OffsetGeometryCache _offsetGeometryCache;
+	
+	/** Die Liste der Koordinaten zum Typ 0, sobald sie einmal angefordert wurde. */
+	private volatile SoftReference<List<Object>> _defaultCoordinates;
 	
 	private final DisplayObjectPainter _painter;
 
@@ -368,13 +564,27 @@ public class DisplayObject implements ClientReceiverInterface, MapPane.MapScaleL
 	
 	private final DOTCollection _dotCollection;
 
-	private final Map<Integer, Rectangle> _boundingRectangles = new HashMap<Integer, Rectangle>();
+	/** Das umgebende Rechteck zum Typ <code>_boundingRectangleType</code>, falls <code>_hasBoundingRectangle</code>. */
+	private Rectangle _boundingRectangle;
+	
+	private int _boundingRectangleType;
 	
-	private int _defaultType;
+	private boolean _hasBoundingRectangle = false;
+	
+	private volatile int _defaultType;
 	
 	private final MapPane _mapPane;
 	
 	private Map<DisplayObjectType, Map<PrimitiveFormPropertyPair, DisplayObjectTypeItem>> _resultCache;
 	
 	private static final Debug _debug = Debug.getLogger();
+	
+	/** Das Paar, unter dem der dynamische Abstand einer Linie steht. */
+	private static final PrimitiveFormPropertyPair DISTANCE_PAIR = new PrimitiveFormPropertyPair( null, DOTProperty.ABSTAND);
+	
+	/**
+	 * Der OffsetGeometryCache der DisplayObjects, die mit den öffentlichen Konstruktoren und damit ohne
+	 * den Cache ihres Layers konstruiert werden; sie teilen sich diesen einen.
+	 */
+	private static final OffsetGeometryCache SHARED_OFFSET_GEOMETRY_CACHE = new OffsetGeometryCache();
 }
@@ -37,10 +37,10 @@ import de.bsvrz.dav.daf.main.config.DataModel;
 import de.bsvrz.dav.daf.main.config.SystemObject;
 import de.bsvrz.dav.daf.main.config.SystemObjectType;
 import de.bsvrz.sys.funclib.debug.Debug;
-import de.kappich.pat.gnd.coorTransform.GeoTransformation;
-import de.kappich.pat.gnd.coorTransform.UTMCoordinate;
+import de.kappich.pat.gnd.coorTransform.ProjectionContext;
 import de.kappich.pat.gnd.gnd.MapPane;
 import de.kappich.pat.gnd.gnd.MapPane.MapScaleListener;
+import de.kappich.pat.gnd.pluginInterfaces.DefaultDisplayObjectType;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectTypePlugin;
@@ -52,16 +52,22 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Der DisplayObjectManager initialisiert die DisplayObjects und stellt sie zur Verfügung.
@@ -78,6 +84,22 @@ public class DisplayObjectManager {
 	
 	private MapPane _mapPane;
 	
+	/** Die Projektion; sie ist unveränderlich und wird ohne Synchronisation benutzt. */
+	private final ProjectionContext _projectionContext;
+	
+	private final GeometryCache _geometryCache;
+	
+	private final PolylineCache _polylineCache = new PolylineCache(
+			Integer.getInteger( "de.kappich.pat.gnd.Liniencache", 20000));
+	
+	/**
+	 * Die projizierten, noch nicht vereinfachten Polylinien der Linien mit Koordinaten, die Teil
+	 * zusammengesetzter Linien sind; so wird eine Teillinie nur einmal projiziert, auch wenn sie in
+	 * vielen Linien vorkommt.
+	 */
+	private final PolylineCache _subLineCache = new PolylineCache(
+			Integer.getInteger( "de.kappich.pat.gnd.Liniencache", 20000));
+	
 	private Deque<DisplayObject> _unsubscribedDisplayObjects;
 	private Deque<MapScaleListener> _unaddedMapScaleListeners;
 	
@@ -100,24 +122,102 @@ public class DisplayObjectManager {
 	private double _xMax = Double.NEGATIVE_INFINITY;
 	private double _yMax = Double.NEGATIVE_INFINITY;
 	
+	/** Das Gesamtrechteck zu den Extremwerten oder <code>null</code>, wenn es neu berechnet werden muss. */
+	private Rectangle _extentRectangle;
+	
+	/** Die Liste der Systemobjekte, zu der zuletzt ein Rechteck berechnet wurde. */
+	private List<SystemObject> _preselectionObjects;
+	
+	/** Die Größe von <code>_preselectionObjects</code> bei der Berechnung. */
+	private int _preselectionSize;
+	
+	/** Das Rechteck zu <code>_preselectionObjects</code>. */
+	private Rectangle _preselectionRectangle;
+	
 	static double _ignoreDistance = 0.3;
 	
 	final private static Object _configurationAccess = new Object();
 	
+	/**
+	 * Gibt an, ob die Koordinaten der Layer parallel berechnet werden. Eingeschaltet wird dies mit der
+	 * System-Property <code>de.kappich.pat.gnd.ParalleleInitialisierung</code>.
+	 */
+	final private static boolean PARALLEL_INITIALIZATION = Boolean.getBoolean( "de.kappich.pat.gnd.ParalleleInitialisierung");
+	
+	/** Die Anzahl von Systemobjekten, ab der eine CoordinateTask ihren Bereich teilt. */
+	final private static int PARALLEL_THRESHOLD = 64;
+	
+	/** Ist in einem Thread <code>true</code>, während er in einer CoordinateTask Koordinaten berechnet. */
+	final private static ThreadLocal<Boolean> IN_COORDINATE_TASK = new ThreadLocal<Boolean>() {
+		@Override
+		protected Boolean initialValue() {
+			return Boolean.FALSE;
+		}
+	};
+	
 	final private static Debug _debug = Debug.getLogger();
 	
 	/**
-	 * Der Konstruktor der DisplayObject-Verwaltung.
+	 * Gibt an, ob die DisplayObjects gesammelt mit einem {@link SubscriptionReceiver} je Layer und
+	 * Datenbeschreibung angemeldet werden. Mit der System-Property <code>de.kappich.pat.gnd.Sammelanmeldung</code> kann man
+	 * das mit <code>false</code> abschalten; dann ist wie bisher jedes DisplayObject sein eigener Empfänger.
+	 */
+	final private static boolean BULK_SUBSCRIPTION =
+		Boolean.parseBoolean( System.getProperty( "de.kappich.pat.gnd.Sammelanmeldung", "true"));
+	
+	/** Die angestrebte Dauer eines An- oder Abmeldeaufrufs in Millisekunden. */
+	final private static long BATCH_TARGET_MILLIS = 200;
+	
+	final private static int MIN_BATCH_SIZE = 50;
+	
+	final private static int MAX_BATCH_SIZE = 50000;
+	
+	/** Die aktuelle Anzahl von Systemobjekten je An- oder Abmeldeaufruf. */
+	private volatile int _batchSize = 1000;
+	
+	/** Gibt an, ob neu erzeugte DisplayObjects für subscribeDisplayObjects() vorgemerkt werden. */
+	private volatile boolean _subscribeOnCreation = true;
+	
+	/** Der Zeitpunkt der ersten gesammelten Anmeldung für die Statistik. */
+	private volatile long _firstSubscriptionTime = 0L;
+	
+	/**
+	 * Die SubscriptionReceiver jedes Layers. Ein Layer wird durch seine DOTCollection identifiziert,
+	 * die alle seine DisplayObjects gemeinsam haben.
+	 */
+	private final Map<DOTCollection, List<SubscriptionReceiver>> _subscriptionReceivers =
+		new IdentityHashMap<DOTCollection, List<SubscriptionReceiver>>();
+	
+	/** Die Namen der Layer zu ihren DOTCollections; synchronisiert über _subscriptionReceivers. */
+	private final Map<DOTCollection, String> _layerNames = new IdentityHashMap<DOTCollection, String>();
+	
+	/**
+	 * Der Konstruktor der DisplayObject-Verwaltung. Die Projektion wird aus den System-Properties
+	 * bestimmt.
 	 * 
 	 * @param connection die Datenverteiler-Verbindung
 	 * @param mapPane die Kartenansicht
 	 */
 	public DisplayObjectManager( ClientDavInterface connection, MapPane mapPane) {
+		this( connection, mapPane, ProjectionContext.createFromSystemProperties());
+	}
+	
+	/**
+	 * Der Konstruktor der DisplayObject-Verwaltung mit der Projektion, mit der alle Koordinaten
+	 * berechnet werden.
+	 * 
+	 * @param connection die Datenverteiler-Verbindung
+	 * @param mapPane die Kartenansicht
+	 * @param projectionContext die Projektion
+	 */
+	public DisplayObjectManager( ClientDavInterface connection, MapPane mapPane, ProjectionContext projectionContext) {
 		_connection = connection;
 		_configuration = _connection.getDataModel();
 		_mapPane = mapPane;
+		_projectionContext = projectionContext;
 		_unsubscribedDisplayObjects = new LinkedList<DisplayObject>();
 		_unaddedMapScaleListeners = new LinkedList<MapScaleListener>();
+		_geometryCache = new GeometryCache( _configuration, _projectionContext);
 	}
 	
 	/**
@@ -145,17 +245,41 @@ public class DisplayObjectManager {
 		SystemObjectType areaType = _configuration.getType( "typ.fläche");
 		SystemObjectType complexType = _configuration.getType( "typ.komplex");
 		
-		if ( systemObjectType.inheritsFrom(pointType)) {
-			initializePoints( entry, systemObjects, returnList, progressBar);
-		} else if ( systemObjectType.inheritsFrom(lineType)) {
-			initializeLines( entry, systemObjects, returnList, progressBar);
-		} else if ( systemObjectType.inheritsFrom(areaType)) {
-			initializeAreas( entry, systemObjects, returnList, progressBar);
-		} else if ( systemObjectType.inheritsFrom(complexType)) {
-			initializeComplexes( entry, systemObjects, returnList, progressBar);
+		final boolean isPoint = systemObjectType.inheritsFrom(pointType);
+		final boolean isLine = !isPoint && systemObjectType.inheritsFrom(lineType);
+		final boolean isArea = !isPoint && !isLine && systemObjectType.inheritsFrom(areaType);
+		final boolean isComplex = !isPoint && !isLine && !isArea && systemObjectType.inheritsFrom(complexType);
+		final DOTCollection dotCollection = entry.getLayer().getDotCollection();
+		synchronized ( _subscriptionReceivers) {
+			_layerNames.put( dotCollection, entry.getLayer().getName());
 		}
-		synchronized(_unsubscribedDisplayObjects) {
-			_unsubscribedDisplayObjects.addAll(returnList);
+		if ( (isPoint || isLine || isArea || isComplex) && !dotCollection.values().isEmpty()) {
+			GeometryStore geometryStore = _geometryCache.read( geoReferenceType, systemObjects);
+			if ( geometryStore == null) {
+				if ( isPoint) {
+					geometryStore = initializePoints( systemObjects, progressBar);
+				} else if ( isLine) {
+					geometryStore = initializeLines( systemObjects, progressBar);
+				} else if ( isArea) {
+					geometryStore = initializeAreas( systemObjects);
+				} else {
+					geometryStore = initializeComplexes( systemObjects);
+				}
+				_debug.info( "Geometrie von " + geoReferenceType + " berechnet: " + _polylineCache + " " + _subLineCache);
+				_geometryCache.write( geoReferenceType, systemObjects, geometryStore);
+			}
+			// Die Extremwerte werden nur hier bestimmt, damit sie mit und ohne Cache gleich sind.
+			updateExtremeCoordinates( geometryStore);
+			final OffsetGeometryCache offsetGeometryCache = new OffsetGeometryCache();
+			createDisplayObjects( dotCollection, systemObjects, geometryStore, offsetGeometryCache, returnList);
+			if ( isLine) {
+				offsetGeometryCache.precompute( returnList, getUsedDistances( dotCollection));
+			}
+		}
+		if ( _subscribeOnCreation) {
+			synchronized(_unsubscribedDisplayObjects) {
+				_unsubscribedDisplayObjects.addAll(returnList);
+			}
 		}
 		synchronized(_unaddedMapScaleListeners) {
 			_unaddedMapScaleListeners.addAll(returnList);
@@ -163,18 +287,29 @@ public class DisplayObjectManager {
 		return returnList;
 	}
 	
-	private Rectangle getDisplayRectangle() {
-		if ((_xMin == Double.MAX_VALUE) || (_yMin == Double.MAX_VALUE) ||
-				(_xMax == Double.MIN_VALUE) || (_yMax == Double.MIN_VALUE)) {
+	/*
+	 * Das Gesamtrechteck wird nur neu berechnet, wenn sich die Extremwerte seit dem letzten Aufruf
+	 * geändert haben.
+	 */
+	private synchronized Rectangle getDisplayRectangle() {
+		if ((_xMin > _xMax) || (_yMin > _yMax)) {
 			return null;
 		}
-		Rectangle rectangle = new Rectangle( (int)_xMin, (int)_yMin, (int)(_xMax-_xMin), (int)(_yMax-_yMin));
-		return increaseRectangle(rectangle);
+		if ( _extentRectangle == null) {
+			Rectangle rectangle = new Rectangle( (int)_xMin, (int)_yMin, (int)(_xMax-_xMin), (int)(_yMax-_yMin));
+			_extentRectangle = increaseRectangle(rectangle);
+		}
+		return new Rectangle( _extentRectangle);
 	}
 	
 	/**
 	 * Gibt das die SystemObjects umgebende Rechteck zurück. Ist die Liste leer, so wird
 	 * das Gesamtrechteck zurückgegeben.
+	 * <p>
+	 * Das Rechteck einer Liste wird aus den Konfigurationsdaten berechnet und gemerkt; weitere
+	 * Aufrufe mit derselben, in der Größe unveränderten Liste geben eine Kopie des gemerkten Rechtecks
+	 * zurück, ohne die Liste zu vergleichen. Eine geänderte Liste muss daher als neue Liste übergeben
+	 * werden. Das Gesamtrechteck wird verworfen, sobald beim Laden eines Layers die Extremwerte wachsen.
 	 * 
 	 * @param systemObjects eine Liste von Systemobjekten oder <code>null</code>
 	 * @return das anzuzeigende Rechteck 
@@ -183,6 +318,21 @@ public class DisplayObjectManager {
 		if ( (systemObjects == null) || systemObjects.isEmpty()) {
 			return getDisplayRectangle();
 		}
+		synchronized ( this) {
+			if ( (systemObjects == _preselectionObjects) && (systemObjects.size() == _preselectionSize)) {
+				return (_preselectionRectangle == null) ? null : new Rectangle( _preselectionRectangle);
+			}
+		}
+		final Rectangle rectangle = computeDisplayRectangle( systemObjects);
+		synchronized ( this) {
+			_preselectionObjects = systemObjects;
+			_preselectionSize = systemObjects.size();
+			_preselectionRectangle = (rectangle == null) ? null : new Rectangle( rectangle);
+		}
+		return rectangle;
+	}
+	
+	private Rectangle computeDisplayRectangle( List<SystemObject> systemObjects) {
 		Rectangle rect = null;
 		for ( SystemObject systemObject : systemObjects) {
 			SystemObjectType systemObjectType = systemObject.getType();
@@ -303,8 +453,46 @@ public class DisplayObjectManager {
 		return map;
 	}
 	
-	private void initializePoints(
-			ViewEntry entry, final List<SystemObject> systemObjects, List<DisplayObject> returnList, final JProgressBar progressBar) {
+	/*
+	 * Gibt alle Abstände ungleich 0 zurück, die die DisplayObjectTypes der DOTCollection benutzen.
+	 */
+	private static Set<Integer> getUsedDistances( final DOTCollection dotCollection) {
+		final Set<Integer> distances = new HashSet<Integer>();
+		for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+			if ( displayObjectType instanceof DefaultDisplayObjectType) {
+				for ( Object value : ((DefaultDisplayObjectType) displayObjectType).getUsedValues( DOTProperty.ABSTAND)) {
+					if ( (value instanceof Integer) && ((Integer) value != 0)) {
+						distances.add( (Integer) value);
+					}
+				}
+			}
+		}
+		return distances;
+	}
+	
+	/*
+	 * Erzeugt zu jedem Objekt des GeometryStores ein DisplayObject mit dem Painter des
+	 * ersten DisplayObjectTypes der DOTCollection. Alle DisplayObjects teilen sich den
+	 * OffsetGeometryCache. Die Attributnamen der Anmeldungen werden dabei schon übersetzt.
+	 */
+	private void createDisplayObjects(
+			final DOTCollection dotCollection, final List<SystemObject> systemObjects, final GeometryStore geometryStore,
+			final OffsetGeometryCache offsetGeometryCache, final List<DisplayObject> returnList) {
+		final DisplayObjectType dot = dotCollection.values().iterator().next();
+		final DisplayObjectTypePlugin displayObjectTypePlugin = dot.getDisplayObjectTypePlugin();
+		DisplayObjectPainter painter = displayObjectTypePlugin.getPainter();
+		final Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> pfpPairs = getPrimitiveFormPropertyPairs(dotCollection);
+		DOTSubscriptionData.compileAttributePaths(pfpPairs);
+		int geometryIndex = 0;
+		for(SystemObject systemObject : systemObjects) {
+			DisplayObject displayObject = new DisplayObject(
+					systemObject, geometryStore, geometryIndex++, painter, dotCollection, pfpPairs, _mapPane, offsetGeometryCache
+			);
+			returnList.add(displayObject);
+		}
+	}
+
+	private GeometryStore initializePoints(final List<SystemObject> systemObjects, final JProgressBar progressBar) {
 		_pointOnLineType = _configuration.getType("typ.punktLiegtAufLinienObjekt");
 		_pointWithCoordinatesType = _configuration.getType("typ.punktXY");
 		_pointOnLineAttributeGroup = _configuration.getAttributeGroup("atg.punktLiegtAufLinienObjekt");
@@ -334,22 +522,7 @@ public class DisplayObjectManager {
 					}
 			);
 			final List<SystemObject> subList = systemObjects.subList(i, Math.min(i + chunkSize, systemObjects.size()));
-			_configuration.getConfigurationData(subList, _pointCoordinateAttributeGroup);
-			final Data[] configurationData = _configuration.getConfigurationData(subList, _pointOnLineAttributeGroup);
-			final Collection<Long> lines = new ArrayList<Long>();
-			for(Data data : configurationData) {
-				if(data != null) {
-					final long line = data.getReferenceValue("LinienReferenz").getId();
-					if(line != 0) {
-						lines.add(line);
-					}
-				}
-			}
-			if(lines.size() > 0) {
-				final Collection<SystemObject> objects = getObjects(lines);
-				_configuration.getConfigurationData(objects, _composedOfLinesAttributeGroup);
-				preloadLines(objects);
-			}
+			preloadPoints(subList);
 		}
 		SwingUtilities.invokeLater(
 				new Runnable() {
@@ -360,22 +533,14 @@ public class DisplayObjectManager {
 		);
 
 
-		final DOTCollection dotCollection = entry.getLayer().getDotCollection();
-		final Iterator<DisplayObjectType> iterator = dotCollection.values().iterator();
-		if(!iterator.hasNext()) {
-			return;
-		}
-		final DisplayObjectType dot = iterator.next();
-		final DisplayObjectTypePlugin displayObjectTypePlugin = dot.getDisplayObjectTypePlugin();
-		DisplayObjectPainter painter = displayObjectTypePlugin.getPainter();
-		Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> pfPropertyPairs = getPrimitiveFormPropertyPairs(dotCollection);
-		for(SystemObject systemObject : systemObjects) {
-			final List<Object> pointCoordinates = getPointCoordinates(systemObject);
-			DisplayObject displayObject = new DisplayObject(
-					systemObject, pointCoordinates, painter, dotCollection, pfPropertyPairs, _mapPane
-			);
-			returnList.add(displayObject);
-		}
+		final Map<SystemObject, PointWithAngle> pointsOnLines = placePointsOnLines(systemObjects);
+		final GeometryStore geometryStore = createGeometryStore(
+				systemObjects, systemObjects.size(), new CoordinateSource() {
+					public List<Object> getCoordinates(final SystemObject systemObject) {
+						return getPointCoordinates(systemObject, pointsOnLines);
+					}
+				}
+		);
 		SwingUtilities.invokeLater(
 				new Runnable() {
 					public void run() {
@@ -384,6 +549,26 @@ public class DisplayObjectManager {
 					}
 				}
 		);
+		return geometryStore;
+	}
+
+	private void preloadPoints(final Collection<SystemObject> objectCollection) {
+		_configuration.getConfigurationData(objectCollection, _pointCoordinateAttributeGroup);
+		final Data[] configurationData = _configuration.getConfigurationData(objectCollection, _pointOnLineAttributeGroup);
+		final Collection<Long> lines = new ArrayList<Long>();
+		for(Data data : configurationData) {
+			if(data != null) {
+				final long line = data.getReferenceValue("LinienReferenz").getId();
+				if(line != 0) {
+					lines.add(line);
+				}
+			}
+		}
+		if(lines.size() > 0) {
+			final Collection<SystemObject> objects = getObjects(lines);
+			_configuration.getConfigurationData(objects, _composedOfLinesAttributeGroup);
+			preloadLines(objects);
+		}
 	}
 
 	private Collection<SystemObject> getObjects(final Collection<Long> ids) {
@@ -395,8 +580,7 @@ public class DisplayObjectManager {
 		return result;
 	}
 
-	private void initializeLines(
-			ViewEntry entry, final List<SystemObject> systemObjects, List<DisplayObject> returnList, final JProgressBar progressBar) {
+	private GeometryStore initializeLines(final List<SystemObject> systemObjects, final JProgressBar progressBar) {
 		_lineComposedOfLinesType = _configuration.getType("typ.bestehtAusLinienObjekten");
 		_lineWithCoordinatesType = _configuration.getType("typ.linieXY");
 		_composedOfLinesAttributeGroup = _configuration.getAttributeGroup("atg.bestehtAusLinienObjekten");
@@ -412,7 +596,7 @@ public class DisplayObjectManager {
 		);
 
 		final int chunkSize = 100;
-		for(int i = 0; i < systemObjects.size() - chunkSize; i += chunkSize) {
+		for(int i = 0; i < systemObjects.size(); i += chunkSize) {
 
 			final int val = i;
 			SwingUtilities.invokeLater(
@@ -422,7 +606,7 @@ public class DisplayObjectManager {
 						}
 					}
 			);
-			final List<SystemObject> subList = systemObjects.subList(i, i + chunkSize);
+			final List<SystemObject> subList = systemObjects.subList(i, Math.min(i + chunkSize, systemObjects.size()));
 			preloadLines(subList);
 		}
 
@@ -435,22 +619,13 @@ public class DisplayObjectManager {
 		);
 
 
-		final DOTCollection dotCollection = entry.getLayer().getDotCollection();
-		final Iterator<DisplayObjectType> iterator = dotCollection.values().iterator();
-		if(!iterator.hasNext()) {
-			return;
-		}
-		final DisplayObjectType dot = iterator.next();
-		final DisplayObjectTypePlugin displayObjectTypePlugin = dot.getDisplayObjectTypePlugin();
-		DisplayObjectPainter painter = displayObjectTypePlugin.getPainter();
-		final Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> pfpPairs = getPrimitiveFormPropertyPairs(dotCollection);
-		for(SystemObject systemObject : systemObjects) {
-			final List<Object> polylines = getPolylines(systemObject);
-			DisplayObject displayObject = new DisplayObject(
-					systemObject, polylines, painter, dotCollection, pfpPairs, _mapPane
-			);
-			returnList.add(displayObject);
-		}
+		final GeometryStore geometryStore = createGeometryStore(
+				systemObjects, 16 * systemObjects.size(), new CoordinateSource() {
+					public List<Object> getCoordinates(final SystemObject systemObject) {
+						return getPolylines(systemObject);
+					}
+				}
+		);
 		SwingUtilities.invokeLater(
 				new Runnable() {
 					public void run() {
@@ -459,6 +634,7 @@ public class DisplayObjectManager {
 					}
 				}
 		);
+		return geometryStore;
 	}
 
 	private void preloadLines(final Collection<SystemObject> objectCollection) {
@@ -476,8 +652,8 @@ public class DisplayObjectManager {
 		if(lines.size() > 0) {
 			final List<SystemObject> objects = new ArrayList<SystemObject>(getObjects(lines));
 			final int chunkSize = 100;
-			for(int i = 0; i < objects.size() - chunkSize; i += chunkSize) {
-				final List<SystemObject> subList = objects.subList(i, i + chunkSize);
+			for(int i = 0; i < objects.size(); i += chunkSize) {
+				final List<SystemObject> subList = objects.subList(i, Math.min(i + chunkSize, objects.size()));
 				_configuration.getConfigurationData(subList, _composedOfLinesAttributeGroup);
 				preloadLines(subList);
 			}
@@ -515,7 +691,7 @@ public class DisplayObjectManager {
 	 * @version $Revision$
 	 *
 	 */
-	public class PointWithAngle {
+	public static class PointWithAngle {
 		
 		/**
 		 * Konstruiert ein Objekt mit den übergebenen Werten.
@@ -545,17 +721,27 @@ public class DisplayObjectManager {
 	}
 	
 	private List<Object> getPointCoordinates(SystemObject systemObject) {
+		return getPointCoordinates( systemObject, null);
+	}
+	
+	private List<Object> getPointCoordinates(SystemObject systemObject, Map<SystemObject, PointWithAngle> pointsOnLines) {
 		// Für jedes Systemobjekt wird höchstens eine Koordinate berechnet.
 		// Existieren sowohl eine Linie+Offset-Information als auch eine
 		// Koordinate, so wird die Linie+Offset-Information verwendet.
 		// In diesem Fall wird der Winkel der Linie an diesem Punkt näherungs-
 		// weise berechnet und auch in die Koordinatenliste gesteckt.
+		// Sind die Punkte auf Linien bereits mit placePointsOnLines bestimmt worden, so
+		// werden sie aus pointsOnLines übernommen.
 		List<Object> pointCoordinate = new ArrayList<Object>();
-		if (systemObject.isOfType( _pointOnLineType)) {
+		if ( (pointsOnLines != null) && pointsOnLines.containsKey( systemObject)) {
+			final PointWithAngle newPoint = pointsOnLines.get( systemObject);
+			if ( newPoint != null) {
+				pointCoordinate.add( newPoint);
+				return pointCoordinate;
+			}
+		} else if (systemObject.isOfType( _pointOnLineType)) {
 			final Data pointOnLineData;
-			synchronized(_configurationAccess) {
-				pointOnLineData = systemObject.getConfigurationData( _pointOnLineAttributeGroup);
-            }
+			pointOnLineData = getConfigurationData( systemObject, _pointOnLineAttributeGroup);
 			if ( pointOnLineData != null) {
 				final SystemObject line = pointOnLineData.getReferenceValue("LinienReferenz").getSystemObject();
 				List<Object> lineCoordinates = getPolylines( line);	// liefert schon UTM
@@ -572,18 +758,13 @@ public class DisplayObjectManager {
 		}
 		if (systemObject.isOfType( _pointWithCoordinatesType)) {
 			final Data coordinatesData;
-			synchronized(_configurationAccess) {
-				coordinatesData = systemObject.getConfigurationData( _pointCoordinateAttributeGroup);
-            }
+			coordinatesData = getConfigurationData( systemObject, _pointCoordinateAttributeGroup);
 			if (coordinatesData != null) {
 				final Data.NumberValue x = coordinatesData.getScaledValue("x");
 				final Data.NumberValue y = coordinatesData.getScaledValue("y");
-				final UTMCoordinate utm = new UTMCoordinate();
 				if(x.isNumber() && y.isNumber()) {
-					GeoTransformation.wGS84ToUTM(x.doubleValue(), y.doubleValue(), utm);
-					customiseUTM( utm);
-					updateExtremeCoordinates( utm);
-					Point2D.Double newPoint = new Point2D.Double( utm.getX(), utm.getY());
+					Point2D.Double newPoint = _projectionContext.project( x.doubleValue(), y.doubleValue());
+					customise( newPoint);
 					PointWithAngle newPiontWithDummyAngle = new PointWithAngle( newPoint, Double.NaN);
 					pointCoordinate.add( newPiontWithDummyAngle);
 					return pointCoordinate;
@@ -596,144 +777,153 @@ public class DisplayObjectManager {
 	private PointWithAngle determinePointCoordinate( 
 			List<Object> lineCoordinates, // bereits in UTM
 			final double offset) {
-		if ( lineCoordinates.size() != 1) {
-			return null;
-		}
-		if ( offset < 0.) {
-			return null;
-		}
-		Object o = lineCoordinates.get(0);
-		if ( !(o instanceof Path2D.Double)) {
+		final LinearReference linearReference = LinearReference.create( lineCoordinates);
+		if ( linearReference == null) {
 			return null;
 		}
-		Path2D.Double polyline = (Path2D.Double) o;
-		final PathIterator pathIterator = polyline.getPathIterator(null);
-		double currentOffset = 0.;
-		double currentX = Double.MAX_VALUE; 
-		double currentY = Double.MAX_VALUE;
-		while (pathIterator.isDone() == false) {
-			double[] coordinates = new double[6];
-			int type = pathIterator.currentSegment( coordinates);
-			switch (type) {
-				case PathIterator.SEG_MOVETO:
-					currentX = coordinates[0];
-					currentY = coordinates[1];
-					break;
-				case PathIterator.SEG_LINETO:
-					double newX = coordinates[0];
-					double newY = coordinates[1];
-					if ( currentX != Double.MAX_VALUE) {
-						double meters = getMeterDistance(currentX, currentY, newX, newY);
-						if ( (offset >= currentOffset) && (currentOffset + meters >= offset) ) {	
-							double lambda = (offset - currentOffset) / meters;
-							double xUTM = currentX + lambda * (newX - currentX);
-							double yUTM = currentY + lambda * (newY - currentY);
-							return new PointWithAngle(
-									new Point2D.Double( xUTM, yUTM), 
-									orientedAngleWithXAxis(newX-currentX, newY-currentY));
-							
-						} else {
-							currentOffset += meters;
-						}
-					}
-					currentX = coordinates[0];
-					currentY = coordinates[1];
-					break;
-				default:
-					break;
-			}
-			pathIterator.next();	
-		}
-		return null;
+		return linearReference.getPointAt( offset);
 	}
 	
-	private Double orientedAngleWithXAxis(double x, double y) {
-		double norm = Math.sqrt( x*x + y*y);
-		if ( norm == 0.) {
-			return null;
-		}
-		Double cosinus = x / norm;
-		if ( cosinus.isNaN() || cosinus.isInfinite()) {
-			return null;
-		}
-		Double angle = Math.acos( cosinus);
-		if ( angle.isNaN() || angle.isInfinite()) {
-			return null;
+	/*
+	 * Bestimmt die Koordinaten aller Punkte, die auf einer Linie liegen. Die Punkte werden nach
+	 * ihrer Linie gruppiert, so dass jede Linie nur einmal indiziert und mit einem sortierten
+	 * Durchlauf abgearbeitet wird. Die Rückgabe enthält alle Punkte mit Linienreferenz, und zwar
+	 * mit dem Wert null, wenn der Punkt nicht auf der Linie bestimmt werden konnte.
+	 */
+	private Map<SystemObject, PointWithAngle> placePointsOnLines(final List<SystemObject> systemObjects) {
+		final Map<SystemObject, PointWithAngle> pointsOnLines = new HashMap<SystemObject, PointWithAngle>();
+		final Map<SystemObject, List<SystemObject>> pointsByLine = new LinkedHashMap<SystemObject, List<SystemObject>>();
+		final Map<SystemObject, Double> offsets = new HashMap<SystemObject, Double>();
+		for(SystemObject systemObject : systemObjects) {
+			if ( !systemObject.isOfType( _pointOnLineType)) {
+				continue;
+			}
+			final Data pointOnLineData = getConfigurationData( systemObject, _pointOnLineAttributeGroup);
+			if ( pointOnLineData == null) {
+				continue;
+			}
+			pointsOnLines.put( systemObject, null);
+			final SystemObject line = pointOnLineData.getReferenceValue("LinienReferenz").getSystemObject();
+			final Data.NumberValue scaledOffset = pointOnLineData.getScaledValue("Offset");
+			if ( (line == null) || !scaledOffset.isNumber()) {
+				continue;
+			}
+			List<SystemObject> points = pointsByLine.get( line);
+			if ( points == null) {
+				points = new ArrayList<SystemObject>();
+				pointsByLine.put( line, points);
+			}
+			points.add( systemObject);
+			offsets.put( systemObject, scaledOffset.doubleValue());
 		}
-		if ( y < 0.) {
-			angle = 2 * Math.PI - angle;
+		final List<SystemObject> lines = new ArrayList<SystemObject>( pointsByLine.keySet());
+		final List<?>[] placedPoints = computeCoordinates( lines, new CoordinateSource() {
+			public List<Object> getCoordinates(final SystemObject line) {
+				final List<SystemObject> points = pointsByLine.get( line);
+				final LinearReference linearReference = LinearReference.create( getPolylines( line));
+				if ( linearReference == null) {
+					return Collections.emptyList();
+				}
+				final double[] lineOffsets = new double[points.size()];
+				for ( int i = 0; i < lineOffsets.length; i++) {
+					lineOffsets[i] = offsets.get( points.get( i));
+				}
+				return Arrays.<Object>asList( linearReference.getPointsAt( lineOffsets));
+			}
+		});
+		for ( int i = 0; i < lines.size(); i++) {
+			final List<SystemObject> points = pointsByLine.get( lines.get( i));
+			final List<?> linePoints = placedPoints[i];
+			for ( int j = 0; j < linePoints.size(); j++) {
+				pointsOnLines.put( points.get( j), (PointWithAngle) linePoints.get( j));
+			}
 		}
-		return angle;
-	}
-	
-	private double getMeterDistance(double x1, double y1, double x2, double y2) {
-		double dx = x1-x2;
-		double dy = y1-y2;
-		dx = dx*dx;
-		dy = dy*dy;
-		return Math.sqrt( dx+dy);
+		return pointsOnLines;
 	}
 	
+	/*
+	 * Gibt die Polylinien der Linie zurück. Das Ergebnis wird im PolylineCache gehalten und
+	 * darf nicht verändert werden.
+	 */
 	private List<Object> getPolylines(SystemObject systemObject) {
+		if ( systemObject != null) {
+			final List<Object> cachedPolylines = _polylineCache.get( systemObject);
+			if ( cachedPolylines != null) {
+				return cachedPolylines;
+			}
+		}
 		List<Path2D.Double> rawPolylines = new ArrayList<Path2D.Double>();
-		appendCoordinates(systemObject, rawPolylines);
+		appendCoordinates(systemObject, rawPolylines, new HashSet<SystemObject>());
 		List<Object> polylines = new ArrayList<Object>();
 		simplifyCoordinates(rawPolylines, polylines);
+		polylines = Collections.unmodifiableList( polylines);
+		if ( systemObject != null) {
+			_polylineCache.put( systemObject, polylines);
+		}
 		return polylines;
 	}
 	
-	private void appendCoordinates(SystemObject systemObject, List<Path2D.Double> polylines) {
+	private void appendCoordinates(SystemObject systemObject, List<Path2D.Double> polylines, Set<SystemObject> parents) {
 		// Für jedes Systemobjekt werden entweder nur Koordinaten aus der Komposition
 		// oder aus den Koordinatendaten übernommen. Besitzt eine Linie beiderlei Informationen,
 		// so werden die Daten der Kompostion gewählt.
+		// In parents stehen die Linien, aus denen die aktuelle Linie zusammengesetzt wird; trifft
+		// man erneut auf eine davon, so ist die Konfiguration zyklisch.
 		if ( systemObject == null) {
 			return;
 		}
+		if ( !parents.add( systemObject)) {
+			_debug.warning( "Die Linie " + systemObject.getPidOrId() + " besteht zyklisch aus sich selbst.");
+			return;
+		}
 		int numberOfPolylines = polylines.size();
 		if(systemObject.isOfType( _lineComposedOfLinesType)) {
 			final Data linesData;
-			synchronized(_configurationAccess) {
-	            linesData = systemObject.getConfigurationData( _composedOfLinesAttributeGroup);
-            }
+			linesData = getConfigurationData( systemObject, _composedOfLinesAttributeGroup);
 			if(linesData != null) {
 				final SystemObject[] linesArray = linesData.getReferenceArray("LinienReferenz").getSystemObjectArray();
 				final java.util.List<SystemObject> lines = Arrays.asList(linesArray);
 				for(SystemObject subSystemObject : lines) {
-					appendCoordinates(subSystemObject, polylines);
+					appendCoordinates(subSystemObject, polylines, parents);
 				}
 			}
 		}
 		if ( numberOfPolylines == polylines.size()) {
-			if(systemObject.isOfType( _lineWithCoordinatesType)) {
+			// Teillinien werden im _subLineCache gehalten; die Linien selbst hält schon der _polylineCache.
+			final boolean isSubLine = parents.size() > 1;
+			final List<Object> cachedSubLine = isSubLine ? _subLineCache.get( systemObject) : null;
+			if ( cachedSubLine != null) {
+				for ( Object polyline : cachedSubLine) {
+					polylines.add( (Path2D.Double) polyline);
+				}
+			}
+			else if(systemObject.isOfType( _lineWithCoordinatesType)) {
 				final Data coordinatesData;
-				synchronized(_configurationAccess) {
-					coordinatesData = systemObject.getConfigurationData( _lineCoordinatesAttributeGroup);
-                }
+				coordinatesData = getConfigurationData( systemObject, _lineCoordinatesAttributeGroup);
 				if(coordinatesData != null) {
 					final Data.NumberArray xArray = coordinatesData.getScaledArray("x");
 					final Data.NumberArray yArray = coordinatesData.getScaledArray("y");
-					int length = Math.min(xArray.getLength(), yArray.getLength());
-					Path2D.Double polyline = new Path2D.Double();
-					final UTMCoordinate utm = new UTMCoordinate();
+					final double[] x = new double[Math.min(xArray.getLength(), yArray.getLength())];
+					final double[] y = new double[x.length];
+					final int length = getProjectedCoordinates( xArray, yArray, x, y);
+					Path2D.Double polyline = new Path2D.Double( Path2D.WIND_NON_ZERO, Math.max( length, 1));
 					for(int i = 0; i < length; i++) {
-						final Data.NumberValue xValue = xArray.getValue(i);
-						final Data.NumberValue yValue = yArray.getValue(i);
-						if(xValue.isNumber() && yValue.isNumber()) {
-							GeoTransformation.wGS84ToUTM(xValue.doubleValue(), yValue.doubleValue(), utm);
-							customiseUTM( utm);
-							updateExtremeCoordinates( utm);
-							if(i == 0) {
-								polyline.moveTo(utm.getX(), utm.getY());
-							}
-							else {
-								polyline.lineTo(utm.getX(), utm.getY());
-							}
+						if(i == 0) {
+							polyline.moveTo(x[i], y[i]);
+						}
+						else {
+							polyline.lineTo(x[i], y[i]);
 						}
 					}
 					polylines.add( polyline);
 				}
+				if ( isSubLine) {
+					_subLineCache.put( systemObject, (numberOfPolylines == polylines.size())
+							? Collections.emptyList() : Collections.<Object>singletonList( polylines.get( numberOfPolylines)));
+				}
 			}
 		}
+		parents.remove( systemObject);
 	}
 	
 	/**
@@ -741,7 +931,7 @@ public class DisplayObjectManager {
 	 * 
 	 * @return gibt die kleinste bisher gefundene x-Koordinate zurück
 	 */
-	public double getxMin() {
+	public synchronized double getxMin() {
 		return _xMin;
 	}
 	
@@ -750,7 +940,7 @@ public class DisplayObjectManager {
 	 * 
 	 * @return gibt die kleinste bisher gefundene y-Koordinate zurück
 	 */
-	public double getyMin() {
+	public synchronized double getyMin() {
 		return _yMin;
 	}
 	
@@ -759,7 +949,7 @@ public class DisplayObjectManager {
 	 * 
 	 * @return gibt die größte bisher gefundene x-Koordinate zurück
 	 */
-	public double getxMax() {
+	public synchronized double getxMax() {
 		return _xMax;
 	}
 	
@@ -768,7 +958,7 @@ public class DisplayObjectManager {
 	 * 
 	 * @return gibt die größte bisher gefundene y-Koordinate zurück
 	 */
-	public double getyMax() {
+	public synchronized double getyMax() {
 		return _yMax;
 	}
 	
@@ -780,18 +970,50 @@ public class DisplayObjectManager {
 		System.out.println("yMax: " + _yMax);
 	}
 	
-	private void updateExtremeCoordinates( UTMCoordinate utm) {
-		if (_xMin > utm.getX()) {
-			_xMin = utm.getX();
+	/*
+	 * Übernimmt das umgebende Rechteck aller Objekte des GeometryStores eines Layers in die
+	 * Extremwerte, gleich ob er aus dem GeometryCache gelesen oder neu berechnet wurde. Stützpunkte,
+	 * die nur zur Berechnung dienen, etwa die der Linien unter Punkten auf Linien, zählen nicht mit.
+	 */
+	private void updateExtremeCoordinates( GeometryStore geometryStore) {
+		final Extent extent = new Extent();
+		for ( int object = 0; object < geometryStore.getNumberOfObjects(); object++) {
+			final Rectangle2D bounds = geometryStore.getBounds2D( object);
+			if ( bounds != null) {
+				extent.add( bounds.getMinX(), bounds.getMinY());
+				extent.add( bounds.getMaxX(), bounds.getMaxY());
+			}
 		}
-		if (_xMax < utm.getX()) {
-			_xMax = utm.getX();
+		updateExtremeCoordinates( extent);
+	}
+	
+	private void updateExtremeCoordinates( Extent extent) {
+		if ( !extent.isEmpty()) {
+			updateExtremeCoordinates( extent._xMin, extent._yMin, extent._xMax, extent._yMax);
 		}
-		if (_yMin > utm.getY()) {
-			_yMin = utm.getY();
+	}
+	
+	/*
+	 * Die Extremwerte werden bei der parallelen Initialisierung von mehreren Threads aktualisiert;
+	 * damit das nicht für jeden Stützpunkt geschieht, sammelt der Aufrufer die Werte eines Layers
+	 * zunächst lokal.
+	 */
+	private synchronized void updateExtremeCoordinates( double xMin, double yMin, double xMax, double yMax) {
+		if (_xMin > xMin) {
+			_xMin = xMin;
+			_extentRectangle = null;
+		}
+		if (_xMax < xMax) {
+			_xMax = xMax;
+			_extentRectangle = null;
+		}
+		if (_yMin > yMin) {
+			_yMin = yMin;
+			_extentRectangle = null;
 		}
-		if (_yMax < utm.getY()) {
-			_yMax = utm.getY();
+		if (_yMax < yMax) {
+			_yMax = yMax;
+			_extentRectangle = null;
 		}
 	}
 	
@@ -856,48 +1078,118 @@ public class DisplayObjectManager {
 		}
 	}
 	
+	/**
+	 * Legt fest, ob neu erzeugte DisplayObjects für {@link #subscribeDisplayObjects()} vorgemerkt werden;
+	 * das ist die Voreinstellung. Wer die Anmeldungen selbst mit {@link #subscribe(Collection)} und
+	 * {@link #unsubscribe(Collection)} verwaltet, schaltet das ab.
+	 *
+	 * @param subscribeOnCreation <code>true</code>, wenn neue DisplayObjects vorgemerkt werden sollen
+	 */
+	public void setSubscribeOnCreation( final boolean subscribeOnCreation) {
+		_subscribeOnCreation = subscribeOnCreation;
+	}
+	
 	/**
 	 * Mit dieser Methode werden alle Anmeldungen beim Datenverteiler vorgenommen,
 	 * die sich auf seit dem letzten Aufruf dieser Methode durch Initialisierungen
 	 * neuer DisplayObjects ergeben haben.
+	 * <p>
+	 * Im Sammelmodus (siehe {@link #BULK_SUBSCRIPTION}) werden die Systemobjekte nach Layer, Attributgruppe
+	 * und Aspekt gruppiert und für jede dieser Kombinationen mit einem gemeinsamen
+	 * {@link SubscriptionReceiver} in wenigen großen Aufrufen angemeldet.
 	 */
 	public void subscribeDisplayObjects() {
-		int i = 0;
+		final List<DisplayObject> displayObjects;
 		synchronized(_unsubscribedDisplayObjects) {
-			for ( DisplayObject displayObject : _unsubscribedDisplayObjects) {
-				final DOTCollection dotCollection = displayObject.getDOTCollection();
-				for ( DisplayObjectType displayObjectType : dotCollection.values()) {
-					Set<DOTSubscriptionData> allSubscriptionData = displayObjectType.getSubscriptionData();
-					for ( DOTSubscriptionData subscriptionData : allSubscriptionData) {
-						final AttributeGroup onlineAtg;
-						onlineAtg = _configuration.getAttributeGroup(subscriptionData.getAttributeGroup());
-						if ( onlineAtg == null) {
-							continue;
-						}
-						final Aspect aspect = _configuration.getAspect(subscriptionData.getAspect());
-						if ( aspect == null) {
-							continue;
+			displayObjects = new ArrayList<DisplayObject>( _unsubscribedDisplayObjects);
+			_unsubscribedDisplayObjects.clear();
+		}
+		subscribe( displayObjects);
+	}
+	
+	/**
+	 * Meldet die übergebenen DisplayObjects im aufrufenden Thread beim Datenverteiler an. Die Methode ist
+	 * für Aufrufer gedacht, die selbst bestimmen, welche DisplayObjects angemeldet sind, etwa nach dem
+	 * Kartenausschnitt (siehe {@link #setSubscribeOnCreation(boolean)}). Innerhalb einer Datenbeschreibung
+	 * wird in der Reihenfolge der Collection angemeldet.
+	 *
+	 * @param displayObjects die DisplayObjects
+	 */
+	public void subscribe( final Collection<DisplayObject> displayObjects) {
+		if ( !BULK_SUBSCRIPTION) {
+			subscribeSingly( displayObjects);
+			return;
+		}
+		if ( _firstSubscriptionTime == 0L) {
+			_firstSubscriptionTime = System.currentTimeMillis();
+		}
+		final Map<SubscriptionReceiver, List<SystemObject>> newSubscriptions =
+			new LinkedHashMap<SubscriptionReceiver, List<SystemObject>>();
+		for ( DisplayObject displayObject : displayObjects) {
+			final DOTCollection dotCollection = displayObject.getDOTCollection();
+			for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+				for ( DOTSubscriptionData subscriptionData : displayObjectType.getSubscriptionData()) {
+					final SubscriptionReceiver receiver = getSubscriptionReceiver( dotCollection, subscriptionData, true);
+					if ( receiver == null || !receiver.add( displayObject)) {
+						continue;
+					}
+					List<SystemObject> systemObjects = newSubscriptions.get( receiver);
+					if ( systemObjects == null) {
+						systemObjects = new ArrayList<SystemObject>();
+						newSubscriptions.put( receiver, systemObjects);
+					}
+					systemObjects.add( displayObject.getSystemObject());
+				}
+			}
+		}
+		for ( Map.Entry<SubscriptionReceiver, List<SystemObject>> entry : newSubscriptions.entrySet()) {
+			final SubscriptionReceiver receiver = entry.getKey();
+			callInBatches( entry.getValue(), new BatchCall() {
+				public void call( SystemObject[] systemObjects) {
+					_connection.subscribeReceiver( receiver, systemObjects, receiver.getDataDescription(),
+							ReceiveOptions.normal(), ReceiverRole.receiver());
+				}
+			});
+		}
+	}
+	
+	/*
+	 * Die bisherige Anmeldung: jedes DisplayObject ist sein eigener Empfänger.
+	 */
+	private void subscribeSingly( final Collection<DisplayObject> displayObjects) {
+		int i = 0;
+		for ( DisplayObject displayObject : displayObjects) {
+			final DOTCollection dotCollection = displayObject.getDOTCollection();
+			for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+				Set<DOTSubscriptionData> allSubscriptionData = displayObjectType.getSubscriptionData();
+				for ( DOTSubscriptionData subscriptionData : allSubscriptionData) {
+					final AttributeGroup onlineAtg;
+					onlineAtg = _configuration.getAttributeGroup(subscriptionData.getAttributeGroup());
+					if ( onlineAtg == null) {
+						continue;
+					}
+					final Aspect aspect = _configuration.getAspect(subscriptionData.getAspect());
+					if ( aspect == null) {
+						continue;
+					}
+					final DataDescription dataDescription = new DataDescription(onlineAtg, aspect);
+					SystemObject[] systemobjects = new SystemObject[1];
+					systemobjects[0] = displayObject.getSystemObject();
+					_connection.subscribeReceiver(
+							displayObject, systemobjects, dataDescription, ReceiveOptions.normal(),
+							ReceiverRole.receiver()
+					);
+					i++;
+					if(i % 10 == 0) {
+						try {
+							Thread.sleep(100);
 						}
-						final DataDescription dataDescription = new DataDescription(onlineAtg, aspect);
-						SystemObject[] systemobjects = new SystemObject[1];
-						systemobjects[0] = displayObject.getSystemObject();
-						_connection.subscribeReceiver(
-								displayObject, systemobjects, dataDescription, ReceiveOptions.normal(),
-								ReceiverRole.receiver()
-						);
-						i++;
-						if(i % 10 == 0) {
-							try {
-								Thread.sleep(100);
-							}
-							catch(InterruptedException e) {
-								throw new IllegalStateException(e);
-							}
+						catch(InterruptedException e) {
+							throw new IllegalStateException(e);
 						}
 					}
 				}
 			}
-			_unsubscribedDisplayObjects.clear();
 		}
 	}
 	
@@ -911,29 +1203,192 @@ public class DisplayObjectManager {
 	public void unsubscribeDisplayObjects( final Collection<DisplayObject> displayObjects) {
 		Runnable unsubscriber = new Runnable() {
 			public void run() {
-				for ( DisplayObject displayObject : displayObjects) {
-					final DOTCollection dotCollection = displayObject.getDOTCollection();
-					for ( DisplayObjectType displayObjectType : dotCollection.values()) {
-						Set<DOTSubscriptionData> allSubscriptionData = displayObjectType.getSubscriptionData();
-						for ( DOTSubscriptionData subscriptionData : allSubscriptionData) {
-							final AttributeGroup onlineAtg;
-							onlineAtg = _configuration.getAttributeGroup(subscriptionData.getAttributeGroup());
-							final Aspect aspect = _configuration.getAspect(subscriptionData.getAspect());
-							if ( (onlineAtg != null) && (aspect != null)) {
-								final DataDescription dataDescription = new DataDescription(onlineAtg, aspect);
-								SystemObject[] systemobjects = new SystemObject[1];
-								systemobjects[0] = displayObject.getSystemObject();
-								_connection.unsubscribeReceiver( displayObject, systemobjects, dataDescription);
-							}
-						}
-					}
-				}
+				unsubscribe( displayObjects);
 			}
 		};
 		Thread unsubscriberThread = new Thread( unsubscriber);
 		unsubscriberThread.start();
 	}
 	
+	/**
+	 * Meldet die übergebenen DisplayObjects im aufrufenden Thread beim Datenverteiler ab; das Gegenstück
+	 * zu {@link #subscribe(Collection)}.
+	 *
+	 * @param displayObjects die DisplayObjects
+	 */
+	public void unsubscribe( final Collection<DisplayObject> displayObjects) {
+		if ( BULK_SUBSCRIPTION) {
+			unsubscribeInBulk( displayObjects);
+			return;
+		}
+		for ( DisplayObject displayObject : displayObjects) {
+			final DOTCollection dotCollection = displayObject.getDOTCollection();
+			for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+				Set<DOTSubscriptionData> allSubscriptionData = displayObjectType.getSubscriptionData();
+				for ( DOTSubscriptionData subscriptionData : allSubscriptionData) {
+					final AttributeGroup onlineAtg;
+					onlineAtg = _configuration.getAttributeGroup(subscriptionData.getAttributeGroup());
+					final Aspect aspect = _configuration.getAspect(subscriptionData.getAspect());
+					if ( (onlineAtg != null) && (aspect != null)) {
+						final DataDescription dataDescription = new DataDescription(onlineAtg, aspect);
+						SystemObject[] systemobjects = new SystemObject[1];
+						systemobjects[0] = displayObject.getSystemObject();
+						_connection.unsubscribeReceiver( displayObject, systemobjects, dataDescription);
+					}
+				}
+			}
+		}
+	}
+	
+	/*
+	 * Entfernt die DisplayObjects aus ihren SubscriptionReceivern und meldet die Systemobjekte ab, zu
+	 * denen danach kein DisplayObject mehr gehört.
+	 */
+	private void unsubscribeInBulk( final Collection<DisplayObject> displayObjects) {
+		final Map<SubscriptionReceiver, List<SystemObject>> obsoleteSubscriptions =
+			new LinkedHashMap<SubscriptionReceiver, List<SystemObject>>();
+		for ( DisplayObject displayObject : displayObjects) {
+			final DOTCollection dotCollection = displayObject.getDOTCollection();
+			for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+				for ( DOTSubscriptionData subscriptionData : displayObjectType.getSubscriptionData()) {
+					final SubscriptionReceiver receiver = getSubscriptionReceiver( dotCollection, subscriptionData, false);
+					if ( receiver == null || !receiver.remove( displayObject)) {
+						continue;
+					}
+					List<SystemObject> systemObjects = obsoleteSubscriptions.get( receiver);
+					if ( systemObjects == null) {
+						systemObjects = new ArrayList<SystemObject>();
+						obsoleteSubscriptions.put( receiver, systemObjects);
+					}
+					systemObjects.add( displayObject.getSystemObject());
+				}
+			}
+		}
+		for ( Map.Entry<SubscriptionReceiver, List<SystemObject>> entry : obsoleteSubscriptions.entrySet()) {
+			final SubscriptionReceiver receiver = entry.getKey();
+			callInBatches( entry.getValue(), new BatchCall() {
+				public void call( SystemObject[] systemObjects) {
+					_connection.unsubscribeReceiver( receiver, systemObjects, receiver.getDataDescription());
+				}
+			});
+		}
+	}
+	
+	/*
+	 * Gibt den SubscriptionReceiver des Layers zu Attributgruppe und Aspekt der Anmeldedaten zurück und
+	 * legt ihn bei Bedarf an. Gibt null zurück, wenn Attributgruppe oder Aspekt nicht existieren oder
+	 * wenn es keinen Empfänger gibt und keiner angelegt werden soll. Ein Layer hat nur wenige
+	 * Datenbeschreibungen, deshalb genügt eine lineare Suche.
+	 */
+	private SubscriptionReceiver getSubscriptionReceiver( final DOTCollection dotCollection,
+			final DOTSubscriptionData subscriptionData, final boolean create) {
+		final AttributeGroup attributeGroup = _configuration.getAttributeGroup( subscriptionData.getAttributeGroup());
+		if ( attributeGroup == null) {
+			return null;
+		}
+		final Aspect aspect = _configuration.getAspect( subscriptionData.getAspect());
+		if ( aspect == null) {
+			return null;
+		}
+		synchronized ( _subscriptionReceivers) {
+			List<SubscriptionReceiver> receivers = _subscriptionReceivers.get( dotCollection);
+			if ( receivers == null) {
+				if ( !create) {
+					return null;
+				}
+				receivers = new ArrayList<SubscriptionReceiver>();
+				_subscriptionReceivers.put( dotCollection, receivers);
+			}
+			for ( SubscriptionReceiver receiver : receivers) {
+				final DataDescription dataDescription = receiver.getDataDescription();
+				if ( dataDescription.getAttributeGroup().equals( attributeGroup) &&
+						dataDescription.getAspect().equals( aspect)) {
+					return receiver;
+				}
+			}
+			if ( !create) {
+				return null;
+			}
+			String layerName = _layerNames.get( dotCollection);
+			if ( layerName == null) {
+				layerName = dotCollection.toString();
+			}
+			final SubscriptionReceiver receiver =
+				new SubscriptionReceiver( layerName, new DataDescription( attributeGroup, aspect));
+			receivers.add( receiver);
+			return receiver;
+		}
+	}
+	
+	/**
+	 * Gibt für jeden Layer die Anzahl der empfangenen Pakete und Datensätze, die Datensätze pro Sekunde
+	 * seit der ersten Anmeldung und die Zeit für ihre Verteilung an die DisplayObjects zurück, dazu die
+	 * Statistik der {@link UpdateQueue}. Im Einzelmodus (siehe {@link #BULK_SUBSCRIPTION}) gibt es keine
+	 * Statistik der Layer. Die Kartenansicht protokolliert sie, wenn sie geschlossen wird.
+	 *
+	 * @return die Statistik
+	 */
+	public String getSubscriptionStatistics() {
+		final StringBuilder sb = new StringBuilder( "[Anmeldungen:");
+		final long seconds = Math.max( 1L, (System.currentTimeMillis() - _firstSubscriptionTime) / 1000L);
+		synchronized ( _subscriptionReceivers) {
+			for ( Map.Entry<DOTCollection, List<SubscriptionReceiver>> entry : _subscriptionReceivers.entrySet()) {
+				long batches = 0;
+				long results = 0;
+				long nanos = 0;
+				String layerName = null;
+				for ( SubscriptionReceiver receiver : entry.getValue()) {
+					layerName = receiver.getLayerName();
+					batches += receiver.getBatches();
+					results += receiver.getResults();
+					nanos += receiver.getDispatchNanos();
+				}
+				if ( layerName == null) {
+					continue;
+				}
+				sb.append( " [Layer=").append( layerName).append( ", Empfänger=").append( entry.getValue().size());
+				sb.append( ", Pakete=").append( batches).append( ", Datensätze=").append( results);
+				sb.append( ", Datensätze/s=").append( results / seconds);
+				sb.append( ", Verteilzeit=").append( nanos / 1000000L).append( "ms]");
+			}
+		}
+		if ( UpdateQueue.ENABLED) {
+			sb.append( " ").append( UpdateQueue.getInstance());
+		}
+		return sb.append( "]").toString();
+	}
+	
+	/*
+	 * Ein Aufruf beim Datenverteiler für eine Teilmenge von Systemobjekten.
+	 */
+	private interface BatchCall {
+		void call( SystemObject[] systemObjects);
+	}
+	
+	/*
+	 * Ruft den BatchCall für die Systemobjekte in Teilmengen auf. Die Größe der Teilmengen richtet sich
+	 * nach der Dauer der letzten Aufrufe, mit der der Datenverteiler die An- oder Abmeldung quittiert:
+	 * sie wird verdoppelt, solange ein Aufruf schneller als die Hälfte von BATCH_TARGET_MILLIS ist, und
+	 * halbiert, wenn er länger dauert. Die Größe wird über alle Aufrufe hinweg gelernt.
+	 */
+	private void callInBatches( final List<SystemObject> systemObjects, final BatchCall batchCall) {
+		int index = 0;
+		while ( index < systemObjects.size()) {
+			final int batchSize = _batchSize;
+			final int end = Math.min( systemObjects.size(), index + batchSize);
+			final SystemObject[] batch = systemObjects.subList( index, end).toArray( new SystemObject[end - index]);
+			final long start = System.nanoTime();
+			batchCall.call( batch);
+			final long millis = (System.nanoTime() - start) / 1000000L;
+			if ( millis > BATCH_TARGET_MILLIS) {
+				_batchSize = Math.max( MIN_BATCH_SIZE, batchSize / 2);
+			} else if ( millis < BATCH_TARGET_MILLIS / 2 && end - index == batchSize) {
+				_batchSize = Math.min( MAX_BATCH_SIZE, batchSize * 2);
+			}
+			index = end;
+		}
+	}
+	
 	/**
 	 * Mit dieser Methode werden alle DisplayObjects, die als MapScaleListener
 	 * zu registrieren sind, beim MapPane registriert.
@@ -945,8 +1400,7 @@ public class DisplayObjectManager {
 		}
 	}
 	
-	private void initializeComplexes(
-			ViewEntry entry, List<SystemObject> systemObjects, List<DisplayObject> returnList, final JProgressBar progressBar) {
+	private GeometryStore initializeComplexes(List<SystemObject> systemObjects) {
 		_pointOnLineType = _configuration.getType("typ.punktLiegtAufLinienObjekt");
 		_pointWithCoordinatesType = _configuration.getType("typ.punktXY");
 		_pointOnLineAttributeGroup = _configuration.getAttributeGroup("atg.punktLiegtAufLinienObjekt");
@@ -958,28 +1412,43 @@ public class DisplayObjectManager {
 		_areaCoordinatesAttributeGroup = _configuration.getAttributeGroup("atg.flächenKoordinaten");
 		_complexCoordinatesAttributeGroup = _configuration.getAttributeGroup("atg.komplexKoordinaten");
 
-		final DOTCollection dotCollection = entry.getLayer().getDotCollection();
-		final Iterator<DisplayObjectType> iterator = dotCollection.values().iterator();
-		if ( !iterator.hasNext()) {
-			return;
+		final int chunkSize = 100;
+		for(int i = 0; i < systemObjects.size(); i += chunkSize) {
+			preloadComplexes(systemObjects.subList(i, Math.min(i + chunkSize, systemObjects.size())));
 		}
-		final DisplayObjectType dot = iterator.next();
-		final DisplayObjectTypePlugin displayObjectTypePlugin = dot.getDisplayObjectTypePlugin();
-		DisplayObjectPainter painter = displayObjectTypePlugin.getPainter();
-		final Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> pfpPairs = getPrimitiveFormPropertyPairs(dotCollection);
-		for(SystemObject systemObject : systemObjects) {
-			final List<Object> complexCoordinates = getComplexCoordinates(systemObject);
-			DisplayObject displayObject = new DisplayObject(systemObject, complexCoordinates, painter, 
-					dotCollection, pfpPairs, _mapPane);
-			returnList.add( displayObject);
+		return createGeometryStore(
+				systemObjects, 16 * systemObjects.size(), new CoordinateSource() {
+					public List<Object> getCoordinates(final SystemObject systemObject) {
+						return getComplexCoordinates(systemObject);
+					}
+				}
+		);
+	}
+	
+	private void preloadComplexes(final Collection<SystemObject> objectCollection) {
+		final Data[] configurationData = _configuration.getConfigurationData(objectCollection, _complexCoordinatesAttributeGroup);
+		final List<SystemObject> points = new ArrayList<SystemObject>();
+		final List<SystemObject> areas = new ArrayList<SystemObject>();
+		for(Data data : configurationData) {
+			if(data != null) {
+				// Wie in getComplexCoordinates: Linien werden wie Punkte, Komplexe wie Flächen gelesen.
+				points.addAll(Arrays.asList(data.getReferenceArray("PunktReferenz").getSystemObjectArray()));
+				points.addAll(Arrays.asList(data.getReferenceArray("LinienReferenz").getSystemObjectArray()));
+				areas.addAll(Arrays.asList(data.getReferenceArray("FlächenReferenz").getSystemObjectArray()));
+				areas.addAll(Arrays.asList(data.getReferenceArray("KomplexReferenz").getSystemObjectArray()));
+			}
+		}
+		if(points.size() > 0) {
+			preloadPoints(points);
+		}
+		if(areas.size() > 0) {
+			_configuration.getConfigurationData(areas, _areaCoordinatesAttributeGroup);
 		}
 	}
 	
 	private List<Object> getComplexCoordinates(SystemObject systemObject) {
 		final Data coordinatesData;
-		synchronized(_configurationAccess) {
-			coordinatesData = systemObject.getConfigurationData( _complexCoordinatesAttributeGroup);
-        }
+		coordinatesData = getConfigurationData( systemObject, _complexCoordinatesAttributeGroup);
 		List<Object> complexCoordinates = new ArrayList<Object>();
 		if(coordinatesData != null) {
 			final ReferenceArray pointReferences = coordinatesData.getReferenceArray( "PunktReferenz");
@@ -1006,56 +1475,208 @@ public class DisplayObjectManager {
 		return complexCoordinates;
 	}
 	
-	private void initializeAreas(
-			ViewEntry entry, List<SystemObject> systemObjects, List<DisplayObject> returnList, final JProgressBar progressBar) {
+	private GeometryStore initializeAreas(List<SystemObject> systemObjects) {
 		_areaCoordinatesAttributeGroup = _configuration.getAttributeGroup("atg.flächenKoordinaten");
 		
-		final DOTCollection dotCollection = entry.getLayer().getDotCollection();
-		final Iterator<DisplayObjectType> iterator = dotCollection.values().iterator();
-		if ( !iterator.hasNext()) {
-			return;
-		}
-		final DisplayObjectType dot = iterator.next();
-		final DisplayObjectTypePlugin displayObjectTypePlugin = dot.getDisplayObjectTypePlugin();
-		DisplayObjectPainter painter = displayObjectTypePlugin.getPainter();
-		final Map<DisplayObjectType, List<PrimitiveFormPropertyPair>> pfpPairs = getPrimitiveFormPropertyPairs( dotCollection);
-		for(SystemObject systemObject : systemObjects) {
-			final List<Object> complexCoordinates = getAreaCoordinates(systemObject);
-			DisplayObject displayObject = new DisplayObject(systemObject, complexCoordinates, painter, 
-					dotCollection, pfpPairs, _mapPane);
-			returnList.add( displayObject);
+		final int chunkSize = 100;
+		for(int i = 0; i < systemObjects.size(); i += chunkSize) {
+			_configuration.getConfigurationData(
+					systemObjects.subList(i, Math.min(i + chunkSize, systemObjects.size())), _areaCoordinatesAttributeGroup);
 		}
+		return createGeometryStore(
+				systemObjects, 16 * systemObjects.size(), new CoordinateSource() {
+					public List<Object> getCoordinates(final SystemObject systemObject) {
+						return getAreaCoordinates(systemObject);
+					}
+				}
+		);
 	}
 	
 	private List<Object> getAreaCoordinates(SystemObject systemObject) {
 		final Data coordinatesData;
-		synchronized(_configurationAccess) {
-			coordinatesData = systemObject.getConfigurationData( _areaCoordinatesAttributeGroup);
-		}
+		coordinatesData = getConfigurationData( systemObject, _areaCoordinatesAttributeGroup);
 		List<Object> areaCoordinates = new ArrayList<Object>();
 		if(coordinatesData != null) {
 			final Data.NumberArray xArray = coordinatesData.getScaledArray("x");
 			final Data.NumberArray yArray = coordinatesData.getScaledArray("y");
-			int length = Math.min(xArray.getLength(), yArray.getLength());
+			final double[] x = new double[Math.min(xArray.getLength(), yArray.getLength())];
+			final double[] y = new double[x.length];
+			final int length = getProjectedCoordinates( xArray, yArray, x, y);
 			Polygon polygon = new Polygon();
-			final UTMCoordinate utm = new UTMCoordinate();
 			// Im Moment unterscheiden wir hier noch nicht zwischen Punkten, Linien und Flächen.
 			for(int i = 0; i < length; i++) {
-				final Data.NumberValue xValue = xArray.getValue(i);
-				final Data.NumberValue yValue = yArray.getValue(i);
-				if(xValue.isNumber() && yValue.isNumber()) {
-					GeoTransformation.wGS84ToUTM(xValue.doubleValue(), yValue.doubleValue(), utm);
-					customiseUTM( utm);
-					updateExtremeCoordinates( utm);
-					polygon.addPoint( (int) utm.getX(), (int) utm.getY());
-				}
+				polygon.addPoint( (int) x[i], (int) y[i]);
 			}
 			areaCoordinates.add( polygon);
 		}
 		return areaCoordinates;
 	}
 	
-	private static void customiseUTM ( UTMCoordinate utm) {
-		utm.setY( -utm.getY());
+	private static void customise ( Point2D.Double point) {
+		point.y = -point.y;
+	}
+	
+	/*
+	 * Liest die gültigen WGS84-Koordinaten aus den beiden Arrays, projeziert sie in einem Durchgang
+	 * und behandelt die Hochwerte wie customise. Die Ergebnisse stehen am Anfang von x und y;
+	 * zurückgegeben wird ihre Anzahl.
+	 */
+	private int getProjectedCoordinates(
+			final Data.NumberArray xArray, final Data.NumberArray yArray, final double[] x, final double[] y) {
+		int length = 0;
+		for(int i = 0; i < x.length; i++) {
+			final Data.NumberValue xValue = xArray.getValue(i);
+			final Data.NumberValue yValue = yArray.getValue(i);
+			if(xValue.isNumber() && yValue.isNumber()) {
+				x[length] = xValue.doubleValue();
+				y[length] = yValue.doubleValue();
+				length++;
+			}
+		}
+		_projectionContext.project( x, y, x, y, 0, length);
+		for(int i = 0; i < length; i++) {
+			y[i] = -y[i];
+		}
+		return length;
+	}
+	
+	/*
+	 * Liest Konfigurationsdaten eines Objekts. Alle Zugriffe werden über _configurationAccess
+	 * serialisiert, außer in den CoordinateTasks der parallelen Initialisierung: dort wurden die
+	 * Daten vorher in Blöcken angefordert, so dass die Zugriffe aus dem lokalen Cache der
+	 * Konfiguration bedient werden und nicht gegenseitig warten müssen.
+	 */
+	private static Data getConfigurationData( SystemObject systemObject, AttributeGroup attributeGroup) {
+		if ( PARALLEL_INITIALIZATION && IN_COORDINATE_TASK.get()) {
+			return systemObject.getConfigurationData( attributeGroup);
+		}
+		synchronized(_configurationAccess) {
+			return systemObject.getConfigurationData( attributeGroup);
+		}
+	}
+	
+	/*
+	 * Berechnet die Koordinaten aller Systemobjekte und legt sie in dieser Reihenfolge in einem
+	 * GeometryStore ab. Bei der parallelen Initialisierung werden die Koordinaten auf einem
+	 * Fork/Join-Pool berechnet und erst danach in den GeometryStore übernommen.
+	 */
+	private GeometryStore createGeometryStore(
+			final List<SystemObject> systemObjects, final int expectedVertices, final CoordinateSource coordinateSource) {
+		final GeometryStore geometryStore = new GeometryStore(systemObjects.size(), expectedVertices);
+		if ( PARALLEL_INITIALIZATION && (systemObjects.size() > PARALLEL_THRESHOLD)) {
+			final List<?>[] coordinates = computeCoordinates( systemObjects, coordinateSource);
+			for ( int i = 0; i < coordinates.length; i++) {
+				@SuppressWarnings("unchecked")
+				final List<Object> objectCoordinates = (List<Object>) coordinates[i];
+				geometryStore.add( objectCoordinates);
+				coordinates[i] = null;
+			}
+		} else {
+			for ( SystemObject systemObject : systemObjects) {
+				geometryStore.add( coordinateSource.getCoordinates( systemObject));
+			}
+		}
+		geometryStore.trimToSize();
+		geometryStore.computeLevelsOfDetail();
+		return geometryStore;
+	}
+	
+	/*
+	 * Berechnet die Koordinatenlisten aller Systemobjekte; bei der parallelen Initialisierung
+	 * auf dem Fork/Join-Pool, sonst der Reihe nach.
+	 */
+	private static List<?>[] computeCoordinates(
+			final List<SystemObject> systemObjects, final CoordinateSource coordinateSource) {
+		final List<?>[] coordinates = new List<?>[systemObjects.size()];
+		if ( PARALLEL_INITIALIZATION && (systemObjects.size() > PARALLEL_THRESHOLD)) {
+			ForkJoinPool.commonPool().invoke(
+					new CoordinateTask( coordinateSource, systemObjects, coordinates, 0, systemObjects.size()));
+		} else {
+			for ( int i = 0; i < coordinates.length; i++) {
+				coordinates[i] = coordinateSource.getCoordinates( systemObjects.get( i));
+			}
+		}
+		return coordinates;
+	}
+	
+	/*
+	 * Berechnet die Koordinatenliste eines Systemobjekts; die Implementationen müssen bei der
+	 * parallelen Initialisierung von mehreren Threads gleichzeitig benutzt werden können.
+	 */
+	private interface CoordinateSource {
+		List<Object> getCoordinates( SystemObject systemObject);
+	}
+	
+	/*
+	 * Eine CoordinateTask berechnet die Koordinaten eines Bereichs von Systemobjekten und
+	 * teilt ihn, solange er größer als PARALLEL_THRESHOLD ist.
+	 */
+	@SuppressWarnings("serial")
+	private static final class CoordinateTask extends RecursiveAction {
+		
+		CoordinateTask( CoordinateSource coordinateSource, List<SystemObject> systemObjects, List<?>[] coordinates,
+				int from, int to) {
+			_coordinateSource = coordinateSource;
+			_systemObjects = systemObjects;
+			_coordinates = coordinates;
+			_from = from;
+			_to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if ( _to - _from <= PARALLEL_THRESHOLD) {
+				IN_COORDINATE_TASK.set( Boolean.TRUE);
+				try {
+					for ( int i = _from; i < _to; i++) {
+						_coordinates[i] = _coordinateSource.getCoordinates( _systemObjects.get( i));
+					}
+				}
+				finally {
+					IN_COORDINATE_TASK.set( Boolean.FALSE);
+				}
+				return;
+			}
+			final int middle = (_from + _to) >>> 1;
+			invokeAll( new CoordinateTask( _coordinateSource, _systemObjects, _coordinates, _from, middle),
+					new CoordinateTask( _coordinateSource, _systemObjects, _coordinates, middle, _to));
+		}
+		
+		private final CoordinateSource _coordinateSource;
+		private final List<SystemObject> _systemObjects;
+		private final List<?>[] _coordinates;
+		private final int _from;
+		private final int _to;
+	}
+	
+	/*
+	 * Ein Extent sammelt die Extremwerte der Stützpunkte eines Layers, bevor sie in die
+	 * Extremwerte des DisplayObjectManagers übernommen werden.
+	 */
+	private static final class Extent {
+		
+		void add( double x, double y) {
+			if ( x < _xMin) {
+				_xMin = x;
+			}
+			if ( x > _xMax) {
+				_xMax = x;
+			}
+			if ( y < _yMin) {
+				_yMin = y;
+			}
+			if ( y > _yMax) {
+				_yMax = y;
+			}
+		}
+		
+		boolean isEmpty() {
+			return _xMin > _xMax;
+		}
+		
+		private double _xMin = Double.POSITIVE_INFINITY;
+		private double _yMin = Double.POSITIVE_INFINITY;
+		private double _xMax = Double.NEGATIVE_INFINITY;
+		private double _yMax = Double.NEGATIVE_INFINITY;
 	}
 }
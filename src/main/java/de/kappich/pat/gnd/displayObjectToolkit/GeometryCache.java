@@ -0,0 +1,300 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.dav.daf.main.config.ConfigurationArea;
+import de.bsvrz.dav.daf.main.config.DataModel;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+import de.kappich.pat.gnd.coorTransform.ProjectionContext;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Der GeometryCache speichert die bereits projizierten und vereinfachten Koordinaten eines
+ * Georeferenz-Typs als {@link GeometryStore} in einer lokalen Datei, so dass ein erneuter Start
+ * der GND weder Konfigurationsdaten lesen noch Koordinaten transformieren muss.
+ * <p>
+ * Eine Cache-Datei ist nur gültig, wenn ihr Schlüssel mit dem aktuellen übereinstimmt. Der
+ * Schlüssel besteht aus dem Konfigurationsverantwortlichen, den aktiven Versionen aller
+ * Konfigurationsbereiche, der Projektion und der Vereinfachungsdistanz; außerdem müssen die
+ * Ids der Systemobjekte in derselben Reihenfolge vorliegen. Die Datei beginnt mit einer Kennung
+ * und der Formatversion und wird über einen <code>MappedByteBuffer</code> gelesen.
+ * <p>
+ * Mehrere GND-Instanzen auf einem Rechner können denselben Cache benutzen: geschrieben wird immer
+ * in eine temporäre Datei, die anschließend atomar umbenannt wird. Ein Leser sieht also entweder
+ * die alte oder die neue Datei, nie eine halb geschriebene.
+ * <p>
+ * Das Verzeichnis kann mit der System-Property <code>de.kappich.pat.gnd.Geometriecache</code>
+ * festgelegt werden; ein leerer Wert schaltet den Cache ab. Voreingestellt ist
+ * <code>.gnd/geometriecache</code> im Home-Verzeichnis des Benutzers.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class GeometryCache {
+
+	/**
+	 * Konstruiert einen GeometryCache für die Konfiguration und die Projektion.
+	 *
+	 * @param configuration die Konfiguration
+	 * @param projectionContext die Projektion, mit der die Koordinaten berechnet werden
+	 */
+	GeometryCache( DataModel configuration, ProjectionContext projectionContext) {
+		_configuration = configuration;
+		_projectionContext = projectionContext;
+		final String property = System.getProperty( "de.kappich.pat.gnd.Geometriecache");
+		if ( property == null) {
+			_directory = new File( new File( System.getProperty( "user.home"), ".gnd"), "geometriecache");
+		} else if ( property.trim().length() == 0) {
+			_directory = null;
+		} else {
+			_directory = new File( property.trim());
+		}
+	}
+
+	/**
+	 * Gibt an, ob der Cache benutzt wird.
+	 *
+	 * @return <code>true</code>, wenn ein Cache-Verzeichnis festgelegt ist
+	 */
+	boolean isEnabled() {
+		return _directory != null;
+	}
+
+	/**
+	 * Liest die Geometrie des Georeferenz-Typs aus dem Cache. Passt die Datei nicht zum aktuellen
+	 * Schlüssel oder zu den übergebenen Systemobjekten, oder ist sie nicht lesbar, so wird
+	 * <code>null</code> zurückgegeben.
+	 *
+	 * @param geoReferenceType die Pid des Georeferenz-Typs
+	 * @param systemObjects die Systemobjekte in der Reihenfolge des GeometryStores
+	 * @return der GeometryStore oder <code>null</code>
+	 */
+	GeometryStore read( final String geoReferenceType, final List<SystemObject> systemObjects) {
+		if ( _directory == null) {
+			return null;
+		}
+		final File file = getFile( geoReferenceType);
+		if ( !file.isFile()) {
+			return null;
+		}
+		try {
+			final MappedByteBuffer buffer;
+			final RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r");
+			try {
+				final FileChannel channel = randomAccessFile.getChannel();
+				buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} finally {
+				// Die Abbildung bleibt auch nach dem Schließen der Datei gültig.
+				randomAccessFile.close();
+			}
+			if ( (buffer.getInt() != MAGIC) || (buffer.getInt() != FORMAT_VERSION)) {
+				_debug.info( "Der Geometriecache " + file + " hat ein unbekanntes Format.");
+				return null;
+			}
+			if ( !getKey( geoReferenceType).equals( readString( buffer))) {
+				_debug.info( "Der Geometriecache " + file + " ist veraltet.");
+				return null;
+			}
+			final int numberOfObjects = buffer.getInt();
+			if ( numberOfObjects != systemObjects.size()) {
+				return null;
+			}
+			for ( SystemObject systemObject : systemObjects) {
+				if ( buffer.getLong() != systemObject.getId()) {
+					return null;
+				}
+			}
+			final GeometryStore geometryStore = GeometryStore.read( buffer);
+			if ( (geometryStore.getNumberOfObjects() != numberOfObjects) || (buffer.getInt() != END_MARKER)) {
+				_debug.warning( "Der Geometriecache " + file + " ist fehlerhaft.");
+				return null;
+			}
+			return geometryStore;
+		}
+		catch ( IOException e) {
+			_debug.warning( "Der Geometriecache " + file + " konnte nicht gelesen werden", e);
+		}
+		catch ( RuntimeException e) {
+			_debug.warning( "Der Geometriecache " + file + " ist fehlerhaft", e);
+		}
+		return null;
+	}
+
+	/**
+	 * Schreibt die Geometrie des Georeferenz-Typs in den Cache. Fehler werden protokolliert und
+	 * sonst ignoriert, denn der Cache ist nur eine Beschleunigung.
+	 *
+	 * @param geoReferenceType die Pid des Georeferenz-Typs
+	 * @param systemObjects die Systemobjekte in der Reihenfolge des GeometryStores
+	 * @param geometryStore der GeometryStore
+	 */
+	void write( final String geoReferenceType, final List<SystemObject> systemObjects, final GeometryStore geometryStore) {
+		if ( _directory == null) {
+			return;
+		}
+		final File file = getFile( geoReferenceType);
+		Path temporaryPath = null;
+		try {
+			final File directory = file.getParentFile();
+			if ( !directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+				_debug.warning( "Das Verzeichnis " + directory + " für den Geometriecache kann nicht angelegt werden.");
+				return;
+			}
+			temporaryPath = Files.createTempFile( directory.toPath(), file.getName(), ".tmp");
+			final DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+					Files.newOutputStream( temporaryPath), 1 << 16));
+			try {
+				out.writeInt( MAGIC);
+				out.writeInt( FORMAT_VERSION);
+				writeString( out, getKey( geoReferenceType));
+				out.writeInt( systemObjects.size());
+				for ( SystemObject systemObject : systemObjects) {
+					out.writeLong( systemObject.getId());
+				}
+				geometryStore.write( out);
+				out.writeInt( END_MARKER);
+			} finally {
+				out.close();
+			}
+			try {
+				Files.move( temporaryPath, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch ( AtomicMoveNotSupportedException e) {
+				Files.move( temporaryPath, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			temporaryPath = null;
+		}
+		catch ( IOException e) {
+			// Unter Windows kann eine Datei, die eine andere Instanz gerade abbildet, nicht
+			// ersetzt werden; dann bleibt es beim nächsten Start bei der alten Datei.
+			_debug.warning( "Der Geometriecache " + file + " konnte nicht geschrieben werden", e);
+		}
+		finally {
+			if ( temporaryPath != null) {
+				try {
+					Files.deleteIfExists( temporaryPath);
+				}
+				catch ( IOException ignored) {
+				}
+			}
+		}
+	}
+
+	private File getFile( final String geoReferenceType) {
+		final String authority = _configuration.getConfigurationAuthorityPid();
+		return new File( new File( _directory, toFileName( authority)), toFileName( geoReferenceType) + ".geo");
+	}
+
+	/*
+	 * Ersetzt alle Zeichen, die in Dateinamen Probleme bereiten können, und hängt den Hash-Code
+	 * an, damit verschiedene Pids nicht auf denselben Namen abgebildet werden.
+	 */
+	private static String toFileName( final String pid) {
+		final String name = (pid == null) ? "" : pid;
+		return name.replaceAll( "[^A-Za-z0-9._-]", "_") + "_" + Integer.toHexString( name.hashCode());
+	}
+
+	/*
+	 * Der Schlüssel wird für jeden Georeferenz-Typ aus dem Fingerabdruck der Konfiguration
+	 * und der aktuellen Projektion gebildet.
+	 */
+	private String getKey( final String geoReferenceType) {
+		return geoReferenceType + "\n" + getConfigurationFingerprint() + "\n" +
+			_projectionContext.getDescription() + "\nVereinfachung=" + DisplayObjectManager._ignoreDistance;
+	}
+
+	/*
+	 * Die aktiven Versionen der Konfigurationsbereiche ändern sich während der Laufzeit einer GND
+	 * nicht; deshalb wird der Fingerabdruck nur einmal berechnet.
+	 */
+	private synchronized String getConfigurationFingerprint() {
+		if ( _configurationFingerprint == null) {
+			final StringBuilder stringBuilder = new StringBuilder();
+			stringBuilder.append( _configuration.getConfigurationAuthorityPid());
+			final Map<String, ConfigurationArea> areas =
+				new TreeMap<String, ConfigurationArea>( _configuration.getAllConfigurationAreas());
+			for ( Map.Entry<String, ConfigurationArea> entry : areas.entrySet()) {
+				stringBuilder.append( '\n').append( entry.getKey()).append( '=').append( entry.getValue().getActiveVersion());
+			}
+			_configurationFingerprint = stringBuilder.toString();
+		}
+		return _configurationFingerprint;
+	}
+
+	private static void writeString( final DataOutputStream out, final String string) throws IOException {
+		final byte[] bytes = string.getBytes( UTF8);
+		out.writeInt( bytes.length);
+		out.write( bytes);
+	}
+
+	private static String readString( final MappedByteBuffer buffer) {
+		final int length = buffer.getInt();
+		if ( (length < 0) || (length > buffer.remaining())) {
+			throw new IllegalArgumentException( "Ungültige Länge einer Zeichenkette: " + length);
+		}
+		final byte[] bytes = new byte[length];
+		buffer.get( bytes);
+		return new String( bytes, UTF8);
+	}
+
+	/** Die Kennung am Anfang jeder Cache-Datei ("GNDG"). */
+	private static final int MAGIC = 0x474E4447;
+
+	/** Die Version des Dateiformats; sie muss bei jeder Formatänderung erhöht werden. */
+	private static final int FORMAT_VERSION = 3;
+
+	/** Die Kennung am Ende jeder vollständigen Cache-Datei. */
+	private static final int END_MARKER = 0x454E4445;
+
+	private static final Charset UTF8 = Charset.forName( "UTF-8");
+
+	private final DataModel _configuration;
+
+	private final ProjectionContext _projectionContext;
+
+	private final File _directory;
+
+	private String _configurationFingerprint;
+
+	final private static Debug _debug = Debug.getLogger();
+}
@@ -0,0 +1,820 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+
+import java.awt.Polygon;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ein GeometryStore hält die Koordinaten aller DisplayObjects eines Layers in wenigen
+ * zusammenhängenden Arrays.
+ * <p>
+ * Die Geometrie eines Objekts besteht aus Teilen (Parts): Polylinien, Punkten mit Winkel und
+ * Polygonen. Sie entsprechen den Elementen der bisherigen Koordinatenlisten, also
+ * <code>Path2D.Double</code>, {@link PointWithAngle} und <code>java.awt.Polygon</code>.
+ * Alle Stützpunkte liegen in zwei <code>double</code>-Arrays; Objekte verweisen über Indizes
+ * auf ihre Teile und Teile auf ihre Stützpunkte. Damit entfallen die vielen kleinen Objekte pro
+ * DisplayObject, und die Painter können die Geometrie über die Methoden mit Indizes lesen,
+ * ohne Objekte zu erzeugen:
+ * <pre>
+ * for ( int part = store.getFirstPart( object); part &lt; store.getEndPart( object); part++) {
+ *     for ( int vertex = store.getFirstVertex( part); vertex &lt; store.getEndVertex( part); vertex++) {
+ *         ... store.getX( vertex) ... store.getY( vertex) ...
+ *     }
+ * }
+ * </pre>
+ * Für Übersichtsdarstellungen kann ein GeometryStore mit {@link #computeLevelsOfDetail()} zu
+ * jedem Stützpunkt von Polylinien und Polygonen seine Bedeutung nach Douglas-Peucker bestimmen:
+ * das ist die größte Toleranz, bei der der Stützpunkt bei der Vereinfachung erhalten bleibt. Daraus
+ * werden Detailstufen gebildet, deren Toleranzen sich jeweils verdoppeln; jede Stufe hält nur die
+ * Indizes ihrer Stützpunkte, nicht eigene Koordinaten. Die Methoden mit einem Toleranz-Parameter
+ * durchlaufen die Stützpunkte der gröbsten Stufe, deren Toleranz nicht größer als die übergebene ist,
+ * und liefern damit die Douglas-Peucker-Vereinfachung zu dieser Stufe. Anfangs- und Endpunkt eines
+ * Teils bleiben immer erhalten, so dass aneinander stoßende Linien auch vereinfacht zusammenpassen.
+ * <p>
+ * Ein GeometryStore wird vollständig befüllt, bevor er an andere Threads weitergegeben wird;
+ * danach wird er nur noch gelesen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public final class GeometryStore {
+
+	/** Der Typ eines Teils, das eine Polylinie ist. */
+	public static final int POLYLINE = 0;
+
+	/** Der Typ eines Teils, das ein Punkt mit Winkel ist. */
+	public static final int POINT = 1;
+
+	/** Der Typ eines Teils, das ein (gefülltes) Polygon ist. */
+	public static final int POLYGON = 2;
+
+	/**
+	 * Konstruiert einen leeren GeometryStore.
+	 */
+	public GeometryStore() {
+		this( 16, 64);
+	}
+
+	/**
+	 * Konstruiert einen leeren GeometryStore mit den übergebenen Anfangskapazitäten.
+	 *
+	 * @param expectedObjects die erwartete Anzahl von Objekten
+	 * @param expectedVertices die erwartete Anzahl von Stützpunkten
+	 */
+	public GeometryStore( int expectedObjects, int expectedVertices) {
+		this( expectedObjects, expectedObjects, expectedVertices);
+	}
+
+	private GeometryStore( int expectedObjects, int expectedParts, int expectedVertices) {
+		_objectFirstPart = new int[Math.max( expectedObjects, 1) + 1];
+		_partFirstVertex = new int[Math.max( expectedParts, 1) + 1];
+		_partTypes = new byte[Math.max( expectedParts, 1)];
+		_partAngles = new double[Math.max( expectedParts, 1)];
+		_x = new double[Math.max( expectedVertices, 1)];
+		_y = new double[Math.max( expectedVertices, 1)];
+	}
+
+	/**
+	 * Erzeugt einen GeometryStore, der genau das eine Objekt mit der übergebenen Koordinatenliste
+	 * enthält. Die Arrays werden vorher passend bemessen, so dass weder beim Befüllen noch bei
+	 * {@link #trimToSize()} kopiert wird. Die Detailstufen werden erst berechnet, wenn das Objekt zum
+	 * ersten Mal vereinfacht gezeichnet wird; Objekte, die nur in voller Auflösung gezeichnet werden,
+	 * brauchen sie nie.
+	 *
+	 * @param coordinates die Koordinaten, wie bei {@link #add(List)}
+	 * @return der GeometryStore mit dem Objekt 0
+	 */
+	static GeometryStore create( List<Object> coordinates) {
+		int parts = 0;
+		int vertices = 0;
+		if ( coordinates != null) {
+			final double[] coords = new double[6];
+			for ( Object o : coordinates) {
+				if ( o instanceof Path2D) {
+					parts++;
+					int moveTos = 0;
+					for ( PathIterator pathIterator = ((Path2D) o).getPathIterator( null); !pathIterator.isDone(); pathIterator.next()) {
+						final int type = pathIterator.currentSegment( coords);
+						if ( type == PathIterator.SEG_MOVETO) {
+							moveTos++;
+						}
+						if ( type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+							vertices++;
+						}
+					}
+					parts += Math.max( moveTos - 1, 0);
+				} else if ( o instanceof PointWithAngle || o instanceof Point2D) {
+					parts++;
+					vertices++;
+				} else if ( o instanceof Polygon) {
+					parts++;
+					vertices += ((Polygon) o).npoints;
+				}
+			}
+		}
+		final GeometryStore geometryStore = new GeometryStore( 1, parts, vertices);
+		geometryStore.add( coordinates);
+		geometryStore.trimToSize();
+		geometryStore._levelsOfDetailOnDemand = true;
+		return geometryStore;
+	}
+
+	/**
+	 * Fügt ein Objekt mit der übergebenen Koordinatenliste hinzu. Die Liste darf
+	 * <code>Path2D</code>-, {@link PointWithAngle}-, <code>Point2D</code>- und
+	 * <code>Polygon</code>-Objekte enthalten; andere Elemente werden ignoriert.
+	 *
+	 * @param coordinates die Koordinaten
+	 * @return der Index des neuen Objekts
+	 */
+	public int add( List<Object> coordinates) {
+		if ( coordinates != null) {
+			for ( Object o : coordinates) {
+				if ( o instanceof Path2D) {
+					addPath( (Path2D) o);
+				} else if ( o instanceof PointWithAngle) {
+					final PointWithAngle pointWithAngle = (PointWithAngle) o;
+					final Double angle = pointWithAngle.getAngle();
+					addPoint( pointWithAngle.getPoint().getX(), pointWithAngle.getPoint().getY(),
+							(angle == null) ? Double.NaN : angle.doubleValue());
+				} else if ( o instanceof Point2D) {
+					final Point2D point = (Point2D) o;
+					addPoint( point.getX(), point.getY(), Double.NaN);
+				} else if ( o instanceof Polygon) {
+					addPolygon( (Polygon) o);
+				}
+			}
+		}
+		return endObject();
+	}
+
+	private void addPath( Path2D path) {
+		startPart( POLYLINE, Double.NaN);
+		final double[] coords = new double[6];
+		final PathIterator pathIterator = path.getPathIterator( null);
+		while ( !pathIterator.isDone()) {
+			final int type = pathIterator.currentSegment( coords);
+			if ( type == PathIterator.SEG_MOVETO && getEndVertex( _numberOfParts - 1) > _partFirstVertex[_numberOfParts - 1]) {
+				// Ein weiteres moveTo beginnt eine neue Polylinie.
+				startPart( POLYLINE, Double.NaN);
+			}
+			if ( type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+				addVertex( coords[0], coords[1]);
+			}
+			pathIterator.next();
+		}
+	}
+
+	private void addPoint( double x, double y, double angle) {
+		startPart( POINT, angle);
+		addVertex( x, y);
+	}
+
+	private void addPolygon( Polygon polygon) {
+		startPart( POLYGON, Double.NaN);
+		for ( int i = 0; i < polygon.npoints; i++) {
+			addVertex( polygon.xpoints[i], polygon.ypoints[i]);
+		}
+	}
+
+	private void startPart( int type, double angle) {
+		if ( _numberOfParts == _partTypes.length) {
+			final int newLength = 2 * _partTypes.length;
+			_partTypes = Arrays.copyOf( _partTypes, newLength);
+			_partAngles = Arrays.copyOf( _partAngles, newLength);
+			_partFirstVertex = Arrays.copyOf( _partFirstVertex, newLength + 1);
+		}
+		_partTypes[_numberOfParts] = (byte) type;
+		_partAngles[_numberOfParts] = angle;
+		_partFirstVertex[_numberOfParts] = _numberOfVertices;
+		_numberOfParts++;
+		_partFirstVertex[_numberOfParts] = _numberOfVertices;
+	}
+
+	private void addVertex( double x, double y) {
+		if ( _numberOfVertices == _x.length) {
+			_x = Arrays.copyOf( _x, 2 * _x.length);
+			_y = Arrays.copyOf( _y, 2 * _y.length);
+		}
+		_x[_numberOfVertices] = x;
+		_y[_numberOfVertices] = y;
+		_numberOfVertices++;
+		_partFirstVertex[_numberOfParts] = _numberOfVertices;
+	}
+
+	private int endObject() {
+		if ( _numberOfObjects + 1 == _objectFirstPart.length) {
+			_objectFirstPart = Arrays.copyOf( _objectFirstPart, 2 * _objectFirstPart.length);
+		}
+		_numberOfObjects++;
+		_objectFirstPart[_numberOfObjects] = _numberOfParts;
+		return _numberOfObjects - 1;
+	}
+
+	/**
+	 * Verkleinert die internen Arrays auf die benötigte Größe. Sollte nach dem Befüllen aufgerufen werden.
+	 */
+	public void trimToSize() {
+		if ( _objectFirstPart.length != _numberOfObjects + 1) {
+			_objectFirstPart = Arrays.copyOf( _objectFirstPart, _numberOfObjects + 1);
+		}
+		if ( _partTypes.length != _numberOfParts) {
+			_partFirstVertex = Arrays.copyOf( _partFirstVertex, _numberOfParts + 1);
+			_partTypes = Arrays.copyOf( _partTypes, _numberOfParts);
+			_partAngles = Arrays.copyOf( _partAngles, _numberOfParts);
+		}
+		if ( _x.length != _numberOfVertices) {
+			_x = Arrays.copyOf( _x, _numberOfVertices);
+			_y = Arrays.copyOf( _y, _numberOfVertices);
+		}
+	}
+
+	/**
+	 * Berechnet zu allen Stützpunkten von Polylinien und Polygonen die Bedeutung nach Douglas-Peucker.
+	 * Sollte nach dem Befüllen und {@link #trimToSize()} aufgerufen werden.
+	 */
+	public void computeLevelsOfDetail() {
+		final float[] significances = new float[_numberOfVertices];
+		int[] stack = new int[16];
+		double[] parentSignificances = new double[8];
+		for ( int part = 0; part < _numberOfParts; part++) {
+			final int first = _partFirstVertex[part];
+			final int last = _partFirstVertex[part + 1] - 1;
+			if ( last < first) {
+				continue;
+			}
+			significances[first] = Float.POSITIVE_INFINITY;
+			significances[last] = Float.POSITIVE_INFINITY;
+			if ( _partTypes[part] == POINT) {
+				continue;
+			}
+			// Douglas-Peucker mit einem Stapel statt Rekursion; die Bedeutung eines Punktes ist
+			// höchstens die des Punktes, an dem sein Abschnitt zuvor geteilt wurde.
+			int top = 0;
+			stack[0] = first;
+			stack[1] = last;
+			parentSignificances[0] = Double.POSITIVE_INFINITY;
+			top = 1;
+			while ( top > 0) {
+				top--;
+				final int from = stack[2 * top];
+				final int to = stack[2 * top + 1];
+				final double parentSignificance = parentSignificances[top];
+				if ( to - from < 2) {
+					continue;
+				}
+				int farthest = from + 1;
+				double maxDistance = -1.;
+				for ( int vertex = from + 1; vertex < to; vertex++) {
+					final double distance = Line2D.ptSegDistSq( _x[from], _y[from], _x[to], _y[to], _x[vertex], _y[vertex]);
+					if ( distance > maxDistance) {
+						maxDistance = distance;
+						farthest = vertex;
+					}
+				}
+				final double significance = Math.min( Math.sqrt( maxDistance), parentSignificance);
+				significances[farthest] = (float) significance;
+				if ( 2 * (top + 2) > stack.length) {
+					stack = Arrays.copyOf( stack, 2 * stack.length);
+					parentSignificances = Arrays.copyOf( parentSignificances, 2 * parentSignificances.length);
+				}
+				stack[2 * top] = from;
+				stack[2 * top + 1] = farthest;
+				parentSignificances[top] = significance;
+				top++;
+				stack[2 * top] = farthest;
+				stack[2 * top + 1] = to;
+				parentSignificances[top] = significance;
+				top++;
+			}
+		}
+		_significances = significances;
+		computeLevelVertices();
+	}
+
+	/*
+	 * Bildet aus den Bedeutungen die Indizes der Stützpunkte jeder Detailstufe. Jede Stufe wird aus
+	 * der nächstfeineren gebildet, weil sie eine Teilmenge davon ist; ändert sich eine Stufe nicht
+	 * mehr, so teilen sich die gröberen Stufen ihre Arrays.
+	 */
+	private void computeLevelVertices() {
+		final int[][] levelVertices = new int[NUMBER_OF_LEVELS][];
+		final int[][] levelPartFirstVertex = new int[NUMBER_OF_LEVELS][];
+		int[] finerVertices = null;
+		int[] finerPartFirstVertex = null;
+		for ( int level = 0; level < NUMBER_OF_LEVELS; level++) {
+			final double tolerance = getLevelTolerance( level);
+			final int[] vertices = new int[(finerVertices == null) ? _numberOfVertices : finerVertices.length];
+			final int[] partFirstVertex = new int[_numberOfParts + 1];
+			int size = 0;
+			for ( int part = 0; part < _numberOfParts; part++) {
+				partFirstVertex[part] = size;
+				final int start = (finerVertices == null) ? _partFirstVertex[part] : finerPartFirstVertex[part];
+				final int end = (finerVertices == null) ? _partFirstVertex[part + 1] : finerPartFirstVertex[part + 1];
+				for ( int i = start; i < end; i++) {
+					final int vertex = (finerVertices == null) ? i : finerVertices[i];
+					if ( _significances[vertex] > tolerance) {
+						vertices[size++] = vertex;
+					}
+				}
+			}
+			partFirstVertex[_numberOfParts] = size;
+			if ( (finerVertices != null) && (size == finerVertices.length)) {
+				levelVertices[level] = finerVertices;
+				levelPartFirstVertex[level] = finerPartFirstVertex;
+				continue;
+			}
+			finerVertices = (size == vertices.length) ? vertices : Arrays.copyOf( vertices, size);
+			finerPartFirstVertex = partFirstVertex;
+			levelVertices[level] = finerVertices;
+			levelPartFirstVertex[level] = finerPartFirstVertex;
+		}
+		// _levelVertices zuletzt, denn getLevel() prüft nur dieses Feld.
+		_levelPartFirstVertex = levelPartFirstVertex;
+		_levelVertices = levelVertices;
+	}
+
+	/*
+	 * Berechnet die Detailstufen bei der ersten vereinfachten Darstellung; es können mehrere Threads
+	 * gleichzeitig zeichnen.
+	 */
+	private synchronized void computeLevelsOfDetailOnDemand() {
+		if ( _levelVertices == null) {
+			computeLevelsOfDetail();
+		}
+	}
+
+	private static double getLevelTolerance( int level) {
+		return FINEST_LEVEL_TOLERANCE * (1L << level);
+	}
+
+	/*
+	 * Gibt die gröbste Detailstufe zurück, deren Toleranz nicht größer als die übergebene ist, bzw. -1,
+	 * wenn schon die feinste Stufe zu grob ist oder es keine Stufen gibt.
+	 */
+	private int getLevel( double tolerance) {
+		if ( !(tolerance >= FINEST_LEVEL_TOLERANCE)) {
+			return -1;
+		}
+		if ( _levelVertices == null) {
+			if ( !_levelsOfDetailOnDemand) {
+				return -1;
+			}
+			computeLevelsOfDetailOnDemand();
+		}
+		// Math.getExponent ist der ganzzahlige Zweierlogarithmus, abgerundet.
+		return Math.min( Math.getExponent( tolerance / FINEST_LEVEL_TOLERANCE), NUMBER_OF_LEVELS - 1);
+	}
+
+	/**
+	 * Gibt die Anzahl der Objekte zurück.
+	 *
+	 * @return die Anzahl der Objekte
+	 */
+	public int getNumberOfObjects() {
+		return _numberOfObjects;
+	}
+
+	/**
+	 * Gibt die Anzahl aller Stützpunkte zurück.
+	 *
+	 * @return die Anzahl der Stützpunkte
+	 */
+	public int getNumberOfVertices() {
+		return _numberOfVertices;
+	}
+
+	/**
+	 * Gibt den Index des ersten Teils des Objekts zurück.
+	 *
+	 * @param object der Objektindex
+	 * @return der Index des ersten Teils
+	 */
+	public int getFirstPart( int object) {
+		return _objectFirstPart[object];
+	}
+
+	/**
+	 * Gibt den Index hinter dem letzten Teil des Objekts zurück.
+	 *
+	 * @param object der Objektindex
+	 * @return der Index hinter dem letzten Teil
+	 */
+	public int getEndPart( int object) {
+		return _objectFirstPart[object + 1];
+	}
+
+	/**
+	 * Gibt den Typ des Teils zurück, also {@link #POLYLINE}, {@link #POINT} oder {@link #POLYGON}.
+	 *
+	 * @param part der Index des Teils
+	 * @return der Typ
+	 */
+	public int getPartType( int part) {
+		return _partTypes[part];
+	}
+
+	/**
+	 * Gibt den Winkel eines Punktes zur x-Achse zurück, bzw. <code>Double.NaN</code>, wenn
+	 * kein Winkel bekannt ist oder das Teil kein Punkt ist.
+	 *
+	 * @param part der Index des Teils
+	 * @return der Winkel
+	 */
+	public double getAngle( int part) {
+		return _partAngles[part];
+	}
+
+	/**
+	 * Gibt den Index des ersten Stützpunkts des Teils zurück.
+	 *
+	 * @param part der Index des Teils
+	 * @return der Index des ersten Stützpunkts
+	 */
+	public int getFirstVertex( int part) {
+		return _partFirstVertex[part];
+	}
+
+	/**
+	 * Gibt den Index hinter dem letzten Stützpunkt des Teils zurück.
+	 *
+	 * @param part der Index des Teils
+	 * @return der Index hinter dem letzten Stützpunkt
+	 */
+	public int getEndVertex( int part) {
+		return _partFirstVertex[part + 1];
+	}
+
+	/**
+	 * Gibt die x-Koordinate des Stützpunkts zurück.
+	 *
+	 * @param vertex der Index des Stützpunkts
+	 * @return die x-Koordinate
+	 */
+	public double getX( int vertex) {
+		return _x[vertex];
+	}
+
+	/**
+	 * Gibt die y-Koordinate des Stützpunkts zurück.
+	 *
+	 * @param vertex der Index des Stützpunkts
+	 * @return die y-Koordinate
+	 */
+	public double getY( int vertex) {
+		return _y[vertex];
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn das Objekt keine Teile hat.
+	 *
+	 * @param object der Objektindex
+	 * @return <code>true</code> genau dann, wenn das Objekt keine Teile hat
+	 */
+	public boolean isEmpty( int object) {
+		return _objectFirstPart[object] == _objectFirstPart[object + 1];
+	}
+
+	/**
+	 * Gibt das umgebende Rechteck aller Stützpunkte des Objekts zurück.
+	 *
+	 * @param object der Objektindex
+	 * @return das Rechteck oder <code>null</code>, wenn das Objekt keine Stützpunkte hat
+	 */
+	public Rectangle2D getBounds2D( int object) {
+		final int firstVertex = _partFirstVertex[_objectFirstPart[object]];
+		final int endVertex = _partFirstVertex[_objectFirstPart[object + 1]];
+		if ( firstVertex == endVertex) {
+			return null;
+		}
+		return getVertexBounds( firstVertex, endVertex);
+	}
+
+	/**
+	 * Gibt das umgebende Rechteck der Stützpunkte eines Teils zurück.
+	 *
+	 * @param part der Index des Teils
+	 * @return das Rechteck oder <code>null</code>, wenn das Teil keine Stützpunkte hat
+	 */
+	public Rectangle2D getPartBounds2D( int part) {
+		final int firstVertex = _partFirstVertex[part];
+		final int endVertex = _partFirstVertex[part + 1];
+		if ( firstVertex == endVertex) {
+			return null;
+		}
+		return getVertexBounds( firstVertex, endVertex);
+	}
+
+	private Rectangle2D getVertexBounds( int firstVertex, int endVertex) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for ( int vertex = firstVertex; vertex < endVertex; vertex++) {
+			final double x = _x[vertex];
+			final double y = _y[vertex];
+			if ( x < minX) {
+				minX = x;
+			}
+			if ( x > maxX) {
+				maxX = x;
+			}
+			if ( y < minY) {
+				minY = y;
+			}
+			if ( y > maxY) {
+				maxY = y;
+			}
+		}
+		return new Rectangle2D.Double( minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * Hängt die Stützpunkte des Teils an den übergebenen Pfad an: Polylinien als moveTo und
+	 * lineTo, Polygone zusätzlich mit closePath, Punkte als einzelnes moveTo.
+	 *
+	 * @param part der Index des Teils
+	 * @param path der Pfad
+	 */
+	public void appendPart( int part, Path2D path) {
+		appendPart( part, path, 0.);
+	}
+
+	/**
+	 * Hängt die Stützpunkte des Teils wie {@link #appendPart(int, Path2D)} an, aber nur die der
+	 * gröbsten Detailstufe, deren Toleranz nicht größer als die übergebene ist. Es werden nur die
+	 * Stützpunkte dieser Stufe durchlaufen. Wurde {@link #computeLevelsOfDetail()} nicht aufgerufen
+	 * oder ist die Toleranz kleiner als die der feinsten Stufe, so werden alle Stützpunkte angehängt.
+	 *
+	 * @param part der Index des Teils
+	 * @param path der Pfad
+	 * @param tolerance die Toleranz in Koordinateneinheiten, also in Metern
+	 */
+	public void appendPart( int part, Path2D path, double tolerance) {
+		final int firstVertex = _partFirstVertex[part];
+		final int endVertex = _partFirstVertex[part + 1];
+		if ( firstVertex == endVertex) {
+			return;
+		}
+		path.moveTo( _x[firstVertex], _y[firstVertex]);
+		final int level = getLevel( tolerance);
+		if ( level < 0) {
+			for ( int vertex = firstVertex + 1; vertex < endVertex; vertex++) {
+				path.lineTo( _x[vertex], _y[vertex]);
+			}
+		} else {
+			// Der erste Stützpunkt ist in jeder Stufe enthalten und wurde schon angehängt.
+			final int[] vertices = _levelVertices[level];
+			final int[] partFirstVertex = _levelPartFirstVertex[level];
+			for ( int i = partFirstVertex[part] + 1; i < partFirstVertex[part + 1]; i++) {
+				final int vertex = vertices[i];
+				path.lineTo( _x[vertex], _y[vertex]);
+			}
+		}
+		if ( _partTypes[part] == POLYGON) {
+			path.closePath();
+		}
+	}
+
+	/**
+	 * Gibt einen Pfad mit den Stützpunkten des Teils zurück. Der Pfad gehört dem aufrufenden
+	 * Thread und wird beim nächsten Aufruf in diesem Thread wiederverwendet; er darf also nur
+	 * unmittelbar benutzt, etwa gezeichnet, und nicht aufbewahrt werden. Polygone haben die
+	 * Füllregel von <code>java.awt.Polygon</code> (even-odd).
+	 *
+	 * @param part der Index des Teils
+	 * @return der wiederverwendete Pfad
+	 */
+	public Path2D.Double getSharedPath( int part) {
+		return getSharedPath( part, 0.);
+	}
+
+	/**
+	 * Gibt wie {@link #getSharedPath(int)} einen wiederverwendeten Pfad zurück, der nur die
+	 * Stützpunkte der zur Toleranz passenden Detailstufe enthält, siehe {@link #appendPart(int, Path2D, double)}.
+	 *
+	 * @param part der Index des Teils
+	 * @param tolerance die Toleranz in Metern, etwa {@link de.kappich.pat.gnd.gnd.MapPane#getSimplificationTolerance()}
+	 * @return der wiederverwendete Pfad
+	 */
+	public Path2D.Double getSharedPath( int part, double tolerance) {
+		final Path2D.Double path = SHARED_PATH.get();
+		path.reset();
+		path.setWindingRule( (_partTypes[part] == POLYGON) ? Path2D.WIND_EVEN_ODD : Path2D.WIND_NON_ZERO);
+		appendPart( part, path, tolerance);
+		return path;
+	}
+
+	/**
+	 * Erzeugt die Koordinatenliste des Objekts im bisherigen Format, also mit
+	 * <code>Path2D.Double</code>-, {@link PointWithAngle}- und <code>Polygon</code>-Objekten.
+	 * Die Liste wird bei jedem Aufruf neu erzeugt; sie dient Plugins, die die Index-Methoden
+	 * dieser Klasse nicht benutzen.
+	 *
+	 * @param object der Objektindex
+	 * @return die neu erzeugte Koordinatenliste
+	 */
+	public List<Object> getCoordinates( int object) {
+		final int firstPart = _objectFirstPart[object];
+		final int endPart = _objectFirstPart[object + 1];
+		final List<Object> coordinates = new ArrayList<Object>( endPart - firstPart);
+		for ( int part = firstPart; part < endPart; part++) {
+			final int firstVertex = _partFirstVertex[part];
+			final int endVertex = _partFirstVertex[part + 1];
+			switch ( _partTypes[part]) {
+				case POINT:
+					coordinates.add( new PointWithAngle( new Point2D.Double( _x[firstVertex], _y[firstVertex]),
+							_partAngles[part]));
+					break;
+				case POLYGON:
+					final Polygon polygon = new Polygon();
+					for ( int vertex = firstVertex; vertex < endVertex; vertex++) {
+						polygon.addPoint( (int) _x[vertex], (int) _y[vertex]);
+					}
+					coordinates.add( polygon);
+					break;
+				default:
+					final Path2D.Double polyline = new Path2D.Double( Path2D.WIND_NON_ZERO, Math.max( endVertex - firstVertex, 1));
+					appendPart( part, polyline);
+					coordinates.add( polyline);
+					break;
+			}
+		}
+		return coordinates;
+	}
+
+	/**
+	 * Schreibt den Inhalt in den Ausgabestrom. Das Format wird von {@link #read(ByteBuffer)} gelesen
+	 * und ist Teil des Dateiformats des {@link GeometryCache}.
+	 *
+	 * @param out der Ausgabestrom
+	 * @throws IOException bei Schreibfehlern
+	 */
+	void write( DataOutputStream out) throws IOException {
+		out.writeInt( _numberOfObjects);
+		out.writeInt( _numberOfParts);
+		out.writeInt( _numberOfVertices);
+		for ( int object = 0; object <= _numberOfObjects; object++) {
+			out.writeInt( _objectFirstPart[object]);
+		}
+		for ( int part = 0; part <= _numberOfParts; part++) {
+			out.writeInt( _partFirstVertex[part]);
+		}
+		out.write( _partTypes, 0, _numberOfParts);
+		for ( int part = 0; part < _numberOfParts; part++) {
+			out.writeDouble( _partAngles[part]);
+		}
+		for ( int vertex = 0; vertex < _numberOfVertices; vertex++) {
+			out.writeDouble( _x[vertex]);
+		}
+		for ( int vertex = 0; vertex < _numberOfVertices; vertex++) {
+			out.writeDouble( _y[vertex]);
+		}
+		out.writeBoolean( _significances != null);
+		if ( _significances != null) {
+			for ( int vertex = 0; vertex < _numberOfVertices; vertex++) {
+				out.writeFloat( _significances[vertex]);
+			}
+		}
+	}
+
+	/**
+	 * Liest einen mit {@link #write(DataOutputStream)} geschriebenen GeometryStore ab der aktuellen
+	 * Position des Puffers. Die Arrays werden in Blöcken kopiert.
+	 *
+	 * @param buffer der Puffer, etwa ein <code>MappedByteBuffer</code>
+	 * @return der gelesene GeometryStore
+	 * @throws IllegalArgumentException wenn die gelesenen Größen nicht stimmig sind
+	 * @throws java.nio.BufferUnderflowException wenn der Puffer zu kurz ist
+	 */
+	static GeometryStore read( ByteBuffer buffer) {
+		final int numberOfObjects = buffer.getInt();
+		final int numberOfParts = buffer.getInt();
+		final int numberOfVertices = buffer.getInt();
+		if ( (numberOfObjects < 0) || (numberOfParts < 0) || (numberOfVertices < 0)) {
+			throw new IllegalArgumentException( "Ungültige Größen im GeometryStore");
+		}
+		final GeometryStore store = new GeometryStore( 0, 0);
+		store._objectFirstPart = new int[numberOfObjects + 1];
+		store._partFirstVertex = new int[numberOfParts + 1];
+		store._partTypes = new byte[numberOfParts];
+		store._partAngles = new double[numberOfParts];
+		store._x = new double[numberOfVertices];
+		store._y = new double[numberOfVertices];
+		buffer.asIntBuffer().get( store._objectFirstPart);
+		buffer.position( buffer.position() + 4 * (numberOfObjects + 1));
+		buffer.asIntBuffer().get( store._partFirstVertex);
+		buffer.position( buffer.position() + 4 * (numberOfParts + 1));
+		buffer.get( store._partTypes);
+		buffer.asDoubleBuffer().get( store._partAngles);
+		buffer.position( buffer.position() + 8 * numberOfParts);
+		buffer.asDoubleBuffer().get( store._x);
+		buffer.position( buffer.position() + 8 * numberOfVertices);
+		buffer.asDoubleBuffer().get( store._y);
+		buffer.position( buffer.position() + 8 * numberOfVertices);
+		if ( buffer.get() != 0) {
+			store._significances = new float[numberOfVertices];
+			buffer.asFloatBuffer().get( store._significances);
+			buffer.position( buffer.position() + 4 * numberOfVertices);
+		}
+		if ( (store._objectFirstPart[numberOfObjects] != numberOfParts) ||
+				(store._partFirstVertex[numberOfParts] != numberOfVertices)) {
+			throw new IllegalArgumentException( "Inkonsistente Indizes im GeometryStore");
+		}
+		store._numberOfObjects = numberOfObjects;
+		store._numberOfParts = numberOfParts;
+		store._numberOfVertices = numberOfVertices;
+		if ( store._significances != null) {
+			store.computeLevelVertices();
+		}
+		return store;
+	}
+
+	@Override
+	public String toString() {
+		return "[GeometryStore: Objekte=" + _numberOfObjects + ", Teile=" + _numberOfParts +
+			", Stützpunkte=" + _numberOfVertices + "]";
+	}
+
+	/** Die Toleranz der feinsten Detailstufe in Metern; jede weitere Stufe hat die doppelte Toleranz. */
+	private static final double FINEST_LEVEL_TOLERANCE = 0.25;
+
+	/** Die Anzahl der Detailstufen; die gröbste hat eine Toleranz von gut 8 Kilometern. */
+	private static final int NUMBER_OF_LEVELS = 16;
+
+	private static final ThreadLocal<Path2D.Double> SHARED_PATH = new ThreadLocal<Path2D.Double>() {
+		@Override
+		protected Path2D.Double initialValue() {
+			return new Path2D.Double();
+		}
+	};
+
+	private int _numberOfObjects = 0;
+
+	private int _numberOfParts = 0;
+
+	private int _numberOfVertices = 0;
+
+	/** Für jedes Objekt der Index des ersten Teils; der letzte Eintrag ist das Ende. */
+	private int[] _objectFirstPart;
+
+	/** Für jedes Teil der Index des ersten Stützpunkts; der letzte Eintrag ist das Ende. */
+	private int[] _partFirstVertex;
+
+	private byte[] _partTypes;
+
+	private double[] _partAngles;
+
+	private double[] _x;
+
+	private double[] _y;
+
+	/** Die Bedeutung jedes Stützpunkts nach Douglas-Peucker, oder <code>null</code>. */
+	private float[] _significances;
+
+	/** Für jede Detailstufe die Indizes ihrer Stützpunkte, nach Teilen geordnet, oder <code>null</code>. */
+	private volatile int[][] _levelVertices;
+
+	/** Für jede Detailstufe und jedes Teil der Index des ersten Eintrags in {@link #_levelVertices}; der letzte ist das Ende. */
+	private volatile int[][] _levelPartFirstVertex;
+
+	/** Ist <code>true</code>, wenn die Detailstufen erst bei Bedarf berechnet werden (s. {@link #create(List)}). */
+	private boolean _levelsOfDetailOnDemand = false;
+}
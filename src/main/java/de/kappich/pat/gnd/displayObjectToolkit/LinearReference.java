@@ -0,0 +1,307 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Eine LinearReference ist ein Index über die Stützpunkte einer Polylinie, mit dem sich Positionen
+ * entlang der Linie bestimmen lassen.
+ * <p>
+ * Zu jedem Stützpunkt wird die Länge der Linie vom Anfang bis zu diesem Punkt gespeichert. Ein Offset
+ * (in Metern vom Anfang der Linie) wird deshalb mit einer binären Suche in O(log n) aufgelöst. Mit
+ * {@link #getPointsAt(double[])} werden viele Offsets derselben Linie in einem sortierten Durchlauf
+ * aufgelöst. {@link #getNearestOffset(double, double)} liefert umgekehrt zu einem Punkt den Offset der
+ * nächstgelegenen Position auf der Linie, etwa um einen Mausklick auf die Linie zu ziehen.
+ * <p>
+ * Beginnt die Polylinie mit <code>moveTo</code> erneut, so entsteht eine Lücke; sie trägt nichts zur
+ * Länge bei. Die Koordinaten sind UTM-Koordinaten, also Meter.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public final class LinearReference {
+
+	/**
+	 * Erzeugt die LinearReference zu einer Koordinatenliste, wie sie für Linien berechnet wird. Nur
+	 * Listen, die aus genau einer Polylinie bestehen, haben eine LinearReference.
+	 *
+	 * @param lineCoordinates die Koordinatenliste der Linie
+	 * @return die LinearReference oder <code>null</code>
+	 */
+	public static LinearReference create( final List<Object> lineCoordinates) {
+		if ( lineCoordinates.size() != 1) {
+			return null;
+		}
+		final Object o = lineCoordinates.get( 0);
+		if ( !(o instanceof Path2D)) {
+			return null;
+		}
+		return new LinearReference( (Path2D) o);
+	}
+
+	/**
+	 * Konstruiert die LinearReference der übergebenen Polylinie.
+	 *
+	 * @param polyline die Polylinie
+	 */
+	public LinearReference( final Path2D polyline) {
+		int capacity = 16;
+		double[] x = new double[capacity];
+		double[] y = new double[capacity];
+		double[] cumulativeLengths = new double[capacity];
+		boolean[] gaps = new boolean[capacity];
+		int numberOfVertices = 0;
+		final double[] coordinates = new double[6];
+		for ( PathIterator pathIterator = polyline.getPathIterator( null); !pathIterator.isDone(); pathIterator.next()) {
+			final int type = pathIterator.currentSegment( coordinates);
+			if ( (type != PathIterator.SEG_MOVETO) && (type != PathIterator.SEG_LINETO)) {
+				continue;
+			}
+			if ( numberOfVertices == capacity) {
+				capacity *= 2;
+				x = Arrays.copyOf( x, capacity);
+				y = Arrays.copyOf( y, capacity);
+				cumulativeLengths = Arrays.copyOf( cumulativeLengths, capacity);
+				gaps = Arrays.copyOf( gaps, capacity);
+			}
+			x[numberOfVertices] = coordinates[0];
+			y[numberOfVertices] = coordinates[1];
+			if ( numberOfVertices == 0) {
+				cumulativeLengths[0] = 0.;
+			} else if ( type == PathIterator.SEG_MOVETO) {
+				cumulativeLengths[numberOfVertices] = cumulativeLengths[numberOfVertices - 1];
+				gaps[numberOfVertices] = true;
+			} else {
+				final double dx = x[numberOfVertices - 1] - coordinates[0];
+				final double dy = y[numberOfVertices - 1] - coordinates[1];
+				cumulativeLengths[numberOfVertices] = cumulativeLengths[numberOfVertices - 1] + Math.sqrt( dx * dx + dy * dy);
+			}
+			numberOfVertices++;
+		}
+		_x = Arrays.copyOf( x, numberOfVertices);
+		_y = Arrays.copyOf( y, numberOfVertices);
+		_cumulativeLengths = Arrays.copyOf( cumulativeLengths, numberOfVertices);
+		_gaps = Arrays.copyOf( gaps, numberOfVertices);
+		_numberOfVertices = numberOfVertices;
+	}
+
+	/**
+	 * Gibt die Länge der Linie ohne Lücken zurück.
+	 *
+	 * @return die Länge in Metern
+	 */
+	public double getLength() {
+		return (_numberOfVertices == 0) ? 0. : _cumulativeLengths[_numberOfVertices - 1];
+	}
+
+	/**
+	 * Gibt die Anzahl der Stützpunkte zurück.
+	 *
+	 * @return die Anzahl der Stützpunkte
+	 */
+	public int getNumberOfVertices() {
+		return _numberOfVertices;
+	}
+
+	/**
+	 * Gibt den Punkt zum Offset zusammen mit dem Winkel des Liniensegments zur x-Achse zurück.
+	 *
+	 * @param offset der Abstand vom Anfang der Linie in Metern
+	 * @return der Punkt oder <code>null</code>, wenn der Offset nicht auf der Linie liegt
+	 */
+	public PointWithAngle getPointAt( final double offset) {
+		if ( !isOnLine( offset)) {
+			return null;
+		}
+		return interpolate( findSegment( offset, 0, _numberOfVertices - 2), offset);
+	}
+
+	/**
+	 * Gibt zu jedem Offset den Punkt wie {@link #getPointAt(double)} zurück. Die Offsets werden
+	 * sortiert und in einem Durchlauf über die Segmente aufgelöst.
+	 *
+	 * @param offsets die Abstände vom Anfang der Linie in Metern
+	 * @return ein Array gleicher Länge mit den Punkten; <code>null</code>-Einträge für Offsets, die
+	 *         nicht auf der Linie liegen
+	 */
+	public PointWithAngle[] getPointsAt( final double[] offsets) {
+		final PointWithAngle[] points = new PointWithAngle[offsets.length];
+		final Integer[] order = new Integer[offsets.length];
+		for ( int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort( order, new Comparator<Integer>() {
+			public int compare( Integer o1, Integer o2) {
+				return Double.compare( offsets[o1], offsets[o2]);
+			}
+		});
+		int segment = 0;
+		for ( Integer index : order) {
+			final double offset = offsets[index];
+			if ( !isOnLine( offset)) {
+				continue;
+			}
+			while ( _cumulativeLengths[segment + 1] < offset) {
+				segment++;
+			}
+			segment = skipGaps( segment);
+			points[index] = interpolate( segment, offset);
+		}
+		return points;
+	}
+
+	/**
+	 * Gibt den Offset der Position auf der Linie zurück, die dem übergebenen Punkt am nächsten liegt.
+	 *
+	 * @param x die x-Koordinate des Punktes
+	 * @param y die y-Koordinate des Punktes
+	 * @return der Offset in Metern, oder <code>Double.NaN</code>, wenn die Linie keine Segmente hat
+	 */
+	public double getNearestOffset( final double x, final double y) {
+		double bestOffset = Double.NaN;
+		double bestDistanceSquare = Double.POSITIVE_INFINITY;
+		for ( int segment = 0; segment < _numberOfVertices - 1; segment++) {
+			if ( _gaps[segment + 1]) {
+				continue;
+			}
+			final double x0 = _x[segment];
+			final double y0 = _y[segment];
+			final double dx = _x[segment + 1] - x0;
+			final double dy = _y[segment + 1] - y0;
+			final double lengthSquare = dx * dx + dy * dy;
+			double lambda = 0.;
+			if ( lengthSquare > 0.) {
+				lambda = Math.max( 0., Math.min( 1., ((x - x0) * dx + (y - y0) * dy) / lengthSquare));
+			}
+			final double px = x0 + lambda * dx - x;
+			final double py = y0 + lambda * dy - y;
+			final double distanceSquare = px * px + py * py;
+			if ( distanceSquare < bestDistanceSquare) {
+				bestDistanceSquare = distanceSquare;
+				bestOffset = _cumulativeLengths[segment] +
+					lambda * (_cumulativeLengths[segment + 1] - _cumulativeLengths[segment]);
+			}
+		}
+		return bestOffset;
+	}
+
+	/**
+	 * Gibt den Punkt zum Offset ohne Winkel zurück.
+	 *
+	 * @param offset der Abstand vom Anfang der Linie in Metern
+	 * @return der Punkt oder <code>null</code>, wenn der Offset nicht auf der Linie liegt
+	 */
+	public Point2D getLocation( final double offset) {
+		final PointWithAngle pointWithAngle = getPointAt( offset);
+		return (pointWithAngle == null) ? null : pointWithAngle.getPoint();
+	}
+
+	private boolean isOnLine( final double offset) {
+		return (_numberOfVertices > 1) && (offset >= 0.) && (offset <= _cumulativeLengths[_numberOfVertices - 1]);
+	}
+
+	/*
+	 * Sucht das erste Segment im Bereich [fromSegment, toSegment], dessen Ende mindestens den
+	 * Offset hat. Das ist auch das Segment, das ein Durchlauf vom Anfang der Linie zuerst findet.
+	 */
+	private int findSegment( final double offset, int fromSegment, int toSegment) {
+		while ( fromSegment < toSegment) {
+			final int middle = (fromSegment + toSegment) >>> 1;
+			if ( _cumulativeLengths[middle + 1] < offset) {
+				fromSegment = middle + 1;
+			} else {
+				toSegment = middle;
+			}
+		}
+		return skipGaps( fromSegment);
+	}
+
+	private int skipGaps( int segment) {
+		while ( _gaps[segment + 1] && (segment < _numberOfVertices - 2)) {
+			segment++;
+		}
+		return segment;
+	}
+
+	private PointWithAngle interpolate( final int segment, final double offset) {
+		final double x0 = _x[segment];
+		final double y0 = _y[segment];
+		final double dx = _x[segment + 1] - x0;
+		final double dy = _y[segment + 1] - y0;
+		final double meters = _cumulativeLengths[segment + 1] - _cumulativeLengths[segment];
+		final double lambda = (meters > 0.) ? (offset - _cumulativeLengths[segment]) / meters : 0.;
+		return new PointWithAngle( new Point2D.Double( x0 + lambda * dx, y0 + lambda * dy),
+				orientedAngleWithXAxis( dx, dy));
+	}
+
+	/**
+	 * Gibt den Winkel des Vektors (x, y) zur x-Achse im Bogenmaß aus [0, 2&pi;) zurück, oder
+	 * <code>null</code> für den Nullvektor.
+	 *
+	 * @param x die x-Komponente
+	 * @param y die y-Komponente
+	 * @return der Winkel oder <code>null</code>
+	 */
+	static Double orientedAngleWithXAxis(double x, double y) {
+		double norm = Math.sqrt( x*x + y*y);
+		if ( norm == 0.) {
+			return null;
+		}
+		Double cosinus = x / norm;
+		if ( cosinus.isNaN() || cosinus.isInfinite()) {
+			return null;
+		}
+		Double angle = Math.acos( cosinus);
+		if ( angle.isNaN() || angle.isInfinite()) {
+			return null;
+		}
+		if ( y < 0.) {
+			angle = 2 * Math.PI - angle;
+		}
+		return angle;
+	}
+
+	private final int _numberOfVertices;
+
+	private final double[] _x;
+
+	private final double[] _y;
+
+	/** Die Länge der Linie vom Anfang bis zum jeweiligen Stützpunkt. */
+	private final double[] _cumulativeLengths;
+
+	/** Gibt für jeden Stützpunkt an, ob er mit <code>moveTo</code> eine Lücke beginnt. */
+	private final boolean[] _gaps;
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+/**
+ * Eine ObjectIdMap bildet Objekt-Ids von Systemobjekten auf Werte ab. Die Schlüssel werden als
+ * <code>long</code> in einem Array gehalten, also ohne <code>Long</code>-Objekte; Kollisionen werden
+ * mit offener Adressierung (lineares Sondieren) aufgelöst. Ein leerer Platz ist an einem
+ * <code>null</code>-Wert zu erkennen, deshalb dürfen die Werte nicht <code>null</code> sein.
+ * <p>
+ * Die Klasse ist nicht synchronisiert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ * @param <V> der Typ der Werte
+ */
+final class ObjectIdMap<V> {
+
+	/**
+	 * Konstruiert eine leere ObjectIdMap.
+	 */
+	ObjectIdMap() {
+		_keys = new long[MIN_CAPACITY];
+		_values = new Object[MIN_CAPACITY];
+	}
+
+	/**
+	 * Gibt den Wert zur Id zurück.
+	 *
+	 * @param id die Objekt-Id
+	 * @return der Wert oder <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	V get( final long id) {
+		final int mask = _keys.length - 1;
+		for ( int index = hash( id) & mask; _values[index] != null; index = (index + 1) & mask) {
+			if ( _keys[index] == id) {
+				return (V) _values[index];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Legt den Wert zur Id ab.
+	 *
+	 * @param id die Objekt-Id
+	 * @param value der Wert, nicht <code>null</code>
+	 * @return der bisherige Wert oder <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	V put( final long id, final V value) {
+		if ( value == null) {
+			throw new IllegalArgumentException( "Die ObjectIdMap kann keine null-Werte aufnehmen.");
+		}
+		final int mask = _keys.length - 1;
+		int index = hash( id) & mask;
+		for ( ; _values[index] != null; index = (index + 1) & mask) {
+			if ( _keys[index] == id) {
+				final V oldValue = (V) _values[index];
+				_values[index] = value;
+				return oldValue;
+			}
+		}
+		_keys[index] = id;
+		_values[index] = value;
+		_size++;
+		if ( 2 * _size > _keys.length) {
+			resize( 2 * _keys.length);
+		}
+		return null;
+	}
+
+	/**
+	 * Entfernt den Wert zur Id. Die folgenden Einträge derselben Sondierungskette werden nachgerückt,
+	 * so dass keine Grabsteine entstehen.
+	 *
+	 * @param id die Objekt-Id
+	 * @return der entfernte Wert oder <code>null</code>
+	 */
+	@SuppressWarnings("unchecked")
+	V remove( final long id) {
+		final int mask = _keys.length - 1;
+		int index = hash( id) & mask;
+		while ( _values[index] != null && _keys[index] != id) {
+			index = (index + 1) & mask;
+		}
+		if ( _values[index] == null) {
+			return null;
+		}
+		final V oldValue = (V) _values[index];
+		int gap = index;
+		for ( int next = (gap + 1) & mask; _values[next] != null; next = (next + 1) & mask) {
+			final int home = hash( _keys[next]) & mask;
+			// Der Eintrag darf nur nachrücken, wenn sein Heimatplatz nicht zwischen Lücke und ihm liegt.
+			if ( ((next - home) & mask) >= ((next - gap) & mask)) {
+				_keys[gap] = _keys[next];
+				_values[gap] = _values[next];
+				gap = next;
+			}
+		}
+		_values[gap] = null;
+		_size--;
+		return oldValue;
+	}
+
+	/**
+	 * Gibt die Anzahl der Einträge zurück.
+	 *
+	 * @return die Anzahl der Einträge
+	 */
+	int size() {
+		return _size;
+	}
+
+	private void resize( final int capacity) {
+		final long[] oldKeys = _keys;
+		final Object[] oldValues = _values;
+		_keys = new long[capacity];
+		_values = new Object[capacity];
+		final int mask = capacity - 1;
+		for ( int i = 0; i < oldKeys.length; i++) {
+			if ( oldValues[i] != null) {
+				int index = hash( oldKeys[i]) & mask;
+				while ( _values[index] != null) {
+					index = (index + 1) & mask;
+				}
+				_keys[index] = oldKeys[i];
+				_values[index] = oldValues[i];
+			}
+		}
+	}
+
+	/*
+	 * Objekt-Ids sind oft fortlaufend vergeben; die Multiplikation verteilt sie über die oberen Bits,
+	 * die dann nach unten geholt werden.
+	 */
+	private static int hash( final long id) {
+		final long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	final private static int MIN_CAPACITY = 16;
+
+	private long[] _keys;
+
+	private Object[] _values;
+
+	private int _size;
+}
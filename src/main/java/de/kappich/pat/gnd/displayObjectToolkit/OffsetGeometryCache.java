@@ -0,0 +1,276 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.sys.funclib.debug.Debug;
+import de.kappich.pat.gnd.gnd.MapPane;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Der OffsetGeometryCache speichert für die DisplayObjects eines Layers die vom Painter berechneten
+ * Koordinaten zu den Typen ungleich 0, also bei Linien die verschobenen Polylinien.
+ * <p>
+ * Die Berechnung findet nie im aufrufenden Thread statt: {@link #get(DisplayObject, int)} gibt
+ * <code>null</code> zurück, wenn die Koordinaten noch nicht vorliegen, und beauftragt einen
+ * Hintergrund-Thread damit. Ist die Berechnung fertig, so wird das DisplayObject in seiner
+ * Kartenansicht neu gezeichnet. Mit {@link #precompute(Collection, Collection)} werden die
+ * Koordinaten aller Objekte eines Layers nach dem Laden vorab berechnet.
+ * <p>
+ * Der Cache ist in der Anzahl der Einträge über den ganzen Layer beschränkt; ist er voll, so wird der
+ * am längsten nicht mehr benutzte Eintrag entfernt. Die Größe kann mit der System-Property
+ * <code>de.kappich.pat.gnd.Verschiebungscache</code> festgelegt werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class OffsetGeometryCache {
+
+	/**
+	 * Konstruiert einen OffsetGeometryCache mit der übergebenen maximalen Anzahl von Einträgen.
+	 *
+	 * @param capacity die maximale Anzahl von Einträgen
+	 */
+	@SuppressWarnings("serial")
+	OffsetGeometryCache( final int capacity) {
+		_capacity = Math.max( capacity, 1);
+		_map = new LinkedHashMap<Key, List<Object>>( 256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<Key, List<Object>> eldest) {
+				return size() > _capacity;
+			}
+		};
+	}
+
+	/**
+	 * Konstruiert einen OffsetGeometryCache mit der voreingestellten maximalen Anzahl von Einträgen.
+	 */
+	OffsetGeometryCache() {
+		this( DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Gibt die Koordinaten des DisplayObjects zum Typ zurück. Liegen sie noch nicht vor, so wird ihre
+	 * Berechnung im Hintergrund veranlasst und <code>null</code> zurückgegeben.
+	 *
+	 * @param displayObject das DisplayObject
+	 * @param type der Koordinatentyp
+	 * @return die Koordinaten oder <code>null</code>
+	 */
+	List<Object> get( final DisplayObject displayObject, final int type) {
+		final Key key = new Key( displayObject, type);
+		synchronized ( _map) {
+			final List<Object> coordinates = _map.get( key);
+			if ( coordinates != null) {
+				return coordinates;
+			}
+			final Boolean requested = _pending.get( key);
+			if ( requested != null) {
+				if ( !requested) {
+					_pending.put( key, Boolean.TRUE);
+				}
+				return null;
+			}
+			_pending.put( key, Boolean.TRUE);
+		}
+		final List<Key> keys = new ArrayList<Key>( 1);
+		keys.add( key);
+		EXECUTOR.execute( new ComputeTask( keys));
+		return null;
+	}
+
+	/**
+	 * Berechnet im Hintergrund die Koordinaten aller übergebenen DisplayObjects zu allen übergebenen
+	 * Typen ungleich 0, höchstens aber so viele, wie der Cache aufnehmen kann. Die Methode kehrt sofort
+	 * zurück.
+	 *
+	 * @param displayObjects die DisplayObjects
+	 * @param types die Koordinatentypen
+	 */
+	void precompute( final Collection<DisplayObject> displayObjects, final Collection<Integer> types) {
+		List<Key> keys = new ArrayList<Key>( PRECOMPUTE_CHUNK_SIZE);
+		int remaining = _capacity;
+		synchronized ( _map) {
+			for ( Integer type : types) {
+				if ( (type == null) || (type == 0)) {
+					continue;
+				}
+				for ( DisplayObject displayObject : displayObjects) {
+					if ( remaining-- <= 0) {
+						break;
+					}
+					final Key key = new Key( displayObject, type);
+					if ( _map.containsKey( key) || _pending.containsKey( key)) {
+						continue;
+					}
+					_pending.put( key, Boolean.FALSE);
+					keys.add( key);
+					if ( keys.size() == PRECOMPUTE_CHUNK_SIZE) {
+						EXECUTOR.execute( new ComputeTask( keys));
+						keys = new ArrayList<Key>( PRECOMPUTE_CHUNK_SIZE);
+					}
+				}
+			}
+		}
+		if ( !keys.isEmpty()) {
+			EXECUTOR.execute( new ComputeTask( keys));
+		}
+	}
+
+	/**
+	 * Gibt die Anzahl der Einträge zurück.
+	 *
+	 * @return die Anzahl der Einträge
+	 */
+	int size() {
+		synchronized ( _map) {
+			return _map.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized ( _map) {
+			return "[OffsetGeometryCache: Einträge=" + _map.size() + "/" + _capacity + ", in Berechnung=" + _pending.size() + "]";
+		}
+	}
+
+	/*
+	 * Legt das Ergebnis ab und gibt zurück, ob es während der Berechnung angefordert wurde.
+	 */
+	private boolean put( final Key key, final List<Object> coordinates) {
+		synchronized ( _map) {
+			_map.put( key, coordinates);
+			final Boolean requested = _pending.remove( key);
+			return (requested != null) && requested;
+		}
+	}
+
+	/*
+	 * Berechnet die Koordinaten zu einer Liste von Schlüsseln und zeichnet die DisplayObjects neu,
+	 * deren Koordinaten inzwischen zum Zeichnen angefordert wurden.
+	 */
+	private final class ComputeTask implements Runnable {
+
+		ComputeTask( final List<Key> keys) {
+			_keys = keys;
+		}
+
+		public void run() {
+			for ( Key key : _keys) {
+				final DisplayObject displayObject = key._displayObject;
+				List<Object> coordinates;
+				try {
+					coordinates = displayObject.getPainter().getCoordinates( displayObject.getCoordinates( 0), key._type);
+				}
+				catch ( RuntimeException e) {
+					_debug.warning( "Die Koordinaten zum Typ " + key._type + " von " + displayObject.getSystemObject() +
+							" konnten nicht berechnet werden", e);
+					coordinates = displayObject.getCoordinates( 0);
+				}
+				if ( put( key, coordinates)) {
+					final MapPane mapPane = displayObject.getMapPane();
+					if ( mapPane != null) {
+						mapPane.updateDisplayObject( displayObject);
+					}
+				}
+			}
+		}
+
+		private final List<Key> _keys;
+	}
+
+	/*
+	 * Der Schlüssel eines Eintrags. DisplayObjects werden über ihre Identität verglichen.
+	 */
+	private static final class Key {
+
+		Key( final DisplayObject displayObject, final int type) {
+			_displayObject = displayObject;
+			_type = type;
+		}
+
+		@Override
+		public boolean equals( Object o) {
+			if ( !(o instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) o;
+			return (_displayObject == other._displayObject) && (_type == other._type);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode( _displayObject) + _type;
+		}
+
+		private final DisplayObject _displayObject;
+
+		private final int _type;
+	}
+
+	/** Die voreingestellte maximale Anzahl von Einträgen. */
+	static final int DEFAULT_CAPACITY = Integer.getInteger( "de.kappich.pat.gnd.Verschiebungscache", 50000);
+
+	/** Die Anzahl von Einträgen, die ein Auftrag bei der Vorabberechnung bearbeitet. */
+	private static final int PRECOMPUTE_CHUNK_SIZE = 256;
+
+	/**
+	 * Die Threads, in denen die Koordinaten berechnet werden. Sie haben eine niedrige Priorität,
+	 * damit das Zeichnen und die Verarbeitung von Daten nicht behindert werden.
+	 */
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+			Math.max( 1, Runtime.getRuntime().availableProcessors() - 1),
+			new ThreadFactory() {
+				public Thread newThread( Runnable r) {
+					final Thread thread = new Thread( r, "GND-Verschiebungen");
+					thread.setDaemon( true);
+					thread.setPriority( Thread.MIN_PRIORITY);
+					return thread;
+				}
+			});
+
+	private final int _capacity;
+
+	private final LinkedHashMap<Key, List<Object>> _map;
+
+	/**
+	 * Die Schlüssel, deren Koordinaten gerade berechnet werden; der Wert gibt an, ob sie zum Zeichnen
+	 * angefordert wurden.
+	 */
+	private final Map<Key, Boolean> _pending = new HashMap<Key, Boolean>();
+
+	final private static Debug _debug = Debug.getLogger();
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Shape;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ein PaintBatch sammelt die Geometrie vieler DisplayObjects nach ihrem aufgelösten Stil, damit ein Layer
+ * mit wenigen Zustandswechseln des Graphics2D-Objekts gezeichnet wird. Die Painter, die
+ * {@link de.kappich.pat.gnd.pluginInterfaces.BatchDisplayObjectPainter} implementieren, übergeben ihre
+ * Geometrie mit Farbe, Strich und Selektionsstatus; {@link #paint(Graphics2D)} zeichnet dann jeden Stil
+ * einmal.
+ * <p>
+ * Linien eines Stils werden in einen gemeinsamen <code>Path2D</code> kopiert und mit einem einzigen
+ * <code>draw</code> gezeichnet. Flächen werden dagegen nur als Verweise auf ihre Teile im
+ * {@link GeometryStore} gesammelt und einzeln gefüllt, denn sie werden mit der Even-Odd-Regel gefüllt,
+ * und in einem gemeinsamen Pfad würden sich überlappende Flächen gegenseitig auslöschen. Auch für sie
+ * werden Farbe und Zeichenzustand aber nur einmal je Stil gesetzt.
+ * <p>
+ * Die Stile werden in der Reihenfolge ihres ersten Auftretens gezeichnet, die der selektierten Objekte
+ * zuletzt. Farben und Striche werden über {@link Color#equals(Object)} bzw. ihre Identität verglichen;
+ * die Painter sollten sie deshalb aus dem {@link StyleCache} beziehen. Ein PaintBatch ist nicht
+ * synchronisiert; jeder zeichnende Thread benutzt seinen eigenen. Nach {@link #paint(Graphics2D)} ist er
+ * leer und kann mit seinen Puffern wiederverwendet werden.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public final class PaintBatch {
+
+	/**
+	 * Nimmt eine Linie mit dem übergebenen Stil in den Stapel auf. Die Koordinaten werden kopiert; der
+	 * Shape darf also ein wiederverwendeter Pfad wie der von {@link GeometryStore#getSharedPath(int, double)}
+	 * sein.
+	 *
+	 * @param color die Farbe
+	 * @param stroke der Strich
+	 * @param selected ist das Objekt selektiert?
+	 * @param shape die Linie
+	 */
+	public void draw( final Color color, final BasicStroke stroke, final boolean selected, final Shape shape) {
+		getBucket( color, stroke, selected).append( shape);
+	}
+
+	/**
+	 * Nimmt die Fläche eines Teils im GeometryStore mit der übergebenen Farbe in den Stapel auf.
+	 *
+	 * @param color die Farbe
+	 * @param selected ist das Objekt selektiert?
+	 * @param geometryStore der GeometryStore
+	 * @param part der Index des Teils, der vom Typ {@link GeometryStore#POLYGON} sein muss
+	 * @param tolerance die Toleranz für die Vereinfachung des Teils
+	 */
+	public void fill( final Color color, final boolean selected, final GeometryStore geometryStore, final int part,
+			final double tolerance) {
+		getBucket( color, null, selected).append( geometryStore, part, tolerance);
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn der Stapel nichts enthält.
+	 *
+	 * @return <code>true</code>, wenn der Stapel leer ist
+	 */
+	public boolean isEmpty() {
+		for ( int i = 0; i < _numberOfBuckets; i++) {
+			if ( !_buckets.get( i).isEmpty()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Zeichnet den Inhalt des Stapels, einen Aufruf von <code>draw</code> je Linien-Stil, und leert den
+	 * Stapel. Farbe und Strich des Graphics2D-Objekts sind danach verändert.
+	 *
+	 * @param g2D das Graphics2D-Objekt
+	 */
+	public void paint( final Graphics2D g2D) {
+		for ( int pass = 0; pass < 2; pass++) {
+			final boolean selected = (pass == 1);
+			for ( int i = 0; i < _numberOfBuckets; i++) {
+				final Bucket bucket = _buckets.get( i);
+				if ( bucket._selected == selected) {
+					bucket.paint( g2D);
+				}
+			}
+		}
+		clear();
+	}
+
+	/**
+	 * Leert den Stapel, ohne zu zeichnen.
+	 */
+	public void clear() {
+		for ( int i = 0; i < _numberOfBuckets; i++) {
+			_buckets.get( i).clear();
+		}
+		_numberOfBuckets = 0;
+		_lastBucket = null;
+	}
+
+	/*
+	 * Sucht den Eimer zu dem Stil. Da meist viele Objekte desselben Stils aufeinander folgen und es nur
+	 * wenige Stile gibt, wird zuerst der zuletzt benutzte Eimer und dann linear gesucht; so entsteht
+	 * beim Suchen kein Schlüsselobjekt.
+	 */
+	private Bucket getBucket( final Color color, final BasicStroke stroke, final boolean selected) {
+		if ( (_lastBucket != null) && _lastBucket.hasStyle( color, stroke, selected)) {
+			return _lastBucket;
+		}
+		for ( int i = 0; i < _numberOfBuckets; i++) {
+			final Bucket bucket = _buckets.get( i);
+			if ( bucket.hasStyle( color, stroke, selected)) {
+				_lastBucket = bucket;
+				return bucket;
+			}
+		}
+		final Bucket bucket;
+		if ( _numberOfBuckets < _buckets.size()) {
+			bucket = _buckets.get( _numberOfBuckets);
+		} else {
+			bucket = new Bucket();
+			_buckets.add( bucket);
+		}
+		bucket.setStyle( color, stroke, selected);
+		_numberOfBuckets++;
+		_lastBucket = bucket;
+		return bucket;
+	}
+
+	/*
+	 * Die Geometrie eines Stils. Ein Eimer mit Strich sammelt Linien, einer ohne Strich Flächen.
+	 */
+	private static final class Bucket {
+
+		void setStyle( final Color color, final BasicStroke stroke, final boolean selected) {
+			_color = color;
+			_stroke = stroke;
+			_selected = selected;
+		}
+
+		boolean hasStyle( final Color color, final BasicStroke stroke, final boolean selected) {
+			return (_stroke == stroke) && (_selected == selected) && _color.equals( color);
+		}
+
+		void append( final Shape shape) {
+			_path.append( shape, false);
+			_hasLines = true;
+		}
+
+		void append( final GeometryStore geometryStore, final int part, final double tolerance) {
+			if ( _numberOfParts == _parts.length) {
+				final int capacity = 2 * _parts.length;
+				_geometryStores = Arrays.copyOf( _geometryStores, capacity);
+				_parts = Arrays.copyOf( _parts, capacity);
+				_tolerances = Arrays.copyOf( _tolerances, capacity);
+			}
+			_geometryStores[_numberOfParts] = geometryStore;
+			_parts[_numberOfParts] = part;
+			_tolerances[_numberOfParts] = tolerance;
+			_numberOfParts++;
+		}
+
+		boolean isEmpty() {
+			return !_hasLines && (_numberOfParts == 0);
+		}
+
+		void paint( final Graphics2D g2D) {
+			if ( isEmpty()) {
+				return;
+			}
+			g2D.setColor( _color);
+			if ( _hasLines) {
+				g2D.setStroke( _stroke);
+				g2D.draw( _path);
+			}
+			for ( int i = 0; i < _numberOfParts; i++) {
+				g2D.fill( _geometryStores[i].getSharedPath( _parts[i], _tolerances[i]));
+			}
+		}
+
+		void clear() {
+			_path.reset();
+			_hasLines = false;
+			Arrays.fill( _geometryStores, 0, _numberOfParts, null);
+			_numberOfParts = 0;
+			_color = null;
+			_stroke = null;
+		}
+
+		private Color _color;
+
+		private BasicStroke _stroke;
+
+		private boolean _selected;
+
+		private final Path2D.Double _path = new Path2D.Double( Path2D.WIND_NON_ZERO, 1024);
+
+		private boolean _hasLines;
+
+		private GeometryStore[] _geometryStores = new GeometryStore[64];
+
+		private int[] _parts = new int[64];
+
+		private double[] _tolerances = new double[64];
+
+		private int _numberOfParts;
+	}
+
+	/** Die Eimer; die ersten _numberOfBuckets sind in Benutzung, die übrigen werden wiederverwendet. */
+	private final List<Bucket> _buckets = new ArrayList<Bucket>();
+
+	private int _numberOfBuckets;
+
+	private Bucket _lastBucket;
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Der PolylineCache speichert die projizierten und vereinfachten Polylinien von Linienobjekten,
+ * damit eine Linie, auf der viele Punkte liegen oder die Teil vieler anderer Linien ist, nur einmal
+ * aus den Konfigurationsdaten berechnet wird. Ein zweiter PolylineCache hält die projizierten, noch
+ * nicht vereinfachten Polylinien der Teillinien zusammengesetzter Linien.
+ * <p>
+ * Der Cache ist in der Anzahl der Einträge beschränkt; ist er voll, so wird der am längsten nicht
+ * mehr benutzte Eintrag entfernt. Die gespeicherten Listen dürfen nicht verändert werden. Treffer
+ * und Fehlversuche werden gezählt; {@link #toString()} gibt die Statistik aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class PolylineCache {
+
+	/**
+	 * Konstruiert einen PolylineCache mit der übergebenen maximalen Anzahl von Einträgen.
+	 *
+	 * @param capacity die maximale Anzahl von Einträgen
+	 */
+	@SuppressWarnings("serial")
+	PolylineCache( final int capacity) {
+		_capacity = Math.max( capacity, 1);
+		_map = new LinkedHashMap<SystemObject, List<Object>>( 256, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry( Map.Entry<SystemObject, List<Object>> eldest) {
+				return size() > _capacity;
+			}
+		};
+	}
+
+	/**
+	 * Gibt die Polylinien der Linie zurück, oder <code>null</code>, wenn sie nicht im Cache sind.
+	 *
+	 * @param line die Linie
+	 * @return die Polylinien oder <code>null</code>
+	 */
+	List<Object> get( final SystemObject line) {
+		final List<Object> polylines;
+		synchronized ( _map) {
+			polylines = _map.get( line);
+		}
+		if ( polylines == null) {
+			_misses.incrementAndGet();
+		} else {
+			_hits.incrementAndGet();
+		}
+		return polylines;
+	}
+
+	/**
+	 * Legt die Polylinien der Linie im Cache ab.
+	 *
+	 * @param line die Linie
+	 * @param polylines die Polylinien, die danach nicht mehr verändert werden dürfen
+	 */
+	void put( final SystemObject line, final List<Object> polylines) {
+		synchronized ( _map) {
+			_map.put( line, polylines);
+		}
+	}
+
+	/**
+	 * Gibt die Anzahl der Einträge zurück.
+	 *
+	 * @return die Anzahl der Einträge
+	 */
+	int size() {
+		synchronized ( _map) {
+			return _map.size();
+		}
+	}
+
+	@Override
+	public String toString() {
+		final long hits = _hits.get();
+		final long misses = _misses.get();
+		final long requests = hits + misses;
+		return "[PolylineCache: Einträge=" + size() + "/" + _capacity + ", Treffer=" + hits +
+			", Fehlversuche=" + misses + ", Trefferquote=" + ((requests == 0) ? 0 : (100 * hits / requests)) + "%]";
+	}
+
+	private final int _capacity;
+
+	private final LinkedHashMap<SystemObject, List<Object>> _map;
+
+	private final AtomicLong _hits = new AtomicLong();
+
+	private final AtomicLong _misses = new AtomicLong();
+}
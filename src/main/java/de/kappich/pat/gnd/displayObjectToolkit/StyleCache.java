@@ -0,0 +1,198 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Der StyleCache liefert den Painter-Plugins gemeinsam genutzte Instanzen von {@link BasicStroke},
+ * {@link Color} und {@link Font}, damit beim Zeichnen keine Stil-Objekte pro Darstellungsobjekt und
+ * Bild erzeugt werden.
+ * <p>
+ * Schlüssel sind die aufgelösten Eigenschaftswerte: Strichbreiten als die <code>Double</code>-Werte der
+ * Darstellungstypen, Farben über ihren RGBA-Wert (siehe {@link Color#equals(Object)}) und Schriften über
+ * Stil und Größe. Eine Anfrage erzeugt deshalb nur beim ersten Mal ein neues Objekt; danach wird ohne
+ * Allokation die gespeicherte Instanz zurückgegeben. Alle Stil-Objekte sind unveränderlich, so dass die
+ * Methoden von beliebigen Threads aus aufgerufen werden können.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public final class StyleCache {
+
+	/** Die vollständig transparente Farbe. */
+	public static final Color TRANSPARENT = new Color( 0, 0, 0, 0);
+
+	/** Der Strich der Breite 1. */
+	public static final BasicStroke THIN_STROKE = new BasicStroke( 1.f);
+
+	/** Der Strich der Breite 3, mit dem selektierte Flächen umrandet werden. */
+	public static final BasicStroke SELECTION_STROKE = new BasicStroke( 3.f);
+
+	private StyleCache() {
+	}
+
+	/**
+	 * Gibt einen einfachen Strich der übergebenen Breite zurück, wie ihn
+	 * <code>new BasicStroke( width.floatValue())</code> liefert.
+	 *
+	 * @param width die Strichbreite
+	 * @return der Strich
+	 */
+	public static BasicStroke getStroke( final Double width) {
+		BasicStroke stroke = _strokes.get( width);
+		if ( stroke == null) {
+			stroke = intern( _strokes, width, new BasicStroke( width.floatValue()));
+		}
+		return stroke;
+	}
+
+	/**
+	 * Gibt einen Strich mit runden Enden und Ecken zurück, wie er für Linien benutzt wird. Ist
+	 * <code>selected</code> gesetzt, so ist der Strich doppelt so breit.
+	 *
+	 * @param width die Strichbreite
+	 * @param selected ist das Objekt selektiert?
+	 * @return der Strich
+	 */
+	public static BasicStroke getRoundStroke( final Double width, final boolean selected) {
+		final ConcurrentMap<Double, BasicStroke> strokes = selected ? _selectedRoundStrokes : _roundStrokes;
+		BasicStroke stroke = strokes.get( width);
+		if ( stroke == null) {
+			final float lineWidth = selected ? 2 * width.floatValue() : width.floatValue();
+			stroke = intern( strokes, width,
+					new BasicStroke( lineWidth, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 10.0f, null, 0.0f));
+		}
+		return stroke;
+	}
+
+	/**
+	 * Gibt die Farbe mit dem RGB-Wert von <code>color</code> und dem übergebenen Alpha-Wert zurück.
+	 * Ist <code>alpha</code> <code>null</code>, so ist die Farbe undurchsichtig.
+	 *
+	 * @param color die Farbe
+	 * @param alpha der Alpha-Wert aus [0, 255] oder <code>null</code>
+	 * @return die Farbe mit dem Alpha-Wert
+	 */
+	public static Color getColorWithAlpha( final Color color, final Integer alpha) {
+		final int a = (alpha == null) ? 255 : Math.max( 0, Math.min( 255, alpha.intValue()));
+		if ( color.getAlpha() == a) {
+			return color;
+		}
+		AtomicReferenceArray<Color> variants = _alphaVariants.get( color);
+		if ( variants == null) {
+			variants = intern( _alphaVariants, color, new AtomicReferenceArray<Color>( 256));
+		}
+		Color variant = variants.get( a);
+		if ( variant == null) {
+			variant = new Color( color.getRed(), color.getGreen(), color.getBlue(), a);
+			if ( !variants.compareAndSet( a, null, variant)) {
+				variant = variants.get( a);
+			}
+		}
+		return variant;
+	}
+
+	/**
+	 * Gibt <code>color.darker()</code> zurück.
+	 *
+	 * @param color die Farbe
+	 * @return die dunklere Farbe
+	 */
+	public static Color getDarker( final Color color) {
+		Color darker = _darkerColors.get( color);
+		if ( darker == null) {
+			darker = intern( _darkerColors, color, color.darker());
+		}
+		return darker;
+	}
+
+	/**
+	 * Gibt <code>color.brighter()</code> zurück.
+	 *
+	 * @param color die Farbe
+	 * @return die hellere Farbe
+	 */
+	public static Color getBrighter( final Color color) {
+		Color brighter = _brighterColors.get( color);
+		if ( brighter == null) {
+			brighter = intern( _brighterColors, color, color.brighter());
+		}
+		return brighter;
+	}
+
+	/**
+	 * Gibt die Standardschrift mit dem übergebenen Stil und der übergebenen Größe zurück, wie sie
+	 * <code>new Font( null, style, size)</code> liefert.
+	 *
+	 * @param style der Stil, eine Kombination von {@link Font#BOLD} und {@link Font#ITALIC}
+	 * @param size die Schriftgröße
+	 * @return die Schrift
+	 */
+	public static Font getFont( final int style, final int size) {
+		if ( (style < 0) || (style > (Font.BOLD | Font.ITALIC)) || (size < 0) || (size >= MAX_FONT_SIZE)) {
+			return new Font( null, style, size);
+		}
+		final int index = style * MAX_FONT_SIZE + size;
+		Font font = _fonts.get( index);
+		if ( font == null) {
+			font = new Font( null, style, size);
+			if ( !_fonts.compareAndSet( index, null, font)) {
+				font = _fonts.get( index);
+			}
+		}
+		return font;
+	}
+
+	private static <K, V> V intern( final ConcurrentMap<K, V> map, final K key, final V value) {
+		final V previous = map.putIfAbsent( key, value);
+		return (previous == null) ? value : previous;
+	}
+
+	/** Schriften ab dieser Größe werden nicht gespeichert. */
+	private static final int MAX_FONT_SIZE = 256;
+
+	private static final ConcurrentMap<Double, BasicStroke> _strokes = new ConcurrentHashMap<Double, BasicStroke>();
+
+	private static final ConcurrentMap<Double, BasicStroke> _roundStrokes = new ConcurrentHashMap<Double, BasicStroke>();
+
+	private static final ConcurrentMap<Double, BasicStroke> _selectedRoundStrokes = new ConcurrentHashMap<Double, BasicStroke>();
+
+	private static final ConcurrentMap<Color, AtomicReferenceArray<Color>> _alphaVariants =
+		new ConcurrentHashMap<Color, AtomicReferenceArray<Color>>();
+
+	private static final ConcurrentMap<Color, Color> _darkerColors = new ConcurrentHashMap<Color, Color>();
+
+	private static final ConcurrentMap<Color, Color> _brighterColors = new ConcurrentHashMap<Color, Color>();
+
+	private static final AtomicReferenceArray<Font> _fonts = new AtomicReferenceArray<Font>( 4 * MAX_FONT_SIZE);
+}
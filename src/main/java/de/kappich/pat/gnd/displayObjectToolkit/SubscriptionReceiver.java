@@ -0,0 +1,232 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.dav.daf.main.ClientReceiverInterface;
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.SystemObject;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ein SubscriptionReceiver ist der gemeinsame Empfänger aller DisplayObjects eines Layers, die auf
+ * dieselbe Datenbeschreibung angemeldet sind. Dadurch kann der {@link DisplayObjectManager} die
+ * Systemobjekte in wenigen großen Aufrufen an- und abmelden, statt für jedes DisplayObject einzeln.
+ * <p>
+ * Ein empfangenes Paket von Datensätzen wird in einem Durchlauf verteilt: zu jedem Datensatz werden
+ * die DisplayObjects seines Systemobjekts über die Objekt-Id in einer {@link ObjectIdMap} gesucht
+ * und der Datensatz für sie in der {@link UpdateQueue} abgelegt; ist diese abgeschaltet, so wird er den
+ * DisplayObjects direkt übergeben.
+ * Der Empfänger zählt Pakete, Datensätze und die Zeit für die Verteilung; {@link #toString()} gibt
+ * diese Statistik des Layers aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class SubscriptionReceiver implements ClientReceiverInterface {
+
+	/**
+	 * Konstruiert den Empfänger zu dem Layer und der Datenbeschreibung.
+	 *
+	 * @param layerName der Name des Layers
+	 * @param dataDescription die Datenbeschreibung
+	 */
+	SubscriptionReceiver( final String layerName, final DataDescription dataDescription) {
+		_layerName = layerName;
+		_dataDescription = dataDescription;
+	}
+
+	/**
+	 * Gibt den Namen des Layers zurück.
+	 *
+	 * @return der Name des Layers
+	 */
+	String getLayerName() {
+		return _layerName;
+	}
+
+	/**
+	 * Gibt die Datenbeschreibung zurück.
+	 *
+	 * @return die Datenbeschreibung
+	 */
+	DataDescription getDataDescription() {
+		return _dataDescription;
+	}
+
+	/**
+	 * Nimmt das DisplayObject auf. Gibt <code>true</code> zurück, wenn sein Systemobjekt neu ist und
+	 * deshalb beim Datenverteiler angemeldet werden muss.
+	 *
+	 * @param displayObject das DisplayObject
+	 * @return <code>true</code>, wenn das Systemobjekt angemeldet werden muss
+	 */
+	boolean add( final DisplayObject displayObject) {
+		final long id = displayObject.getSystemObject().getId();
+		synchronized ( _displayObjects) {
+			final DisplayObject[] displayObjects = _displayObjects.get( id);
+			if ( displayObjects == null) {
+				_displayObjects.put( id, new DisplayObject[] { displayObject });
+				return true;
+			}
+			for ( DisplayObject registered : displayObjects) {
+				if ( registered == displayObject) {
+					return false;
+				}
+			}
+			final DisplayObject[] newDisplayObjects = Arrays.copyOf( displayObjects, displayObjects.length + 1);
+			newDisplayObjects[displayObjects.length] = displayObject;
+			_displayObjects.put( id, newDisplayObjects);
+			return false;
+		}
+	}
+
+	/**
+	 * Entfernt das DisplayObject. Gibt <code>true</code> zurück, wenn es das letzte seines Systemobjekts
+	 * war und das Systemobjekt deshalb beim Datenverteiler abgemeldet werden muss.
+	 *
+	 * @param displayObject das DisplayObject
+	 * @return <code>true</code>, wenn das Systemobjekt abgemeldet werden muss
+	 */
+	boolean remove( final DisplayObject displayObject) {
+		final long id = displayObject.getSystemObject().getId();
+		synchronized ( _displayObjects) {
+			final DisplayObject[] displayObjects = _displayObjects.get( id);
+			if ( displayObjects == null) {
+				return false;
+			}
+			int index = 0;
+			while ( index < displayObjects.length && displayObjects[index] != displayObject) {
+				index++;
+			}
+			if ( index == displayObjects.length) {
+				return false;
+			}
+			if ( displayObjects.length == 1) {
+				_displayObjects.remove( id);
+				return true;
+			}
+			final DisplayObject[] newDisplayObjects = new DisplayObject[displayObjects.length - 1];
+			System.arraycopy( displayObjects, 0, newDisplayObjects, 0, index);
+			System.arraycopy( displayObjects, index + 1, newDisplayObjects, index, newDisplayObjects.length - index);
+			_displayObjects.put( id, newDisplayObjects);
+			return false;
+		}
+	}
+
+	/**
+	 * Gibt die Datensätze an die DisplayObjects ihrer Systemobjekte weiter. Die Arrays der DisplayObjects
+	 * werden nur ersetzt, nie verändert, und können deshalb außerhalb der Synchronisation benutzt werden.
+	 */
+	public void update( final ResultData[] results) {
+		final long start = System.nanoTime();
+		final UpdateQueue updateQueue = UpdateQueue.ENABLED ? UpdateQueue.getInstance() : null;
+		final ResultData[] singleResult = new ResultData[1];
+		int unmatched = 0;
+		for ( ResultData result : results) {
+			final SystemObject systemObject = result.getObject();
+			final DisplayObject[] displayObjects;
+			synchronized ( _displayObjects) {
+				displayObjects = _displayObjects.get( systemObject.getId());
+			}
+			if ( displayObjects == null) {
+				unmatched++;
+				continue;
+			}
+			singleResult[0] = result;
+			for ( DisplayObject displayObject : displayObjects) {
+				if ( updateQueue != null) {
+					updateQueue.offer( displayObject, result);
+				} else {
+					displayObject.update( singleResult);
+				}
+			}
+		}
+		if ( updateQueue != null) {
+			updateQueue.delivered( start, results.length);
+		}
+		_batches.incrementAndGet();
+		_results.addAndGet( results.length);
+		_unmatchedResults.addAndGet( unmatched);
+		_dispatchNanos.addAndGet( System.nanoTime() - start);
+	}
+
+	/**
+	 * Gibt die Anzahl der empfangenen Datensätze zurück.
+	 *
+	 * @return die Anzahl der Datensätze
+	 */
+	long getResults() {
+		return _results.get();
+	}
+
+	/**
+	 * Gibt die Anzahl der empfangenen Pakete von Datensätzen zurück.
+	 *
+	 * @return die Anzahl der Pakete
+	 */
+	long getBatches() {
+		return _batches.get();
+	}
+
+	/**
+	 * Gibt die gesamte Zeit für die Verteilung der Datensätze in Nanosekunden zurück.
+	 *
+	 * @return die Zeit in Nanosekunden
+	 */
+	long getDispatchNanos() {
+		return _dispatchNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		final int size;
+		synchronized ( _displayObjects) {
+			size = _displayObjects.size();
+		}
+		return "[SubscriptionReceiver: Layer=" + _layerName + ", " + _dataDescription + ", Systemobjekte=" + size +
+			", Pakete=" + _batches.get() + ", Datensätze=" + _results.get() + ", ohne Empfänger=" +
+			_unmatchedResults.get() + ", Verteilzeit=" + (_dispatchNanos.get() / 1000000L) + "ms]";
+	}
+
+	private final String _layerName;
+
+	private final DataDescription _dataDescription;
+
+	/** Die DisplayObjects zu der Objekt-Id jedes angemeldeten Systemobjekts. */
+	private final ObjectIdMap<DisplayObject[]> _displayObjects = new ObjectIdMap<DisplayObject[]>();
+
+	private final AtomicLong _batches = new AtomicLong();
+
+	private final AtomicLong _results = new AtomicLong();
+
+	private final AtomicLong _unmatchedResults = new AtomicLong();
+
+	private final AtomicLong _dispatchNanos = new AtomicLong();
+}
@@ -0,0 +1,308 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.bsvrz.dav.daf.main.DataDescription;
+import de.bsvrz.dav.daf.main.ResultData;
+import de.bsvrz.dav.daf.main.config.Aspect;
+import de.bsvrz.dav.daf.main.config.AttributeGroup;
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Die UpdateQueue nimmt die Datensätze des Datenverteilers für die DisplayObjects entgegen und gibt sie
+ * in einem eigenen Thread an die DisplayObjects weiter.
+ * <p>
+ * Der Thread des Datenverteilers legt mit {@link #offer(DisplayObject, ResultData)} nur den neuesten
+ * Datensatz je DisplayObject und Datenbeschreibung in einem Fach ab; ein älterer, noch nicht
+ * verarbeiteter Datensatz in demselben Fach wird dabei verworfen, denn die Karte zeigt ohnehin nur den
+ * aktuellen Zustand. Der Thread der UpdateQueue leert die Fächer in Portionen und übergibt jedem
+ * DisplayObject seine Datensätze mit einem Aufruf, in dem die DisplayObjectTypeItems bestimmt werden.
+ * Der Thread des Datenverteilers wird also weder durch die Auswertung der Datensätze noch durch das
+ * Warten auf die Kartenansicht aufgehalten.
+ * <p>
+ * Die Zeit, die der Thread des Datenverteilers für ein Paket braucht, ist nicht durch eine feste Frist
+ * begrenzt, sondern durch die Größe des Pakets: {@link #offer(DisplayObject, ResultData)} blockiert nie
+ * und kostet je Datensatz nur das Ablegen in einer <code>ConcurrentHashMap</code> und einer
+ * <code>ConcurrentLinkedQueue</code>, unabhängig davon, wie viel die Kartenansicht gerade zu tun hat.
+ * Gezählt werden die entgegengenommenen, die verworfenen und die verarbeiteten Datensätze sowie die Zeit,
+ * die der Thread des Datenverteilers je Paket in der UpdateQueue verbringt; {@link #toString()} gibt die
+ * Statistik aus. Dauert ein Paket länger als {@link #SLOW_DELIVERY_MILLIS} Millisekunden, so wird das
+ * gemeldet.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class UpdateQueue {
+
+	/**
+	 * Gibt an, ob die Datensätze über die UpdateQueue verarbeitet werden. Mit der System-Property
+	 * <code>de.kappich.pat.gnd.Aktualisierungspuffer</code> kann man das mit <code>false</code> abschalten;
+	 * dann werden sie wie bisher im Thread des Datenverteilers verarbeitet, und die UpdateQueue und ihr
+	 * Thread werden gar nicht erst angelegt.
+	 */
+	static final boolean ENABLED =
+		Boolean.parseBoolean( System.getProperty( "de.kappich.pat.gnd.Aktualisierungspuffer", "true"));
+
+	/**
+	 * Gibt die UpdateQueue zurück, die alle DisplayObjects gemeinsam benutzen. Sie wird beim ersten
+	 * Aufruf angelegt; das sollte nur geschehen, wenn sie mit {@link #ENABLED} eingeschaltet ist.
+	 *
+	 * @return die UpdateQueue
+	 */
+	static UpdateQueue getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+
+	private UpdateQueue() {
+		_executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+			public Thread newThread( Runnable r) {
+				final Thread thread = new Thread( r, "GND-Aktualisierung");
+				thread.setDaemon( true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Legt den Datensatz für das DisplayObject ab. Die Methode blockiert nicht und darf aus jedem Thread
+	 * aufgerufen werden.
+	 *
+	 * @param displayObject das DisplayObject
+	 * @param result der Datensatz
+	 */
+	void offer( final DisplayObject displayObject, final ResultData result) {
+		_offered.incrementAndGet();
+		final DataDescription dataDescription = result.getDataDescription();
+		final Slot slot = new Slot( displayObject, dataDescription.getAttributeGroup(), dataDescription.getAspect());
+		if ( _slots.put( slot, result) != null) {
+			// Der Schlüssel steht schon in der Warteschlange, der ältere Datensatz ist verdrängt.
+			_dropped.incrementAndGet();
+			return;
+		}
+		_pendingSlots.add( slot);
+		if ( _scheduled.compareAndSet( false, true)) {
+			schedule( 0L);
+		}
+	}
+
+	/**
+	 * Vermerkt, wie lange der Thread des Datenverteilers für ein Paket von Datensätzen gebraucht hat,
+	 * und meldet Pakete, die länger als {@link #SLOW_DELIVERY_MILLIS} Millisekunden gedauert haben.
+	 *
+	 * @param startNanos der Beginn der Auslieferung nach <code>System.nanoTime()</code>
+	 * @param numberOfResults die Anzahl der Datensätze des Pakets
+	 */
+	void delivered( final long startNanos, final int numberOfResults) {
+		final long nanos = System.nanoTime() - startNanos;
+		if ( nanos > SLOW_DELIVERY_MILLIS * 1000000L) {
+			_debug.fine( "Die Auslieferung eines Pakets mit " + numberOfResults + " Datensätzen dauerte " +
+				(nanos / 1000000L) + " ms", this);
+		}
+		_deliveries.incrementAndGet();
+		_deliveryNanos.addAndGet( nanos);
+		long max = _maxDeliveryNanos.get();
+		while ( nanos > max && !_maxDeliveryNanos.compareAndSet( max, nanos)) {
+			max = _maxDeliveryNanos.get();
+		}
+	}
+
+	@Override
+	public String toString() {
+		final long deliveries = _deliveries.get();
+		return "[UpdateQueue: Datensätze=" + _offered.get() + ", verworfen=" + _dropped.get() + ", verarbeitet=" +
+			_processed.get() + ", wartend=" + _slots.size() + ", Auslieferungen=" + deliveries + ", je Auslieferung=" +
+			((deliveries == 0) ? 0 : (_deliveryNanos.get() / deliveries / 1000L)) + "µs, höchstens=" +
+			(_maxDeliveryNanos.get() / 1000L) + "µs]";
+	}
+
+	private void schedule( final long delayMillis) {
+		try {
+			_executor.schedule( _drain, delayMillis, TimeUnit.MILLISECONDS);
+		}
+		catch ( RuntimeException e) {
+			_scheduled.set( false);
+			throw e;
+		}
+	}
+
+	/*
+	 * Leert die Fächer im Thread der UpdateQueue. Datensätze von DisplayObjects, die noch nicht
+	 * aktualisiert werden können, weil die Kartenansicht ihren Maßstab noch nicht kennt, werden wieder
+	 * abgelegt und nach RETRY_DELAY Millisekunden erneut versucht.
+	 */
+	private void drain() {
+		final Map<DisplayObject, List<ResultData>> batch = new LinkedHashMap<DisplayObject, List<ResultData>>();
+		final List<Slot> deferred = new ArrayList<Slot>();
+		final List<ResultData> deferredResults = new ArrayList<ResultData>();
+		while ( true) {
+			batch.clear();
+			for ( int i = 0; i < BATCH_SIZE; i++) {
+				final Slot slot = _pendingSlots.poll();
+				if ( slot == null) {
+					break;
+				}
+				final ResultData result = _slots.remove( slot);
+				if ( result == null) {
+					continue;
+				}
+				List<ResultData> results = batch.get( slot._displayObject);
+				if ( results == null) {
+					results = new ArrayList<ResultData>( 2);
+					batch.put( slot._displayObject, results);
+				}
+				results.add( result);
+			}
+			if ( batch.isEmpty()) {
+				break;
+			}
+			for ( Map.Entry<DisplayObject, List<ResultData>> entry : batch.entrySet()) {
+				final List<ResultData> results = entry.getValue();
+				boolean applied = false;
+				try {
+					applied = entry.getKey().applyUpdates( results.toArray( new ResultData[results.size()]));
+				}
+				catch ( RuntimeException e) {
+					_debug.warning( "Die Datensätze konnten nicht verarbeitet werden.", e);
+					applied = true;
+				}
+				if ( applied) {
+					_processed.addAndGet( results.size());
+				} else {
+					for ( ResultData result : results) {
+						final DataDescription dataDescription = result.getDataDescription();
+						deferred.add( new Slot( entry.getKey(), dataDescription.getAttributeGroup(), dataDescription.getAspect()));
+						deferredResults.add( result);
+					}
+				}
+			}
+		}
+		_scheduled.set( false);
+		for ( int i = 0; i < deferred.size(); i++) {
+			// Nur ablegen, wenn inzwischen kein neuerer Datensatz angekommen ist.
+			if ( _slots.putIfAbsent( deferred.get( i), deferredResults.get( i)) == null) {
+				_pendingSlots.add( deferred.get( i));
+			}
+		}
+		if ( !deferred.isEmpty()) {
+			if ( _scheduled.compareAndSet( false, true)) {
+				schedule( RETRY_DELAY);
+			}
+		} else if ( !_pendingSlots.isEmpty() && _scheduled.compareAndSet( false, true)) {
+			schedule( 0L);
+		}
+	}
+
+	/*
+	 * Das Fach für die Datensätze eines DisplayObjects zu einer Datenbeschreibung.
+	 */
+	private static final class Slot {
+		private final DisplayObject _displayObject;
+		private final AttributeGroup _attributeGroup;
+		private final Aspect _aspect;
+
+		private Slot( final DisplayObject displayObject, final AttributeGroup attributeGroup, final Aspect aspect) {
+			_displayObject = displayObject;
+			_attributeGroup = attributeGroup;
+			_aspect = aspect;
+		}
+
+		@Override
+		public boolean equals( Object o) {
+			if ( !(o instanceof Slot)) {
+				return false;
+			}
+			final Slot other = (Slot) o;
+			return _displayObject == other._displayObject && _attributeGroup.equals( other._attributeGroup) &&
+				_aspect.equals( other._aspect);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode( _displayObject) + _attributeGroup.hashCode()) + _aspect.hashCode();
+		}
+	}
+
+	/** Die Anzahl der Fächer, die der Thread der UpdateQueue höchstens in einer Portion leert. */
+	private static final int BATCH_SIZE = 1000;
+
+	/** Die Wartezeit in Millisekunden, bis Datensätze für DisplayObjects ohne Maßstab erneut versucht werden. */
+	static final long RETRY_DELAY = 100L;
+
+	/** Die Zeit in Millisekunden, ab der die Auslieferung eines Pakets als langsam gemeldet wird. */
+	static final long SLOW_DELIVERY_MILLIS = 10L;
+
+	final private static Debug _debug = Debug.getLogger();
+
+	/*
+	 * Legt die UpdateQueue erst beim ersten Aufruf von getInstance() an, nicht schon, wenn ENABLED gelesen wird.
+	 */
+	private static final class InstanceHolder {
+		private static final UpdateQueue INSTANCE = new UpdateQueue();
+	}
+
+	private final ScheduledExecutorService _executor;
+
+	private final Runnable _drain = new Runnable() {
+		public void run() {
+			drain();
+		}
+	};
+
+	/** Der neueste Datensatz je Fach; nur Fächer mit einem Datensatz sind in der Map. */
+	private final ConcurrentHashMap<Slot, ResultData> _slots = new ConcurrentHashMap<Slot, ResultData>();
+
+	/** Die Fächer in der Reihenfolge, in der sie gefüllt wurden. */
+	private final ConcurrentLinkedQueue<Slot> _pendingSlots = new ConcurrentLinkedQueue<Slot>();
+
+	/** Ist <code>true</code>, solange ein Leeren geplant ist oder läuft. */
+	private final AtomicBoolean _scheduled = new AtomicBoolean( false);
+
+	private final AtomicLong _offered = new AtomicLong();
+
+	private final AtomicLong _dropped = new AtomicLong();
+
+	private final AtomicLong _processed = new AtomicLong();
+
+	private final AtomicLong _deliveries = new AtomicLong();
+
+	private final AtomicLong _deliveryNanos = new AtomicLong();
+
+	private final AtomicLong _maxDeliveryNanos = new AtomicLong();
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.gnd;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
+
+import javax.swing.SwingUtilities;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Der FrameScheduler fasst die Aufforderungen, geänderte DisplayObjects neu zu zeichnen, zu wenigen
+ * Neuzeichnungen zusammen.
+ * <p>
+ * {@link #objectChanged(DisplayObject)} darf aus jedem Thread aufgerufen werden und merkt sich das Objekt
+ * nur in einer nebenläufigen Menge; wie oft ein Objekt zwischen zwei Bildern geändert wurde, spielt
+ * keine Rolle. Höchstens mit der bei der Konstruktion übergebenen Bildrate werden die gesammelten Objekte
+ * im Event-Dispatch-Thread abgearbeitet: für jedes Objekt liefert das {@link Target} den neu zu zeichnenden
+ * Pixelbereich, und diese Bereiche werden zu höchstens {@link #MAX_REGIONS} Regionen vereinigt, bevor
+ * sie neu gezeichnet werden.
+ * <p>
+ * Die Anzahl der Aufforderungen, der zusammengefassten Objekte, der Bilder und der Regionen werden
+ * gezählt; {@link #toString()} gibt die Statistik aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class FrameScheduler {
+
+	/**
+	 * Die Kartenansicht, für die der FrameScheduler die Neuzeichnungen zusammenfasst.
+	 */
+	interface Target {
+
+		/**
+		 * Bereitet das Neuzeichnen des geänderten DisplayObjects vor und gibt den neu zu zeichnenden
+		 * Bereich in Pixeln zurück. Die Methode wird im Event-Dispatch-Thread aufgerufen.
+		 *
+		 * @param displayObject das DisplayObject
+		 * @return der Bereich oder <code>null</code>, wenn nichts gezeichnet werden muss
+		 */
+		Rectangle prepareRepaint( DisplayObject displayObject);
+
+		/**
+		 * Zeichnet den übergebenen Bereich neu. Die Methode wird im Event-Dispatch-Thread aufgerufen.
+		 *
+		 * @param region der Bereich in Pixeln
+		 */
+		void repaint( Rectangle region);
+	}
+
+	/** Die Anzahl der Zeilen und Spalten des Rasters, in dem die Bereiche zu Regionen vereinigt werden. */
+	static final int GRID = 4;
+
+	/** Die höchste Anzahl von Regionen, die für ein Bild neu gezeichnet werden. */
+	static final int MAX_REGIONS = GRID * GRID;
+
+	/**
+	 * Konstruiert einen FrameScheduler.
+	 *
+	 * @param target die Kartenansicht
+	 * @param maxFramesPerSecond die höchste Bildrate
+	 */
+	FrameScheduler( final Target target, final double maxFramesPerSecond) {
+		_target = target;
+		_frameIntervalNanos = (maxFramesPerSecond > 0.) ? (long) (1e9 / maxFramesPerSecond) : 0L;
+	}
+
+	/**
+	 * Merkt das DisplayObject zum Neuzeichnen vor. Die Methode darf aus jedem Thread aufgerufen werden
+	 * und kehrt sofort zurück.
+	 *
+	 * @param displayObject das DisplayObject
+	 */
+	void objectChanged( final DisplayObject displayObject) {
+		_requests.incrementAndGet();
+		_dirtyObjects.add( displayObject);
+		if ( _scheduled.compareAndSet( false, true)) {
+			final long delay = Math.max( 0L, _lastFrame + _frameIntervalNanos - System.nanoTime());
+			try {
+				TIMER.schedule( new Runnable() {
+					public void run() {
+						SwingUtilities.invokeLater( _flush);
+					}
+				}, delay, TimeUnit.NANOSECONDS);
+			}
+			catch ( RuntimeException e) {
+				_scheduled.set( false);
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Verwirft alle vorgemerkten Objekte.
+	 */
+	void clear() {
+		_dirtyObjects.clear();
+	}
+
+	/**
+	 * Vereinigt die Bereiche zu höchstens {@link #MAX_REGIONS} Regionen: das umgebende Rechteck aller
+	 * Bereiche wird in ein Raster aus {@link #GRID} mal {@link #GRID} Zellen geteilt, und jede Region ist
+	 * die Vereinigung der Bereiche, deren Mittelpunkt in derselben Zelle liegt.
+	 *
+	 * @param rectangles die Bereiche
+	 * @return die Regionen
+	 */
+	static List<Rectangle> mergeRegions( final List<Rectangle> rectangles) {
+		if ( rectangles.size() <= 1) {
+			return new ArrayList<Rectangle>( rectangles);
+		}
+		final Rectangle bounds = new Rectangle( rectangles.get( 0));
+		for ( Rectangle rectangle : rectangles) {
+			bounds.add( rectangle);
+		}
+		final double cellWidth = Math.max( 1., (double) bounds.width / GRID);
+		final double cellHeight = Math.max( 1., (double) bounds.height / GRID);
+		final Rectangle[] cells = new Rectangle[GRID * GRID];
+		for ( Rectangle rectangle : rectangles) {
+			final int column = Math.min( GRID - 1, (int) ((rectangle.getCenterX() - bounds.x) / cellWidth));
+			final int row = Math.min( GRID - 1, (int) ((rectangle.getCenterY() - bounds.y) / cellHeight));
+			final int cell = row * GRID + column;
+			if ( cells[cell] == null) {
+				cells[cell] = new Rectangle( rectangle);
+			} else {
+				cells[cell].add( rectangle);
+			}
+		}
+		final List<Rectangle> regions = new ArrayList<Rectangle>( MAX_REGIONS);
+		for ( Rectangle cell : cells) {
+			if ( cell != null) {
+				regions.add( cell);
+			}
+		}
+		return regions;
+	}
+
+	@Override
+	public String toString() {
+		return "[FrameScheduler: Aufforderungen=" + _requests.get() + ", Objekte=" + _objects.get() + ", Bilder=" +
+			_frames.get() + ", Regionen=" + _regions.get() + "]";
+	}
+
+	/*
+	 * Arbeitet die vorgemerkten Objekte im Event-Dispatch-Thread ab.
+	 */
+	private void flush() {
+		_scheduled.set( false);
+		_lastFrame = System.nanoTime();
+		final List<Rectangle> rectangles = new ArrayList<Rectangle>();
+		int numberOfObjects = 0;
+		for ( Iterator<DisplayObject> iterator = _dirtyObjects.iterator(); iterator.hasNext(); ) {
+			final DisplayObject displayObject = iterator.next();
+			iterator.remove();
+			numberOfObjects++;
+			final Rectangle rectangle = _target.prepareRepaint( displayObject);
+			if ( rectangle != null && !rectangle.isEmpty()) {
+				rectangles.add( rectangle);
+			}
+		}
+		if ( numberOfObjects == 0) {
+			return;
+		}
+		final List<Rectangle> regions = mergeRegions( rectangles);
+		for ( Rectangle region : regions) {
+			_target.repaint( region);
+		}
+		_objects.addAndGet( numberOfObjects);
+		_frames.incrementAndGet();
+		_regions.addAndGet( regions.size());
+	}
+
+	/** Der Zeitgeber aller FrameScheduler; er übergibt das Abarbeiten an den Event-Dispatch-Thread. */
+	private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+			new ThreadFactory() {
+				public Thread newThread( Runnable r) {
+					final Thread thread = new Thread( r, "GND-Bildtakt");
+					thread.setDaemon( true);
+					return thread;
+				}
+			});
+
+	private final Target _target;
+
+	private final long _frameIntervalNanos;
+
+	private final Runnable _flush = new Runnable() {
+		public void run() {
+			flush();
+		}
+	};
+
+	private final Set<DisplayObject> _dirtyObjects = Collections.newSetFromMap(
+			new ConcurrentHashMap<DisplayObject, Boolean>());
+
+	/** Ist <code>true</code>, solange ein Abarbeiten geplant, aber noch nicht begonnen ist. */
+	private final AtomicBoolean _scheduled = new AtomicBoolean( false);
+
+	private volatile long _lastFrame = System.nanoTime();
+
+	private final AtomicLong _requests = new AtomicLong();
+
+	private final AtomicLong _objects = new AtomicLong();
+
+	private final AtomicLong _frames = new AtomicLong();
+
+	private final AtomicLong _regions = new AtomicLong();
+}
@@ -31,7 +31,7 @@ import de.bsvrz.dav.daf.main.config.SystemObject;
 import de.bsvrz.sys.funclib.debug.Debug;
 import de.kappich.pat.gnd.colorManagement.ColorDialog;
 import de.kappich.pat.gnd.colorManagement.ColorManager;
-import de.kappich.pat.gnd.coorTransform.GeoTransformation;
+import de.kappich.pat.gnd.coorTransform.ProjectionContext;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTManagerDialog;
 import de.kappich.pat.gnd.documentation.HelpPage;
@@ -89,6 +89,9 @@ public class GenericNetDisplay extends JFrame {
 
 	private ClientDavInterface _connection = null;
 
+	/** Die Projektion der Netzdarstellung; sie wird bei der Konstruktion aus den System-Properties bestimmt. */
+	private ProjectionContext _projectionContext;
+
 	private List<SystemObject> _systemObjects;
 
 	private boolean _standAlone = false;
@@ -113,6 +116,8 @@ public class GenericNetDisplay extends JFrame {
 
 	private boolean _isMapsTooltipOn;
 
+	private boolean _isPickBufferOn;
+
 	private String _startViewName = null;
 
 	private Double _screenResolution = null;
@@ -166,19 +171,7 @@ public class GenericNetDisplay extends JFrame {
 		long t0 = System.currentTimeMillis();
 		readPreferences();
 
-		final String property = System.getProperty("de.kappich.pat.gnd.ZentralMeridian");
-		if(property == null) {
-			GeoTransformation.setCentralMeridianFromOutside(9.0);
-		}
-		else {
-			final double centralMeriadian = Double.parseDouble(property);
-			if((centralMeriadian < -9.) && (centralMeriadian > 27.)) {
-				GeoTransformation.setCentralMeridianFromOutside(9.0);
-			}
-			else {
-				GeoTransformation.setCentralMeridianFromOutside(centralMeriadian);
-			}
-		}
+		_projectionContext = ProjectionContext.createFromSystemProperties();
 
 		if(_standAlone && (_startViewName != null) && ViewManager.getInstance().hasView(_startViewName)) {
 			_view = ViewManager.getInstance().getView(_startViewName);
@@ -201,6 +194,7 @@ public class GenericNetDisplay extends JFrame {
 		_isDoubleBuffered = true;
 		_isAntiAliasingOn = true;
 		_isMapsTooltipOn = false;
+		_isPickBufferOn = Boolean.getBoolean("de.kappich.pat.gnd.Auswahlpuffer");
 
 		createMenu();
 
@@ -455,6 +449,16 @@ public class GenericNetDisplay extends JFrame {
 		return _connection;
 	}
 
+	/**
+	 * Gibt die Projektion dieser Netzdarstellung zurück.
+	 *
+	 * @return die Projektion
+	 */
+	public ProjectionContext getProjectionContext() {
+
+		return _projectionContext;
+	}
+
 	private void createMenu() {
 
 		JMenuBar menuBar = new JMenuBar();
@@ -1075,6 +1079,26 @@ public class GenericNetDisplay extends JFrame {
 				}
 		);
 
+		checkBoxMenuItem = new JCheckBoxMenuItem("Auswahlpuffer für Tooltipp und Selektion");
+		checkBoxMenuItem.getAccessibleContext().setAccessibleDescription("Schaltet den Auswahlpuffer für Tooltipp und Selektion ein oder aus.");
+		checkBoxMenuItem.setEnabled(true);
+		checkBoxMenuItem.setSelected(_isPickBufferOn);
+		extrasMenu.add(checkBoxMenuItem);
+		checkBoxMenuItem.addItemListener(
+				new ItemListener() {
+
+					public void itemStateChanged(ItemEvent e) {
+
+						if(e.getStateChange() == ItemEvent.SELECTED) {
+							_mapPane.setPickBuffer(true);
+						}
+						else {
+							_mapPane.setPickBuffer(false);
+						}
+					}
+				}
+		);
+
 		extrasMenu.add(new JSeparator());
 
 		menuItem = new JMenuItem("Bildschirmauflösung einstellen");
@@ -1441,6 +1465,17 @@ public class GenericNetDisplay extends JFrame {
 		return _isMapsTooltipOn;
 	}
 
+	/**
+	 * Gibt <code>true</code> zurück, wenn Tooltipp und Selektion der Kartenansicht einen Auswahlpuffer benutzen.
+	 * Der Startwert kommt aus der System-Property <code>de.kappich.pat.gnd.Auswahlpuffer</code>.
+	 *
+	 * @return <code>true</code> genau dann, wenn der Auswahlpuffer aktiv ist
+	 */
+	public boolean isPickBufferOn() {
+
+		return _isPickBufferOn;
+	}
+
 	/**
 	 * Gibt die Bildschirmauflösung zurück, mit deren Hilfe das GenericNetDisplay den Maßstab zu bestimmen versucht.
 	 *
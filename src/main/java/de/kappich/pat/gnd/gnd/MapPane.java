@@ -26,9 +26,15 @@
 package de.kappich.pat.gnd.gnd;
 
 import de.bsvrz.dav.daf.main.config.SystemObject;
+import de.bsvrz.sys.funclib.debug.Debug;
+import de.kappich.pat.gnd.coorTransform.ProjectionContext;
 import de.kappich.pat.gnd.displayObjectToolkit.*;
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+import de.kappich.pat.gnd.needlePlugin.DOTNeedlePainter;
+import de.kappich.pat.gnd.pluginInterfaces.BatchDisplayObjectPainter;
+import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType;
+import de.kappich.pat.gnd.utils.RTree;
 import de.kappich.pat.gnd.viewManagement.View;
 import de.kappich.pat.gnd.viewManagement.ViewEntry;
 
@@ -36,9 +42,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
+import java.awt.image.BufferedImage;
 import java.awt.print.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -60,16 +69,20 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	final private View _view;
 
 	final private DisplayObjectManager _displayObjectManager;
-	final private Set<DisplayObject> _selectedDisplayObjects = new HashSet<DisplayObject>();
+	final private ProjectionContext _projectionContext;
+	/** Die selektierten DisplayObjects; die Menge wird auch in den Threads der RenderEngine gelesen. */
+	final private Set<DisplayObject> _selectedDisplayObjects =
+		Collections.newSetFromMap( new ConcurrentHashMap<DisplayObject, Boolean>());
 
 	final private List<MapScaleListener> _mapScaleListeners = new CopyOnWriteArrayList<MapScaleListener>();
 
 	private AffineTransform _mapTransform = null;
-	private Double _mapScale = 0.;
+	// Maßstab und Zoom werden auch in den Threads der RenderEngine gelesen.
+	private volatile Double _mapScale = 0.;
 
-	private double _zoomTranslateX;
-	private double _zoomTranslateY;
-	private double _zoomScale;
+	private volatile double _zoomTranslateX;
+	private volatile double _zoomTranslateY;
+	private volatile double _zoomScale;
 
 	private boolean _antialising;
 
@@ -77,6 +90,195 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 
 	private boolean _showNothing;
 
+	/** Der Auswahlpuffer für Tooltipp und Selektion oder <code>null</code>, wenn er nicht benutzt wird. */
+	private PickBuffer _pickBuffer = null;
+
+	final private static Debug _debug = Debug.getLogger();
+
+	/** Die Schrift der Maßstabsanzeige. */
+	private static final Font SCALE_FONT = new Font("Default", Font.PLAIN, 10);
+
+	/** Der Radius der Pixelumgebung, die im Auswahlpuffer abgefragt wird. */
+	private static final int PICK_RADIUS = 3;
+
+	/**
+	 * Die Abweichung in Pixeln, um die die Painter Linien und Flächen beim Zeichnen vereinfachen dürfen.
+	 * Sie kann mit der System-Property <code>de.kappich.pat.gnd.Vereinfachung</code> gesetzt werden;
+	 * 0 schaltet die Vereinfachung ab.
+	 */
+	private static final double SIMPLIFICATION_PIXELS = getDoubleProperty( "de.kappich.pat.gnd.Vereinfachung", 0.5);
+
+	/** Die aktuelle Toleranz der Vereinfachung in Metern; sie wird bei jeder Maßstabsänderung berechnet. */
+	private volatile double _simplificationTolerance = 0.;
+
+	/**
+	 * Das Speicherbudget des Kachel-Cache in Megabytes. Es kann mit der System-Property
+	 * <code>de.kappich.pat.gnd.Kachelcache</code> gesetzt werden; 0 schaltet den Kachel-Cache ab.
+	 */
+	private static final int TILE_CACHE_MEGABYTES = Integer.getInteger( "de.kappich.pat.gnd.Kachelcache", 64);
+
+	/** Der Rand in Pixeln, um den Objekte außerhalb einer Kachel noch in die Kachel gezeichnet werden. */
+	private static final int TILE_MARGIN = 32;
+
+	/** Die Verzögerung in Millisekunden, nach der beim Zoomen die scharfen Kacheln gezeichnet werden. */
+	private static final int SHARP_TILE_DELAY = 150;
+
+	/** Der Kachel-Cache oder <code>null</code>, wenn er abgeschaltet ist. */
+	final private TileCache _tileCache = (TILE_CACHE_MEGABYTES > 0) ? new TileCache( TILE_CACHE_MEGABYTES * 1024L * 1024L) : null;
+
+	/** Die Zoomstufe, für die zuletzt alle benötigten Kacheln scharf gezeichnet wurden. */
+	private double _sharpZoom = Double.NaN;
+
+	/**
+	 * Der Timer, der nach dem Zoomen oder einem unterbrochenen Durchgang das Zeichnen der scharfen
+	 * Kacheln anstößt.
+	 */
+	private javax.swing.Timer _sharpTileTimer = null;
+
+	/**
+	 * Die Zeit in Millisekunden, die ein Zeichendurchgang im Event-Dispatch-Thread höchstens mit dem
+	 * Zeichnen von Kacheln verbringt, wenn es keine RenderEngine gibt. Die übrigen Kacheln werden in
+	 * weiteren Durchgängen gezeichnet, sobald der Benutzer für {@link #SHARP_TILE_DELAY} Millisekunden
+	 * nichts tut. Das Budget kann mit der System-Property <code>de.kappich.pat.gnd.Zeichenbudget</code>
+	 * gesetzt werden; 0 hebt die Beschränkung auf.
+	 */
+	private static final int RENDER_BUDGET = Integer.getInteger( "de.kappich.pat.gnd.Zeichenbudget", 40);
+
+	/**
+	 * Gibt an, ob fehlende Kacheln zunächst grob aus den skalierten Kacheln einer anderen Zoomstufe
+	 * zusammengesetzt werden. Mit der System-Property <code>de.kappich.pat.gnd.Zeichenstrategie</code>
+	 * wählt man zwischen <code>grob</code> (grober Durchgang zuerst, die Voreinstellung) und
+	 * <code>scharf</code> (nur scharfe Kacheln).
+	 */
+	private static final boolean COARSE_PASS =
+		!"scharf".equalsIgnoreCase( System.getProperty( "de.kappich.pat.gnd.Zeichenstrategie", "grob"));
+
+	/** Die Anzahl der abgeschlossenen Zeichendurchgänge im Event-Dispatch-Thread. */
+	private long _completedPasses = 0;
+
+	/** Die Anzahl der Zeichendurchgänge im Event-Dispatch-Thread, die Budget oder Benutzer abgebrochen haben. */
+	private long _cancelledPasses = 0;
+
+	/**
+	 * Die Anzahl der Threads, in denen die Kacheln gezeichnet werden. Sie kann mit der System-Property
+	 * <code>de.kappich.pat.gnd.Zeichenthreads</code> gesetzt werden; 0 zeichnet die Kacheln wie bisher
+	 * im Event-Dispatch-Thread.
+	 */
+	private static final int RENDER_THREADS = Integer.getInteger( "de.kappich.pat.gnd.Zeichenthreads",
+			Math.max( 1, Runtime.getRuntime().availableProcessors() - 1));
+
+	/** Die RenderEngine oder <code>null</code>, wenn die Kacheln im Event-Dispatch-Thread gezeichnet werden. */
+	final private RenderEngine _renderEngine =
+		(_tileCache != null && RENDER_THREADS > 0) ? new RenderEngine( RENDER_THREADS) : null;
+
+	/** Der Kartenausschnitt (Zoomstufe und Ursprung des Kachelrasters), der zuletzt gezeichnet wurde. */
+	private double _frameZoom = Double.NaN;
+	private int _frameOriginX;
+	private int _frameOriginY;
+
+	/**
+	 * Die höchste Bildrate, mit der geänderte DisplayObjects neu gezeichnet werden. Sie kann mit der
+	 * System-Property <code>de.kappich.pat.gnd.Bildrate</code> (Bilder pro Sekunde) gesetzt werden.
+	 */
+	private static final double FRAME_RATE = getDoubleProperty( "de.kappich.pat.gnd.Bildrate", 20.);
+
+	/** Fasst die Neuzeichnungen geänderter DisplayObjects zusammen. */
+	final private FrameScheduler _frameScheduler = new FrameScheduler( new FrameScheduler.Target() {
+		public Rectangle prepareRepaint( DisplayObject displayObject) {
+			final Rectangle2D indexedBounds = updateIndex( displayObject);
+			Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+			if ( boundingRectangle == null) {
+				return null;
+			}
+			if ( indexedBounds != null && !boundingRectangle.contains( indexedBounds)) {
+				// Auch der Bereich, in dem das Objekt bisher gezeichnet wurde, muss neu gezeichnet werden.
+				boundingRectangle = boundingRectangle.union( indexedBounds.getBounds());
+			}
+			invalidateTiles( boundingRectangle, !isStatic( displayObject.getDOTCollection()));
+			return transformedRectangle( boundingRectangle);
+		}
+
+		public void repaint( Rectangle region) {
+			MapPane.this.repaint( region);
+		}
+	}, FRAME_RATE);
+
+	/** Merkt sich für jede DOTCollection, ob ihre Layer statisch sind, also keine Online-Daten brauchen. */
+	final private Map<DOTCollection, Boolean> _staticDotCollections = new ConcurrentHashMap<DOTCollection, Boolean>();
+
+	/** Ist <code>true</code>, während die Kartenansicht gedruckt wird; dann wird ohne Kacheln gezeichnet. */
+	private boolean _isPrinting = false;
+
+	/**
+	 * Gibt an, ob die Objekte von Paintern, die {@link BatchDisplayObjectPainter} implementieren, nach Stil
+	 * gesammelt gezeichnet werden. Mit der System-Property <code>de.kappich.pat.gnd.Stapelzeichnen</code>
+	 * kann man das mit <code>false</code> abschalten.
+	 */
+	private static final boolean BATCH_PAINTING =
+		Boolean.parseBoolean( System.getProperty( "de.kappich.pat.gnd.Stapelzeichnen", "true"));
+
+	/** Der PaintBatch jedes zeichnenden Threads; er wird mit seinen Puffern wiederverwendet. */
+	private static final ThreadLocal<PaintBatch> PAINT_BATCH = new ThreadLocal<PaintBatch>() {
+		@Override
+		protected PaintBatch initialValue() {
+			return new PaintBatch();
+		}
+	};
+
+	/**
+	 * Gibt an, ob das Kartenbild in einem Bildpuffer gehalten wird, der beim Verschieben der Karte nur
+	 * verschoben und in den frei gewordenen Streifen neu gezeichnet wird. Mit der System-Property
+	 * <code>de.kappich.pat.gnd.Bildpuffer</code> kann man das mit <code>false</code> abschalten.
+	 */
+	private static final boolean FRAME_BUFFERING =
+		Boolean.parseBoolean( System.getProperty( "de.kappich.pat.gnd.Bildpuffer", "true"));
+
+	/** Das zuletzt gezeichnete Kartenbild ohne Maßstabsanzeige, oder <code>null</code>. */
+	private BufferedImage _frameBuffer = null;
+	private double _frameBufferZoom;
+	private double _frameBufferOriginX;
+	private double _frameBufferOriginY;
+
+	/**
+	 * Der Bereich des Bildpuffers, der neu gezeichnet werden muss, oder <code>null</code>. Er wird in
+	 * {@link #repaint(long, int, int, int, int)} auch von anderen Threads aus erweitert und ist deshalb über
+	 * die MapPane synchronisiert. Das Feld wird nicht explizit initialisiert, weil schon der Konstruktor
+	 * der Oberklasse repaint aufrufen kann.
+	 */
+	private Rectangle _frameBufferDirty;
+
+	/** Die Verzögerung in Millisekunden, mit der die sichtbaren Objekte beim Verschieben gemeldet werden. */
+	private static final int VISIBLE_OBJECTS_DELAY = 250;
+
+	/** Meldet die sichtbaren Objekte, wenn das Verschieben der Karte eine Weile ruht. */
+	private javax.swing.Timer _visibleObjectsTimer = null;
+
+	/**
+	 * Gibt an, ob nur die DisplayObjects im Kartenausschnitt und in beim aktuellen Maßstab sichtbaren
+	 * Layern beim Datenverteiler angemeldet werden. Mit der System-Property
+	 * <code>de.kappich.pat.gnd.Ausschnittsanmeldung</code> kann man das mit <code>false</code> abschalten;
+	 * dann werden wie bisher alle DisplayObjects aller Layer angemeldet.
+	 */
+	private static final boolean VIEWPORT_SUBSCRIPTION =
+		Boolean.parseBoolean( System.getProperty( "de.kappich.pat.gnd.Ausschnittsanmeldung", "true"));
+
+	/**
+	 * Der Rand um den Kartenausschnitt, in dem DisplayObjects schon angemeldet werden, in Prozent der
+	 * Breite bzw. Höhe des Ausschnitts je Seite. Er kann mit der System-Property
+	 * <code>de.kappich.pat.gnd.Anmelderand</code> gesetzt werden.
+	 */
+	private static final double SUBSCRIPTION_MARGIN = getDoubleProperty( "de.kappich.pat.gnd.Anmelderand", 50.) / 100.;
+
+	/**
+	 * Die Zeit in Sekunden, die ein DisplayObject nach dem Verlassen des Ausschnitts noch angemeldet
+	 * bleibt. Sie kann mit der System-Property <code>de.kappich.pat.gnd.Abmeldeverzoegerung</code>
+	 * gesetzt werden.
+	 */
+	private static final double UNSUBSCRIPTION_DELAY = getDoubleProperty( "de.kappich.pat.gnd.Abmeldeverzoegerung", 30.);
+
+	/** Der SubscriptionManager oder <code>null</code>, wenn alle DisplayObjects angemeldet werden. */
+	private SubscriptionManager _subscriptionManager = null;
+
 	final public static String _newline = System.getProperty("line.separator");
 
 	/**
@@ -92,7 +294,12 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		super();
 		_gnd = gnd;
 		_view = view;
-		_displayObjectManager = new DisplayObjectManager( _gnd.getConnection(), this);
+		_projectionContext = _gnd.getProjectionContext();
+		_displayObjectManager = new DisplayObjectManager( _gnd.getConnection(), this, _projectionContext);
+		if ( VIEWPORT_SUBSCRIPTION) {
+			_displayObjectManager.setSubscribeOnCreation( false);
+			_subscriptionManager = new SubscriptionManager( _displayObjectManager, (long) (UNSUBSCRIPTION_DELAY * 1000.));
+		}
 	}
 
 	/**
@@ -118,6 +325,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		ToolTipManager.sharedInstance().setInitialDelay( 200);
 		ToolTipManager.sharedInstance().registerComponent( this);	// Registrieren ist notwendig, unregister bewirkt nichts, solange getTooltiptext einen nicht-leeren String zurückliefert.
 		setTooltip( _gnd.isMapsTooltipOn());
+		setPickBuffer( _gnd.isPickBufferOn());
 
 		// Vor der Anmeldung sollte man mal den Maßstab berechnen, wozu auch eine Initialisierung der AT gehört.
 		initAffineMapTransform();
@@ -130,6 +338,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			}
 		}.start();
 		_displayObjectManager.addMapScaleListeners();
+		updateSubscriptions();
 		_gnd.addResolutionListener( this);
 		DOTManager.getInstance().addDOTChangeListener( this);
 	}
@@ -150,22 +359,90 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		return _gnd;
 	}
 
+	/**
+	 * Gibt die Projektion zurück, mit der die Koordinaten dieser Kartenansicht berechnet werden.
+	 *
+	 * @return die Projektion
+	 */
+	public ProjectionContext getProjectionContext() {
+		return _projectionContext;
+	}
+
 	public void redraw() {
+		invalidateTiles();
+		updateVolatileObjects();
 		repaint();
 		visibleObjectsChanged();
 	}
 
+	/*
+	 * Aktualisiert den räumlichen Index des Layers, zu dem das geänderte DisplayObject gehört, und
+	 * gibt das Rechteck zurück, unter dem es bisher geführt wurde, bzw. null.
+	 */
+	private Rectangle2D updateIndex( final DisplayObject displayObject) {
+		Rectangle2D indexedBounds = null;
+		for(Component component : getComponents()) {
+			if(component instanceof LayerPanel) {
+				final LayerPanel layerPanel = (LayerPanel)component;
+				if(layerPanel._displayObjects.get(displayObject.getSystemObject()) == displayObject) {
+					final Rectangle2D bounds = layerPanel.getIndexedBounds(displayObject);
+					if(bounds != null) {
+						indexedBounds = bounds;
+					}
+					layerPanel.updateIndex(displayObject);
+				}
+			}
+		}
+		return indexedBounds;
+	}
+
+	/*
+	 * Aktualisiert in allen Layern die räumlichen Indizes der Objekte mit veränderlichem Rechteck.
+	 */
+	private void updateVolatileObjects() {
+		for(Component component : getComponents()) {
+			if(component instanceof LayerPanel) {
+				((LayerPanel)component).updateVolatileObjects();
+			}
+		}
+	}
+
 	private class LayerPanel extends JPanel {
 
 		private MapPane _mapPane;
+		private final ViewEntry _entry;
 		private Map<SystemObject, DisplayObject>		_displayObjects;
+		/**
+		 * Der räumliche Index über die UTM-Rechtecke der DisplayObjects mit umgebendem Rechteck. Da die
+		 * RenderEngine mehrere Kacheln eines Layers gleichzeitig zeichnet, wird er zusammen mit
+		 * _unboundedObjects über den Index synchronisiert.
+		 */
+		private final RTree<DisplayObject> _spatialIndex = new RTree<DisplayObject>();
+		/** Die DisplayObjects ohne umgebendes Rechteck; sie werden wie bisher immer gezeichnet. */
+		private final Set<DisplayObject> _unboundedObjects = new LinkedHashSet<DisplayObject>();
+		/** Die DisplayObjects, deren Rechteck sich mit Maßstab oder Notizen ändert (z.B. Nadeln). */
+		private final List<DisplayObject> _volatileObjects = new ArrayList<DisplayObject>();
 
-		LayerPanel ( MapPane mapPane, List<DisplayObject> displayObjects) {
+		LayerPanel ( MapPane mapPane, ViewEntry entry, List<DisplayObject> displayObjects) {
 			_mapPane = mapPane;
+			_entry = entry;
 			_displayObjects = new HashMap<SystemObject, DisplayObject>( displayObjects.size());
+			final List<DisplayObject> indexedObjects = new ArrayList<DisplayObject>( displayObjects.size());
+			final List<Rectangle> rectangles = new ArrayList<Rectangle>( displayObjects.size());
 			for ( DisplayObject displayObject : displayObjects) {
 				_displayObjects.put( displayObject.getSystemObject(), displayObject);
+				if ( displayObject.getPainter() instanceof DOTNeedlePainter) {
+					_volatileObjects.add( displayObject);
+				}
+				final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+				if ( boundingRectangle == null) {
+					_unboundedObjects.add( displayObject);
+				} else {
+					indexedObjects.add( displayObject);
+					rectangles.add( boundingRectangle);
+				}
 			}
+			_spatialIndex.bulkLoad( indexedObjects, rectangles);
 		}
 
 		/**
@@ -177,6 +454,79 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			return _displayObjects.values();
 		}
 
+		/**
+		 * Fügt der übergebenen Collection alle DisplayObjects hinzu, deren indiziertes umgebendes
+		 * Rechteck das übergebene UTM-Rechteck schneidet. Die Objekte ohne umgebendes Rechteck
+		 * werden nur hinzugefügt, wenn <code>withUnbounded</code> gesetzt ist.
+		 *
+		 * @param utmRectangle das Rechteck in UTM-Koordinaten
+		 * @param withUnbounded <code>true</code>, wenn auch die Objekte ohne Rechteck geliefert werden sollen
+		 * @param result die Collection, die die DisplayObjects aufnimmt
+		 */
+		private void collectDisplayObjects( Rectangle utmRectangle, boolean withUnbounded, Collection<DisplayObject> result) {
+			synchronized ( _spatialIndex) {
+				_spatialIndex.search( utmRectangle, result);
+				if ( withUnbounded) {
+					result.addAll( _unboundedObjects);
+				}
+			}
+		}
+
+		/**
+		 * Gibt das Rechteck zurück, unter dem das DisplayObject im räumlichen Index geführt wird.
+		 *
+		 * @param displayObject das DisplayObject
+		 * @return das Rechteck oder <code>null</code>, wenn das Objekt kein umgebendes Rechteck hat
+		 */
+		private Rectangle2D getIndexedBounds( DisplayObject displayObject) {
+			synchronized ( _spatialIndex) {
+				return _spatialIndex.getBounds( displayObject);
+			}
+		}
+
+		/**
+		 * Aktualisiert den räumlichen Index für das DisplayObject mit seinem aktuellen umgebenden Rechteck.
+		 *
+		 * @param displayObject das DisplayObject
+		 */
+		private void updateIndex( DisplayObject displayObject) {
+			updateIndex( displayObject, displayObject.getBoundingRectangle());
+		}
+
+		private void updateIndex( DisplayObject displayObject, Rectangle boundingRectangle) {
+			synchronized ( _spatialIndex) {
+				if ( boundingRectangle == null) {
+					if ( _unboundedObjects.add( displayObject)) {
+						_spatialIndex.remove( displayObject);
+					}
+				} else {
+					_unboundedObjects.remove( displayObject);
+					_spatialIndex.update( displayObject, boundingRectangle);
+				}
+			}
+		}
+
+		/**
+		 * Aktualisiert den räumlichen Index für alle DisplayObjects, deren umgebendes Rechteck vom
+		 * Maßstab oder von Notizen abhängt. Das sind im Moment die Nadeln des {@link DOTNeedlePainter}.
+		 */
+		private void updateVolatileObjects() {
+			for ( DisplayObject displayObject : _volatileObjects) {
+				updateIndex( displayObject);
+			}
+		}
+
+		/**
+		 * Gibt <code>true</code> zurück, wenn die Darstellung von Objekten dieses Layers vom Kartenausschnitt
+		 * abhängt. Die Nadeln des {@link DOTNeedlePainter} werden z.B. in der Mitte des sichtbaren Teils
+		 * einer Linie gezeichnet; ein solcher Layer kann nicht in Kacheln zwischengespeichert werden.
+		 *
+		 * @return <code>true</code>, wenn der Layer vom Kartenausschnitt abhängt
+		 */
+		private boolean isViewDependent() {
+			return !_volatileObjects.isEmpty();
+		}
+
 		private boolean intersect( Rectangle rectangle, List<Object> coordinates) {
 			for ( Object object : coordinates) {
 				if ( object instanceof Path2D.Double) {
@@ -212,6 +562,22 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			return false;
 		}
 
+		private boolean intersect( Rectangle rectangle, GeometryStore geometryStore, int geometryIndex) {
+			for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+				if ( geometryStore.getPartType( part) != GeometryStore.POLYLINE) {
+					continue;
+				}
+				final int endVertex = geometryStore.getEndVertex( part);
+				for ( int vertex = geometryStore.getFirstVertex( part) + 1; vertex < endVertex; vertex++) {
+					if ( rectangle.intersectsLine( geometryStore.getX( vertex-1), geometryStore.getY( vertex-1),
+							geometryStore.getX( vertex), geometryStore.getY( vertex))) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+
 		/**
 		 * Erzeugt eine Liste von DisplayObjects, die in der Nähe des Punktes p liegen.
 		 * Mit preferredUpperSize kann man eine angestrebte obere Grenze für die Anzahl
@@ -246,6 +612,26 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			Rectangle rectangle = new Rectangle( (int) (p.getX()-mpp/2.),
 					(int) (p.getY()-mpp/2.), (int) mpp, (int)mpp);
 			for ( DisplayObject displayObject: _displayObjects.values()) {
+				if ( displayObject.getDefaultType() == 0) {
+					// Die unverschobenen Koordinaten liegen im GeometryStore und werden ohne
+					// Erzeugung von Objekten geprüft.
+					final GeometryStore geometryStore = displayObject.getGeometryStore();
+					final int geometryIndex = displayObject.getGeometryIndex();
+					if ( geometryStore.isEmpty( geometryIndex)) {
+						continue;
+					}
+					final int firstPart = geometryStore.getFirstPart( geometryIndex);
+					final int firstPartType = geometryStore.getPartType( firstPart);
+					if ( (firstPartType == GeometryStore.POLYLINE) && intersect( rectangle, geometryStore, geometryIndex)) {
+						returnList.add( displayObject);
+					} else if ( firstPartType == GeometryStore.POINT) {
+						final int vertex = geometryStore.getFirstVertex( firstPart);
+						if ( rectangle.contains( geometryStore.getX( vertex), geometryStore.getY( vertex))) {
+							returnList.add( displayObject);
+						}
+					}
+					continue;
+				}
 				final List<Object> coordinates = displayObject.getCoordinates();
 				if ( !coordinates.isEmpty()) {
 					Object firstCoordinate = coordinates.get(0);
@@ -266,8 +652,9 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		 * Malt einen LayerPanel.
 		 *
 		 * @param g das Graphics-Objekt
+		 * @param filterRectangle der zu zeichnende Bereich in UTM-Koordinaten
 		 */
-		public void paintLayer(Graphics g) {
+		public void paintLayer(Graphics g, Rectangle filterRectangle) {
 			final Graphics2D g2D = (Graphics2D)g;
 			if ( isAntialising()) {
 				g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
@@ -278,15 +665,20 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 //			g2D.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
 //			g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
 
-			Rectangle filterRectangle = getUTMBounds();
-
-			for(DisplayObject displayObject : _displayObjects.values()) {
-				if(displayObject.getBoundingRectangle() == null || displayObject.getBoundingRectangle().intersects(filterRectangle)) {
-					if(_selectedDisplayObjects.contains(displayObject)) {
-						displayObject.getPainter().paintDisplayObject(MapPane.this, g2D, displayObject, true);
-					}
-					else {
-						displayObject.getPainter().paintDisplayObject(MapPane.this, g2D, displayObject, false);
+			final List<DisplayObject> candidates = new ArrayList<DisplayObject>();
+			collectDisplayObjects( filterRectangle, true, candidates);
+			final PaintBatch batch = BATCH_PAINTING ? PAINT_BATCH.get() : null;
+			if ( batch != null) {
+				batch.clear();	// falls ein Painter beim letzten Mal eine Ausnahme geworfen hat
+			}
+			for(DisplayObject displayObject : candidates) {
+				final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+				if(boundingRectangle == null || boundingRectangle.intersects(filterRectangle)) {
+					final DisplayObjectPainter painter = displayObject.getPainter();
+					final boolean selected = _selectedDisplayObjects.contains(displayObject);
+					if(batch == null || !(painter instanceof BatchDisplayObjectPainter) ||
+							!((BatchDisplayObjectPainter) painter).addToBatch(MapPane.this, batch, displayObject, selected)) {
+						painter.paintDisplayObject(MapPane.this, g2D, displayObject, selected);
 					}
 //					Drawing bounding box
 //					g2D.setColor(Color.red);
@@ -295,6 +687,31 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 //					}
 				}
 			}
+			if ( batch != null) {
+				batch.paint( g2D);
+			}
+		}
+
+		/**
+		 * Malt die Objekte des LayerPanels in den Auswahlpuffer. Es werden dieselben Painter wie
+		 * in {@link #paintLayer} benutzt, nur ersetzt das Composite des Auswahlpuffers jedes
+		 * gezeichnete Pixel durch die Kennung des Objekts.
+		 *
+		 * @param g2D das Graphics-Objekt des Auswahlpuffers
+		 * @param utmRectangle der neu zu zeichnende Bereich in UTM-Koordinaten
+		 * @param pickBuffer der Auswahlpuffer
+		 */
+		private void paintPickLayer( Graphics2D g2D, Rectangle utmRectangle, PickBuffer pickBuffer) {
+			final List<DisplayObject> candidates = new ArrayList<DisplayObject>();
+			collectDisplayObjects( utmRectangle, true, candidates);
+			for(DisplayObject displayObject : candidates) {
+				final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+				if(boundingRectangle == null || boundingRectangle.intersects(utmRectangle)) {
+					g2D.setComposite(pickBuffer.getComposite(_entry, displayObject));
+					displayObject.getPainter().paintDisplayObject(MapPane.this, g2D, displayObject,
+							_selectedDisplayObjects.contains(displayObject));
+				}
+			}
 		}
 	}
 
@@ -311,7 +728,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	}
 
 	private void initALayerPanel(ViewEntry entry, int i, final JProgressBar progressBar) {
-		LayerPanel layerPanel = new LayerPanel(this, _displayObjectManager.getDisplayObjects(entry, progressBar));
+		LayerPanel layerPanel = new LayerPanel(this, entry, _displayObjectManager.getDisplayObjects(entry, progressBar));
 		setLayer( layerPanel, i);	// setLayer before add according to documentation
 		add( layerPanel);
 		entry.setComponent(layerPanel);
@@ -380,6 +797,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 
 		final Rectangle bounds = getBounds();
 
+		invalidateTiles();
 		_mapTransform = new AffineTransform();
 		double scaleX = bounds.getWidth() / ( displayRectangle.getMaxX()-displayRectangle.getMinX());
 		double scaleY = bounds.getHeight() / ( displayRectangle.getMaxY()-displayRectangle.getMinY());
@@ -407,12 +825,48 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		for ( Component component : jComponents) {
 			setLayer(component, h-i);
 		}
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
 
 	private void visibleObjectsChanged() {
 		_gnd.setVisibleObjects(getVisibleObjects());
+		updateSubscriptions();
+	}
+
+	/*
+	 * Übergibt dem SubscriptionManager die DisplayObjects der sichtbaren Layer im Kartenausschnitt mit
+	 * Rand. Layer ohne Online-Daten werden übergangen.
+	 */
+	private void updateSubscriptions() {
+		if ( _subscriptionManager == null) {
+			return;
+		}
+		final Rectangle utmRectangle = getUTMBounds();
+		utmRectangle.grow( (int) (utmRectangle.width * SUBSCRIPTION_MARGIN), (int) (utmRectangle.height * SUBSCRIPTION_MARGIN));
+		final Set<DisplayObject> displayObjects = new HashSet<DisplayObject>();
+		for ( Component component : getComponents()) {
+			if ( component instanceof LayerPanel && component.isVisible()) {
+				final LayerPanel layerPanel = (LayerPanel) component;
+				if ( !isStatic( layerPanel._entry.getLayer().getDotCollection())) {
+					layerPanel.collectDisplayObjects( utmRectangle, true, displayObjects);
+				}
+			}
+		}
+		_subscriptionManager.viewChanged( displayObjects,
+				new Point2D.Double( utmRectangle.getCenterX(), utmRectangle.getCenterY()));
+	}
+
+	/*
+	 * Meldet die DisplayObjects eines entfernten Layers ab.
+	 */
+	private void unsubscribeDisplayObjects( final Collection<DisplayObject> displayObjects) {
+		if ( _subscriptionManager != null) {
+			_subscriptionManager.displayObjectsRemoved( displayObjects);
+		} else {
+			_displayObjectManager.unsubscribeDisplayObjects( displayObjects);
+		}
 	}
 
 	private Set<SystemObject> getVisibleObjects() {
@@ -420,17 +874,16 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		final Set<SystemObject> result = new HashSet<SystemObject>();
 		final Rectangle filterRectangle = getUTMBounds();
 
+		final List<DisplayObject> candidates = new ArrayList<DisplayObject>();
 		for(Component component : getComponents()) {
 			if(component instanceof LayerPanel) {
 				final LayerPanel layerPanel = (LayerPanel)component;
 				if(layerPanel.isVisible()) {
-					for(final DisplayObject displayObject : layerPanel.getDisplayObjects()) {
-						if(displayObject == null){
-							System.err.println("displayobject ist null");
-							Thread.dumpStack();
-							continue;
-						}
-						if(displayObject.getBoundingRectangle() != null && displayObject.getBoundingRectangle().intersects(filterRectangle)) {
+					candidates.clear();
+					layerPanel.collectDisplayObjects(filterRectangle, false, candidates);
+					for(final DisplayObject displayObject : candidates) {
+						final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+						if(boundingRectangle != null && boundingRectangle.intersects(filterRectangle)) {
 							result.add(displayObject.getSystemObject());
 						}
 					}
@@ -445,17 +898,25 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		setSelection(displayObjects);
 	}
 	public void focusOnObject(final SystemObject systemObject) {
-		final Set<DisplayObject> displayObjects = getDisplayObjectsForSystemObject(systemObject);
+		// Die Rechtecke kommen aus den räumlichen Indizes der Layer und müssen nicht neu berechnet werden.
 		Rectangle2D rect = null;
-		for(DisplayObject displayObject : displayObjects) {
-			if(rect == null){
-				rect = displayObject.getBoundingRectangle();
-				if(rect != null){
-					rect = (Rectangle2D)rect.clone();
+		for(Component component : getComponents()) {
+			if(component instanceof LayerPanel) {
+				final LayerPanel layerPanel = (LayerPanel)component;
+				final DisplayObject displayObject = layerPanel._displayObjects.get(systemObject);
+				if(displayObject == null) {
+					continue;
+				}
+				final Rectangle2D indexedBounds = layerPanel.getIndexedBounds(displayObject);
+				if(indexedBounds == null) {
+					continue;
+				}
+				if(rect == null) {
+					rect = indexedBounds;
+				}
+				else {
+					rect.add(indexedBounds);
 				}
-			}
-			else{
-				rect.add(displayObject.getBoundingRectangle());
 			}
 		}
 		if(rect == null) return;
@@ -500,6 +961,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		initALayerPanel( entry, max - newIndex + 1, new JProgressBar());
 		_displayObjectManager.subscribeDisplayObjects();
 		_displayObjectManager.addMapScaleListeners();
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -512,6 +974,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		for ( Component component : getComponentsInLayer(j)) {
 			component.setVisible(view.getViewEntries().get(i).isVisible(getMapScale().intValue()));
 		}
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -525,7 +988,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			if ( component instanceof LayerPanel) {
 				final LayerPanel layerPanel = (LayerPanel) component;
 				final Collection<DisplayObject> displayObjects = layerPanel.getDisplayObjects();
-				_displayObjectManager.unsubscribeDisplayObjects( displayObjects);
+				unsubscribeDisplayObjects( displayObjects);
 				final Collection<MapScaleListener> mapScaleListeners = new ArrayList<MapScaleListener>();
 				for ( DisplayObject displayObject : displayObjects) {
 					mapScaleListeners.add( displayObject);
@@ -539,6 +1002,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 				setLayer(component, k-1);
 			}
 		}
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -562,7 +1026,13 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		g2d.translate(pageFormat.getImageableX(), pageFormat.getImageableY());
 		g2d.scale(scale, scale);
 		disableDoubleBuffering(this);
-		paint(g2d);
+		_isPrinting = true;
+		try {
+			paint(g2d);
+		}
+		finally {
+			_isPrinting = false;
+		}
 		enableDoubleBuffering(this);
 
 		return PAGE_EXISTS;
@@ -589,28 +1059,15 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	}
 
 	/**
-	 * Diese Methode berechnet den Maßstab der Kartenansicht in Metern pro Pixel.
+	 * Diese Methode berechnet den Maßstab der Kartenansicht in Metern pro Pixel. Da die
+	 * Kartentransformation in beiden Richtungen gleich skaliert und nicht dreht, ergibt er sich
+	 * direkt aus ihrem Skalierungsfaktor und dem Zoomfaktor.
 	 */
 	public double meterProPixel() {
-		if ( _showNothing ) {
+		if ( _showNothing || (_mapTransform == null)) {
 			return -1;
 		}
-		final Rectangle displayRectangle = _displayObjectManager.getDisplayRectangle( _gnd.getSystemObjects());
-		int minX = (int)displayRectangle.getMinX();
-		int maxX = (int)displayRectangle.getMaxX();
-		int minY = (int)displayRectangle.getMinY();
-		int meterDistance = maxX -minX;
-
-		AffineTransform affineTransform = (AffineTransform)_mapTransform.clone();
-		affineTransform.scale(_zoomScale, _zoomScale);
-
-		Point p1 = new Point ( minX, minY);
-		affineTransform.transform(p1, p1);
-		Point p2 = new Point ( maxX, minY);
-		affineTransform.transform(p2, p2);
-		final double pixelDistance = p2.getX() - p1.getX();
-
-		return meterDistance / pixelDistance;
+		return 1. / (Math.abs( _mapTransform.getScaleX()) * _zoomScale);
 	}
 
 	private void determineCurrentScale() {
@@ -627,43 +1084,637 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		super.paintComponent(g);
 		Graphics2D g2D = (Graphics2D) g;
 
+		if ( _pickBuffer != null && !_showNothing) {
+			final AffineTransform pickTransform = new AffineTransform();
+			modifyAffineTransform(pickTransform);
+			_pickBuffer.invalidate(g.getClipBounds(), pickTransform, getWidth(), getHeight());
+		}
+
 		AffineTransform affineTransform = g2D.getTransform();
 		if ( _showNothing || (affineTransform == null)) {
 			return;
 		}
 		modifyAffineTransform(affineTransform);
 		AffineTransform oldTransform = g2D.getTransform();
-		g2D.setTransform(affineTransform);
+		if ( FRAME_BUFFERING && !_isPrinting
+				&& (oldTransform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0) {
+			paintFrameBuffer(g2D);
+		} else if ( _tileCache != null && !_isPrinting && !_showNothing) {
+			paintTiles(g2D);
+		} else {
+			g2D.setTransform(affineTransform);
+			setQualityRenderingHints(g2D);
+
+			// Rechteck vor dem Neuzeichnen leeren.
+			g2D.setBackground(Color.WHITE);
+			Rectangle bounds = getBounds();
+			g2D.clearRect(0, 0, (int)bounds.getWidth(), (int)bounds.getHeight());
+
+			paintLayers(g2D, getUTMBounds());
+		}
+
+		g2D.setTransform(oldTransform);
+		g2D.setColor(Color.black);
+		g2D.setStroke(StyleCache.THIN_STROKE);
+		g2D.setFont(SCALE_FONT);
+
+		drawScaling(g2D, 1 / meterProPixel());
+	}
+
+	/*
+	 * Zeichnet die Karte über den Bildpuffer. Hat sich seit dem letzten Bild nur die Verschiebung um
+	 * ganze Pixel geändert, so wird der Puffer mit copyArea verschoben, und es werden nur die frei
+	 * gewordenen Streifen neu gezeichnet; außerdem die Bereiche, für die seit dem letzten Bild repaint
+	 * aufgerufen wurde. Danach wird der Clip-Bereich aus dem Puffer kopiert. Das Graphics-Objekt darf
+	 * außer einer Verschiebung keine Transformation haben.
+	 */
+	private void paintFrameBuffer( final Graphics2D g2D) {
+		final int width = getWidth();
+		final int height = getHeight();
+		if ( width <= 0 || height <= 0) {
+			return;
+		}
+		final double zoom = _zoomScale;
+		final double originX = _zoomTranslateX;
+		final double originY = _zoomTranslateY;
+		Rectangle dirty;
+		synchronized ( this) {
+			dirty = _frameBufferDirty;
+			_frameBufferDirty = null;
+		}
+		final List<Rectangle> regions = new ArrayList<Rectangle>();
+		final Rectangle bounds = new Rectangle( 0, 0, width, height);
+		final double dx = originX - _frameBufferOriginX;
+		final double dy = originY - _frameBufferOriginY;
+		if ( _frameBuffer == null || _frameBuffer.getWidth() != width || _frameBuffer.getHeight() != height
+				|| zoom != _frameBufferZoom || dx != Math.rint( dx) || dy != Math.rint( dy)
+				|| Math.abs( dx) >= width || Math.abs( dy) >= height) {
+			if ( _frameBuffer == null || _frameBuffer.getWidth() != width || _frameBuffer.getHeight() != height) {
+				_frameBuffer = new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB);
+			}
+			regions.add( bounds);
+		} else {
+			final int shiftX = (int) dx;
+			final int shiftY = (int) dy;
+			if ( shiftX != 0 || shiftY != 0) {
+				final Graphics2D bufferGraphics = _frameBuffer.createGraphics();
+				try {
+					bufferGraphics.copyArea( 0, 0, width, height, shiftX, shiftY);
+				}
+				finally {
+					bufferGraphics.dispose();
+				}
+				// Die frei gewordenen Streifen links oder rechts und oben oder unten.
+				if ( shiftX > 0) {
+					regions.add( new Rectangle( 0, 0, shiftX, height));
+				} else if ( shiftX < 0) {
+					regions.add( new Rectangle( width + shiftX, 0, -shiftX, height));
+				}
+				if ( shiftY > 0) {
+					regions.add( new Rectangle( 0, 0, width, shiftY));
+				} else if ( shiftY < 0) {
+					regions.add( new Rectangle( 0, height + shiftY, width, -shiftY));
+				}
+				if ( dirty != null) {
+					// Der Bereich kann noch für den alten Ausschnitt berechnet worden sein.
+					final Rectangle shiftedDirty = new Rectangle( dirty);
+					shiftedDirty.translate( shiftX, shiftY);
+					regions.add( shiftedDirty.intersection( bounds));
+				}
+			}
+			if ( dirty != null) {
+				regions.add( dirty.intersection( bounds));
+			}
+		}
+		_frameBufferZoom = zoom;
+		_frameBufferOriginX = originX;
+		_frameBufferOriginY = originY;
+		for ( Rectangle region : regions) {
+			if ( region.isEmpty()) {
+				continue;
+			}
+			final Graphics2D bufferGraphics = _frameBuffer.createGraphics();
+			try {
+				bufferGraphics.setClip( region);
+				paintMap( bufferGraphics, region);
+			}
+			finally {
+				bufferGraphics.dispose();
+			}
+		}
+		g2D.drawImage( _frameBuffer, 0, 0, null);
+	}
+
+	/*
+	 * Zeichnet den übergebenen Bereich der Karte in Pixel-Koordinaten in den Bildpuffer, aus den
+	 * Kacheln oder direkt aus den Layern. Das Graphics-Objekt hat keine Transformation.
+	 */
+	private void paintMap( final Graphics2D g2D, final Rectangle region) {
+		if ( _tileCache != null) {
+			paintTiles( g2D);
+			return;
+		}
+		final AffineTransform affineTransform = new AffineTransform();
+		modifyAffineTransform( affineTransform);
+		g2D.setBackground( Color.WHITE);
+		g2D.clearRect( region.x, region.y, region.width, region.height);
+		final Rectangle paddedRegion = new Rectangle( region);
+		paddedRegion.grow( TILE_MARGIN, TILE_MARGIN);
+		final Rectangle utmRectangle;
+		try {
+			utmRectangle = affineTransform.createInverse().createTransformedShape( paddedRegion).getBounds();
+		}
+		catch ( NoninvertibleTransformException e) {
+			return;
+		}
+		g2D.setTransform( affineTransform);
+		setQualityRenderingHints( g2D);
+		paintLayers( g2D, utmRectangle);
+	}
+
+	/**
+	 * Merkt sich den Bereich als im Bildpuffer neu zu zeichnen, bevor das Neuzeichnen wie üblich
+	 * angefordert wird. Über diese Methode laufen alle Varianten von <code>repaint</code>.
+	 */
+	@Override
+	public void repaint( long tm, int x, int y, int width, int height) {
+		synchronized ( this) {
+			final Rectangle rectangle = new Rectangle( x, y, width, height);
+			if ( _frameBufferDirty == null) {
+				_frameBufferDirty = rectangle;
+			} else {
+				_frameBufferDirty.add( rectangle);
+			}
+		}
+		super.repaint( tm, x, y, width, height);
+	}
+
+	/*
+	 * Fordert das Neuzeichnen der ganzen Kartenansicht an, ohne den Bildpuffer neu zeichnen zu lassen;
+	 * das Verschieben der Karte erkennt paintFrameBuffer selbst.
+	 */
+	private void repaintShifted() {
+		super.repaint( 0, 0, 0, getWidth(), getHeight());
+	}
+
+	/*
+	 * Meldet die sichtbaren Objekte, sobald das Verschieben der Karte für VISIBLE_OBJECTS_DELAY
+	 * Millisekunden ruht, und nicht bei jedem Mausereignis.
+	 */
+	private void startVisibleObjectsTimer() {
+		if ( _visibleObjectsTimer == null) {
+			_visibleObjectsTimer = new javax.swing.Timer( VISIBLE_OBJECTS_DELAY, new ActionListener() {
+				public void actionPerformed( ActionEvent e) {
+					visibleObjectsChanged();
+				}
+			});
+			_visibleObjectsTimer.setRepeats( false);
+		}
+		_visibleObjectsTimer.restart();
+	}
 
+	private static void setQualityRenderingHints( final Graphics2D g2D) {
 		// zur besseren Auflösung
 		g2D.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 		g2D.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
 		g2D.setRenderingHint(RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_QUALITY);
 		g2D.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+	}
 
-		// Rechteck vor dem Neuzeichnen leeren.
-		g2D.setBackground(Color.WHITE);
-		Rectangle bounds = getBounds();
-		g2D.clearRect(0, 0, (int)bounds.getWidth(), (int)bounds.getHeight());
-
+	/*
+	 * Zeichnet alle sichtbaren Layer im übergebenen UTM-Rechteck, das Graphics-Objekt muss schon
+	 * die Transformation von UTM- in Pixel-Koordinaten haben.
+	 */
+	private void paintLayers( final Graphics2D g2D, final Rectangle utmRectangle) {
 		for ( int i = 0; i <= highestLayer(); i++ ) {
 			Component[] components = getComponentsInLayer(i);
 			for ( Component component : components) {
 				if ( component.isVisible()) {
 					if ( component instanceof LayerPanel ) {
 						LayerPanel la = (LayerPanel) component;
-						la.paintLayer(g2D);
+						la.paintLayer(g2D, utmRectangle);
 					}
 				}
 			}
 		}
+	}
 
-		g2D.setTransform(oldTransform);
-		g2D.setColor(Color.black);
-		g2D.setStroke(new BasicStroke(1));
-		g2D.setFont(new Font("Default", Font.PLAIN, 10));
+	/*
+	 * Zeichnet den Clip-Bereich aus den Kacheln des Kachel-Cache: für jede Kachel die Bilder der
+	 * Layergruppen übereinander. Fehlende und veraltete Kacheln werden bei der RenderEngine in Auftrag
+	 * gegeben; bis sie fertig sind, wird die veraltete Kachel oder die skalierte Kachel einer anderen
+	 * Zoomstufe gezeigt. Ohne RenderEngine werden sie hier gezeichnet, nur direkt nach dem Zoomen
+	 * zunächst skaliert; die scharfen Kacheln zeichnet dann der _sharpTileTimer. Ein solcher Durchgang
+	 * zeichnet höchstens für RENDER_BUDGET Millisekunden Kacheln, den Rest ein weiterer Durchgang. In
+	 * beiden Fällen kommen die Kacheln in der Mitte zuerst an die Reihe.
+	 */
+	private void paintTiles( final Graphics2D g2D) {
+		final double zoom = _zoomScale;
+		final AffineTransform tileTransform = AffineTransform.getScaleInstance( zoom, zoom);
+		tileTransform.concatenate( _mapTransform);
+		final int originX = (int) Math.round( _zoomTranslateX);
+		final int originY = (int) Math.round( _zoomTranslateY);
+		Rectangle clip = g2D.getClipBounds();
+		if ( clip == null) {
+			clip = new Rectangle( 0, 0, getWidth(), getHeight());
+		}
+		if ( clip.isEmpty()) {
+			return;
+		}
+		if ( _renderEngine != null && (zoom != _frameZoom || originX != _frameOriginX || originY != _frameOriginY)) {
+			// Ein neuer Ausschnitt: noch nicht begonnene Kacheln des alten werden nicht mehr gezeichnet.
+			_renderEngine.newFrame();
+			_frameZoom = zoom;
+			_frameOriginX = originX;
+			_frameOriginY = originY;
+		}
+		g2D.setBackground( Color.WHITE);
+		g2D.clearRect( clip.x, clip.y, clip.width, clip.height);
+		final List<LayerGroup> groups = getLayerGroups();
+		final Rectangle range = TileCache.getTileRange( clip.x - originX, clip.y - originY, clip.width, clip.height);
+		final boolean complete = isComplete( zoom, range, groups);
+		double fallbackZoom = Double.NaN;
+		if ( COARSE_PASS && !complete) {
+			fallbackZoom = getFallbackZoom( zoom);
+		}
+		// Ohne RenderEngine wird direkt nach dem Zoomen nur grob gezeichnet, sofern es Kacheln dafür gibt.
+		final boolean sharpPass = _renderEngine != null || zoom == _sharpZoom || Double.isNaN( fallbackZoom);
+		final long deadline = System.nanoTime() + RENDER_BUDGET * 1000000L;
+		int renderedTiles = 0;
+		boolean interrupted = false;
+		final List<Point> tileOrder = getTileOrder( range);
+		final int size = TileCache.TILE_SIZE;
+		for ( int group = 0; group < groups.size(); group++) {
+			if ( groups.get( group)._direct) {
+				paintDirectGroup( g2D, groups.get( group));
+				continue;
+			}
+			for ( Point tilePoint : tileOrder) {
+				final int tileX = tilePoint.x;
+				final int tileY = tilePoint.y;
+				final TileCache.Key key = _tileCache.createKey( zoom, tileX, tileY, groups.get( group)._layerPanels, group == 0);
+				final TileCache.Tile tile = _tileCache.get( key);
+				BufferedImage image = (tile == null) ? null : tile.getImage();
+				if ( tile == null || _tileCache.isStale( tile)) {
+					if ( _renderEngine != null) {
+						requestTile( key, tileTransform, tileX, tileY, group == 0, groups.get( group));
+					} else if ( tile != null || sharpPass) {
+						if ( renderedTiles == 0 || RENDER_BUDGET <= 0 || System.nanoTime() < deadline) {
+							image = renderTile( key, tileTransform, tileX, tileY, group == 0, groups.get( group));
+							renderedTiles++;
+						} else {
+							interrupted = true;
+						}
+					}
+				}
+				if ( image != null) {
+					g2D.drawImage( image, originX + tileX * size, originY + tileY * size, null);
+				} else if ( !Double.isNaN( fallbackZoom)) {
+					paintScaledTile( g2D, fallbackZoom, zoom / fallbackZoom, originX, originY, tileX, tileY,
+							groups.get( group), group == 0);
+				}
+			}
+		}
+		if ( _renderEngine == null) {
+			if ( sharpPass) {
+				_sharpZoom = zoom;
+				if ( interrupted) {
+					_cancelledPasses++;
+				} else if ( renderedTiles > 0) {
+					_completedPasses++;
+				}
+			}
+			if ( !sharpPass || interrupted) {
+				startSharpTileTimer();
+			}
+		}
+	}
 
-		drawScaling(g2D, 1 / meterProPixel());
+	/*
+	 * Gibt die Kacheln des Bereichs nach ihrem Abstand zu seiner Mitte geordnet zurück, damit die Mitte
+	 * der Kartenansicht zuerst fertig wird.
+	 */
+	private static List<Point> getTileOrder( final Rectangle range) {
+		final List<Point> tiles = new ArrayList<Point>( range.width * range.height);
+		for ( int tileY = range.y; tileY < range.y + range.height; tileY++) {
+			for ( int tileX = range.x; tileX < range.x + range.width; tileX++) {
+				tiles.add( new Point( tileX, tileY));
+			}
+		}
+		final double centerX = range.x + (range.width - 1) / 2.;
+		final double centerY = range.y + (range.height - 1) / 2.;
+		Collections.sort( tiles, new Comparator<Point>() {
+			public int compare( Point p1, Point p2) {
+				return Double.compare( p1.distanceSq( centerX, centerY), p2.distanceSq( centerX, centerY));
+			}
+		});
+		return tiles;
+	}
+
+	/*
+	 * Bricht das Verfeinern des aktuellen Kartenausschnitts ab, weil der Benutzer ihn gerade ändert:
+	 * die RenderEngine beginnt sofort eine neue Generation, und ein anstehender Durchgang im
+	 * Event-Dispatch-Thread wartet, bis der Benutzer wieder ruht.
+	 */
+	private void abortRefinement() {
+		if ( _renderEngine != null) {
+			_renderEngine.newFrame();
+		}
+		if ( _sharpTileTimer != null && _sharpTileTimer.isRunning()) {
+			_sharpTileTimer.restart();
+			_cancelledPasses++;
+		}
+	}
+
+	/*
+	 * Gibt true zurück, wenn alle Kacheln des Bereichs für alle Layergruppen im Kachel-Cache sind.
+	 */
+	private boolean isComplete( final double zoom, final Rectangle range, final List<LayerGroup> groups) {
+		for ( int tileY = range.y; tileY < range.y + range.height; tileY++) {
+			for ( int tileX = range.x; tileX < range.x + range.width; tileX++) {
+				for ( int group = 0; group < groups.size(); group++) {
+					final LayerGroup layerGroup = groups.get( group);
+					if ( !layerGroup._direct
+							&& _tileCache.get( _tileCache.createKey( zoom, tileX, tileY, layerGroup._layerPanels, group == 0)) == null) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * Gibt die der übergebenen Zoomstufe nächstgelegene andere Zoomstufe im Kachel-Cache zurück,
+	 * oder NaN, wenn es keine gibt.
+	 */
+	private double getFallbackZoom( final double zoom) {
+		double fallbackZoom = Double.NaN;
+		for ( Double cachedZoom : _tileCache.getCachedZooms()) {
+			if ( cachedZoom != zoom && (Double.isNaN( fallbackZoom)
+					|| Math.abs( Math.log( cachedZoom / zoom)) < Math.abs( Math.log( fallbackZoom / zoom)))) {
+				fallbackZoom = cachedZoom;
+			}
+		}
+		return fallbackZoom;
+	}
+
+	/*
+	 * Setzt eine fehlende Kachel einer Layergruppe aus den skalierten Kacheln derselben Gruppe
+	 * in der übergebenen anderen Zoomstufe zusammen. Es werden nur Kacheln mit denselben Layern verwendet.
+	 */
+	private void paintScaledTile( final Graphics2D g2D, final double fallbackZoom, final double ratio,
+			final int originX, final int originY, final int tileX, final int tileY, final LayerGroup group,
+			final boolean opaque) {
+		final int size = TileCache.TILE_SIZE;
+		final Graphics2D tileGraphics = (Graphics2D) g2D.create();
+		try {
+			tileGraphics.clipRect( originX + tileX * size, originY + tileY * size, size, size);
+			tileGraphics.setRenderingHint( RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			final Rectangle fallbackRange = TileCache.getTileRange( tileX * size / ratio, tileY * size / ratio,
+					size / ratio, size / ratio);
+			for ( int fallbackY = fallbackRange.y; fallbackY < fallbackRange.y + fallbackRange.height; fallbackY++) {
+				for ( int fallbackX = fallbackRange.x; fallbackX < fallbackRange.x + fallbackRange.width; fallbackX++) {
+					final TileCache.Tile tile = _tileCache.get( _tileCache.createKey( fallbackZoom, fallbackX, fallbackY,
+							group._layerPanels, opaque));
+					if ( tile != null) {
+						final BufferedImage image = tile.getImage();
+						final int x0 = (int) Math.floor( originX + fallbackX * size * ratio);
+						final int y0 = (int) Math.floor( originY + fallbackY * size * ratio);
+						final int x1 = (int) Math.ceil( originX + (fallbackX + 1) * size * ratio);
+						final int y1 = (int) Math.ceil( originY + (fallbackY + 1) * size * ratio);
+						tileGraphics.drawImage( image, x0, y0, x1 - x0, y1 - y0, null);
+					}
+				}
+			}
+		}
+		finally {
+			tileGraphics.dispose();
+		}
+	}
+
+	/*
+	 * Zeichnet eine Layergruppe, deren Darstellung vom Kartenausschnitt abhängt, ohne Kacheln direkt
+	 * in den Clip-Bereich.
+	 */
+	private void paintDirectGroup( final Graphics2D g2D, final LayerGroup group) {
+		final Graphics2D directGraphics = (Graphics2D) g2D.create();
+		try {
+			final AffineTransform affineTransform = directGraphics.getTransform();
+			modifyAffineTransform( affineTransform);
+			directGraphics.setTransform( affineTransform);
+			setQualityRenderingHints( directGraphics);
+			final Rectangle utmRectangle = getUTMBounds();
+			for ( LayerPanel layerPanel : group._layerPanels) {
+				layerPanel.paintLayer( directGraphics, utmRectangle);
+			}
+		}
+		finally {
+			directGraphics.dispose();
+		}
+	}
+
+	/*
+	 * Zeichnet die Kachel einer Layergruppe im aufrufenden Thread und legt sie im Kachel-Cache ab.
+	 */
+	private BufferedImage renderTile( final TileCache.Key key, final AffineTransform tileTransform, final int tileX,
+			final int tileY, final boolean opaque, final LayerGroup group) {
+		final Rectangle2D utmBounds = TileCache.getUTMBounds( tileTransform, tileX, tileY, TILE_MARGIN);
+		if ( utmBounds == null) {
+			return null;
+		}
+		final TileCache.Ticket ticket = _tileCache.startRendering( key, utmBounds, group._live);
+		final BufferedImage image = paintTileImage( null, tileTransform, tileX, tileY, opaque, group, utmBounds);
+		_tileCache.finishRendering( ticket, image);
+		return image;
+	}
+
+	/*
+	 * Gibt die Kachel einer Layergruppe bei der RenderEngine in Auftrag. Ist sie abgelegt, so wird
+	 * ihr Bereich neu gezeichnet.
+	 */
+	private void requestTile( final TileCache.Key key, final AffineTransform tileTransform, final int tileX, final int tileY,
+			final boolean opaque, final LayerGroup group) {
+		final double zoom = _zoomScale;
+		_renderEngine.submit( key, new Callable<Boolean>() {
+			public Boolean call() {
+				if ( !_tileCache.isCurrent( key)) {
+					return true;
+				}
+				final Rectangle2D utmBounds = TileCache.getUTMBounds( tileTransform, tileX, tileY, TILE_MARGIN);
+				if ( utmBounds == null) {
+					return true;
+				}
+				final TileCache.Ticket ticket = _tileCache.startRendering( key, utmBounds, group._live);
+				final BufferedImage image = paintTileImage( key, tileTransform, tileX, tileY, opaque, group, utmBounds);
+				if ( image == null) {
+					_tileCache.cancelRendering( ticket);
+					return false;
+				}
+				if ( !_tileCache.finishRendering( ticket, image)) {
+					// Das Bild ist veraltet; ist der Schlüssel noch aktuell, so wird es neu gezeichnet.
+					return !_tileCache.isCurrent( key);
+				}
+				if ( zoom == _zoomScale) {
+					final int size = TileCache.TILE_SIZE;
+					repaint( (int) Math.round( _zoomTranslateX) + tileX * size, (int) Math.round( _zoomTranslateY) + tileY * size,
+							size, size);
+				}
+				return true;
+			}
+		});
+	}
+
+	/*
+	 * Zeichnet die Layer einer Layergruppe in ein neues Kachelbild. Die unterste Gruppe bekommt den
+	 * weißen Hintergrund, die anderen sind außerhalb ihrer Objekte durchsichtig. Ist ein Schlüssel
+	 * übergeben, so wird zwischen den Layern geprüft, ob die RenderEngine den Auftrag abgebrochen hat;
+	 * dann wird null zurückgegeben.
+	 */
+	private BufferedImage paintTileImage( final TileCache.Key cancellationKey, final AffineTransform tileTransform,
+			final int tileX, final int tileY, final boolean opaque, final LayerGroup group, final Rectangle2D utmBounds) {
+		final BufferedImage image = new BufferedImage( TileCache.TILE_SIZE, TileCache.TILE_SIZE,
+				opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g2D = image.createGraphics();
+		try {
+			setQualityRenderingHints( g2D);
+			if ( opaque) {
+				g2D.setBackground( Color.WHITE);
+				g2D.clearRect( 0, 0, TileCache.TILE_SIZE, TileCache.TILE_SIZE);
+			}
+			g2D.translate( -tileX * TileCache.TILE_SIZE, -tileY * TileCache.TILE_SIZE);
+			g2D.transform( tileTransform);
+			final Rectangle utmRectangle = utmBounds.getBounds();
+			for ( LayerPanel layerPanel : group._layerPanels) {
+				if ( cancellationKey != null && _renderEngine.isCancelled( cancellationKey)) {
+					return null;
+				}
+				layerPanel.paintLayer( g2D, utmRectangle);
+			}
+		}
+		finally {
+			g2D.dispose();
+		}
+		return image;
+	}
+
+	/*
+	 * Fasst die sichtbaren LayerPanels in Zeichenreihenfolge zu Layergruppen zusammen: jede Gruppe ist
+	 * eine maximale Folge von Layern, die alle statisch oder alle dynamisch sind. Layer, deren
+	 * Darstellung vom Kartenausschnitt abhängt, bilden eigene Gruppen, die direkt gezeichnet werden.
+	 */
+	private List<LayerGroup> getLayerGroups() {
+		final List<LayerGroup> groups = new ArrayList<LayerGroup>();
+		LayerGroup group = null;
+		for ( int i = 0; i <= highestLayer(); i++ ) {
+			for ( Component component : getComponentsInLayer(i)) {
+				if ( component.isVisible() && component instanceof LayerPanel) {
+					final LayerPanel layerPanel = (LayerPanel) component;
+					final boolean live = !isStatic( layerPanel._entry.getLayer().getDotCollection());
+					final boolean direct = layerPanel.isViewDependent();
+					if ( group == null || group._live != live || group._direct != direct) {
+						group = new LayerGroup( live, direct);
+						groups.add( group);
+					}
+					group._layerPanels.add( layerPanel);
+				}
+			}
+		}
+		return groups;
+	}
+
+	/*
+	 * Gibt true zurück, wenn ein sichtbarer Layer vom Kartenausschnitt abhängt.
+	 */
+	private boolean hasViewDependentLayers() {
+		for ( Component component : getComponents()) {
+			if ( component.isVisible() && component instanceof LayerPanel && ((LayerPanel) component).isViewDependent()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Gibt true zurück, wenn kein Darstellungstyp der DOTCollection Online-Daten braucht. Die Objekte
+	 * eines solchen Layers ändern sich nur beim Verschieben, Zoomen oder bei Änderungen der Ansicht.
+	 */
+	private boolean isStatic( final DOTCollection dotCollection) {
+		if ( dotCollection == null) {
+			return true;
+		}
+		Boolean isStatic = _staticDotCollections.get( dotCollection);
+		if ( isStatic == null) {
+			isStatic = Boolean.TRUE;
+			for ( DisplayObjectType displayObjectType : dotCollection.values()) {
+				if ( !displayObjectType.getSubscriptionData().isEmpty()) {
+					isStatic = Boolean.FALSE;
+					break;
+				}
+			}
+			_staticDotCollections.put( dotCollection, isStatic);
+		}
+		return isStatic;
+	}
+
+	/*
+	 * Eine Folge von LayerPanels, die gemeinsam in eine Kachel gezeichnet werden. Die Liste der
+	 * LayerPanels wird nach getLayerGroups() nicht mehr geändert, weil sie Teil der Kachelschlüssel ist.
+	 */
+	private static final class LayerGroup {
+		private final boolean _live;
+		private final boolean _direct;
+		private final List<LayerPanel> _layerPanels = new ArrayList<LayerPanel>();
+
+		LayerGroup( boolean live, boolean direct) {
+			_live = live;
+			_direct = direct;
+		}
+	}
+
+	private void startSharpTileTimer() {
+		if ( _sharpTileTimer == null) {
+			_sharpTileTimer = new javax.swing.Timer( SHARP_TILE_DELAY, new ActionListener() {
+				public void actionPerformed( ActionEvent e) {
+					_sharpZoom = _zoomScale;
+					repaint();
+				}
+			});
+			_sharpTileTimer.setRepeats( false);
+		}
+		_sharpTileTimer.restart();
+	}
+
+	/*
+	 * Verwirft alle Kacheln, weil sich die Darstellung aller Objekte geändert haben kann.
+	 */
+	private void invalidateTiles() {
+		if ( _tileCache != null) {
+			_staticDotCollections.clear();
+			_tileCache.invalidateAll();
+		}
+		if ( _renderEngine != null) {
+			_renderEngine.newFrame();
+		}
+	}
+
+	/*
+	 * Verwirft die Kacheln, die das übergebene UTM-Rechteck schneiden.
+	 */
+	private void invalidateTiles( final Rectangle utmRectangle) {
+		if ( _tileCache != null && utmRectangle != null) {
+			_tileCache.invalidate( utmRectangle);
+		}
+	}
+
+	/*
+	 * Verwirft die Kacheln der dynamischen oder der statischen Layergruppen, die das übergebene
+	 * UTM-Rechteck schneiden.
+	 */
+	private void invalidateTiles( final Rectangle utmRectangle, final boolean live) {
+		if ( _tileCache != null && utmRectangle != null) {
+			_tileCache.invalidate( utmRectangle, live);
+		}
 	}
 
 	private void drawScaling(final Graphics2D g, final double pixelPerMeter) {
@@ -712,6 +1763,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		for(DisplayObject displayObject : _selectedDisplayObjects) {
 			final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
 			if(boundingRectangle != null) {
+				invalidateTiles(boundingRectangle);
 				rectangles.add(transformedRectangle(boundingRectangle));
 			}
 		}
@@ -765,13 +1817,14 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 					if ( !getUTMPoint( point, utmPoint)) {
 						return;
 					}
+					final Map<ViewEntry, List<DisplayObject>> pickedObjects = getPickedDisplayObjects( point);
 					Map<String, DisplayObject> displayObjectsHash= new HashMap<String,DisplayObject>();
 					for ( ViewEntry entry : _view.getViewEntries()) {
 						if ( entry.isVisible(getMapScale().intValue()) && entry.isSelectable()) {
 							Component component = entry.getComponent();
 							if ( component instanceof LayerPanel) {
 								LayerPanel layerPanel = (LayerPanel) component;
-								final List<DisplayObject> displayObjectsCloseToPoint = layerPanel.getDisplayObjectsCloseToPoint(utmPoint, 5);
+								final List<DisplayObject> displayObjectsCloseToPoint = getDisplayObjectsCloseToPoint(entry, layerPanel, utmPoint, 5, pickedObjects);
 								for ( DisplayObject displayObject : displayObjectsCloseToPoint) {
 									displayObjectsHash.put(entry.getLayer().getName() + ": " + displayObject.getSystemObject().getNameOrPidOrId(), displayObject);
 								}
@@ -803,14 +1856,20 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 
 			@Override
 			public void mouseDragged (MouseEvent e) {
+				abortRefinement();
 				int newX = e.getX() - _lastOffsetX;
 				int newY = e.getY() - _lastOffsetY;
 				_lastOffsetX += newX;
 				_lastOffsetY += newY;
 				_zoomTranslateX += newX;
 				_zoomTranslateY += newY;
-				visibleObjectsChanged();
-				repaint();
+				if ( FRAME_BUFFERING) {
+					startVisibleObjectsTimer();
+					repaintShifted();
+				} else {
+					visibleObjectsChanged();
+					repaint();
+				}
 			}
 
 			@Override
@@ -820,7 +1879,16 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 			}
 
 			@Override
-			public void mouseReleased(MouseEvent e) { }
+			public void mouseReleased(MouseEvent e) {
+				if ( _visibleObjectsTimer != null && _visibleObjectsTimer.isRunning()) {
+					_visibleObjectsTimer.stop();
+					visibleObjectsChanged();
+					if ( hasViewDependentLayers()) {
+						// Die Nadeln wurden beim Verschieben nur mitverschoben.
+						repaint();
+					}
+				}
+			}
 		};
 		addMouseListener( mouseListener);
 		addMouseMotionListener( (MouseMotionListener)mouseListener);
@@ -828,6 +1896,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		class ScaleHandler implements MouseWheelListener {
 			public void mouseWheelMoved(MouseWheelEvent e) {
 				if(e.getScrollType() == MouseWheelEvent.WHEEL_UNIT_SCROLL) {
+					abortRefinement();
 					Double _mysticalFactor = 0.1 * _zoomScale;
 //					if ( _mysticalFactor <= 0.03 * _zoomScale ) {
 //						_mysticalFactor = 0.03 * _zoomScale;
@@ -874,6 +1943,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	public void redrawObject(final DisplayObject displayObject) {
 		final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
 		if ( boundingRectangle != null) {
+			invalidateTiles( boundingRectangle);
 			repaint( transformedRectangle( boundingRectangle));
 		}
 	}
@@ -902,9 +1972,11 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	 */
 	private void setMapScale(double mapScale) {
 		_mapScale = mapScale;
+		_simplificationTolerance = Math.max( 0., SIMPLIFICATION_PIXELS * meterProPixel());
 		for ( MapScaleListener mapScaleListener : _mapScaleListeners) {
 			mapScaleListener.mapScaleChanged(mapScale);
 		}
+		updateVolatileObjects();
 		final int h = highestLayer();
 		for ( int i = 0; i <= h; i++) {
 			for ( Component component : getComponentsInLayer(i)) {
@@ -915,6 +1987,30 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		repaint();
 	}
 
+	/**
+	 * Gibt die Toleranz in Metern zurück, mit der Linien und Flächen beim aktuellen Maßstab
+	 * vereinfacht gezeichnet werden dürfen, ohne dass man den Unterschied sieht. Die Painter
+	 * übergeben sie an {@link GeometryStore#getSharedPath(int, double)}.
+	 *
+	 * @return die Toleranz in Metern
+	 */
+	public double getSimplificationTolerance() {
+		return _simplificationTolerance;
+	}
+
+	private static double getDoubleProperty( final String key, final double defaultValue) {
+		final String property = System.getProperty( key);
+		if ( property != null) {
+			try {
+				return Double.parseDouble( property);
+			}
+			catch ( NumberFormatException e) {
+				_debug.warning( "Die System-Property " + key + " ist keine Zahl: " + property);
+			}
+		}
+		return defaultValue;
+	}
+
 	/**
 	 * Gibt den aktuellen Maßstab zurück.
 	 *
@@ -986,6 +2082,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		if ( !getUTMPoint( p, utmPoint)) {
 			return "";
 		}
+		final Map<ViewEntry, List<DisplayObject>> pickedObjects = getPickedDisplayObjects( p);
 		String s = new String("<html>");
 		boolean stringIsEmpty = true;
 		final int maxNumberOfObjects = 24;
@@ -997,7 +2094,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 				if ( component instanceof LayerPanel) {
 					int countTheObjectsOfThisPanel = 0;
 					LayerPanel layerPanel = (LayerPanel) component;
-					final List<DisplayObject> displayObjectsCloseToPoint = layerPanel.getDisplayObjectsCloseToPoint(utmPoint, 2);
+					final List<DisplayObject> displayObjectsCloseToPoint = getDisplayObjectsCloseToPoint(entry, layerPanel, utmPoint, 2, pickedObjects);
 					for ( DisplayObject displayObject : displayObjectsCloseToPoint) {
 						stringIsEmpty = false;
 						countTheObjectsOfThisPanel++;
@@ -1021,6 +2118,106 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		return s;
 	}
 
+	/*
+	 * Liefert die Objekte in der Nähe eines Punktes für Tooltipp und Selektion: aus dem Auswahlpuffer,
+	 * wenn dieser aktiv ist, und sonst durch die geometrische Suche des LayerPanels.
+	 */
+	private List<DisplayObject> getDisplayObjectsCloseToPoint( ViewEntry entry, LayerPanel layerPanel, Point utmPoint,
+			int preferredUpperSize, Map<ViewEntry, List<DisplayObject>> pickedObjects) {
+		if ( pickedObjects == null) {
+			return layerPanel.getDisplayObjectsCloseToPoint(utmPoint, preferredUpperSize);
+		}
+		final List<DisplayObject> displayObjects = pickedObjects.get( entry);
+		if ( displayObjects == null) {
+			return Collections.emptyList();
+		}
+		return displayObjects;
+	}
+
+	/*
+	 * Gibt die Objekte aus der Umgebung des Pixels p im Auswahlpuffer nach Einträgen der Ansicht
+	 * gruppiert zurück, oder null, wenn der Auswahlpuffer nicht aktiv ist.
+	 */
+	private Map<ViewEntry, List<DisplayObject>> getPickedDisplayObjects( Point p) {
+		if ( _pickBuffer == null || _showNothing) {
+			return null;
+		}
+		updatePickBuffer();
+		final Map<ViewEntry, List<DisplayObject>> pickedObjects = new HashMap<ViewEntry, List<DisplayObject>>();
+		for ( PickBuffer.Pick pick : _pickBuffer.getPicks( p.x, p.y, PICK_RADIUS)) {
+			List<DisplayObject> displayObjects = pickedObjects.get( pick.getEntry());
+			if ( displayObjects == null) {
+				displayObjects = new ArrayList<DisplayObject>();
+				pickedObjects.put( pick.getEntry(), displayObjects);
+			}
+			displayObjects.add( pick.getDisplayObject());
+		}
+		return pickedObjects;
+	}
+
+	/*
+	 * Baut den Auswahlpuffer neu auf, soweit das nötig ist. Es werden die sichtbaren und
+	 * selektierbaren Layer in derselben Reihenfolge wie in paintComponent gezeichnet.
+	 */
+	private void updatePickBuffer() {
+		final AffineTransform affineTransform = new AffineTransform();
+		modifyAffineTransform(affineTransform);
+		final int width = getWidth();
+		final int height = getHeight();
+		if ( _showNothing || width <= 0 || height <= 0 || _pickBuffer.isValid( affineTransform, width, height)) {
+			return;
+		}
+		final AffineTransform inverseTransform;
+		try {
+			inverseTransform = affineTransform.createInverse();
+		}
+		catch(NoninvertibleTransformException ignored) {
+			return;
+		}
+		for ( Rectangle region : _pickBuffer.startRebuild( affineTransform, width, height)) {
+			final Rectangle utmRegion = inverseTransform.createTransformedShape( region).getBounds();
+			final Graphics2D g2D = _pickBuffer.createGraphics( region);
+			try {
+				for ( int i = 0; i <= highestLayer(); i++ ) {
+					for ( Component component : getComponentsInLayer(i)) {
+						if ( component.isVisible() && component instanceof LayerPanel) {
+							final LayerPanel layerPanel = (LayerPanel) component;
+							if ( layerPanel._entry.isSelectable()) {
+								layerPanel.paintPickLayer( g2D, utmRegion, _pickBuffer);
+							}
+						}
+					}
+				}
+			}
+			finally {
+				g2D.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn Tooltipp und Selektion den Auswahlpuffer benutzen.
+	 *
+	 * @return <code>true</code> genau dann, wenn der Auswahlpuffer aktiv ist
+	 */
+	public boolean isPickBufferOn() {
+		return _pickBuffer != null;
+	}
+
+	/**
+	 * Schaltet den Auswahlpuffer für Tooltipp und Selektion ein oder aus. Ohne Auswahlpuffer
+	 * werden die Objekte in der Nähe des Mauszeigers geometrisch gesucht.
+	 *
+	 * @param pickBuffer der neue Wert
+	 */
+	public void setPickBuffer( boolean pickBuffer) {
+		if ( pickBuffer && _pickBuffer == null) {
+			_pickBuffer = new PickBuffer();
+		} else if ( !pickBuffer) {
+			_pickBuffer = null;
+		}
+	}
+
 	private void modifyAffineTransform( AffineTransform affinTransform) {
 		affinTransform.translate(_zoomTranslateX, _zoomTranslateY);
 		affinTransform.scale(_zoomScale, _zoomScale);
@@ -1034,15 +2231,16 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		affinTransform.concatenate(_mapTransform);
 	}
 
+	/*
+	 * Transformiert das Rechteck in die Koordinaten der Komponente. Die Transformation wird wie in
+	 * getCenterPoint() ohne Graphics-Objekt aufgebaut, denn diese Methode wird für jedes geänderte
+	 * DisplayObject aufgerufen.
+	 */
 	private Rectangle transformedRectangle( Rectangle rectangle) {
-		if ( rectangle == null) {
+		if ( (rectangle == null) || !isDisplayable()) {
 			return null;
 		}
-		Graphics2D g2D = (Graphics2D)getGraphics();
-		if ( g2D == null) {
-			return null;
-		}
-		AffineTransform affineTransform = g2D.getTransform();
+		AffineTransform affineTransform = new AffineTransform();
 		modifyAffineTransform(affineTransform);
 		Point p1 = new Point ( (int) rectangle.getMinX(), (int) rectangle.getMinY());
 		affineTransform.transform(p1, p1);
@@ -1068,6 +2266,9 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	 * @param antialising die neue Einstellung von Anti-Aliasing
 	 */
 	public void setAntialising(boolean antialising) {
+		if ( antialising != _antialising) {
+			invalidateTiles();
+		}
 		_antialising = antialising;
 	}
 
@@ -1090,26 +2291,36 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	}
 
 	/**
-	 * Veranlaßt eine Aktualisierung der Darstellung des übergebenen DisplayObjects.
+	 * Veranlaßt eine Aktualisierung der Darstellung des übergebenen DisplayObjects. Die Methode darf
+	 * aus jedem Thread aufgerufen werden; sie merkt das Objekt nur vor, und alle vorgemerkten Objekte
+	 * werden höchstens mit der Bildrate <code>de.kappich.pat.gnd.Bildrate</code> gemeinsam neu gezeichnet.
 	 *
 	 * @param displayObject das DisplayObject
 	 */
 	public void updateDisplayObject ( DisplayObject displayObject) {
 		if (displayObject != null) {
-			final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
-			if ( boundingRectangle != null) {
-				final Rectangle rectangle = transformedRectangle( boundingRectangle);
-				if ( rectangle != null) {
-					repaint( rectangle);
-				}
-			}
+			_frameScheduler.objectChanged( displayObject);
 		}
 	}
 
+	/*
+	 * Gibt eine Statistik über die Aufforderungen zum Neuzeichnen geänderter DisplayObjects und die
+	 * dafür gezeichneten Bilder zurück, dazu die Anzahl der abgeschlossenen und der abgebrochenen
+	 * Zeichendurchgänge. Sie wird beim Schließen der Kartenansicht protokolliert.
+	 */
+	private String getFrameStatistics() {
+		if ( _renderEngine != null) {
+			return _frameScheduler.toString() + " " + _renderEngine.toString();
+		}
+		return _frameScheduler.toString() + " [Zeichendurchgänge abgeschlossen=" + _completedPasses +
+			", abgebrochen=" + _cancelledPasses + "]";
+	}
+
 	/*
 	 * Implementiert die Methode des Interfaces GenericNetDisplay.ResolutionListener.
 	 */
 	public void resolutionChanged(Double newValue, Double oldValue) {
+		invalidateTiles();
 		final Double mapScale = (_mapScale*newValue)/oldValue;
 		setMapScale( mapScale.intValue());
 	}
@@ -1131,13 +2342,15 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	 * Gibt alles frei, so dass der Garbage-Collector zuschlagen kann.
 	 */
 	public void clearEverything() {
+		_debug.info( "Statistik der Kartenansicht: " + getFrameStatistics() + " " +
+			_displayObjectManager.getSubscriptionStatistics());
 		// Abmelden beim Datenverteiler
 		final Component[] components = getComponents();
 		for ( Component component : components) {
 			if ( component instanceof LayerPanel) {
 				final LayerPanel layerPanel = (LayerPanel) component;
 				final Collection<DisplayObject> displayObjects = layerPanel.getDisplayObjects();
-				_displayObjectManager.unsubscribeDisplayObjects( displayObjects);
+				unsubscribeDisplayObjects( displayObjects);
 			}
 			remove(component);
 		}
@@ -1148,12 +2361,25 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 		// Entferne die MapScaleListener
 		removeAllMapScaleListeners();
 		_mapScaleListeners.clear();
+		_frameScheduler.clear();
+		invalidateTiles();
+		if ( _visibleObjectsTimer != null) {
+			_visibleObjectsTimer.stop();
+		}
+		_frameBuffer = null;
+		if ( _renderEngine != null) {
+			_renderEngine.shutdown();
+		}
+		if ( _subscriptionManager != null) {
+			_subscriptionManager.shutdown();
+		}
 	}
 
 	/*
 	 * Implementiert die Methode des Interfaces DOTManager.DOTChangeListener
 	 */
 	public void displayObjectTypeAdded(DisplayObjectType displayObjectType) {
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -1161,6 +2387,18 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	 * Implementiert die Methode des Interfaces DOTManager.DOTChangeListener
 	 */
 	public void displayObjectTypeChanged(DisplayObjectType displayObjectType) {
+		// Mit dem DisplayObjectType kann sich der Abstand und damit das umgebende Rechteck ändern.
+		for(Component component : getComponents()) {
+			if(component instanceof LayerPanel) {
+				final LayerPanel layerPanel = (LayerPanel)component;
+				for(DisplayObject displayObject : layerPanel.getDisplayObjects()) {
+					if(displayObject.updateDefaultType()) {
+						layerPanel.updateIndex(displayObject);
+					}
+				}
+			}
+		}
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -1168,6 +2406,7 @@ public class MapPane extends JLayeredPane implements View.ViewChangeListener, Pr
 	 * Implementiert die Methode des Interfaces DOTManager.DOTChangeListener
 	 */
 	public void displayObjectTypeRemoved(String displayObjectTypeName) {
+		invalidateTiles();
 		visibleObjectsChanged();
 		repaint();
 	}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.gnd;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
+import de.kappich.pat.gnd.viewManagement.ViewEntry;
+
+import java.awt.Composite;
+import java.awt.CompositeContext;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ein Auswahlpuffer (Pick-Buffer) für die Kartenansicht.
+ * <p>
+ * Der Auswahlpuffer ist ein <code>int</code>-Raster in der Größe der Kartenansicht, in das jedes
+ * DisplayObject mit seinem eigenen Painter gezeichnet wird, wobei aber jedes von dem Painter
+ * erzeugte Pixel durch die Kennung (ID) des Objekts ersetzt wird. Dadurch stimmt der Puffer
+ * Pixel für Pixel mit der Darstellung überein, einschließlich verschobener Linien und
+ * Punktsymbolen. Für Tooltipp und Selektion muss dann nur noch eine Pixelumgebung gelesen
+ * werden.
+ * <p>
+ * Der Puffer wird nicht bei jedem Zeichnen mitgeführt, sondern erst bei der nächsten Abfrage neu
+ * aufgebaut: vollständig, wenn sich Transformation oder Größe geändert haben (Verschieben, Zoomen),
+ * und sonst nur in den seither neu gezeichneten Bereichen. Da in jedem Pixel nur das oberste
+ * Objekt steht, findet die Abfrage keine vollständig verdeckten Objekte.
+ * <p>
+ * Die Klasse ist nicht synchronisiert und wird nur im Event-Dispatch-Thread benutzt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class PickBuffer {
+
+	/**
+	 * Ein Treffer im Auswahlpuffer: ein DisplayObject und der Eintrag der Ansicht, zu dem es gehört.
+	 */
+	static final class Pick {
+		private final ViewEntry _entry;
+		private final DisplayObject _displayObject;
+
+		Pick( ViewEntry entry, DisplayObject displayObject) {
+			_entry = entry;
+			_displayObject = displayObject;
+		}
+
+		/**
+		 * Gibt den Eintrag der Ansicht zurück.
+		 *
+		 * @return der Eintrag
+		 */
+		ViewEntry getEntry() {
+			return _entry;
+		}
+
+		/**
+		 * Gibt das DisplayObject zurück.
+		 *
+		 * @return das DisplayObject
+		 */
+		DisplayObject getDisplayObject() {
+			return _displayObject;
+		}
+	}
+
+	/**
+	 * Teilt dem Puffer mit, dass die Kartenansicht im übergebenen Bereich mit der übergebenen
+	 * Transformation neu gezeichnet wurde.
+	 *
+	 * @param clip der neu gezeichnete Bereich in Pixel-Koordinaten oder <code>null</code> für alles
+	 * @param transform die Transformation von UTM- in Pixel-Koordinaten
+	 * @param width die Breite der Kartenansicht
+	 * @param height die Höhe der Kartenansicht
+	 */
+	void invalidate( Rectangle clip, AffineTransform transform, int width, int height) {
+		if ( _image == null || !_fullyValid) {
+			return;
+		}
+		if ( clip == null || _image.getWidth() != width || _image.getHeight() != height
+				|| !transform.equals( _transform)) {
+			_fullyValid = false;
+			_dirtyRegions.clear();
+			return;
+		}
+		if ( clip.contains( 0, 0, width, height) || _dirtyRegions.size() >= MAX_DIRTY_REGIONS) {
+			_fullyValid = false;
+			_dirtyRegions.clear();
+			return;
+		}
+		_dirtyRegions.add( new Rectangle( clip));
+	}
+
+	/**
+	 * Verwirft den Inhalt des Puffers vollständig.
+	 */
+	void invalidateAll() {
+		_fullyValid = false;
+		_dirtyRegions.clear();
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn der Puffer für die übergebene Transformation und Größe
+	 * ohne Neuaufbau benutzt werden kann.
+	 *
+	 * @param transform die aktuelle Transformation
+	 * @param width die aktuelle Breite
+	 * @param height die aktuelle Höhe
+	 * @return <code>true</code> genau dann, wenn kein Neuaufbau nötig ist
+	 */
+	boolean isValid( AffineTransform transform, int width, int height) {
+		return _image != null && _fullyValid && _dirtyRegions.isEmpty()
+			&& _image.getWidth() == width && _image.getHeight() == height && transform.equals( _transform);
+	}
+
+	/**
+	 * Bereitet den Neuaufbau vor und gibt die Bereiche zurück, die neu gezeichnet werden müssen.
+	 * Für jeden Bereich muss anschließend {@link #createGraphics} aufgerufen werden.
+	 *
+	 * @param transform die aktuelle Transformation
+	 * @param width die aktuelle Breite
+	 * @param height die aktuelle Höhe
+	 * @return die neu zu zeichnenden Bereiche in Pixel-Koordinaten
+	 */
+	List<Rectangle> startRebuild( AffineTransform transform, int width, int height) {
+		final List<Rectangle> regions = new ArrayList<Rectangle>();
+		if ( _image == null || _image.getWidth() != width || _image.getHeight() != height) {
+			_image = new BufferedImage( width, height, BufferedImage.TYPE_INT_RGB);
+			_fullyValid = false;
+		}
+		if ( !_fullyValid || !transform.equals( _transform)) {
+			_ids.clear();
+			_picks.clear();
+			_picks.add( null);	// die Kennung 0 steht für 'kein Objekt'
+			regions.add( new Rectangle( 0, 0, width, height));
+		} else {
+			regions.addAll( _dirtyRegions);
+		}
+		_transform = new AffineTransform( transform);
+		_fullyValid = true;
+		_dirtyRegions.clear();
+		return regions;
+	}
+
+	/**
+	 * Erzeugt ein Graphics2D-Objekt für den Puffer, dessen Bereich geleert und auf die
+	 * übergebene Region beschränkt ist. Es hat die Transformation aus {@link #startRebuild}.
+	 *
+	 * @param region die neu zu zeichnende Region
+	 * @return das Graphics2D-Objekt
+	 */
+	Graphics2D createGraphics( Rectangle region) {
+		final Graphics2D g2D = _image.createGraphics();
+		g2D.setBackground( new java.awt.Color( NO_OBJECT));
+		g2D.clearRect( region.x, region.y, region.width, region.height);
+		g2D.clip( region);
+		// Ohne Anti-Aliasing hat jedes Pixel genau ein Objekt.
+		g2D.setRenderingHint( RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+		g2D.setRenderingHint( RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+		g2D.transform( _transform);
+		return g2D;
+	}
+
+	/**
+	 * Gibt das Composite zurück, mit dem das übergebene DisplayObject in den Puffer gezeichnet
+	 * werden muss. Es ersetzt jedes gezeichnete Pixel durch die Kennung des Objekts. Es gibt nur ein
+	 * Composite, dessen Kennung hier umgesetzt wird; es gilt also nur bis zum nächsten Aufruf.
+	 *
+	 * @param entry der Eintrag der Ansicht
+	 * @param displayObject das DisplayObject
+	 * @return das Composite
+	 */
+	Composite getComposite( ViewEntry entry, DisplayObject displayObject) {
+		Integer id = _ids.get( displayObject);
+		if ( id == null) {
+			if ( _picks.size() > MAX_ID) {
+				return DISCARD;
+			}
+			id = _picks.size();
+			_ids.put( displayObject, id);
+			_picks.add( new Pick( entry, displayObject));
+		}
+		_composite.setId( id);
+		return _composite;
+	}
+
+	/**
+	 * Gibt die Objekte in der quadratischen Umgebung des Punktes zurück, sortiert nach ihrem
+	 * Abstand zum Punkt. Jedes Objekt kommt höchstens einmal vor.
+	 *
+	 * @param x die x-Koordinate in Pixeln
+	 * @param y die y-Koordinate in Pixeln
+	 * @param radius der Radius der Umgebung in Pixeln
+	 * @return die Treffer
+	 */
+	List<Pick> getPicks( int x, int y, int radius) {
+		final Map<Integer, Pick> result = new LinkedHashMap<Integer, Pick>();
+		if ( _image == null) {
+			return new ArrayList<Pick>();
+		}
+		final int width = _image.getWidth();
+		final int height = _image.getHeight();
+		final int[] pixels = ((DataBufferInt) _image.getRaster().getDataBuffer()).getData();
+		// Von innen nach außen in quadratischen Ringen
+		for ( int r = 0; r <= radius; r++) {
+			for ( int dy = -r; dy <= r; dy++) {
+				final int step = (dy == -r || dy == r) ? 1 : 2 * r;
+				for ( int dx = -r; dx <= r; dx += Math.max( step, 1)) {
+					final int px = x + dx;
+					final int py = y + dy;
+					if ( px < 0 || py < 0 || px >= width || py >= height) {
+						continue;
+					}
+					final int id = pixels[py * width + px] & 0xFFFFFF;
+					if ( id != NO_OBJECT && id < _picks.size() && !result.containsKey( id)) {
+						result.put( id, _picks.get( id));
+					}
+				}
+			}
+		}
+		return new ArrayList<Pick>( result.values());
+	}
+
+	/*
+	 * Ein Composite, das jedes Pixel mit einem Alpha-Wert größer 0 durch die Kennung ersetzt
+	 * und alle anderen Pixel unverändert lässt. Die Kennung wird vor jedem Objekt umgesetzt; der
+	 * Kontext wird beim Zeichnen erzeugt und übernimmt die jeweils aktuelle Kennung.
+	 */
+	private static final class IdComposite implements Composite {
+		private int _id;
+
+		void setId( int id) {
+			_id = id;
+		}
+
+		public CompositeContext createContext( ColorModel srcColorModel, ColorModel dstColorModel, RenderingHints hints) {
+			return new IdCompositeContext( _id, srcColorModel);
+		}
+	}
+
+	private static final class IdCompositeContext implements CompositeContext {
+		private final int _red;
+		private final int _green;
+		private final int _blue;
+		private final ColorModel _srcColorModel;
+
+		IdCompositeContext( int id, ColorModel srcColorModel) {
+			_red = (id >> 16) & 0xFF;
+			_green = (id >> 8) & 0xFF;
+			_blue = id & 0xFF;
+			_srcColorModel = srcColorModel;
+		}
+
+		public void compose( Raster src, Raster dstIn, WritableRaster dstOut) {
+			final int width = Math.min( src.getWidth(), dstIn.getWidth());
+			final int height = Math.min( src.getHeight(), dstIn.getHeight());
+			final boolean hasAlpha = _srcColorModel.hasAlpha() && src.getNumBands() == 4;
+			final int[] alpha = new int[width];
+			final int[] rgb = new int[3 * width];
+			for ( int y = 0; y < height; y++) {
+				dstIn.getPixels( dstIn.getMinX(), dstIn.getMinY() + y, width, 1, rgb);
+				if ( hasAlpha) {
+					src.getSamples( src.getMinX(), src.getMinY() + y, width, 1, 3, alpha);
+				}
+				for ( int x = 0; x < width; x++) {
+					if ( !hasAlpha || alpha[x] > 0) {
+						rgb[3 * x] = _red;
+						rgb[3 * x + 1] = _green;
+						rgb[3 * x + 2] = _blue;
+					}
+				}
+				dstOut.setPixels( dstOut.getMinX(), dstOut.getMinY() + y, width, 1, rgb);
+			}
+		}
+
+		public void dispose() {
+		}
+	}
+
+	/*
+	 * Verwirft alles, was gezeichnet wird; für Objekte, die keine Kennung mehr bekommen.
+	 */
+	private static final Composite DISCARD = java.awt.AlphaComposite.getInstance( java.awt.AlphaComposite.DST);
+
+	private static final int NO_OBJECT = 0;
+
+	private static final int MAX_ID = 0xFFFFFF;
+
+	private static final int MAX_DIRTY_REGIONS = 64;
+
+	private BufferedImage _image = null;
+
+	private AffineTransform _transform = null;
+
+	private boolean _fullyValid = false;
+
+	private final List<Rectangle> _dirtyRegions = new ArrayList<Rectangle>();
+
+	private final Map<DisplayObject, Integer> _ids = new HashMap<DisplayObject, Integer>();
+
+	private final List<Pick> _picks = new ArrayList<Pick>();
+
+	private final IdComposite _composite = new IdComposite();
+}
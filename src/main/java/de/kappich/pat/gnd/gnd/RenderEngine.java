@@ -0,0 +1,255 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.gnd;
+
+import de.bsvrz.sys.funclib.debug.Debug;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Die RenderEngine zeichnet die Kacheln der Kartenansicht außerhalb des Event-Dispatch-Threads.
+ * <p>
+ * Die Kartenansicht beauftragt die RenderEngine mit {@link #submit(Object, Callable)} für jede fehlende
+ * oder veraltete Kachel einer Layergruppe; die Aufträge laufen parallel in einem Pool von
+ * Hintergrund-Threads. Das fertige Bild legt der Auftrag im Kachel-Cache ab und veranlasst ein
+ * Neuzeichnen seines Bereichs; der Event-Dispatch-Thread setzt das Bild der Kartenansicht dann nur noch
+ * aus den Kacheln zusammen.
+ * <p>
+ * Jeder neue Kartenausschnitt beginnt mit {@link #newFrame()} eine neue Generation. Aufträge, die im
+ * neuen Ausschnitt nicht erneut angefordert werden, gelten damit als abgebrochen: sie werden nicht mehr
+ * gestartet, und laufende Aufträge sollten mit {@link #isCancelled(Object)} zwischendurch prüfen, ob sie
+ * aufhören können. Wird eine Kachel erneut angefordert, während ihr Auftrag noch aussteht, so wird kein
+ * zweiter Auftrag erzeugt, sondern der vorhandene in die neue Generation übernommen. Ein Auftrag, der
+ * sein Ergebnis nicht ablegen konnte, weil es während des Zeichnens veraltet ist, wird nicht sofort
+ * wiederholt, sondern erst, wenn seine Kachel erneut angefordert wird; das geschieht mit dem Neuzeichnen,
+ * das die Änderung der Objekte auslöst. Beginnt vorher eine neue Generation, so wird er verworfen.
+ * <p>
+ * Eine Generation, in der Aufträge erteilt wurden, ist ein Zeichendurchgang. Er gilt als abgeschlossen,
+ * wenn kein Auftrag der Generation mehr aussteht, und als abgebrochen, wenn vorher die nächste Generation
+ * beginnt. Diese Durchgänge und die einzelnen Aufträge werden gezählt; {@link #toString()} gibt die
+ * Statistik aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class RenderEngine {
+
+	/**
+	 * Konstruiert eine RenderEngine mit der übergebenen Anzahl von Threads.
+	 *
+	 * @param numberOfThreads die Anzahl der Threads
+	 */
+	RenderEngine( final int numberOfThreads) {
+		_executor = Executors.newFixedThreadPool( Math.max( numberOfThreads, 1), new ThreadFactory() {
+			public Thread newThread( Runnable r) {
+				final Thread thread = new Thread( r, "GND-Rendern");
+				thread.setDaemon( true);
+				thread.setPriority( Thread.NORM_PRIORITY - 1);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Beginnt eine neue Generation; alle Aufträge, die danach nicht erneut angefordert werden,
+	 * gelten als abgebrochen.
+	 */
+	void newFrame() {
+		synchronized ( _requests) {
+			if ( _passOpen) {
+				_passOpen = false;
+				_cancelledPasses++;
+			}
+			_generation++;
+			for ( Iterator<Object> iterator = _parkedTasks.keySet().iterator(); iterator.hasNext(); ) {
+				_requests.remove( iterator.next());
+				iterator.remove();
+				_cancelledJobs++;
+			}
+		}
+	}
+
+	/**
+	 * Beauftragt die RenderEngine mit dem Zeichnen, das durch den Schlüssel bestimmt ist. Steht für den
+	 * Schlüssel bereits ein Auftrag aus, so wird dieser in die aktuelle Generation übernommen und der
+	 * übergebene Auftrag verworfen; wartet der vorhandene Auftrag auf seine Wiederholung, so wird er
+	 * jetzt neu gestartet.
+	 *
+	 * @param key der Schlüssel des Auftrags, z.B. die Kachel
+	 * @param job der Auftrag; er gibt <code>true</code> zurück, wenn sein Ergebnis abgelegt wurde,
+	 *        und <code>false</code>, wenn er abgebrochen wurde oder wiederholt werden muss
+	 */
+	void submit( final Object key, final Callable<Boolean> job) {
+		synchronized ( _requests) {
+			if ( _shutdown) {
+				return;
+			}
+			final boolean pending = _requests.containsKey( key);
+			_requests.put( key, _generation);
+			_passOpen = true;
+			if ( !pending) {
+				_executor.execute( new Task( key, job));
+				return;
+			}
+			final Task parkedTask = _parkedTasks.remove( key);
+			if ( parkedTask != null) {
+				_executor.execute( parkedTask);
+			} else {
+				_renewedKeys.add( key);
+			}
+		}
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn der Auftrag zum Schlüssel nicht mehr zur aktuellen Generation
+	 * gehört. Ein laufender Auftrag kann dann abbrechen, ohne sein Ergebnis abzulegen.
+	 *
+	 * @param key der Schlüssel des Auftrags
+	 * @return <code>true</code>, wenn der Auftrag abgebrochen ist
+	 */
+	boolean isCancelled( final Object key) {
+		synchronized ( _requests) {
+			final Long generation = _requests.get( key);
+			return generation == null || generation != _generation;
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized ( _requests) {
+			return "[RenderEngine: Durchgänge abgeschlossen=" + _completedPasses + ", abgebrochen=" + _cancelledPasses +
+				", Aufträge ausgeführt=" + _completedJobs + ", verworfen=" + _cancelledJobs +
+				", ausstehend=" + _requests.size() + "]";
+		}
+	}
+
+	/**
+	 * Beendet die Threads der RenderEngine; ausstehende Aufträge werden nicht mehr ausgeführt.
+	 */
+	void shutdown() {
+		synchronized ( _requests) {
+			_shutdown = true;
+			_passOpen = false;
+			_generation++;
+			_requests.clear();
+			_parkedTasks.clear();
+			_renewedKeys.clear();
+		}
+		_executor.shutdownNow();
+	}
+
+	/*
+	 * Führt einen Auftrag aus, wenn er noch zur aktuellen Generation gehört. Hat der Auftrag sein
+	 * Ergebnis nicht abgelegt und gehört er noch zur aktuellen Generation, so wird er neu gestartet,
+	 * falls seine Kachel während des Zeichnens erneut angefordert wurde, und sonst bis zur nächsten
+	 * Anforderung zurückgestellt. Damit läuft ein Auftrag, dessen Ergebnis immer wieder veraltet, nicht
+	 * ständig im Kreis.
+	 */
+	private final class Task implements Runnable {
+		private final Object _key;
+		private final Callable<Boolean> _job;
+
+		Task( Object key, Callable<Boolean> job) {
+			_key = key;
+			_job = job;
+		}
+
+		public void run() {
+			synchronized ( _requests) {
+				_renewedKeys.remove( _key);
+			}
+			boolean done = false;
+			if ( !isCancelled( _key)) {
+				try {
+					done = _job.call();
+				}
+				catch ( Exception e) {
+					_debug.warning( "Ein Zeichenauftrag der Kartenansicht ist fehlgeschlagen.", e);
+					done = true;
+				}
+			}
+			synchronized ( _requests) {
+				final Long generation = _requests.get( _key);
+				if ( done || generation == null || generation != _generation || _shutdown) {
+					_requests.remove( _key);
+					if ( done) {
+						_completedJobs++;
+					} else {
+						_cancelledJobs++;
+					}
+					if ( _passOpen && !_requests.containsValue( _generation)) {
+						_passOpen = false;
+						_completedPasses++;
+					}
+					return;
+				}
+				if ( _renewedKeys.remove( _key)) {
+					_executor.execute( this);
+				} else {
+					_parkedTasks.put( _key, this);
+				}
+			}
+		}
+	}
+
+	private final ExecutorService _executor;
+
+	/** Die ausstehenden Aufträge mit der Generation, in der sie zuletzt angefordert wurden. */
+	private final Map<Object, Long> _requests = new HashMap<Object, Long>();
+
+	/** Die Aufträge, deren Ergebnis veraltet war und die auf die nächste Anforderung ihrer Kachel warten. */
+	private final Map<Object, Task> _parkedTasks = new HashMap<Object, Task>();
+
+	/** Die Schlüssel der laufenden Aufträge, die während des Zeichnens erneut angefordert wurden. */
+	private final Set<Object> _renewedKeys = new HashSet<Object>();
+
+	private long _generation = 0;
+
+	/** Ist <code>true</code>, nachdem {@link #shutdown()} aufgerufen wurde; dann wird nichts mehr gestartet. */
+	private boolean _shutdown = false;
+
+	/** Ist <code>true</code>, solange in der aktuellen Generation Aufträge erteilt wurden, die ausstehen. */
+	private boolean _passOpen = false;
+
+	private long _completedPasses = 0;
+
+	private long _cancelledPasses = 0;
+
+	private long _completedJobs = 0;
+
+	private long _cancelledJobs = 0;
+
+	final private static Debug _debug = Debug.getLogger();
+}
@@ -0,0 +1,321 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.gnd;
+
+import de.bsvrz.sys.funclib.debug.Debug;
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager;
+
+import java.awt.Rectangle;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Der SubscriptionManager meldet nur die DisplayObjects beim Datenverteiler an, die im Kartenausschnitt
+ * (mit Rand) liegen und zu einem beim aktuellen Maßstab sichtbaren Layer gehören.
+ * <p>
+ * Die Kartenansicht übergibt bei jeder Änderung von Ausschnitt, Maßstab oder Layern mit
+ * {@link #viewChanged(Collection, Point2D)} die gewünschten DisplayObjects. Die An- und Abmeldungen
+ * erfolgen in einem eigenen Thread: neue Objekte werden nach ihrem Abstand von der Mitte des Ausschnitts
+ * sortiert und in Portionen angemeldet, die nächstgelegenen zuerst; kommt währenddessen ein neuer
+ * Ausschnitt, so wird mit diesem weitergemacht. Objekte, die nicht mehr gewünscht sind, bleiben noch für
+ * die bei der Konstruktion übergebene Haltezeit angemeldet, damit kurzes Hin- und Herschieben der Karte
+ * nicht ständig An- und Abmeldungen auslöst.
+ * <p>
+ * Die Anzahl der An- und Abmeldungen wird gezählt; {@link #toString()} gibt die Statistik aus.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class SubscriptionManager {
+
+	/**
+	 * Konstruiert einen SubscriptionManager, der über den übergebenen DisplayObjectManager an- und abmeldet.
+	 *
+	 * @param displayObjectManager der DisplayObjectManager
+	 * @param holdMillis die Zeit in Millisekunden, die ein nicht mehr gewünschtes Objekt angemeldet bleibt
+	 */
+	SubscriptionManager( final DisplayObjectManager displayObjectManager, final long holdMillis) {
+		_displayObjectManager = displayObjectManager;
+		_holdMillis = Math.max( 0L, holdMillis);
+		_executor = Executors.newSingleThreadScheduledExecutor( new ThreadFactory() {
+			public Thread newThread( Runnable r) {
+				final Thread thread = new Thread( r, "GND-Anmeldungen");
+				thread.setDaemon( true);
+				return thread;
+			}
+		});
+		final long checkInterval = Math.max( 1000L, _holdMillis / 2);
+		_executor.scheduleWithFixedDelay( _update, checkInterval, checkInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Übergibt die DisplayObjects, die angemeldet sein sollen. Die Methode darf aus jedem Thread
+	 * aufgerufen werden und kehrt sofort zurück; die Collection wird kopiert.
+	 *
+	 * @param displayObjects die gewünschten DisplayObjects
+	 * @param center die Mitte des Kartenausschnitts in UTM-Koordinaten
+	 */
+	void viewChanged( final Collection<DisplayObject> displayObjects, final Point2D center) {
+		_pendingView.set( new View( new HashSet<DisplayObject>( displayObjects), center));
+		execute();
+	}
+
+	/**
+	 * Meldet die DisplayObjects sofort ab, etwa weil ihr Layer entfernt wurde. Die Methode darf aus jedem
+	 * Thread aufgerufen werden und kehrt sofort zurück.
+	 *
+	 * @param displayObjects die DisplayObjects
+	 */
+	void displayObjectsRemoved( final Collection<DisplayObject> displayObjects) {
+		_removedObjects.add( new ArrayList<DisplayObject>( displayObjects));
+		execute();
+	}
+
+	/**
+	 * Meldet alle DisplayObjects ab und beendet den Thread des SubscriptionManagers.
+	 */
+	void shutdown() {
+		_pendingView.set( new View( new HashSet<DisplayObject>(), new Point2D.Double()));
+		try {
+			_executor.execute( new Runnable() {
+				public void run() {
+					update();
+					_displayObjectManager.unsubscribe( new ArrayList<DisplayObject>( _lastWanted.keySet()));
+					_lastWanted.clear();
+				}
+			});
+		}
+		catch ( RuntimeException ignored) {
+			// Schon beendet.
+		}
+		_executor.shutdown();
+	}
+
+	/**
+	 * Gibt die Anzahl der angemeldeten DisplayObjects zurück.
+	 *
+	 * @return die Anzahl der angemeldeten DisplayObjects
+	 */
+	int getNumberOfSubscriptions() {
+		return _numberOfSubscriptions;
+	}
+
+	@Override
+	public String toString() {
+		return "[SubscriptionManager: angemeldet=" + _numberOfSubscriptions + ", Anmeldungen=" + _subscriptions.get() +
+			", Abmeldungen=" + _unsubscriptions.get() + ", Haltezeit=" + _holdMillis + "ms]";
+	}
+
+	private void execute() {
+		try {
+			_executor.execute( _update);
+		}
+		catch ( RuntimeException e) {
+			_debug.fine( "Der SubscriptionManager ist bereits beendet.", e);
+		}
+	}
+
+	/*
+	 * Gleicht die Anmeldungen mit dem zuletzt übergebenen Ausschnitt ab. Läuft nur im Thread des
+	 * SubscriptionManagers, deshalb sind _view und _lastWanted nicht synchronisiert.
+	 */
+	private void update() {
+		final long now = System.currentTimeMillis();
+		final View view = _pendingView.getAndSet( null);
+		if ( view != null) {
+			// Was bisher gewünscht war, war es bis eben.
+			for ( DisplayObject displayObject : _view._displayObjects) {
+				if ( _lastWanted.containsKey( displayObject)) {
+					_lastWanted.put( displayObject, now);
+				}
+			}
+			_view = view;
+		}
+		List<DisplayObject> obsoleteObjects = new ArrayList<DisplayObject>();
+		for ( Collection<DisplayObject> removedObjects = _removedObjects.poll(); removedObjects != null;
+				removedObjects = _removedObjects.poll()) {
+			for ( DisplayObject displayObject : removedObjects) {
+				_view._displayObjects.remove( displayObject);
+				if ( _lastWanted.remove( displayObject) != null) {
+					obsoleteObjects.add( displayObject);
+				}
+			}
+		}
+		unsubscribe( obsoleteObjects);
+		subscribe( now);
+		obsoleteObjects = new ArrayList<DisplayObject>();
+		for ( Iterator<Map.Entry<DisplayObject, Long>> iterator = _lastWanted.entrySet().iterator(); iterator.hasNext();) {
+			final Map.Entry<DisplayObject, Long> entry = iterator.next();
+			if ( !_view._displayObjects.contains( entry.getKey()) && now - entry.getValue() >= _holdMillis) {
+				obsoleteObjects.add( entry.getKey());
+				iterator.remove();
+			}
+		}
+		unsubscribe( obsoleteObjects);
+		_numberOfSubscriptions = _lastWanted.size();
+	}
+
+	/*
+	 * Meldet die gewünschten, noch nicht angemeldeten Objekte an, die nächstgelegenen zuerst. Bricht ab,
+	 * sobald ein neuer Ausschnitt vorliegt; der nächste Durchlauf ist dann schon eingeplant.
+	 */
+	private void subscribe( final long now) {
+		final List<Candidate> candidates = new ArrayList<Candidate>();
+		final Point2D center = _view._center;
+		for ( DisplayObject displayObject : _view._displayObjects) {
+			if ( _lastWanted.containsKey( displayObject)) {
+				_lastWanted.put( displayObject, now);
+			} else {
+				candidates.add( new Candidate( displayObject, center));
+			}
+		}
+		if ( candidates.isEmpty()) {
+			return;
+		}
+		Collections.sort( candidates);
+		final List<DisplayObject> portion = new ArrayList<DisplayObject>( PORTION_SIZE);
+		for ( int start = 0; start < candidates.size(); start += PORTION_SIZE) {
+			if ( _pendingView.get() != null) {
+				return;
+			}
+			portion.clear();
+			for ( int i = start; i < Math.min( candidates.size(), start + PORTION_SIZE); i++) {
+				portion.add( candidates.get( i)._displayObject);
+			}
+			_displayObjectManager.subscribe( portion);
+			for ( DisplayObject displayObject : portion) {
+				_lastWanted.put( displayObject, now);
+			}
+			_subscriptions.addAndGet( portion.size());
+			_numberOfSubscriptions = _lastWanted.size();
+		}
+	}
+
+	private void unsubscribe( final List<DisplayObject> displayObjects) {
+		if ( !displayObjects.isEmpty()) {
+			_displayObjectManager.unsubscribe( displayObjects);
+			_unsubscriptions.addAndGet( displayObjects.size());
+		}
+	}
+
+	/*
+	 * Ein Kartenausschnitt: die gewünschten DisplayObjects und die Mitte.
+	 */
+	private static final class View {
+		private final Set<DisplayObject> _displayObjects;
+		private final Point2D _center;
+
+		private View( final Set<DisplayObject> displayObjects, final Point2D center) {
+			_displayObjects = displayObjects;
+			_center = center;
+		}
+	}
+
+	/*
+	 * Ein neu anzumeldendes DisplayObject mit dem Quadrat seines Abstands von der Mitte des Ausschnitts.
+	 * Objekte ohne umgebendes Rechteck haben den Abstand 0.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		private final DisplayObject _displayObject;
+		private final double _distanceSquare;
+
+		private Candidate( final DisplayObject displayObject, final Point2D center) {
+			_displayObject = displayObject;
+			final Rectangle boundingRectangle = displayObject.getBoundingRectangle();
+			if ( boundingRectangle == null) {
+				_distanceSquare = 0.;
+			} else {
+				final double dx = Math.max( 0., Math.abs( boundingRectangle.getCenterX() - center.getX()) - boundingRectangle.getWidth() / 2);
+				final double dy = Math.max( 0., Math.abs( boundingRectangle.getCenterY() - center.getY()) - boundingRectangle.getHeight() / 2);
+				_distanceSquare = dx * dx + dy * dy;
+			}
+		}
+
+		public int compareTo( Candidate o) {
+			return Double.compare( _distanceSquare, o._distanceSquare);
+		}
+	}
+
+	/** Die Anzahl der DisplayObjects, die höchstens mit einem Aufruf des DisplayObjectManagers angemeldet werden. */
+	private static final int PORTION_SIZE = 500;
+
+	final private static Debug _debug = Debug.getLogger();
+
+	private final DisplayObjectManager _displayObjectManager;
+
+	private final long _holdMillis;
+
+	private final ScheduledExecutorService _executor;
+
+	private final Runnable _update = new Runnable() {
+		public void run() {
+			try {
+				update();
+			}
+			catch ( RuntimeException e) {
+				_debug.warning( "Die Anmeldungen konnten nicht abgeglichen werden.", e);
+			}
+		}
+	};
+
+	/** Der zuletzt übergebene, noch nicht abgearbeitete Ausschnitt oder <code>null</code>. */
+	private final AtomicReference<View> _pendingView = new AtomicReference<View>();
+
+	private final ConcurrentLinkedQueue<Collection<DisplayObject>> _removedObjects =
+		new ConcurrentLinkedQueue<Collection<DisplayObject>>();
+
+	/** Der aktuelle Ausschnitt; nur im Thread des SubscriptionManagers benutzt. */
+	private View _view = new View( new HashSet<DisplayObject>(), new Point2D.Double());
+
+	/**
+	 * Die angemeldeten DisplayObjects mit dem Zeitpunkt, zu dem sie zuletzt gewünscht waren; nur im
+	 * Thread des SubscriptionManagers benutzt.
+	 */
+	private final Map<DisplayObject, Long> _lastWanted = new HashMap<DisplayObject, Long>();
+
+	private volatile int _numberOfSubscriptions = 0;
+
+	private final AtomicLong _subscriptions = new AtomicLong();
+
+	private final AtomicLong _unsubscriptions = new AtomicLong();
+}
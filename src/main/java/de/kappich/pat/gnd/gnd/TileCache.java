@@ -0,0 +1,413 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.gnd;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Ein Kachel-Cache für die Kartenansicht.
+ * <p>
+ * Die Kartenansicht wird in quadratische Kacheln fester Größe zerlegt, die einmal gezeichnet und dann
+ * beim Verschieben der Karte wiederverwendet werden. Das Kachelraster liegt in den Pixel-Koordinaten
+ * der Transformation ohne die Verschiebung; beim Verschieben ändert sich daher nur die Position der
+ * Kacheln, nicht ihr Inhalt. Jede Kachel gehört zu einer Layergruppe, also einer Folge von Layern, die
+ * übereinander gezeichnet werden; das Bild der Kartenansicht setzt sich aus den Kacheln der Gruppen
+ * zusammen. Eine Gruppe ist statisch, wenn ihre Layer keine dynamischen Eigenschaften haben, und sonst
+ * dynamisch (live). Eine Kachel wird durch einen {@link Key} aus Zoomstufe, Kachelspalte, Kachelzeile,
+ * Gruppe und Version des Cache bestimmt. Die Gruppe geht mit ihren Layern in den Schlüssel ein, nicht
+ * mit ihrer Position: blendet der Maßstab einen Layer ein oder aus, so ändert sich die Zusammensetzung
+ * der Gruppen, und die Kacheln der alten Zusammensetzung werden nicht mehr gefunden. Die Version wird mit
+ * {@link #invalidateAll()} erhöht, wenn sich etwas an der Darstellung aller Objekte ändert (Layer,
+ * Darstellungstypen, Anti-Aliasing).
+ * <p>
+ * Ändert sich der Zustand eines einzelnen DisplayObjects, so werden mit {@link #invalidate(Rectangle2D, boolean)}
+ * nur die Kacheln der statischen oder der dynamischen Gruppen als veraltet markiert, die sein umgebendes
+ * Rechteck schneiden. Die Kacheln der statischen Gruppen werden daher bei neuen Online-Daten nicht neu
+ * gezeichnet. Eine veraltete Kachel bleibt im Cache und wird angezeigt, bis ihr Nachfolger fertig ist.
+ * <p>
+ * Kacheln können in beliebigen Threads gezeichnet werden. Dazu holt man mit {@link #startRendering} eine
+ * {@link Ticket Quittung} und legt das Bild mit {@link #finishRendering} ab. Wird der Bereich der Kachel
+ * in der Zwischenzeit invalidiert, so wird das Bild nicht übernommen, weil es veraltet sein kann. Alle
+ * Methoden sind synchronisiert.
+ * <p>
+ * Der Speicherbedarf der Kacheln ist durch das bei der Konstruktion übergebene Budget beschränkt;
+ * ist es überschritten, so werden die am längsten nicht mehr benutzten Kacheln entfernt.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+final class TileCache {
+
+	/** Die Kantenlänge einer Kachel in Pixeln. */
+	static final int TILE_SIZE = 256;
+
+	/**
+	 * Der Schlüssel einer Kachel.
+	 */
+	static final class Key {
+		private final double _zoom;
+		private final int _tileX;
+		private final int _tileY;
+		private final List<?> _layers;
+		private final boolean _opaque;
+		private final long _version;
+		private final int _hashCode;
+
+		private Key( double zoom, int tileX, int tileY, List<?> layers, boolean opaque, long version) {
+			_zoom = zoom;
+			_tileX = tileX;
+			_tileY = tileY;
+			_layers = layers;
+			_opaque = opaque;
+			_version = version;
+			final long bits = Double.doubleToLongBits( _zoom);
+			int result = (int) (bits ^ (bits >>> 32));
+			result = 31 * result + _tileX;
+			result = 31 * result + _tileY;
+			result = 31 * result + _layers.hashCode();
+			result = 31 * result + (_opaque ? 1 : 0);
+			_hashCode = 31 * result + (int) _version;
+		}
+
+		@Override
+		public boolean equals( Object o) {
+			if ( !(o instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) o;
+			return Double.compare( _zoom, other._zoom) == 0 && _tileX == other._tileX && _tileY == other._tileY
+				&& _opaque == other._opaque && _version == other._version && _hashCode == other._hashCode
+				&& _layers.equals( other._layers);
+		}
+
+		@Override
+		public int hashCode() {
+			return _hashCode;
+		}
+	}
+
+	/**
+	 * Eine Kachel im Cache.
+	 */
+	static final class Tile {
+		private final BufferedImage _image;
+		private final Rectangle2D _utmBounds;
+		private final boolean _live;
+		private boolean _stale = false;
+
+		private Tile( BufferedImage image, Rectangle2D utmBounds, boolean live) {
+			_image = image;
+			_utmBounds = utmBounds;
+			_live = live;
+		}
+
+		/**
+		 * Gibt das Bild der Kachel zurück.
+		 *
+		 * @return das Bild
+		 */
+		BufferedImage getImage() {
+			return _image;
+		}
+	}
+
+	/**
+	 * Eine Quittung für eine Kachel, die gerade gezeichnet wird.
+	 */
+	static final class Ticket {
+		private final Key _key;
+		private final Rectangle2D _utmBounds;
+		private final boolean _live;
+		private boolean _valid = true;
+
+		private Ticket( Key key, Rectangle2D utmBounds, boolean live) {
+			_key = key;
+			_utmBounds = utmBounds;
+			_live = live;
+		}
+	}
+
+	/**
+	 * Konstruiert einen Kachel-Cache mit dem übergebenen Speicherbudget.
+	 *
+	 * @param budget das Speicherbudget in Bytes
+	 */
+	TileCache( final long budget) {
+		_budget = Math.max( budget, TILE_BYTES);
+	}
+
+	/**
+	 * Erzeugt den Schlüssel der Kachel in der aktuellen Version des Cache.
+	 *
+	 * @param zoom die Zoomstufe
+	 * @param tileX die Kachelspalte
+	 * @param tileY die Kachelzeile
+	 * @param layers die Layer der Gruppe in Zeichenreihenfolge; die Liste darf danach nicht mehr geändert werden
+	 * @param opaque <code>true</code>, wenn die Kachel einen undurchsichtigen Hintergrund hat
+	 * @return der Schlüssel
+	 */
+	Key createKey( final double zoom, final int tileX, final int tileY, final List<?> layers, final boolean opaque) {
+		synchronized ( _tiles) {
+			return new Key( zoom, tileX, tileY, layers, opaque, _version);
+		}
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn der Schlüssel zur aktuellen Version des Cache gehört.
+	 *
+	 * @param key der Schlüssel
+	 * @return <code>true</code>, wenn der Schlüssel aktuell ist
+	 */
+	boolean isCurrent( final Key key) {
+		synchronized ( _tiles) {
+			return key._version == _version;
+		}
+	}
+
+	/**
+	 * Gibt die Kachel zum Schlüssel zurück, oder <code>null</code>, wenn sie nicht im Cache ist.
+	 *
+	 * @param key der Schlüssel
+	 * @return die Kachel oder <code>null</code>
+	 */
+	Tile get( final Key key) {
+		synchronized ( _tiles) {
+			return _tiles.get( key);
+		}
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn die Kachel veraltet ist und neu gezeichnet werden muss.
+	 *
+	 * @param tile die Kachel
+	 * @return <code>true</code>, wenn die Kachel veraltet ist
+	 */
+	boolean isStale( final Tile tile) {
+		synchronized ( _tiles) {
+			return tile._stale;
+		}
+	}
+
+	/**
+	 * Meldet an, dass die Kachel zum Schlüssel gezeichnet wird.
+	 *
+	 * @param key der Schlüssel
+	 * @param utmBounds das Rechteck der Kachel in UTM-Koordinaten
+	 * @param live <code>true</code>, wenn die Layergruppe dynamisch ist
+	 * @return die Quittung für {@link #finishRendering}
+	 */
+	Ticket startRendering( final Key key, final Rectangle2D utmBounds, final boolean live) {
+		final Ticket ticket = new Ticket( key, utmBounds, live);
+		synchronized ( _tiles) {
+			if ( key._version == _version) {
+				_tickets.add( ticket);
+			} else {
+				ticket._valid = false;
+			}
+		}
+		return ticket;
+	}
+
+	/**
+	 * Legt die gezeichnete Kachel im Cache ab, wenn ihr Bereich seit {@link #startRendering} nicht
+	 * invalidiert wurde.
+	 *
+	 * @param ticket die Quittung
+	 * @param image das Bild der Kachel
+	 * @return <code>true</code>, wenn die Kachel abgelegt wurde
+	 */
+	boolean finishRendering( final Ticket ticket, final BufferedImage image) {
+		synchronized ( _tiles) {
+			_tickets.remove( ticket);
+			if ( !ticket._valid) {
+				return false;
+			}
+			final Tile old = _tiles.put( ticket._key, new Tile( image, ticket._utmBounds, ticket._live));
+			if ( old == null) {
+				_bytes += TILE_BYTES;
+			}
+			evict();
+			return true;
+		}
+	}
+
+	/**
+	 * Meldet ab, dass die Kachel zur Quittung gezeichnet wird, ohne ein Bild abzulegen.
+	 *
+	 * @param ticket die Quittung
+	 */
+	void cancelRendering( final Ticket ticket) {
+		synchronized ( _tiles) {
+			_tickets.remove( ticket);
+		}
+	}
+
+	/**
+	 * Markiert alle Kacheln als veraltet, deren UTM-Rechteck das übergebene Rechteck schneidet.
+	 *
+	 * @param utmRectangle das Rechteck in UTM-Koordinaten
+	 */
+	void invalidate( final Rectangle2D utmRectangle) {
+		synchronized ( _tiles) {
+			invalidate( utmRectangle, false);
+			invalidate( utmRectangle, true);
+		}
+	}
+
+	/**
+	 * Markiert die Kacheln der statischen oder der dynamischen Layergruppen als veraltet, deren
+	 * UTM-Rechteck das übergebene Rechteck schneidet.
+	 *
+	 * @param utmRectangle das Rechteck in UTM-Koordinaten
+	 * @param live <code>true</code> für die dynamischen, <code>false</code> für die statischen Kacheln
+	 */
+	void invalidate( final Rectangle2D utmRectangle, final boolean live) {
+		synchronized ( _tiles) {
+			for ( Tile tile : _tiles.values()) {
+				if ( tile._live == live && tile._utmBounds.intersects( utmRectangle)) {
+					tile._stale = true;
+				}
+			}
+			for ( Ticket ticket : _tickets) {
+				if ( ticket._live == live && ticket._utmBounds.intersects( utmRectangle)) {
+					ticket._valid = false;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Verwirft alle Kacheln.
+	 */
+	void invalidateAll() {
+		synchronized ( _tiles) {
+			_version++;
+			_tiles.clear();
+			for ( Ticket ticket : _tickets) {
+				ticket._valid = false;
+			}
+			_bytes = 0;
+		}
+	}
+
+	/**
+	 * Gibt das Kachelraster-Rechteck (erste und letzte Spalte und Zeile) zurück, das den übergebenen
+	 * Pixelbereich überdeckt. Die Pixel-Koordinaten sind relativ zum Ursprung des Kachelrasters.
+	 *
+	 * @param x die x-Koordinate des Bereichs
+	 * @param y die y-Koordinate des Bereichs
+	 * @param width die Breite des Bereichs
+	 * @param height die Höhe des Bereichs
+	 * @return die Kacheln als Rechteck aus Spalten und Zeilen
+	 */
+	static Rectangle getTileRange( final double x, final double y, final double width, final double height) {
+		final int firstX = (int) Math.floor( x / TILE_SIZE);
+		final int firstY = (int) Math.floor( y / TILE_SIZE);
+		final int lastX = (int) Math.floor( (x + width - 1) / TILE_SIZE);
+		final int lastY = (int) Math.floor( (y + height - 1) / TILE_SIZE);
+		return new Rectangle( firstX, firstY, lastX - firstX + 1, lastY - firstY + 1);
+	}
+
+	/**
+	 * Gibt das Rechteck der Kachel in UTM-Koordinaten zurück, vergrößert um den übergebenen Rand in
+	 * Pixeln. Der Rand sorgt dafür, dass auch Objekte gezeichnet werden, die mit Symbolen oder Texten
+	 * etwas über ihr umgebendes Rechteck hinaus zeichnen.
+	 *
+	 * @param tileTransform die Transformation von UTM-Koordinaten in Kachelraster-Pixel
+	 * @param tileX die Kachelspalte
+	 * @param tileY die Kachelzeile
+	 * @param margin der Rand in Pixeln
+	 * @return das Rechteck oder <code>null</code>, wenn die Transformation nicht invertierbar ist
+	 */
+	static Rectangle2D getUTMBounds( final AffineTransform tileTransform, final int tileX, final int tileY, final int margin) {
+		final Rectangle pixels = new Rectangle( tileX * TILE_SIZE - margin, tileY * TILE_SIZE - margin,
+				TILE_SIZE + 2 * margin, TILE_SIZE + 2 * margin);
+		try {
+			return tileTransform.createInverse().createTransformedShape( pixels).getBounds2D();
+		}
+		catch ( NoninvertibleTransformException ignored) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gibt die Zoomstufen zurück, für die Kacheln im Cache sind.
+	 *
+	 * @return die Zoomstufen
+	 */
+	List<Double> getCachedZooms() {
+		final List<Double> zooms = new ArrayList<Double>();
+		synchronized ( _tiles) {
+			for ( Key key : _tiles.keySet()) {
+				if ( !zooms.contains( key._zoom)) {
+					zooms.add( key._zoom);
+				}
+			}
+		}
+		return zooms;
+	}
+
+	@Override
+	public String toString() {
+		synchronized ( _tiles) {
+			return "[TileCache: Kacheln=" + _tiles.size() + ", Bytes=" + _bytes + "/" + _budget + ", Version=" + _version
+				+ ", in Arbeit=" + _tickets.size() + "]";
+		}
+	}
+
+	private void evict() {
+		final Iterator<Tile> iterator = _tiles.values().iterator();
+		while ( _bytes > _budget && iterator.hasNext()) {
+			iterator.next();
+			iterator.remove();
+			_bytes -= TILE_BYTES;
+		}
+	}
+
+	/** Der Speicherbedarf einer Kachel vom Typ <code>TYPE_INT_RGB</code> oder <code>TYPE_INT_ARGB</code>. */
+	private static final long TILE_BYTES = 4L * TILE_SIZE * TILE_SIZE;
+
+	private final long _budget;
+
+	/** Die Kacheln in der Reihenfolge ihrer Benutzung; die älteste steht vorne. */
+	private final LinkedHashMap<Key, Tile> _tiles = new LinkedHashMap<Key, Tile>( 64, 0.75f, true);
+
+	/** Die Quittungen der Kacheln, die gerade gezeichnet werden. */
+	private final List<Ticket> _tickets = new ArrayList<Ticket>();
+
+	private long _bytes = 0;
+
+	private long _version = 0;
+}
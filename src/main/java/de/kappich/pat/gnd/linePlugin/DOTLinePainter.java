@@ -29,9 +29,12 @@ import de.kappich.pat.gnd.colorManagement.ColorManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTProperty;
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
 import de.kappich.pat.gnd.displayObjectToolkit.DynamicDOTItem;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
+import de.kappich.pat.gnd.displayObjectToolkit.PaintBatch;
 import de.kappich.pat.gnd.displayObjectToolkit.PrimitiveFormPropertyPair;
+import de.kappich.pat.gnd.displayObjectToolkit.StyleCache;
 import de.kappich.pat.gnd.gnd.MapPane;
-import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
+import de.kappich.pat.gnd.pluginInterfaces.BatchDisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType.DisplayObjectTypeItem;
 
 import javax.swing.*;
@@ -40,6 +43,7 @@ import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
 import java.awt.geom.PathIterator;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.util.*;
 import java.util.List;
 
@@ -51,7 +55,7 @@ import java.util.List;
  *
  */
 @SuppressWarnings("serial")
-public class DOTLinePainter extends JPanel implements DisplayObjectPainter {
+public class DOTLinePainter extends JPanel implements BatchDisplayObjectPainter {
 	
 	static float [] _dashes = {10.0F, 3.0F, 5.0F, 3.0F};
 	
@@ -60,70 +64,135 @@ public class DOTLinePainter extends JPanel implements DisplayObjectPainter {
 		final DOTLine dotLine = (DOTLine) displayObject.getDOTCollection().getDisplayObjectType(
 				mapPane.getMapScale().intValue());
 		if ( dotLine != null ) {
-			final Color color;
-			if ( dotLine.isPropertyStatic( null, DOTProperty.FARBE)) {
-				color = ColorManager.getInstance().getColor((String) dotLine.getValueOfStaticProperty( null, DOTProperty.FARBE));
-			} else {
-				final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.FARBE);
-				if ( primitiveFormPropertyPair == null) {
-					return;
-				}
-				final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
-				if ( displayObjectTypeItem == null) {
-					return;
-				}
-				final Object propertyValue = displayObjectTypeItem.getPropertyValue();
-				if ( propertyValue != null) {
-					color = ColorManager.getInstance().getColor((String) propertyValue);
-				} else if ( displayObjectTypeItem == DynamicDOTItem.NO_DATA_ITEM) {
-					color = ColorManager.getInstance().getColor( "keine");
-				} else if ( displayObjectTypeItem == DynamicDOTItem.NO_SOURCE_ITEM) {
-					color = ColorManager.getInstance().getColor( "keine");
-				} else {
-					color = ColorManager.getInstance().getColor( "keine");
-				}
-				// Die letzten drei Fälle werden noch gleichbehandelt, aber bei einer kommenden
-				// Erweiterung muss hier unterschieden werden.
+			final Color color = determineColor( dotLine, displayObject);
+			if ( color == null) {
+				return;
 			}
-			
-			final Integer distance;
-			if ( dotLine.isPropertyStatic( null, DOTProperty.ABSTAND)) {
-				distance = (Integer) dotLine.getValueOfStaticProperty( null, DOTProperty.ABSTAND);
-			} else {
-				final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.ABSTAND);
-				final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
-				if ( displayObjectTypeItem == null) {
-					return;
-				}
-				distance = (Integer) displayObjectTypeItem.getPropertyValue();
+			final Integer distance = determineDistance( dotLine, displayObject);
+			if ( distance == null) {
+				return;
 			}
-			
-			final Double strokeWidth;
-			if ( dotLine.isPropertyStatic( null, DOTProperty.STRICHBREITE)) {
-				strokeWidth = (Double) dotLine.getValueOfStaticProperty( null, DOTProperty.STRICHBREITE);
-			} else {
-				final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.STRICHBREITE);
-				final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
-				if ( displayObjectTypeItem == null) {
-					return;
-				}
-				strokeWidth = (Double) displayObjectTypeItem.getPropertyValue();
+			final Double strokeWidth = determineStrokeWidth( dotLine, displayObject);
+			if ( strokeWidth == null) {
+				return;
 			}
-			if ( !selected ) {
-				g2D.setColor( color);
-				g2D.setStroke( new BasicStroke( strokeWidth.floatValue(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 10.0f, null, 0.0f));
-			} else {
-				g2D.setColor(color.darker());
-				g2D.setStroke( new BasicStroke( 2 * strokeWidth.floatValue(), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 10.0f, null, 0.0f));
+			paintLine( g2D, displayObject, color, distance, strokeWidth, mapPane.getSimplificationTolerance(), selected);
+		}
+	}
+	
+	/*
+	 * Zeichnet die Linie mit den bereits bestimmten Eigenschaften. Farbe und Strichart kommen aus dem
+	 * StyleCache, die Pfade aus dem GeometryStore, so dass beim Zeichnen nichts angelegt wird.
+	 */
+	void paintLine( Graphics2D g2D, DisplayObject displayObject, Color color, int distance, 
+			double strokeWidth, double tolerance, boolean selected) {
+		if ( !selected ) {
+			g2D.setColor( color);
+		} else {
+			g2D.setColor( StyleCache.getDarker( color));
+		}
+		g2D.setStroke( StyleCache.getRoundStroke( strokeWidth, selected));
+		if ( distance == 0) {
+			final GeometryStore geometryStore = displayObject.getGeometryStore();
+			final int geometryIndex = displayObject.getGeometryIndex();
+			for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+				g2D.draw( geometryStore.getSharedPath( part, tolerance));
 			}
+		} else {
 			for ( Object o : displayObject.getCoordinates( distance)) {
 				Path2D.Double polyline = (Path2D.Double) o;
 				g2D.draw( polyline);
 			}
-			displayObject.setDefaultType( distance);
 		}
 	}
 	
+	public boolean addToBatch( MapPane mapPane, PaintBatch batch, DisplayObject displayObject, boolean selected) {
+		final DOTLine dotLine = (DOTLine) displayObject.getDOTCollection().getDisplayObjectType(
+				mapPane.getMapScale().intValue());
+		if ( dotLine == null ) {
+			return true;
+		}
+		final Color color = determineColor( dotLine, displayObject);
+		final Integer distance = determineDistance( dotLine, displayObject);
+		final Double strokeWidth = determineStrokeWidth( dotLine, displayObject);
+		if ( (color == null) || (distance == null) || (strokeWidth == null)) {
+			return false;
+		}
+		final Color lineColor = selected ? StyleCache.getDarker( color) : color;
+		if ( lineColor.getAlpha() != 0) {	// Unsichtbare Linien werden nicht gesammelt.
+			final BasicStroke stroke = StyleCache.getRoundStroke( strokeWidth, selected);
+			if ( distance == 0) {
+				final GeometryStore geometryStore = displayObject.getGeometryStore();
+				final int geometryIndex = displayObject.getGeometryIndex();
+				final double tolerance = mapPane.getSimplificationTolerance();
+				for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+					batch.draw( lineColor, stroke, selected, geometryStore.getSharedPath( part, tolerance));
+				}
+			} else {
+				for ( Object o : displayObject.getCoordinates( distance)) {
+					batch.draw( lineColor, stroke, selected, (Path2D.Double) o);
+				}
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Bestimmt die Farbe der Linie oder gibt null zurück, wenn sie nicht bestimmt werden kann.
+	 */
+	private Color determineColor( final DOTLine dotLine, final DisplayObject displayObject) {
+		if ( dotLine.isPropertyStatic( null, DOTProperty.FARBE)) {
+			return ColorManager.getInstance().getColor((String) dotLine.getValueOfStaticProperty( null, DOTProperty.FARBE));
+		}
+		final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.FARBE);
+		final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
+		if ( displayObjectTypeItem == null) {
+			return null;
+		}
+		final Object propertyValue = displayObjectTypeItem.getPropertyValue();
+		// Die letzten drei Fälle werden noch gleichbehandelt, aber bei einer kommenden
+		// Erweiterung muss hier unterschieden werden.
+		if ( propertyValue != null) {
+			return ColorManager.getInstance().getColor((String) propertyValue);
+		} else if ( displayObjectTypeItem == DynamicDOTItem.NO_DATA_ITEM) {
+			return ColorManager.getInstance().getColor( "keine");
+		} else if ( displayObjectTypeItem == DynamicDOTItem.NO_SOURCE_ITEM) {
+			return ColorManager.getInstance().getColor( "keine");
+		} else {
+			return ColorManager.getInstance().getColor( "keine");
+		}
+	}
+	
+	/*
+	 * Bestimmt den Abstand der Linie oder gibt null zurück, wenn er nicht bestimmt werden kann.
+	 */
+	private Integer determineDistance( final DOTLine dotLine, final DisplayObject displayObject) {
+		if ( dotLine.isPropertyStatic( null, DOTProperty.ABSTAND)) {
+			return (Integer) dotLine.getValueOfStaticProperty( null, DOTProperty.ABSTAND);
+		}
+		final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.ABSTAND);
+		final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
+		if ( displayObjectTypeItem == null) {
+			return null;
+		}
+		return (Integer) displayObjectTypeItem.getPropertyValue();
+	}
+	
+	/*
+	 * Bestimmt die Strichbreite der Linie oder gibt null zurück, wenn sie nicht bestimmt werden kann.
+	 */
+	private Double determineStrokeWidth( final DOTLine dotLine, final DisplayObject displayObject) {
+		if ( dotLine.isPropertyStatic( null, DOTProperty.STRICHBREITE)) {
+			return (Double) dotLine.getValueOfStaticProperty( null, DOTProperty.STRICHBREITE);
+		}
+		final PrimitiveFormPropertyPair primitiveFormPropertyPair = new PrimitiveFormPropertyPair( null, DOTProperty.STRICHBREITE);
+		final DisplayObjectTypeItem displayObjectTypeItem = displayObject.getDisplayObjectTypeItem( primitiveFormPropertyPair);
+		if ( displayObjectTypeItem == null) {
+			return null;
+		}
+		return (Double) displayObjectTypeItem.getPropertyValue();
+	}
+	
 	/*
 	 * Gibt die Polylines aus dem Standardausgabekanal aus.
 	 */
@@ -287,17 +356,20 @@ public class DOTLinePainter extends JPanel implements DisplayObjectPainter {
 		return new Point2D.Double(x,y);
 	}
 	
+	/*
+	 * Jeder Punkt einer um type verschobenen Linie liegt höchstens |type| (und wegen der Rundung
+	 * in getMovedPolyline eine Einheit mehr) von der unverschobenen Linie entfernt. Deshalb wird das
+	 * Rechteck aus der Geometrie des GeometryStores bestimmt, ohne die verschobenen Koordinaten zu
+	 * benötigen, die eventuell noch im Hintergrund berechnet werden.
+	 */
 	public Rectangle getBoundingRectangle(DisplayObject displayObject, int type) {
 		Rectangle rect = null;
-		for ( Object o : displayObject.getCoordinates(type)) {
-			Path2D.Double polyline = (Path2D.Double) o;
-			if ( rect == null) {
-				rect = polyline.getBounds();
-			} else {
-				rect.add( polyline.getBounds());
+		final Rectangle2D bounds = displayObject.getGeometryStore().getBounds2D( displayObject.getGeometryIndex());
+		if ( bounds != null) {
+			rect = bounds.getBounds();
+			if ( type != 0) {
+				rect.grow( Math.abs( type) + 1, Math.abs( type) + 1);
 			}
-		}
-		if ( rect != null) {
 			rect.grow(5, 5);	// Wegen der Selektion!
 		}
 		return rect;
@@ -27,7 +27,7 @@
 package de.kappich.pat.gnd.needlePlugin;
 
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
-import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
 import de.kappich.pat.gnd.gnd.MapPane;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 
@@ -48,7 +48,7 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 
 	public void paintDisplayObject(final MapPane mapPane, final Graphics2D g2D, final DisplayObject displayObject, final boolean selected) {
 		if(!mapPane.getGnd().getNoticeManager().hasNotice(displayObject.getSystemObject())) return;
-		if(displayObject.getCoordinates().size() == 0) return;
+		if(displayObject.getGeometryStore().isEmpty(displayObject.getGeometryIndex())) return;
 		final Collection<Point2D> drawPoint = getPointLocations(mapPane, displayObject);
 		if(drawPoint == null) return;
 		for(final Point2D point2D : drawPoint) {
@@ -58,30 +58,23 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 
 	private Collection<Point2D> getPointLocations(final MapPane mapPane, final DisplayObject displayObject) {
 		final Collection<Point2D> result = new ArrayList<Point2D>();
-		for(final Object o : displayObject.getCoordinates()) {
-			result.addAll(getPointLocations(mapPane, o));
-		}
-		return result;
-	}
-
-	private Collection<Point2D> getPointLocations(final MapPane mapPane, final Object o) {
-		if(o instanceof DisplayObjectManager.PointWithAngle) {
-			final DisplayObjectManager.PointWithAngle pointWithAngle = (DisplayObjectManager.PointWithAngle)o;
-			final Point2D drawPoint = pointWithAngle.getPoint();
-			return Arrays.asList(drawPoint);
-		}
-		if(o instanceof Path2D) {
-			final Path2D path2D = (Path2D)o;
-
-			final List<Path2D.Double> paths = cutPathToRectangle(path2D, mapPane.getUTMBounds());
-
-			final List<Point2D> result = new ArrayList<Point2D>();
-			for(final Path2D.Double path : paths) {
-				result.add(getPathMidPoint(path));
+		final GeometryStore geometryStore = displayObject.getGeometryStore();
+		final int geometryIndex = displayObject.getGeometryIndex();
+		Rectangle utmBounds = null;
+		for(int part = geometryStore.getFirstPart(geometryIndex); part < geometryStore.getEndPart(geometryIndex); part++) {
+			final int partType = geometryStore.getPartType(part);
+			if(partType == GeometryStore.POINT) {
+				final int vertex = geometryStore.getFirstVertex(part);
+				result.add(new Point2D.Double(geometryStore.getX(vertex), geometryStore.getY(vertex)));
+			}
+			else if(partType == GeometryStore.POLYLINE) {
+				if(utmBounds == null) utmBounds = mapPane.getUTMBounds();
+				for(final Path2D.Double path : cutPathToRectangle(geometryStore, part, utmBounds)) {
+					result.add(getPathMidPoint(path));
+				}
 			}
-			return result;
 		}
-		return Collections.emptyList();
+		return result;
 	}
 
 	private Point2D.Double getPathMidPoint(final Path2D.Double path) {
@@ -152,25 +145,22 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 		return length;
 	}
 
-	private List<Path2D.Double> cutPathToRectangle(final Path2D path2D, final Rectangle bounds) {
+	private List<Path2D.Double> cutPathToRectangle(final GeometryStore geometryStore, final int part, final Rectangle bounds) {
 //		bounds.grow(-1000, -1000);
 		final List<Path2D.Double> result = new ArrayList<Path2D.Double>();
-		final double[] coords = new double[6];
+		final int firstVertex = geometryStore.getFirstVertex(part);
+		final int endVertex = geometryStore.getEndVertex(part);
+		if(firstVertex == endVertex) return result;
 
-		final PathIterator pathIterator = path2D.getPathIterator(null);
-		pathIterator.currentSegment(coords);
-		Point2D.Double point0 = new Point2D.Double(coords[0], coords[1]);
-		pathIterator.next();
+		Point2D.Double point0 = new Point2D.Double(geometryStore.getX(firstVertex), geometryStore.getY(firstVertex));
 
 		Path2D.Double outPath = null;
 		if(bounds.contains(point0)) {
 			outPath = new Path2D.Double();
 			outPath.moveTo(point0.getX(), point0.getY());
 		}
-		while(!pathIterator.isDone()) {
-			pathIterator.currentSegment(coords);
-			pathIterator.next();
-			final Point2D.Double point1 = new Point2D.Double(coords[0], coords[1]);
+		for(int vertex = firstVertex + 1; vertex < endVertex; vertex++) {
+			final Point2D.Double point1 = new Point2D.Double(geometryStore.getX(vertex), geometryStore.getY(vertex));
 
 			if(bounds.contains(point1)) {
 				// neuer Punkt liegt innerhalb des rechtecks
@@ -302,20 +292,20 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 		final double scale = getScale(mapPane);
 		g2D.scale(scale, scale);
 		final Point2D.Double nullPoint = new Point2D.Double(0, 0);
-		g2D.setStroke(new BasicStroke(0.3f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+		g2D.setStroke(NEEDLE_STROKE);
 		final Point2D.Double p = new Point2D.Double(9, -6);
-		g2D.setPaint(new GradientPaint(p, new Color(0, 0, 0, 0.0f), nullPoint, new Color(0, 0, 0, 0.2f)));
+		g2D.setPaint(new GradientPaint(p, SHADOW_START_COLOR, nullPoint, SHADOW_END_COLOR));
 		g2D.draw(new Line2D.Double(p, nullPoint));
 		g2D.setColor(Color.gray);
 		g2D.draw(new Line2D.Double(xOffset, -27.5 + yOffset, 0, 0));
 		if(selected || mapPane.getSelectedSystemObjects().contains(displayObject.getSystemObject())) {
-			g2D.setColor(Color.red.darker());
+			g2D.setColor(SELECTED_HEAD_COLOR);
 		}
 		else {
-			g2D.setColor(Color.green.darker());
+			g2D.setColor(HEAD_COLOR);
 		}
 		g2D.fill(new Ellipse2D.Double(-2.5 + xOffset, -30 + yOffset, 5, 5));
-		g2D.setColor(new Color(1, 1, 1, 0.3f));
+		g2D.setColor(HIGHLIGHT_COLOR);
 		g2D.fill(new Ellipse2D.Double(-2.1 + xOffset, -29.6 + yOffset, 2.5, 2.5));
 
 		g2D.setTransform(oldTransform);
@@ -334,7 +324,7 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 	public Rectangle getBoundingRectangle(final DisplayObject displayObject, final int type) {
 		if(!displayObject.getMapPane().getGnd().getNoticeManager().hasNotice(displayObject.getSystemObject())) return null;
 
-		if(displayObject.getCoordinates().size() == 0) return null;
+		if(displayObject.getGeometryStore().isEmpty(displayObject.getGeometryIndex())) return null;
 		final Collection<Point2D> p = getPointLocations(displayObject.getMapPane(), displayObject);
 		if(p.size() == 0) return null;
 		final Rectangle rectangle = new Rectangle(new Point((int)p.iterator().next().getX(), (int)p.iterator().next().getY()));
@@ -345,4 +335,16 @@ public class DOTNeedlePainter extends JPanel implements DisplayObjectPainter {
 		rectangle.grow((int)(10 * scale), (int)(40 * scale));
 		return rectangle;
 	}
+
+	private static final BasicStroke NEEDLE_STROKE = new BasicStroke(0.3f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+
+	private static final Color SHADOW_START_COLOR = new Color(0, 0, 0, 0.0f);
+
+	private static final Color SHADOW_END_COLOR = new Color(0, 0, 0, 0.2f);
+
+	private static final Color SELECTED_HEAD_COLOR = Color.red.darker();
+
+	private static final Color HEAD_COLOR = Color.green.darker();
+
+	private static final Color HIGHLIGHT_COLOR = new Color(1, 1, 1, 0.3f);
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.pluginInterfaces;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
+import de.kappich.pat.gnd.displayObjectToolkit.PaintBatch;
+import de.kappich.pat.gnd.gnd.MapPane;
+
+/**
+ * Die Erweiterung von {@link DisplayObjectPainter} für Painter, die ihre DisplayObjects gesammelt zeichnen
+ * können. Die Kartenansicht übergibt einem solchen Painter statt des Graphics2D-Objekts einen
+ * {@link PaintBatch}; der Painter löst dann nur den Stil des Objekts auf und übergibt seine Geometrie.
+ * Gezeichnet wird erst, wenn alle Objekte eines Layers gesammelt sind, und zwar ein Aufruf je Stil.
+ * <p>
+ * Painter, die dieses Interface nicht implementieren, werden weiterhin einzeln mit
+ * {@link DisplayObjectPainter#paintDisplayObject} aufgerufen, ebenso beim Zeichnen in den Auswahlpuffer.
+ * Für die Nebenläufigkeit gelten dieselben Regeln wie für {@link DisplayObjectPainter}.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public interface BatchDisplayObjectPainter extends DisplayObjectPainter {
+
+	/**
+	 * Übergibt die Geometrie des DisplayObjects mit ihrem Stil an den Stapel, statt sie zu zeichnen. Die
+	 * Methode muss dieselben Nebenwirkungen wie {@link #paintDisplayObject} haben, etwa das Setzen des
+	 * Default-Typs. Gibt sie <code>false</code> zurück, so darf sie nichts in den Stapel aufgenommen haben;
+	 * das Objekt wird dann mit {@link #paintDisplayObject} einzeln gezeichnet.
+	 *
+	 * @param mapPane die Kartenansicht
+	 * @param batch der Stapel
+	 * @param displayObject das DisplayObject
+	 * @param selected <code>true</code> genau dann, wenn das DisplayObject selektiert ist
+	 * @return <code>true</code>, wenn das Objekt erledigt ist, und <code>false</code>, wenn es einzeln
+	 *         gezeichnet werden soll
+	 */
+	public boolean addToBatch( MapPane mapPane, PaintBatch batch, DisplayObject displayObject, boolean selected);
+}
@@ -534,7 +534,32 @@ abstract public class DefaultDisplayObjectType implements DisplayObjectType, DOT
 		}
 		return usedColors;
 	}
-	
+
+	/**
+	 * Gibt alle Werte zurück, die die Eigenschaft annehmen kann: den statischen Wert oder die Werte
+	 * aller dynamischen Einträge. Hat der Typ die Eigenschaft nicht, so ist die Menge leer.
+	 *
+	 * @param property eine Eigenschaft
+	 * @return die Menge der benutzten Werte
+	 */
+	@SuppressWarnings("unchecked")
+	public Set<Object> getUsedValues( DOTProperty property) {
+		Set<Object> usedValues = new HashSet<Object>();
+		if ( hasProperty( property)) {
+			if ( isPropertyStatic( null, property)) {
+				usedValues.add( getValueOfStaticProperty( null, property));
+			} else {
+				DynamicDOTItemManager dynamicDOTItemManager = _dynamicDOTItemManagers.get( property);
+				final int size = dynamicDOTItemManager.size();
+				for ( int index = 0; index < size; index++) {
+					final DisplayObjectTypeItemWithInterval dotItemWithInterval = dynamicDOTItemManager.get(index);
+					usedValues.add( dotItemWithInterval.getItem().getPropertyValue());
+				}
+			}
+		}
+		return usedValues;
+	}
+
 	/**
 	 * Gibt den Default-Wert der Eigenschaft zurück.
 	 * 
@@ -668,6 +693,7 @@ abstract public class DefaultDisplayObjectType implements DisplayObjectType, DOT
 			for ( DOTProperty property : defaultDisplayObjectType._dynamicDOTItemManagers.keySet()) {
 				_dynamicDOTItemManagers.put( property, defaultDisplayObjectType._dynamicDOTItemManagers.get( property));
 			}
+			DOTSubscriptionData.attributeNamesChanged( this);
 		}
 	}
 	
@@ -34,6 +34,12 @@ import java.util.List;
 
 /**
  * Das Interface, das von der Klasse eines Plugins implementiert werden muss, die für das Zeichnen verantwortlich ist.
+ * <p>
+ * Die Methoden werden nicht nur im Event-Dispatch-Thread aufgerufen: die Kartenansicht zeichnet ihre
+ * Kacheln in den Threads einer RenderEngine, auch mehrere Kacheln desselben Layers gleichzeitig.
+ * Implementationen dürfen deshalb keinen veränderlichen Zustand in Instanz- oder Klassenvariablen halten
+ * und nur in das übergebene Graphics2D-Objekt zeichnen. Den Zustand eines DisplayObjects lesen sie über
+ * dessen synchronisierte Methoden; Swing-Komponenten dürfen sie nicht benutzen.
  * 
  * @author Kappich Systemberatung
  * @version $Revision$
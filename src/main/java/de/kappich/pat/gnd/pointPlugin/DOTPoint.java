@@ -1467,6 +1467,7 @@ public class DOTPoint implements DisplayObjectType, DOTManager.DOTChangeListener
 			for ( String s : dotPoint._primitiveForms.keySet()) {
 				_primitiveForms.put( s, dotPoint._primitiveForms.get( s));
 			}
+			DOTSubscriptionData.attributeNamesChanged( this);
 		}
 	}
 	
@@ -28,10 +28,10 @@ package de.kappich.pat.gnd.pointPlugin;
 import de.kappich.pat.gnd.colorManagement.ColorManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DOTProperty;
 import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
-import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager;
 import de.kappich.pat.gnd.displayObjectToolkit.DynamicDOTItem;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
 import de.kappich.pat.gnd.displayObjectToolkit.PrimitiveFormPropertyPair;
-import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+import de.kappich.pat.gnd.displayObjectToolkit.StyleCache;
 import de.kappich.pat.gnd.gnd.MapPane;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectPainter;
 import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType.DisplayObjectTypeItem;
@@ -40,7 +40,6 @@ import de.kappich.pat.gnd.pointPlugin.DOTPoint.PrimitiveFormType;
 
 import de.bsvrz.dav.daf.main.Data;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
@@ -72,17 +71,19 @@ public class DOTPointPainter implements DisplayObjectPainter {
 		final DOTPoint dotPoint = (DOTPoint) displayObject.getDOTCollection().getDisplayObjectType(
 				mapPane.getMapScale().intValue());
 		if ( dotPoint != null) {
-			List<Object> coor = displayObject.getCoordinates( 0);
-			if ( coor.isEmpty()) {
+			final GeometryStore geometryStore = displayObject.getGeometryStore();
+			final int geometryIndex = displayObject.getGeometryIndex();
+			if ( geometryStore.isEmpty( geometryIndex)) {
 				return;
 			}
-			final PointWithAngle pointWithAngle = (PointWithAngle) coor.get(0);
+			final int part = geometryStore.getFirstPart( geometryIndex);
+			final int vertex = geometryStore.getFirstVertex( part);
 			AffineTransform angleTransformation = getAngleTransformation( 
 					dotPoint.getTranslationFactor(),
-					pointWithAngle.getAngle());
-			final Point2D point = pointWithAngle.getPoint();
-			final Double xAsDouble = point.getX();
-			final Double yAsDouble = point.getY();
+					geometryStore.getAngle( part));
+			final double xAsDouble = geometryStore.getX( vertex);
+			final double yAsDouble = geometryStore.getY( vertex);
+			final Point2D point = new Point2D.Double( xAsDouble, yAsDouble);
 			List<Shape> drawnShapes = new ArrayList<Shape>();
 			Ellipse2D.Double pointCircle = null;
 			for ( PrimitiveForm primitiveForm : dotPoint.getPrimitiveForms()) {
@@ -96,7 +97,7 @@ public class DOTPointPainter implements DisplayObjectPainter {
 					if ( !selected) {
 						g2D.setColor( color);
 					} else {
-						g2D.setColor( color.darker());
+						g2D.setColor( StyleCache.getDarker( color));
 					}
 					final Double radius = diameter / 2.;
 					pointCircle = new Ellipse2D.Double( xAsDouble-radius, yAsDouble-radius, 2*radius, 2*radius);
@@ -107,23 +108,17 @@ public class DOTPointPainter implements DisplayObjectPainter {
 					final Color fillColor = determineFillColor(displayObject, dotPoint, primitiveForm.getName());
 					final Color fillColorWithTransparency;
 					if ( fillColor == null ) {	// keine Farbe, deshalb transparent setzen
-						fillColorWithTransparency = new Color(0, 0, 0, 0);
+						fillColorWithTransparency = StyleCache.TRANSPARENT;
 					} else if ( fillColor.getAlpha() == 0) { // Farbe ist schon transparent
 						fillColorWithTransparency = fillColor;
 					} else {
 						final Integer transparency = determineTransparency(displayObject, dotPoint, primitiveForm.getName());
-						if ( transparency == null) {
-							fillColorWithTransparency = new Color(fillColor.getRed(), 
-									fillColor.getGreen(), fillColor.getBlue());
-						} else {
-							fillColorWithTransparency = new Color(fillColor.getRed(), 
-									fillColor.getGreen(), fillColor.getBlue(), transparency); 
-						}
+						fillColorWithTransparency = StyleCache.getColorWithAlpha( fillColor, transparency);
 					}
 					if ( !selected) {
 						g2D.setColor( fillColorWithTransparency);
 					} else {
-						g2D.setColor( fillColorWithTransparency.brighter());
+						g2D.setColor( StyleCache.getBrighter( fillColorWithTransparency));
 					}
 					final ShapeWithReferencePoint shapeWithRefPoint = getShape( point, primitiveForm);
 					if ( shapeWithRefPoint == null) {
@@ -134,7 +129,7 @@ public class DOTPointPainter implements DisplayObjectPainter {
 					g2D.setColor( Color.BLACK);
 					final Double strokeWidth = determineStrokeWidth( displayObject, dotPoint, primitiveForm.getName());
 					if ( strokeWidth != null && strokeWidth.floatValue()!=0.0f) {
-						g2D.setStroke( new BasicStroke( strokeWidth.floatValue()));
+						g2D.setStroke( StyleCache.getStroke( strokeWidth));
 						g2D.draw( shape);
 					}
 					drawnShapes.add( shape);
@@ -143,12 +138,11 @@ public class DOTPointPainter implements DisplayObjectPainter {
 					if ( !selected) {
 						g2D.setColor( color);
 					} else {
-						g2D.setColor( color.brighter());
+						g2D.setColor( StyleCache.getBrighter( color));
 					}
 					final int style = determineTextStyle(displayObject, dotPoint, primitiveForm.getName());
 					final int size = determineTextSize(displayObject, dotPoint, primitiveForm.getName());
-					Font font = new Font( null, style, size);
-					g2D.setFont(font);
+					g2D.setFont( StyleCache.getFont( style, size));
 					String text = determineText(displayObject, dotPoint, primitiveForm.getName());
 					if ( text == null) {
 						continue;
@@ -168,7 +162,7 @@ public class DOTPointPainter implements DisplayObjectPainter {
 				angleTransformation.transform(translation1, translation2);
 				final Double x = translation2.getX();
 				final Double y = translation2.getY();
-				Line2D.Double line = new Line2D.Double(xAsDouble.intValue(), yAsDouble.intValue(), x.intValue(), y.intValue());
+				Line2D.Double line = new Line2D.Double((int) xAsDouble, (int) yAsDouble, x.intValue(), y.intValue());
 				if ( pointCircle != null) {
 					List<Shape> shapes = new ArrayList<Shape>();
 					shapes.add( pointCircle);
@@ -183,7 +177,7 @@ public class DOTPointPainter implements DisplayObjectPainter {
 					stretchLineAtTheEnd( line, 0.9);
 					counter++;
 				}
-				g2D.setStroke( new BasicStroke(1.f));
+				g2D.setStroke( StyleCache.THIN_STROKE);
 				g2D.draw( line);
 			}
 		}
@@ -234,9 +228,9 @@ public class DOTPointPainter implements DisplayObjectPainter {
 	 */
 	private AffineTransform getAngleTransformation( 
 			final Double translationFactor,
-			final Double angle) {
+			final double angle) {
 		AffineTransform angleTransformation = new AffineTransform();
-		if ( angle.isNaN()) {
+		if ( Double.isNaN( angle)) {
 			return angleTransformation;
 		}
 		angleTransformation.translate( - translationFactor * Math.sin( angle), translationFactor * Math.cos( angle));
@@ -692,13 +686,12 @@ public class DOTPointPainter implements DisplayObjectPainter {
 	public Rectangle getBoundingRectangle(DisplayObject displayObject, int type) {
 		// Provisorische Implementation
 		Rectangle rectangle = null;
-		for ( Object o : displayObject.getCoordinates(type)) {
-			if ( o instanceof DisplayObjectManager.PointWithAngle) {
-				DisplayObjectManager.PointWithAngle pwa = (DisplayObjectManager.PointWithAngle) o;
-				rectangle = new Rectangle ( (int)(pwa.getPoint().getX()-250), (int) (pwa.getPoint().getY()-150), 500, 300);
-			} else if ( o instanceof Point2D.Double) {
-				Point2D.Double p = (Point2D.Double) o;
-				rectangle = new Rectangle ( (int)(p.getX()-250), (int) (p.getY()-150), 500, 300);
+		final GeometryStore geometryStore = displayObject.getGeometryStore();
+		final int geometryIndex = displayObject.getGeometryIndex();
+		for ( int part = geometryStore.getFirstPart( geometryIndex); part < geometryStore.getEndPart( geometryIndex); part++) {
+			if ( geometryStore.getPartType( part) == GeometryStore.POINT) {
+				final int vertex = geometryStore.getFirstVertex( part);
+				rectangle = new Rectangle ( (int)(geometryStore.getX( vertex)-250), (int) (geometryStore.getY( vertex)-150), 500, 300);
 			}
 		}
 		return rectangle;
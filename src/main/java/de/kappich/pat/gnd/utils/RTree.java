@@ -0,0 +1,522 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.utils;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ein R-Baum zur räumlichen Indizierung von Objekten über ihre umgebenden Rechtecke.
+ * <p>
+ * Der Baum wird mit {@link #bulkLoad} nach dem Sort-Tile-Recursive-Verfahren (STR) aufgebaut,
+ * was nahezu vollständig gefüllte Knoten mit geringer Überlappung liefert. Danach können einzelne
+ * Elemente mit {@link #insert}, {@link #remove} und {@link #update} geändert werden, ohne den
+ * Baum neu aufzubauen; das ist für Objekte gedacht, deren umgebendes Rechteck sich ändert.
+ * Jedes Element ist höchstens einmal im Baum enthalten, Gleichheit wird mit equals() und
+ * hashCode() bestimmt.
+ * <p>
+ * Die Klasse ist nicht synchronisiert.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class RTree<E> {
+
+	/**
+	 * Konstruiert einen leeren R-Baum mit der Standard-Knotenkapazität.
+	 */
+	public RTree() {
+		this( DEFAULT_NODE_CAPACITY);
+	}
+
+	/**
+	 * Konstruiert einen leeren R-Baum mit der übergebenen Knotenkapazität.
+	 *
+	 * @param nodeCapacity die maximale Anzahl von Einträgen eines Knotens, mindestens 4
+	 */
+	public RTree( int nodeCapacity) {
+		if ( nodeCapacity < 4) {
+			throw new IllegalArgumentException("RTree: die Knotenkapazität muss mindestens 4 sein.");
+		}
+		_nodeCapacity = nodeCapacity;
+		_root = new Node( true, nodeCapacity);
+	}
+
+	/**
+	 * Ersetzt den Inhalt des Baums durch die übergebenen Elemente und baut ihn nach dem
+	 * STR-Verfahren auf. Elemente ohne Rechteck (<code>null</code>) werden nicht aufgenommen.
+	 *
+	 * @param elements die Elemente
+	 * @param rectangles die umgebenden Rechtecke in derselben Reihenfolge wie die Elemente
+	 */
+	public void bulkLoad( List<E> elements, List<? extends Rectangle2D> rectangles) {
+		if ( elements.size() != rectangles.size()) {
+			throw new IllegalArgumentException("RTree.bulkLoad: die Listen müssen gleich lang sein.");
+		}
+		_entries.clear();
+		final List<Bounded> level = new ArrayList<Bounded>( elements.size());
+		for ( int i = 0; i < elements.size(); i++) {
+			final E element = elements.get( i);
+			final Rectangle2D rectangle = rectangles.get( i);
+			if ( element == null || rectangle == null || _entries.containsKey( element)) {
+				continue;
+			}
+			final Entry<E> entry = new Entry<E>( element, rectangle);
+			_entries.put( element, entry);
+			level.add( entry);
+		}
+		if ( level.isEmpty()) {
+			_root = new Node( true, _nodeCapacity);
+			return;
+		}
+		List<Bounded> currentLevel = level;
+		boolean leafLevel = true;
+		do {
+			currentLevel = packLevel( currentLevel, leafLevel);
+			leafLevel = false;
+		} while ( currentLevel.size() > 1);
+		_root = (Node) currentLevel.get( 0);
+	}
+
+	/*
+	 * Fasst die Einträge einer Ebene nach STR zu Knoten zusammen: Sortieren nach dem x-Mittelpunkt,
+	 * Aufteilen in senkrechte Streifen, innerhalb der Streifen Sortieren nach dem y-Mittelpunkt.
+	 */
+	private List<Bounded> packLevel( List<Bounded> entries, boolean leafLevel) {
+		final int n = entries.size();
+		final int numberOfNodes = (n + _nodeCapacity - 1) / _nodeCapacity;
+		final int numberOfSlices = (int) Math.ceil( Math.sqrt( numberOfNodes));
+		final int sliceSize = numberOfSlices * _nodeCapacity;
+		final Bounded[] sorted = entries.toArray( new Bounded[n]);
+		Arrays.sort( sorted, X_COMPARATOR);
+		final List<Bounded> nodes = new ArrayList<Bounded>( numberOfNodes);
+		for ( int sliceStart = 0; sliceStart < n; sliceStart += sliceSize) {
+			final int sliceEnd = Math.min( sliceStart + sliceSize, n);
+			Arrays.sort( sorted, sliceStart, sliceEnd, Y_COMPARATOR);
+			for ( int nodeStart = sliceStart; nodeStart < sliceEnd; nodeStart += _nodeCapacity) {
+				final int nodeEnd = Math.min( nodeStart + _nodeCapacity, sliceEnd);
+				final Node node = new Node( leafLevel, _nodeCapacity);
+				for ( int i = nodeStart; i < nodeEnd; i++) {
+					node.add( sorted[i]);
+				}
+				nodes.add( node);
+			}
+		}
+		return nodes;
+	}
+
+	/**
+	 * Fügt ein Element mit dem übergebenen Rechteck ein. Ist das Element bereits enthalten,
+	 * so wird sein Rechteck aktualisiert.
+	 *
+	 * @param element das Element
+	 * @param rectangle das umgebende Rechteck
+	 */
+	public void insert( E element, Rectangle2D rectangle) {
+		if ( element == null || rectangle == null) {
+			throw new IllegalArgumentException("RTree.insert: Element und Rechteck dürfen nicht null sein.");
+		}
+		if ( _entries.containsKey( element)) {
+			update( element, rectangle);
+			return;
+		}
+		final Entry<E> entry = new Entry<E>( element, rectangle);
+		_entries.put( element, entry);
+		insertEntry( entry);
+	}
+
+	private void insertEntry( Entry<E> entry) {
+		Node node = _root;
+		while ( !node._isLeaf) {
+			node = node.chooseChild( entry);
+		}
+		node.add( entry);
+		Node current = node;
+		while ( current != null) {
+			Node parent = current._parent;
+			if ( current._size > _nodeCapacity) {
+				final Node sibling = current.split();
+				if ( parent == null) {
+					parent = new Node( false, _nodeCapacity);
+					parent.add( current);
+					_root = parent;
+				}
+				parent.add( sibling);
+				parent.recomputeBounds();
+			} else if ( parent != null) {
+				parent.include( current);
+			}
+			current = parent;
+		}
+	}
+
+	/**
+	 * Entfernt das Element aus dem Baum.
+	 *
+	 * @param element das Element
+	 * @return <code>true</code> genau dann, wenn das Element enthalten war
+	 */
+	public boolean remove( E element) {
+		final Entry<E> entry = _entries.remove( element);
+		if ( entry == null) {
+			return false;
+		}
+		Node node = entry._parent;
+		node.removeChild( entry);
+		// Leere Knoten werden ausgehängt; alle Blätter bleiben auf derselben Tiefe.
+		while ( node._size == 0 && node._parent != null) {
+			final Node parent = node._parent;
+			parent.removeChild( node);
+			node = parent;
+		}
+		while ( node != null) {
+			node.recomputeBounds();
+			node = node._parent;
+		}
+		if ( _root._size == 0) {
+			_root = new Node( true, _nodeCapacity);
+		} else {
+			while ( !_root._isLeaf && _root._size == 1) {
+				_root = (Node) _root._children[0];
+				_root._parent = null;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Aktualisiert das Rechteck eines Elements. Ist das Rechteck <code>null</code>, so wird das
+	 * Element entfernt; ist das Element noch nicht enthalten, so wird es eingefügt.
+	 *
+	 * @param element das Element
+	 * @param rectangle das neue umgebende Rechteck oder <code>null</code>
+	 */
+	public void update( E element, Rectangle2D rectangle) {
+		if ( rectangle == null) {
+			remove( element);
+			return;
+		}
+		final Entry<E> entry = _entries.get( element);
+		if ( entry == null) {
+			insert( element, rectangle);
+			return;
+		}
+		if ( entry.hasBounds( rectangle)) {
+			return;
+		}
+		remove( element);
+		insert( element, rectangle);
+	}
+
+	/**
+	 * Gibt <code>true</code> zurück, wenn das Element im Baum enthalten ist.
+	 *
+	 * @param element das Element
+	 * @return <code>true</code> genau dann, wenn das Element enthalten ist
+	 */
+	public boolean contains( E element) {
+		return _entries.containsKey( element);
+	}
+
+	/**
+	 * Gibt das Rechteck zurück, unter dem das Element indiziert ist.
+	 *
+	 * @param element das Element
+	 * @return das Rechteck oder <code>null</code>, wenn das Element nicht enthalten ist
+	 */
+	public Rectangle2D getBounds( E element) {
+		final Entry<E> entry = _entries.get( element);
+		if ( entry == null) {
+			return null;
+		}
+		return new Rectangle2D.Double( entry._minX, entry._minY,
+				entry._maxX - entry._minX, entry._maxY - entry._minY);
+	}
+
+	/**
+	 * Gibt die Anzahl der Elemente zurück.
+	 *
+	 * @return die Anzahl der Elemente
+	 */
+	public int size() {
+		return _entries.size();
+	}
+
+	/**
+	 * Entfernt alle Elemente.
+	 */
+	public void clear() {
+		_entries.clear();
+		_root = new Node( true, _nodeCapacity);
+	}
+
+	/**
+	 * Fügt alle Elemente, deren Rechteck das übergebene Rechteck schneidet oder berührt,
+	 * der übergebenen Collection hinzu.
+	 *
+	 * @param rectangle das Suchrechteck
+	 * @param result die Collection, die die Treffer aufnimmt
+	 * @return die übergebene Collection
+	 */
+	@SuppressWarnings("unchecked")
+	public <C extends Collection<? super E>> C search( Rectangle2D rectangle, C result) {
+		if ( _root._size == 0 || rectangle == null) {
+			return result;
+		}
+		final double minX = rectangle.getMinX();
+		final double minY = rectangle.getMinY();
+		final double maxX = rectangle.getMaxX();
+		final double maxY = rectangle.getMaxY();
+		Node[] stack = _searchStack;
+		_searchStack = null;	// gegen Reentranz, z.B. aus Listenern der Collection
+		if ( stack == null) {
+			stack = new Node[16];
+		}
+		int top = 0;
+		stack[top++] = _root;
+		while ( top > 0) {
+			final Node node = stack[--top];
+			stack[top] = null;
+			if ( !node.intersects( minX, minY, maxX, maxY)) {
+				continue;
+			}
+			final Bounded[] children = node._children;
+			if ( node._isLeaf) {
+				for ( int i = 0; i < node._size; i++) {
+					if ( children[i].intersects( minX, minY, maxX, maxY)) {
+						result.add( ((Entry<E>) children[i])._element);
+					}
+				}
+			} else {
+				for ( int i = 0; i < node._size; i++) {
+					if ( top == stack.length) {
+						stack = Arrays.copyOf( stack, 2 * stack.length);
+					}
+					stack[top++] = (Node) children[i];
+				}
+			}
+		}
+		_searchStack = stack;
+		return result;
+	}
+
+	/**
+	 * Gibt eine Liste aller Elemente zurück, deren Rechteck das übergebene Rechteck schneidet
+	 * oder berührt.
+	 *
+	 * @param rectangle das Suchrechteck
+	 * @return die Treffer
+	 */
+	public List<E> search( Rectangle2D rectangle) {
+		return search( rectangle, new ArrayList<E>());
+	}
+
+	/*
+	 * Gemeinsame Oberklasse von Knoten und Blatteinträgen: ein achsenparalleles Rechteck.
+	 */
+	private static abstract class Bounded {
+		double _minX;
+		double _minY;
+		double _maxX;
+		double _maxY;
+		Node _parent;
+
+		final boolean intersects( double minX, double minY, double maxX, double maxY) {
+			return _minX <= maxX && minX <= _maxX && _minY <= maxY && minY <= _maxY;
+		}
+
+		final double getCenterX() {
+			return (_minX + _maxX) / 2.;
+		}
+
+		final double getCenterY() {
+			return (_minY + _maxY) / 2.;
+		}
+	}
+
+	private static final class Entry<E> extends Bounded {
+		final E _element;
+
+		Entry( E element, Rectangle2D rectangle) {
+			_element = element;
+			_minX = rectangle.getMinX();
+			_minY = rectangle.getMinY();
+			_maxX = rectangle.getMaxX();
+			_maxY = rectangle.getMaxY();
+		}
+
+		boolean hasBounds( Rectangle2D rectangle) {
+			return _minX == rectangle.getMinX() && _minY == rectangle.getMinY() &&
+				_maxX == rectangle.getMaxX() && _maxY == rectangle.getMaxY();
+		}
+	}
+
+	private static final class Node extends Bounded {
+		final boolean _isLeaf;
+		Bounded[] _children;
+		int _size;
+
+		Node( boolean isLeaf, int nodeCapacity) {
+			_isLeaf = isLeaf;
+			_children = new Bounded[nodeCapacity + 1];	// Platz für einen Überlauf vor dem Split
+			_size = 0;
+			_minX = Double.POSITIVE_INFINITY;
+			_minY = Double.POSITIVE_INFINITY;
+			_maxX = Double.NEGATIVE_INFINITY;
+			_maxY = Double.NEGATIVE_INFINITY;
+		}
+
+		void add( Bounded child) {
+			_children[_size++] = child;
+			child._parent = this;
+			include( child);
+		}
+
+		void include( Bounded child) {
+			if ( child._minX < _minX) {
+				_minX = child._minX;
+			}
+			if ( child._minY < _minY) {
+				_minY = child._minY;
+			}
+			if ( child._maxX > _maxX) {
+				_maxX = child._maxX;
+			}
+			if ( child._maxY > _maxY) {
+				_maxY = child._maxY;
+			}
+		}
+
+		void removeChild( Bounded child) {
+			for ( int i = 0; i < _size; i++) {
+				if ( _children[i] == child) {
+					_children[i] = _children[--_size];
+					_children[_size] = null;
+					child._parent = null;
+					return;
+				}
+			}
+		}
+
+		void recomputeBounds() {
+			_minX = Double.POSITIVE_INFINITY;
+			_minY = Double.POSITIVE_INFINITY;
+			_maxX = Double.NEGATIVE_INFINITY;
+			_maxY = Double.NEGATIVE_INFINITY;
+			for ( int i = 0; i < _size; i++) {
+				include( _children[i]);
+			}
+		}
+
+		/*
+		 * Wählt das Kind mit der geringsten Flächenvergrößerung, bei Gleichstand das kleinere.
+		 */
+		Node chooseChild( Bounded entry) {
+			Node best = null;
+			double bestEnlargement = Double.POSITIVE_INFINITY;
+			double bestArea = Double.POSITIVE_INFINITY;
+			for ( int i = 0; i < _size; i++) {
+				final Node child = (Node) _children[i];
+				final double area = (child._maxX - child._minX) * (child._maxY - child._minY);
+				final double enlargedArea = (Math.max( child._maxX, entry._maxX) - Math.min( child._minX, entry._minX)) *
+					(Math.max( child._maxY, entry._maxY) - Math.min( child._minY, entry._minY));
+				final double enlargement = enlargedArea - area;
+				if ( enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+					best = child;
+					bestEnlargement = enlargement;
+					bestArea = area;
+				}
+			}
+			return best;
+		}
+
+		/*
+		 * Teilt einen übergelaufenen Knoten entlang der Achse mit der größeren Ausdehnung der
+		 * Mittelpunkte in zwei Hälften; dieser Knoten behält die erste Hälfte, die zweite
+		 * wird als neuer Knoten zurückgegeben.
+		 */
+		Node split() {
+			final Bounded[] children = Arrays.copyOf( _children, _size);
+			double minCX = Double.POSITIVE_INFINITY, maxCX = Double.NEGATIVE_INFINITY;
+			double minCY = Double.POSITIVE_INFINITY, maxCY = Double.NEGATIVE_INFINITY;
+			for ( Bounded child : children) {
+				minCX = Math.min( minCX, child.getCenterX());
+				maxCX = Math.max( maxCX, child.getCenterX());
+				minCY = Math.min( minCY, child.getCenterY());
+				maxCY = Math.max( maxCY, child.getCenterY());
+			}
+			Arrays.sort( children, (maxCX - minCX >= maxCY - minCY) ? X_COMPARATOR : Y_COMPARATOR);
+			final int half = children.length / 2;
+			final Node sibling = new Node( _isLeaf, _children.length - 1);
+			Arrays.fill( _children, null);
+			_size = 0;
+			_minX = Double.POSITIVE_INFINITY;
+			_minY = Double.POSITIVE_INFINITY;
+			_maxX = Double.NEGATIVE_INFINITY;
+			_maxY = Double.NEGATIVE_INFINITY;
+			for ( int i = 0; i < children.length; i++) {
+				if ( i < half) {
+					add( children[i]);
+				} else {
+					sibling.add( children[i]);
+				}
+			}
+			return sibling;
+		}
+	}
+
+	private static final Comparator<Bounded> X_COMPARATOR = new Comparator<Bounded>() {
+		public int compare( Bounded b1, Bounded b2) {
+			return Double.compare( b1.getCenterX(), b2.getCenterX());
+		}
+	};
+
+	private static final Comparator<Bounded> Y_COMPARATOR = new Comparator<Bounded>() {
+		public int compare( Bounded b1, Bounded b2) {
+			return Double.compare( b1.getCenterY(), b2.getCenterY());
+		}
+	};
+
+	/**
+	 * Die Standard-Knotenkapazität.
+	 */
+	public static final int DEFAULT_NODE_CAPACITY = 16;
+
+	private final int _nodeCapacity;
+
+	private Node _root;
+
+	private final Map<E, Entry<E>> _entries = new HashMap<E, Entry<E>>();
+
+	private Node[] _searchStack = null;
+}
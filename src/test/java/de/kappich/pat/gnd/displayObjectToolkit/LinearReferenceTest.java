@@ -0,0 +1,163 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObjectManager.PointWithAngle;
+import org.junit.Test;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Prüft die {@link LinearReference}: Auflösen von Offsets, Begrenzung auf die Linie, Segmente der
+ * Länge 0, Lücken und die Übereinstimmung von Einzel- und Stapelauflösung.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class LinearReferenceTest {
+
+	@Test
+	public void testPointsAlongTheLine() {
+		final LinearReference linearReference = new LinearReference( polyline( 0., 0., 10., 0., 10., 10.));
+		assertEquals( 20., linearReference.getLength(), EPSILON);
+		assertEquals( 3, linearReference.getNumberOfVertices());
+		assertPoint( 5., 0., linearReference.getPointAt( 5.));
+		assertEquals( 0., linearReference.getPointAt( 5.).getAngle(), EPSILON);
+		assertPoint( 10., 5., linearReference.getPointAt( 15.));
+		assertEquals( Math.PI / 2., linearReference.getPointAt( 15.).getAngle(), EPSILON);
+		// Ein Stützpunkt gehört zum ersten Segment, das an ihm endet.
+		assertPoint( 10., 0., linearReference.getPointAt( 10.));
+		assertEquals( 0., linearReference.getPointAt( 10.).getAngle(), EPSILON);
+	}
+
+	@Test
+	public void testOffsetsAreClampedToTheLine() {
+		final LinearReference linearReference = new LinearReference( polyline( 0., 0., 10., 0., 10., 10.));
+		assertPoint( 0., 0., linearReference.getPointAt( 0.));
+		assertPoint( 10., 10., linearReference.getPointAt( 20.));
+		assertNull( linearReference.getPointAt( -0.001));
+		assertNull( linearReference.getPointAt( 20.001));
+		assertNull( linearReference.getLocation( Double.NaN));
+		assertEquals( 0., linearReference.getNearestOffset( -5., 0.), EPSILON);
+		assertEquals( 20., linearReference.getNearestOffset( 20., 30.), EPSILON);
+		assertEquals( 13., linearReference.getNearestOffset( 12., 3.), EPSILON);
+	}
+
+	@Test
+	public void testZeroLengthSegments() {
+		final LinearReference linearReference = new LinearReference( polyline( 0., 0., 0., 0., 10., 0., 10., 0.));
+		assertEquals( 10., linearReference.getLength(), EPSILON);
+		assertPoint( 0., 0., linearReference.getPointAt( 0.));
+		assertPoint( 5., 0., linearReference.getPointAt( 5.));
+		assertEquals( 0., linearReference.getPointAt( 5.).getAngle(), EPSILON);
+		assertPoint( 10., 0., linearReference.getPointAt( 10.));
+		assertEquals( 3., linearReference.getNearestOffset( 3., 1.), EPSILON);
+		// Eine Linie aus einem einzigen Punkt hat keine Positionen.
+		final LinearReference point = new LinearReference( polyline( 4., 4.));
+		assertEquals( 0., point.getLength(), EPSILON);
+		assertNull( point.getPointAt( 0.));
+		assertEquals( Double.NaN, point.getNearestOffset( 4., 4.), 0.);
+	}
+
+	@Test
+	public void testGapsDoNotCount() {
+		final Path2D.Double polyline = polyline( 0., 0., 10., 0.);
+		polyline.moveTo( 20., 0.);
+		polyline.lineTo( 30., 0.);
+		final LinearReference linearReference = new LinearReference( polyline);
+		assertEquals( 20., linearReference.getLength(), EPSILON);
+		assertPoint( 10., 0., linearReference.getPointAt( 10.));
+		assertPoint( 25., 0., linearReference.getPointAt( 15.));
+		assertEquals( 10., linearReference.getNearestOffset( 20., 5.), EPSILON);
+		assertEquals( 10., linearReference.getNearestOffset( 15., -1.), EPSILON);
+	}
+
+	@Test
+	public void testBatchResolutionMatchesSingleResolution() {
+		final Path2D.Double polyline = polyline( 0., 0., 10., 0., 10., 0., 15., 5.);
+		polyline.moveTo( 100., 100.);
+		polyline.lineTo( 100., 150.);
+		polyline.lineTo( 140., 150.);
+		final LinearReference linearReference = new LinearReference( polyline);
+		final Random random = new Random( 4711L);
+		final double[] offsets = new double[500];
+		for ( int i = 0; i < offsets.length; i++) {
+			offsets[i] = -5. + random.nextDouble() * (linearReference.getLength() + 10.);
+		}
+		offsets[0] = 0.;
+		offsets[1] = 10.;
+		offsets[2] = linearReference.getLength();
+		final PointWithAngle[] points = linearReference.getPointsAt( offsets);
+		assertEquals( offsets.length, points.length);
+		for ( int i = 0; i < offsets.length; i++) {
+			final PointWithAngle expected = linearReference.getPointAt( offsets[i]);
+			if ( expected == null) {
+				assertNull( points[i]);
+			} else {
+				assertPoint( expected.getPoint().getX(), expected.getPoint().getY(), points[i]);
+				assertEquals( expected.getAngle(), points[i].getAngle());
+			}
+		}
+	}
+
+	@Test
+	public void testCreateOnlyForSinglePolylines() {
+		final List<Object> coordinates = new ArrayList<Object>();
+		coordinates.add( polyline( 0., 0., 1., 1.));
+		assertNotNull( LinearReference.create( coordinates));
+		coordinates.add( polyline( 2., 2., 3., 3.));
+		assertNull( LinearReference.create( coordinates));
+		coordinates.clear();
+		coordinates.add( new Point2D.Double( 1., 1.));
+		assertNull( LinearReference.create( coordinates));
+	}
+
+	private static Path2D.Double polyline( double... coordinates) {
+		final Path2D.Double polyline = new Path2D.Double();
+		polyline.moveTo( coordinates[0], coordinates[1]);
+		for ( int i = 2; i < coordinates.length; i += 2) {
+			polyline.lineTo( coordinates[i], coordinates[i + 1]);
+		}
+		return polyline;
+	}
+
+	private static void assertPoint( double x, double y, PointWithAngle pointWithAngle) {
+		assertNotNull( pointWithAngle);
+		assertEquals( x, pointWithAngle.getPoint().getX(), EPSILON);
+		assertEquals( y, pointWithAngle.getPoint().getY(), EPSILON);
+	}
+
+	private static final double EPSILON = 1e-9;
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Prüft die offene Adressierung der {@link ObjectIdMap}: Einfügen, Ersetzen, Entfernen mit Nachrücken
+ * der Sondierungskette und Vergrößern.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class ObjectIdMapTest {
+
+	@Test
+	public void testPutGetAndReplace() {
+		final ObjectIdMap<String> map = new ObjectIdMap<String>();
+		assertNull( map.get( 1L));
+		assertNull( map.put( 1L, "a"));
+		assertNull( map.put( -7L, "b"));
+		assertNull( map.put( 0L, "c"));
+		assertEquals( "a", map.get( 1L));
+		assertEquals( "b", map.get( -7L));
+		assertEquals( "c", map.get( 0L));
+		assertEquals( "a", map.put( 1L, "d"));
+		assertEquals( "d", map.get( 1L));
+		assertEquals( 3, map.size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullValuesAreRejected() {
+		new ObjectIdMap<String>().put( 1L, null);
+	}
+
+	@Test
+	public void testRemove() {
+		final ObjectIdMap<String> map = new ObjectIdMap<String>();
+		map.put( 1L, "a");
+		map.put( 2L, "b");
+		assertNull( map.remove( 3L));
+		assertEquals( "a", map.remove( 1L));
+		assertNull( map.remove( 1L));
+		assertNull( map.get( 1L));
+		assertEquals( "b", map.get( 2L));
+		assertEquals( 1, map.size());
+	}
+
+	@Test
+	public void testResizeKeepsAllEntries() {
+		final ObjectIdMap<Long> map = new ObjectIdMap<Long>();
+		final List<Long> values = new ArrayList<Long>();
+		// Fortlaufende Ids wie bei Systemobjekten, weit über die Anfangskapazität hinaus.
+		for ( long id = 1000000L; id < 1010000L; id++) {
+			final Long value = id;
+			values.add( value);
+			map.put( id, value);
+		}
+		assertEquals( values.size(), map.size());
+		for ( Long value : values) {
+			assertSame( value, map.get( value));
+		}
+	}
+
+	@Test
+	public void testRemovalKeepsProbeChainsIntact() {
+		// Viele Einfügungen und Entfernungen in einer kleinen Tabelle erzeugen lange Sondierungsketten,
+		// aus denen mitten heraus entfernt wird. Das Ergebnis muss immer dem der HashMap entsprechen.
+		final ObjectIdMap<Long> map = new ObjectIdMap<Long>();
+		final Map<Long, Long> reference = new HashMap<Long, Long>();
+		final Random random = new Random( 4711L);
+		for ( int i = 0; i < 100000; i++) {
+			final long id = random.nextInt( 64) * 1024L;
+			if ( random.nextBoolean()) {
+				final Long value = (long) i;
+				assertEquals( reference.put( id, value), map.put( id, value));
+			} else {
+				assertEquals( reference.remove( id), map.remove( id));
+			}
+			assertEquals( reference.size(), map.size());
+		}
+		for ( long id = 0; id < 64 * 1024L; id += 1024L) {
+			assertEquals( reference.get( id), map.get( id));
+		}
+	}
+}
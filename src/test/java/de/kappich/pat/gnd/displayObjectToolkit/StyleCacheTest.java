@@ -0,0 +1,119 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.displayObjectToolkit;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prüft, dass der {@link StyleCache} für dieselben Eigenschaftswerte dieselben Instanzen liefert und
+ * wiederholte Anfragen keinen Speicher anfordern.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class StyleCacheTest {
+
+	@Test
+	public void testStrokesAreInterned() {
+		final BasicStroke stroke = StyleCache.getStroke( 2.5);
+		assertSame( stroke, StyleCache.getStroke( 2.5));
+		assertEquals( 2.5f, stroke.getLineWidth(), 0.f);
+		final BasicStroke roundStroke = StyleCache.getRoundStroke( 2., false);
+		final BasicStroke selectedStroke = StyleCache.getRoundStroke( 2., true);
+		assertSame( roundStroke, StyleCache.getRoundStroke( 2., false));
+		assertSame( selectedStroke, StyleCache.getRoundStroke( 2., true));
+		assertEquals( 2.f, roundStroke.getLineWidth(), 0.f);
+		assertEquals( 4.f, selectedStroke.getLineWidth(), 0.f);
+		assertEquals( BasicStroke.CAP_ROUND, roundStroke.getEndCap());
+	}
+
+	@Test
+	public void testColorsAreInterned() {
+		final Color color = new Color( 10, 20, 30);
+		final Color transparent = StyleCache.getColorWithAlpha( color, 128);
+		assertSame( transparent, StyleCache.getColorWithAlpha( color, 128));
+		// Gleiche Farben teilen sich die Varianten, auch wenn es verschiedene Instanzen sind.
+		assertSame( transparent, StyleCache.getColorWithAlpha( new Color( 10, 20, 30), 128));
+		assertEquals( 128, transparent.getAlpha());
+		assertSame( color, StyleCache.getColorWithAlpha( color, null));
+		assertSame( StyleCache.getDarker( color), StyleCache.getDarker( color));
+		assertEquals( color.darker(), StyleCache.getDarker( color));
+		assertSame( StyleCache.getBrighter( color), StyleCache.getBrighter( color));
+		assertEquals( color.brighter(), StyleCache.getBrighter( color));
+	}
+
+	@Test
+	public void testFontsAreInterned() {
+		final Font font = StyleCache.getFont( Font.BOLD, 12);
+		assertSame( font, StyleCache.getFont( Font.BOLD, 12));
+		assertEquals( Font.BOLD, font.getStyle());
+		assertEquals( 12, font.getSize());
+	}
+
+	@Test
+	public void testRepeatedLookupsDoNotAllocate() {
+		final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue( threadMXBean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		Assume.assumeTrue( allocationBean.isThreadAllocatedMemorySupported() &&
+				allocationBean.isThreadAllocatedMemoryEnabled());
+		final Double width = 3.;
+		final Integer alpha = 100;
+		final Color color = Color.ORANGE;
+		final long threadId = Thread.currentThread().getId();
+		// Aufwärmen: beim ersten Mal werden die Instanzen angelegt.
+		lookUp( width, alpha, color, 1000);
+		final long before = allocationBean.getThreadAllocatedBytes( threadId);
+		lookUp( width, alpha, color, 100000);
+		final long allocated = allocationBean.getThreadAllocatedBytes( threadId) - before;
+		// Ein paar Bytes für die Messung selbst sind erlaubt, aber nicht ein Objekt je Anfrage.
+		assertTrue( "Angefordert: " + allocated + " Bytes", allocated < 10000);
+	}
+
+	private static int lookUp( final Double width, final Integer alpha, final Color color, final int repetitions) {
+		int hash = 0;
+		for ( int i = 0; i < repetitions; i++) {
+			hash += StyleCache.getStroke( width).hashCode();
+			hash += StyleCache.getRoundStroke( width, (i & 1) == 0).hashCode();
+			hash += StyleCache.getColorWithAlpha( color, alpha).hashCode();
+			hash += StyleCache.getDarker( color).hashCode();
+			hash += StyleCache.getBrighter( color).hashCode();
+			hash += StyleCache.getFont( Font.PLAIN, 10).hashCode();
+		}
+		return hash;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.linePlugin;
+
+import de.kappich.pat.gnd.displayObjectToolkit.DOTCollection;
+import de.kappich.pat.gnd.displayObjectToolkit.DisplayObject;
+import de.kappich.pat.gnd.displayObjectToolkit.GeometryStore;
+import de.kappich.pat.gnd.displayObjectToolkit.PrimitiveFormPropertyPair;
+import de.kappich.pat.gnd.displayObjectToolkit.StyleCache;
+import de.kappich.pat.gnd.pluginInterfaces.DisplayObjectType;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prüft, dass der {@link DOTLinePainter} beim Zeichnen eines Bildes mit dem {@link StyleCache} nicht
+ * mehr Speicher anfordert als Java2D für dieselben Linien selbst.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class DOTLinePainterTest {
+
+	@Before
+	public void setUp() {
+		_geometryStore = new GeometryStore( NUMBER_OF_OBJECTS, NUMBER_OF_OBJECTS * NUMBER_OF_VERTICES);
+		for ( int object = 0; object < NUMBER_OF_OBJECTS; object++) {
+			final Path2D.Double polyline = new Path2D.Double();
+			polyline.moveTo( object, 0.);
+			for ( int vertex = 1; vertex < NUMBER_OF_VERTICES; vertex++) {
+				polyline.lineTo( object + (vertex % 3), vertex * 10.);
+			}
+			final List<Object> coordinates = new ArrayList<Object>();
+			coordinates.add( polyline);
+			_geometryStore.add( coordinates);
+		}
+		_geometryStore.trimToSize();
+		_geometryStore.computeLevelsOfDetail();
+		_painter = new DOTLinePainter();
+		_displayObjects = new ArrayList<DisplayObject>();
+		for ( int object = 0; object < NUMBER_OF_OBJECTS; object++) {
+			_displayObjects.add( new DisplayObject( null, _geometryStore, object, _painter, new DOTCollection(),
+					new HashMap<DisplayObjectType, List<PrimitiveFormPropertyPair>>(), null));
+		}
+		_image = new BufferedImage( 256, 256, BufferedImage.TYPE_INT_ARGB);
+	}
+
+	@Test
+	public void testPaintingAFrameDoesNotAllocateStyles() {
+		final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue( threadMXBean instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+		Assume.assumeTrue( allocationBean.isThreadAllocatedMemorySupported() &&
+				allocationBean.isThreadAllocatedMemoryEnabled());
+		final long threadId = Thread.currentThread().getId();
+		final Graphics2D g2D = _image.createGraphics();
+		try {
+			// Aufwärmen: beim ersten Mal legen StyleCache und Java2D ihre Objekte an.
+			for ( int frame = 0; frame < FRAMES; frame++) {
+				paintFrame( g2D);
+				paintReferenceFrame( g2D);
+			}
+			long before = allocationBean.getThreadAllocatedBytes( threadId);
+			for ( int frame = 0; frame < FRAMES; frame++) {
+				paintReferenceFrame( g2D);
+			}
+			final long reference = allocationBean.getThreadAllocatedBytes( threadId) - before;
+			before = allocationBean.getThreadAllocatedBytes( threadId);
+			for ( int frame = 0; frame < FRAMES; frame++) {
+				paintFrame( g2D);
+			}
+			final long allocated = allocationBean.getThreadAllocatedBytes( threadId) - before;
+			// Ein Objekt je Linie wären schon NUMBER_OF_OBJECTS * 16 Bytes je Bild.
+			assertTrue( "Angefordert: " + allocated + " Bytes, Java2D allein: " + reference + " Bytes",
+					allocated <= reference + FRAMES * 1024);
+		}
+		finally {
+			g2D.dispose();
+		}
+	}
+
+	/*
+	 * Zeichnet alle Linien mit dem Painter; jede zehnte ist selektiert.
+	 */
+	private void paintFrame( final Graphics2D g2D) {
+		for ( int object = 0; object < NUMBER_OF_OBJECTS; object++) {
+			_painter.paintLine( g2D, _displayObjects.get( object), COLOR, 0, STROKE_WIDTH, TOLERANCE, (object % 10) == 0);
+		}
+	}
+
+	/*
+	 * Zeichnet dieselben Linien mit denselben Stricharten und Farben direkt.
+	 */
+	private void paintReferenceFrame( final Graphics2D g2D) {
+		for ( int object = 0; object < NUMBER_OF_OBJECTS; object++) {
+			final boolean selected = (object % 10) == 0;
+			g2D.setColor( selected ? StyleCache.getDarker( COLOR) : COLOR);
+			g2D.setStroke( StyleCache.getRoundStroke( STROKE_WIDTH, selected));
+			for ( int part = _geometryStore.getFirstPart( object); part < _geometryStore.getEndPart( object); part++) {
+				g2D.draw( _geometryStore.getSharedPath( part, TOLERANCE));
+			}
+		}
+	}
+
+	private static final int NUMBER_OF_OBJECTS = 200;
+
+	private static final int NUMBER_OF_VERTICES = 20;
+
+	private static final int FRAMES = 20;
+
+	private static final Color COLOR = new Color( 200, 50, 20);
+
+	private static final double STROKE_WIDTH = 3.;
+
+	private static final double TOLERANCE = 1.;
+
+	private GeometryStore _geometryStore;
+
+	private DOTLinePainter _painter;
+
+	private List<DisplayObject> _displayObjects;
+
+	private BufferedImage _image;
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2009 by Kappich Systemberatung Aachen
+ *
+ * This file is part of de.kappich.pat.gnd.
+ *
+ * de.kappich.pat.gnd is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * de.kappich.pat.gnd is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with de.kappich.pat.gnd.  If not, see <http://www.gnu.org/licenses/>.
+
+ * Contact Information:
+ * Kappich Systemberatung
+ * Martin-Luther-Straße 14
+ * 52062 Aachen, Germany
+ * phone: +49 241 4090 436
+ * mail: <info@kappich.de>
+ */
+package de.kappich.pat.gnd.utils;
+
+import org.junit.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Prüft den {@link RTree}: Anfragen nach dem STR-Aufbau sowie nach Einfügen, Verschieben und Entfernen
+ * einzelner Elemente werden mit einer vollständigen Suche über alle Rechtecke verglichen.
+ *
+ * @author Kappich Systemberatung
+ * @version $Revision$
+ *
+ */
+public class RTreeTest {
+
+	@Test
+	public void testBulkLoad() {
+		final Random random = new Random( 1);
+		final Map<Integer, Rectangle2D> rectangles = createRectangles( random, 1000);
+		final RTree<Integer> rTree = createTree( rectangles);
+		assertEquals( 1000, rTree.size());
+		assertSearchResults( random, rTree, rectangles);
+	}
+
+	@Test
+	public void testBulkLoadSkipsNullAndDuplicates() {
+		final RTree<Integer> rTree = new RTree<Integer>( NODE_CAPACITY);
+		final Rectangle2D first = new Rectangle2D.Double( 0., 0., 1., 1.);
+		final Rectangle2D second = new Rectangle2D.Double( 5., 5., 1., 1.);
+		rTree.bulkLoad( Arrays.asList( 1, 2, 1, null), Arrays.asList( first, null, second, second));
+		assertEquals( 1, rTree.size());
+		assertTrue( rTree.contains( 1));
+		assertFalse( rTree.contains( 2));
+		assertBounds( first, rTree.getBounds( 1));
+		assertTrue( rTree.search( second).isEmpty());
+	}
+
+	@Test
+	public void testInsert() {
+		final Random random = new Random( 2);
+		final Map<Integer, Rectangle2D> rectangles = createRectangles( random, 1000);
+		final RTree<Integer> rTree = new RTree<Integer>( NODE_CAPACITY);
+		for ( Map.Entry<Integer, Rectangle2D> entry : rectangles.entrySet()) {
+			rTree.insert( entry.getKey(), entry.getValue());
+		}
+		assertEquals( 1000, rTree.size());
+		assertSearchResults( random, rTree, rectangles);
+	}
+
+	@Test
+	public void testSearchAfterUpdate() {
+		final Random random = new Random( 3);
+		final Map<Integer, Rectangle2D> rectangles = createRectangles( random, 1000);
+		final RTree<Integer> rTree = createTree( rectangles);
+		final Rectangle2D oldPlace = rectangles.get( 0);
+		final Rectangle2D newPlace = new Rectangle2D.Double( -500., -500., 1., 1.);
+		rTree.update( 0, newPlace);
+		rectangles.put( 0, newPlace);
+		assertBounds( newPlace, rTree.getBounds( 0));
+		assertEquals( Arrays.asList( 0), rTree.search( new Rectangle2D.Double( -600., -600., 200., 200.)));
+		assertFalse( rTree.search( oldPlace).contains( 0));
+		for ( int i = 0; i < 2000; i++) {
+			final Integer element = random.nextInt( rectangles.size());
+			final Rectangle2D rectangle = createRectangle( random);
+			rTree.update( element, rectangle);
+			rectangles.put( element, rectangle);
+		}
+		assertEquals( 1000, rTree.size());
+		assertSearchResults( random, rTree, rectangles);
+	}
+
+	@Test
+	public void testSearchAfterRemove() {
+		final Random random = new Random( 4);
+		final Map<Integer, Rectangle2D> rectangles = createRectangles( random, 1000);
+		final RTree<Integer> rTree = createTree( rectangles);
+		final Rectangle2D removedPlace = rectangles.get( 7);
+		assertTrue( rTree.remove( 7));
+		rectangles.remove( 7);
+		assertFalse( rTree.remove( 7));
+		assertFalse( rTree.contains( 7));
+		assertNull( rTree.getBounds( 7));
+		assertFalse( rTree.search( removedPlace).contains( 7));
+		for ( int i = 0; i < 1000; i += 2) {
+			rTree.remove( i);
+			rectangles.remove( i);
+		}
+		assertEquals( rectangles.size(), rTree.size());
+		assertSearchResults( random, rTree, rectangles);
+		// Verschieben über null entfernt das Element ebenfalls.
+		rTree.update( 1, null);
+		rectangles.remove( 1);
+		assertSearchResults( random, rTree, rectangles);
+		for ( Integer element : new ArrayList<Integer>( rectangles.keySet())) {
+			assertTrue( rTree.remove( element));
+		}
+		assertEquals( 0, rTree.size());
+		assertTrue( rTree.search( new Rectangle2D.Double( -1000., -1000., 3000., 3000.)).isEmpty());
+		// Nach dem Leeren muss der Baum wieder wachsen können.
+		rTree.insert( 1, removedPlace);
+		assertEquals( Arrays.asList( 1), rTree.search( removedPlace));
+	}
+
+	private static Map<Integer, Rectangle2D> createRectangles( Random random, int n) {
+		final Map<Integer, Rectangle2D> rectangles = new HashMap<Integer, Rectangle2D>();
+		for ( int i = 0; i < n; i++) {
+			rectangles.put( i, createRectangle( random));
+		}
+		return rectangles;
+	}
+
+	private static Rectangle2D createRectangle( Random random) {
+		return new Rectangle2D.Double( random.nextDouble() * WORLD_SIZE, random.nextDouble() * WORLD_SIZE,
+				random.nextDouble() * 20., random.nextDouble() * 20.);
+	}
+
+	private static RTree<Integer> createTree( Map<Integer, Rectangle2D> rectangles) {
+		final List<Integer> elements = new ArrayList<Integer>( rectangles.keySet());
+		final List<Rectangle2D> bounds = new ArrayList<Rectangle2D>( elements.size());
+		for ( Integer element : elements) {
+			bounds.add( rectangles.get( element));
+		}
+		final RTree<Integer> rTree = new RTree<Integer>( NODE_CAPACITY);
+		rTree.bulkLoad( elements, bounds);
+		return rTree;
+	}
+
+	/*
+	 * Vergleicht zufällige Anfragen mit einer vollständigen Suche; Rechtecke gelten wie im
+	 * R-Baum als abgeschlossen, auch Berührungen sind also Treffer.
+	 */
+	private static void assertSearchResults( Random random, RTree<Integer> rTree,
+	                                         Map<Integer, Rectangle2D> rectangles) {
+		for ( int i = 0; i < 200; i++) {
+			final Rectangle2D query = new Rectangle2D.Double( random.nextDouble() * WORLD_SIZE,
+					random.nextDouble() * WORLD_SIZE, random.nextDouble() * 100., random.nextDouble() * 100.);
+			final Set<Integer> expected = new HashSet<Integer>();
+			for ( Map.Entry<Integer, Rectangle2D> entry : rectangles.entrySet()) {
+				final Rectangle2D rectangle = entry.getValue();
+				if ( rectangle.getMinX() <= query.getMaxX() && query.getMinX() <= rectangle.getMaxX()
+						&& rectangle.getMinY() <= query.getMaxY() && query.getMinY() <= rectangle.getMaxY()) {
+					expected.add( entry.getKey());
+				}
+			}
+			final List<Integer> result = rTree.search( query);
+			assertEquals( expected.size(), result.size());
+			assertEquals( expected, new HashSet<Integer>( result));
+		}
+		for ( Map.Entry<Integer, Rectangle2D> entry : rectangles.entrySet()) {
+			assertBounds( entry.getValue(), rTree.getBounds( entry.getKey()));
+		}
+	}
+
+	/*
+	 * getBounds() liefert Breite und Höhe als Differenz der Extremwerte, daher bis auf Rundungsfehler.
+	 */
+	private static void assertBounds( Rectangle2D expected, Rectangle2D actual) {
+		assertEquals( expected.getMinX(), actual.getMinX(), EPSILON);
+		assertEquals( expected.getMinY(), actual.getMinY(), EPSILON);
+		assertEquals( expected.getMaxX(), actual.getMaxX(), EPSILON);
+		assertEquals( expected.getMaxY(), actual.getMaxY(), EPSILON);
+	}
+
+	/** Kleine Knoten, damit schon wenige Elemente mehrere Ebenen und Teilungen erzeugen. */
+	private static final int NODE_CAPACITY = 4;
+
+	private static final double WORLD_SIZE = 1000.;
+
+	private static final double EPSILON = 1e-9;
+}